@@ -0,0 +1,35 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler on, for allocation rates next to
+ * the throughput and sampled latency (p99 and friends) of each benchmark.
+ * Results also go to bench_output.json.
+ *
+ * The JMH jars (jmh-core, jmh-generator-annprocess, jopt-simple and
+ * commons-math3) are in lib/jmh. Annotation processing is turned on for the
+ * benchmarks module so the generated benchmark classes get compiled.
+ *
+ * Takes the usual JMH options, e.g. to run only the ticks on the big map:
+ *   SimulationBenchmark.vehicleTick -p gridSize=59
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result("bench_output.json")
+            .build();
+        new Runner(options).run();
+    }
+}
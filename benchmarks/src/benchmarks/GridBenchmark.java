@@ -0,0 +1,104 @@
+package benchmarks;
+
+import com.FlowLogic.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the map itself: building the road graph, from scratch and
+ * again after a small edit, cloning and snapshotting, and saving and loading.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GridBenchmark {
+
+    @Param({"14", "29", "59", "599"})
+    public int gridSize;
+
+    @Param({"lights", "signs", "mixed"})
+    public String mix;
+
+    private Grid grid;
+
+    // a save of the grid for loadGridState, and a scratch file for saveGridState
+    private File saved;
+    private File scratch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        grid = Scenario.build(gridSize, mix);
+        saved = File.createTempFile("flowlogic-bench", ".json");
+        scratch = File.createTempFile("flowlogic-bench", ".json");
+        grid.saveGridState(saved.getPath());
+        // the graph the rebuilds start from
+        grid.buildRoadGraph();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        saved.delete();
+        scratch.delete();
+    }
+
+    /**
+     * A copy of the grid that hasn't built its road graph yet, made again
+     * before every build so each one starts from scratch.
+     */
+    @State(Scope.Thread)
+    public static class Unbuilt {
+        Grid grid;
+
+        @Setup(Level.Invocation)
+        public void setUp(GridBenchmark bench) {
+            grid = new Grid(bench.grid);
+        }
+    }
+
+    @Benchmark
+    public RoadGraph buildRoadGraph(Unbuilt unbuilt) {
+        return unbuilt.grid.buildRoadGraph();
+    }
+
+    /**
+     * Builds the graph again after a road tile in the middle of the map
+     * changes, which only redoes the nodes around it and the walks that
+     * went over it.
+     */
+    @Benchmark
+    public RoadGraph rebuildRoadGraph() {
+        // a road tile on an avenue, between two crossings
+        int row = 5 * (gridSize / 10) + 4;
+        grid.markChanged(row, row - 2);
+        return grid.buildRoadGraph();
+    }
+
+    @Benchmark
+    public Grid cloneGrid() {
+        return new Grid(grid);
+    }
+
+    @Benchmark
+    public Grid snapshotGrid() {
+        return grid.snapshot();
+    }
+
+    @Benchmark
+    public boolean saveGridState() {
+        return grid.saveGridState(scratch.getPath());
+    }
+
+    @Benchmark
+    public Grid loadGridState() {
+        Grid g = new Grid(gridSize, gridSize);
+        g.loadGridState(saved.getPath());
+        return g;
+    }
+}
@@ -0,0 +1,103 @@
+package benchmarks;
+
+import com.FlowLogic.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point to point routing on big Manhattan grids: plain Dijkstra, A*, and a
+ * contraction hierarchy query, over the same random pairs of nodes. Also
+ * what the hierarchy costs to build, and to load once it's been saved with
+ * the map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingBenchmark {
+
+    @Param({"59", "149", "299", "599"})
+    public int gridSize;
+
+    private static final int PAIRS = 1024;
+
+    private RoadGraph graph;
+    private RouteSolver router;
+    private ContractionHierarchy hierarchy;
+
+    // hierarchy saved for loadHierarchy
+    private File saved;
+
+    // random start and target nodes, taken in turn
+    private int[] starts;
+    private int[] targets;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        graph = Scenario.build(gridSize, "lights").buildRoadGraph();
+        router = new RouteSolver(graph);
+        hierarchy = ContractionHierarchy.build(graph);
+        saved = File.createTempFile("flowlogic-bench", ".ch");
+        hierarchy.save(saved.getPath());
+
+        Random random = new Random(1);
+        starts = new int[PAIRS];
+        targets = new int[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            starts[i] = random.nextInt(graph.nodeCount());
+            targets[i] = random.nextInt(graph.nodeCount());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        saved.delete();
+    }
+
+    private int nextPair() {
+        int i = next;
+        next = (next + 1) % PAIRS;
+        return i;
+    }
+
+    @Benchmark
+    public int dijkstra() {
+        int i = nextPair();
+        router.solve(starts[i], targets[i]);
+        return router.getDistance(targets[i]);
+    }
+
+    @Benchmark
+    public int aStar() {
+        int i = nextPair();
+        router.solveGuided(starts[i], targets[i]);
+        return router.getDistance(targets[i]);
+    }
+
+    @Benchmark
+    public int[] hierarchy() {
+        int i = nextPair();
+        return hierarchy.path(starts[i], targets[i]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public ContractionHierarchy buildHierarchy() {
+        return ContractionHierarchy.build(graph);
+    }
+
+    @Benchmark
+    public ContractionHierarchy loadHierarchy() {
+        return ContractionHierarchy.load(saved.getPath(), graph);
+    }
+}
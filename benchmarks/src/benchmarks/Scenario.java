@@ -0,0 +1,113 @@
+package benchmarks;
+
+import com.FlowLogic.*;
+
+import java.util.ArrayList;
+
+/**
+ * Builds the maps the benchmarks run on: a square city of one-way avenues
+ * every fifth row and column, alternating direction, with an intersection
+ * wherever two of them cross and parking lots along the row avenues.
+ */
+public final class Scenario {
+
+    // distance between avenues
+    private static final int BLOCK = 5;
+
+    private Scenario() {
+    }
+
+    /**
+     * @param size - number of rows and columns of the map
+     * @param mix - what the crossings are: "lights", "signs" or "mixed"
+     * @return the map, with its graph already built
+     */
+    public static Grid build(int size, String mix) {
+        Grid.GRID_SIZE = 32;
+        Grid g = new Grid(size, size);
+        g.setTestingMode(true);
+
+        int avenue = 0;
+        for (int r = BLOCK - 1; r < size; r += BLOCK, avenue++) {
+            Direction d = avenue % 2 == 0 ? Direction.RIGHT : Direction.LEFT;
+            for (int c = 0; c < size; c++) {
+                if (c % BLOCK != BLOCK - 1) {
+                    road(g, r, c, d);
+                }
+            }
+        }
+        avenue = 0;
+        for (int c = BLOCK - 1; c < size; c += BLOCK, avenue++) {
+            Direction d = avenue % 2 == 0 ? Direction.DOWN : Direction.UP;
+            for (int r = 0; r < size; r++) {
+                if (r % BLOCK != BLOCK - 1) {
+                    road(g, r, c, d);
+                }
+            }
+        }
+
+        int crossing = 0;
+        for (int r = BLOCK - 1; r < size; r += BLOCK) {
+            for (int c = BLOCK - 1; c < size; c += BLOCK, crossing++) {
+                g.addObject(intersection(mix, crossing, r, c), r, c);
+            }
+            // a lot on each side of the avenue, away from the column avenues
+            g.addObject(new Parking(), r - 1, 1);
+            g.addObject(new Parking(), r + 1, size - 2);
+        }
+
+        g.buildRoadGraph();
+        return g;
+    }
+
+    private static void road(Grid g, int r, int c, Direction d) {
+        Orientation o = d == Direction.UP || d == Direction.DOWN ? Orientation.VERTICAL : Orientation.HORIZONTAL;
+        g.addObject(new OneWayRoad(o, 40, false, 0, r, c, d, 1, new ArrayList<>()), r, c);
+    }
+
+    private static GridObject intersection(String mix, int crossing, int r, int c) {
+        switch (mix) {
+            case "lights":
+                return new StopLight(null, null, 20, 20, 0, 2, new Road[4], r, c);
+            case "signs":
+                return new StopSign(r, c, new Road[4]);
+            case "mixed":
+                switch (crossing % 3) {
+                    case 0:
+                        return new StopLight(null, null, 20, 20, 0, 2, new Road[4], r, c);
+                    case 1:
+                        return new StopSign(r, c, new Road[4]);
+                    default:
+                        return new Intersection(r, c, new Road[4]);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown intersection mix: " + mix);
+        }
+    }
+
+    /**
+     * @return the roads vehicles can start on, as the TrafficController picks them
+     */
+    public static ArrayList<Road> entrances(Grid g) {
+        ArrayList<Road> entrances = new ArrayList<>();
+        for (GridObject obj : g.getIntersections()) {
+            if (obj instanceof OneWayRoad r && r.isInRoad()) {
+                entrances.add(r);
+            }
+        }
+        return entrances;
+    }
+
+    /**
+     * @return the roads vehicles can end on, as the TrafficController picks them
+     */
+    public static ArrayList<Road> destinations(Grid g) {
+        ArrayList<Road> destinations = new ArrayList<>();
+        for (GridObject obj : g.getIntersections()) {
+            if (obj instanceof OneWayRoad r && g.checkAroundDest(r)) {
+                destinations.add(r);
+            }
+        }
+        return destinations;
+    }
+}
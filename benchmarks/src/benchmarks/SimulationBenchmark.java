@@ -0,0 +1,156 @@
+package benchmarks;
+
+import com.FlowLogic.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of running the simulation: a whole run, a single tick of every
+ * vehicle on the map, and routing a vehicle.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+
+    // ticks a tick population lives for before it's rebuilt, so the
+    // vehicles don't all finish and leave nothing to tick
+    static final int TICK_WINDOW = 1000;
+
+    @Param({"14", "29", "59"})
+    public int gridSize;
+
+    @Param({"25", "100", "250"})
+    public int vehicles;
+
+    @Param({"lights", "signs", "mixed"})
+    public String mix;
+
+    private Grid grid;
+    private ArrayList<Road> entrances;
+    private ArrayList<Road> destinations;
+
+    // vehicles routed in turn by findPath
+    private RouteSolver router;
+    private ArrayList<Vehicle> routed;
+    private int nextRouted;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        grid = Scenario.build(gridSize, mix);
+        entrances = Scenario.entrances(grid);
+        destinations = Scenario.destinations(grid);
+
+        Random random = new Random(1);
+        router = new RouteSolver(grid.buildRoadGraph());
+        routed = new ArrayList<>();
+        for (int i = 0; i < vehicles; i++) {
+            Vehicle v = new Vehicle(18);
+            v.setInOut(entrances.get(random.nextInt(entrances.size())),
+                destinations.get(random.nextInt(destinations.size())));
+            routed.add(v);
+        }
+    }
+
+    /**
+     * A whole run from routing the vehicles to the last one arriving, on one
+     * thread so the numbers don't depend on the machine's core count. Each
+     * run gets a new map, a run leaves the intersections' queues and lights
+     * where it stopped.
+     */
+    @Benchmark
+    public FrameLog runSimulation() {
+        TrafficController tc = new TrafficController(18, vehicles, Scenario.build(gridSize, mix), 1);
+        tc.setThreads(1);
+        return tc.runSimulation();
+    }
+
+    /**
+     * The vehicles vehicleTick ticks, on a map of their own. They carry on
+     * from where the last call left them, and start over before a call once
+     * they've had TICK_WINDOW ticks or have all arrived, outside the time
+     * measured.
+     */
+    @State(Scope.Thread)
+    public static class Population {
+        Grid grid;
+        VehicleStore store;
+        ArrayList<Vehicle> vehicles;
+        SpatialHash nearby;
+        int[] ids;
+        int ticks = TICK_WINDOW;
+
+        @Setup(Level.Invocation)
+        public void setUp(SimulationBenchmark bench) {
+            if (ticks++ < TICK_WINDOW && TrafficController.numCarsLeft > 0) {
+                return;
+            }
+            grid = Scenario.build(bench.gridSize, bench.mix);
+            RouteSolver router = new RouteSolver(grid.buildRoadGraph());
+            store = new VehicleStore(bench.vehicles);
+            vehicles = new ArrayList<>();
+            nearby = new SpatialHash();
+            ids = new int[bench.vehicles];
+            ticks = 1;
+
+            // same entry spacing and routes as the TrafficController would give them
+            Random random = new Random(1);
+            for (int i = 0; i < bench.vehicles; i++) {
+                Vehicle v = new Vehicle(random.nextInt(6) - 3 + 18, store);
+                v.setInOut(bench.entrances.get(random.nextInt(bench.entrances.size())),
+                    bench.destinations.get(random.nextInt(bench.destinations.size())));
+                v.setTimeIn((i + 1) * 5);
+                v.findPath(router, grid.getIntersections());
+                vehicles.add(v);
+                ids[i] = v.getId();
+            }
+            TrafficController.numCarsLeft = bench.vehicles;
+        }
+    }
+
+    /**
+     * One tick of every vehicle on the map, committed the way the
+     * TrafficController does it.
+     */
+    @Benchmark
+    public void vehicleTick(Population p) {
+        for (GridObject g : p.grid.getIntersections()) {
+            if (g instanceof Intersection i) {
+                i.tick();
+            }
+        }
+        p.store.snapshot(p.ids, p.ids.length);
+        for (Vehicle v : p.vehicles) {
+            v.tick(p.grid, p.nearby);
+        }
+        for (Vehicle v : p.vehicles) {
+            v.commit(p.nearby);
+            if (v.isSpawned()) {
+                p.nearby.update(v);
+            } else {
+                p.nearby.remove(v);
+            }
+            v.updateRoadOccupancy(p.grid);
+        }
+    }
+
+    /**
+     * Routing one vehicle from its entrance to its destination, the way the
+     * TrafficController routes them one after the other.
+     */
+    @Benchmark
+    public void findPath(Blackhole bh) {
+        Vehicle v = routed.get(nextRouted);
+        nextRouted = (nextRouted + 1) % routed.size();
+        v.findPath(router, grid.getIntersections());
+        bh.consume(v);
+    }
+}
@@ -1,7 +1,5 @@
 package com.FlowLogic;
 
-import javafx.scene.image.Image;
-
 /**
  * Class definition file for com.FlowLogic.Building objects
  */
@@ -10,7 +8,6 @@ public class Building implements GridObject {
     int rowNum;
     int colNum;
     int xLength, yLength, dailyPopulation;
-    private Image imageFile;
 
     private String color;
 
@@ -25,7 +22,6 @@ public class Building implements GridObject {
         this.xLength = xLength;
         this.yLength = yLength;
         this.dailyPopulation = dailyPopulation;
-        imageFile = new Image("file:Images/RedBuilding.png");
         this.name = "Building";
     }
 
@@ -35,7 +31,6 @@ public class Building implements GridObject {
         this.xLength = xLength;
         this.yLength = yLength;
         this.dailyPopulation = dailyPopulation;
-        imageFile = new Image("file:Images/RedBuilding.png");
         this.name = "Building";
     }
 
@@ -45,7 +40,6 @@ public class Building implements GridObject {
         this.dailyPopulation = 0;
         this.color = "red";
         this.name = "Building";
-        updateImage();
     }
 
     public Building(String color) {
@@ -54,7 +48,6 @@ public class Building implements GridObject {
         this.yLength = 1;
         this.dailyPopulation = 0;
         this.name = "Building";
-        updateImage();
     }
 
     public Building(Building b) {
@@ -65,20 +58,8 @@ public class Building implements GridObject {
         this.dailyPopulation = b.getDailyPopulation();
         this.color = b.getColor();
         this.name = "Building";
-        updateImage();
-    }
-
-    private void updateImage() {
-        if (this.color.equals("red")) {
-            imageFile = new Image("file:Images/RedBuilding.png");
-        } else if (this.color.equals("yellow")) {
-            imageFile = new Image("file:Images/YellowBuilding.png");
-        } else if (this.color.equals("green")) {
-            imageFile = new Image("file:Images/GreenBuilding.png");
-        }
     }
 
-
     public String getColor() {
         return this.color;
     }
@@ -130,7 +111,6 @@ public class Building implements GridObject {
 
     public void setColor(String color) {
         this.color = color;
-        updateImage();
     }
 
     public GridObject clone() {
@@ -149,8 +129,8 @@ public class Building implements GridObject {
                 ", dailyPopulation=" + dailyPopulation +
                 '}';
     }
-    public Image getImageFile() {
-        return imageFile;
+    public TileType getTileType() {
+        return TileType.building(color);
     }
 
     public String getName() {
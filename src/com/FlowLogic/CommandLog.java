@@ -0,0 +1,198 @@
+package com.FlowLogic;
+
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+
+/**
+ * The edits made to a grid, for undoing and redoing them. Keeps at most
+ * maxCommands of them, and only as many as fit in about maxBytes, dropping
+ * the oldest first. Each one only keeps what it changed, so a long history
+ * of small edits costs about as much as the edits themselves, however big
+ * the grid is.
+ *
+ * Can also write every edit to a journal as it's made, one json object per
+ * line. A grid loaded from a save, with the journal started right after it
+ * was saved replayed on top, is the grid as it was when the journal stopped.
+ */
+public class CommandLog {
+    private final int maxCommands;
+    private final long maxBytes;
+
+    // newest last in both, undone holds what a redo would make again
+    private final ArrayDeque<GridCommand> done = new ArrayDeque<>();
+    private final ArrayDeque<GridCommand> undone = new ArrayDeque<>();
+
+    // what everything in done and undone takes
+    private long bytes;
+
+    private BufferedWriter journal;
+
+    /**
+     * @param maxCommands - most edits to keep, undone ones included
+     * @param maxBytes - about the most memory to keep them in
+     */
+    public CommandLog(int maxCommands, long maxBytes) {
+        this.maxCommands = maxCommands;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Makes an edit to the grid and keeps it for undoing. Whatever was
+     * undone before can't be redone after this.
+     */
+    public void run(Grid grid, GridCommand command) {
+        command.apply(grid);
+        for (GridCommand dropped : undone) {
+            bytes -= dropped.bytes();
+        }
+        undone.clear();
+        done.addLast(command);
+        bytes += command.bytes();
+        trim();
+        write(new JSONObject().put("op", "do").put("command", command.toJson()));
+    }
+
+    /**
+     * Takes the last edit back.
+     * @return false if there was nothing to undo
+     */
+    public boolean undo(Grid grid) {
+        if (done.isEmpty()) {
+            return false;
+        }
+        GridCommand command = done.removeLast();
+        command.undo(grid);
+        undone.addLast(command);
+        write(new JSONObject().put("op", "undo"));
+        return true;
+    }
+
+    /**
+     * Makes the last undone edit again.
+     * @return false if there was nothing to redo
+     */
+    public boolean redo(Grid grid) {
+        if (undone.isEmpty()) {
+            return false;
+        }
+        GridCommand command = undone.removeLast();
+        bytes -= command.bytes();
+        command.apply(grid);
+        done.addLast(command);
+        bytes += command.bytes();
+        trim();
+        write(new JSONObject().put("op", "redo"));
+        return true;
+    }
+
+    public boolean canUndo() {
+        return !done.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !undone.isEmpty();
+    }
+
+    /**
+     * @return how many edits are kept, undone ones included
+     */
+    public int size() {
+        return done.size() + undone.size();
+    }
+
+    /**
+     * @return about how much memory the kept edits take
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Forgets every edit, for when the grid is swapped for another one.
+     * The journal, if any, is stopped too.
+     */
+    public void clear() {
+        done.clear();
+        undone.clear();
+        bytes = 0;
+        stopJournal();
+    }
+
+    // drops the oldest edits until it's back under both limits, the last
+    // edit made is always kept
+    private void trim() {
+        while (size() > 1 && (size() > maxCommands || bytes > maxBytes)) {
+            // the redo furthest off goes before anything that can be undone
+            GridCommand dropped = !undone.isEmpty() ? undone.removeFirst() : done.removeFirst();
+            bytes -= dropped.bytes();
+        }
+    }
+
+    /**
+     * Starts writing every edit, undo and redo to a journal, replacing
+     * whatever the file had. Meant to start right after the grid is saved.
+     * @param filename - the file to write the journal to
+     * @throws IOException if the file can't be written
+     */
+    public void startJournal(String filename) throws IOException {
+        stopJournal();
+        journal = new BufferedWriter(new FileWriter(filename));
+    }
+
+    public void stopJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("Error closing journal: " + e.getMessage());
+        }
+        journal = null;
+    }
+
+    private void write(JSONObject entry) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.write(entry.toString());
+            journal.newLine();
+            journal.flush();
+        } catch (IOException e) {
+            System.out.println("Error writing journal, stopping it: " + e.getMessage());
+            stopJournal();
+        }
+    }
+
+    /**
+     * Makes every edit in a journal on the grid, in order, undos and redos
+     * included.
+     * @param grid - the grid loaded from the save the journal was started at
+     * @param filename - the journal
+     * @return the edits, for undoing them afterwards, with no journal of its own
+     * @throws IOException if the journal can't be read
+     */
+    public static CommandLog replay(Grid grid, String filename) throws IOException {
+        CommandLog log = new CommandLog(Integer.MAX_VALUE, Long.MAX_VALUE);
+        for (String line : Files.readAllLines(Paths.get(filename))) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JSONObject entry = new JSONObject(line);
+            switch (entry.getString("op")) {
+                case "do" -> log.run(grid, GridCommand.fromJson(entry.getJSONObject("command")));
+                case "undo" -> log.undo(grid);
+                case "redo" -> log.redo(grid);
+                default -> throw new IOException("Unknown journal entry: " + line);
+            }
+        }
+        return log;
+    }
+}
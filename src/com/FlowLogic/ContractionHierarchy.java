@@ -0,0 +1,752 @@
+package com.FlowLogic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Index over a RoadGraph for fast point to point routing on very big maps.
+ * Nodes are ranked and contracted one at a time from the least important,
+ * adding a shortcut edge wherever removing a node would break the only
+ * shortest path between two of its neighbors. A query then searches from both
+ * ends at once, only ever going up in rank, and meets in the middle after
+ * settling a few hundred nodes instead of most of the map.
+ *
+ * Building takes a while on a big map, so the index can be saved next to the
+ * map file and loaded on later runs, see forMap().
+ *
+ * Queries aren't thread safe, each thread routing at the same time needs its
+ * own copy().
+ */
+public class ContractionHierarchy {
+
+    private static final int MAGIC = 0x464C4348; // "FLCH"
+    private static final int VERSION = 1;
+
+    private static final int INF = Integer.MAX_VALUE;
+
+    // a witness search gives up after settling this many nodes and the
+    // shortcut gets added, which is never wrong, only wasteful
+    private static final int WITNESS_LIMIT = 256;
+
+    private final int nodeCount;
+
+    // of the graph it was built from, so a saved index isn't used on another map
+    private final long fingerprint;
+
+    // edges from each node to higher ranked nodes: node u's are
+    // [upOffsets[u], upOffsets[u + 1]). A shortcut's middle is the node it
+    // skips over, -1 for an edge of the road graph.
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final int[] upWeights;
+    private final int[] upMiddles;
+
+    // edges into each node from higher ranked nodes, for searching backwards
+    private final int[] downOffsets;
+    private final int[] downSources;
+    private final int[] downWeights;
+    private final int[] downMiddles;
+
+    // query state, reused from one query to the next
+    private final int[] forwardDist;
+    private final int[] backwardDist;
+    private final int[] forwardParent;
+    private final int[] backwardParent;
+    private final int[] forwardEdge;
+    private final int[] backwardEdge;
+    private final int[] touched;
+    private int touchedCount;
+    private final LongHeap forwardQueue = new LongHeap();
+    private final LongHeap backwardQueue = new LongHeap();
+
+    // nodes settled by the last query
+    private int settledCount;
+
+    private ContractionHierarchy(int nodeCount, long fingerprint,
+                                 int[] upOffsets, int[] upTargets, int[] upWeights, int[] upMiddles,
+                                 int[] downOffsets, int[] downSources, int[] downWeights, int[] downMiddles) {
+        this.nodeCount = nodeCount;
+        this.fingerprint = fingerprint;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddles = upMiddles;
+        this.downOffsets = downOffsets;
+        this.downSources = downSources;
+        this.downWeights = downWeights;
+        this.downMiddles = downMiddles;
+        forwardDist = new int[nodeCount];
+        backwardDist = new int[nodeCount];
+        forwardParent = new int[nodeCount];
+        backwardParent = new int[nodeCount];
+        forwardEdge = new int[nodeCount];
+        backwardEdge = new int[nodeCount];
+        touched = new int[nodeCount];
+        Arrays.fill(forwardDist, INF);
+        Arrays.fill(backwardDist, INF);
+    }
+
+    /**
+     * @return another index sharing this one's edges, with its own query
+     * state, for querying on another thread
+     */
+    public ContractionHierarchy copy() {
+        return new ContractionHierarchy(nodeCount, fingerprint,
+            upOffsets, upTargets, upWeights, upMiddles, downOffsets, downSources, downWeights, downMiddles);
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @return number of edges in the index, shortcuts included
+     */
+    public int edgeCount() {
+        return upTargets.length + downSources.length;
+    }
+
+    /**
+     * @return how many nodes the last query settled
+     */
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    /**
+     * Finds the length of the shortest path between two nodes.
+     *
+     * @param start - node to start from
+     * @param target - node to get to
+     * @return the length, Integer.MAX_VALUE if there's no path
+     */
+    public int distance(int start, int target) {
+        int meet = search(start, target);
+        return meet == -1 ? INF : forwardDist[meet] + backwardDist[meet];
+    }
+
+    /**
+     * Finds the shortest path between two nodes.
+     *
+     * @param start - node to start from
+     * @param target - node to get to
+     * @return the nodes along the path, start and target included, or null
+     * if there's no path
+     */
+    public int[] path(int start, int target) {
+        int meet = search(start, target);
+        if (meet == -1) {
+            return null;
+        }
+        IntList nodes = new IntList();
+        nodes.add(start);
+
+        // from the start up to the meeting node, collected backwards
+        IntList climb = new IntList();
+        for (int node = meet; node != start; node = forwardParent[node]) {
+            climb.add(node);
+        }
+        for (int i = climb.size - 1; i >= 0; i--) {
+            int node = climb.items[i];
+            unpack(forwardParent[node], node, upMiddles[forwardEdge[node]], nodes);
+        }
+        // and from the meeting node down to the target
+        for (int node = meet; node != target; node = backwardParent[node]) {
+            int e = backwardEdge[node];
+            unpack(node, backwardParent[node], downMiddles[e], nodes);
+        }
+        return Arrays.copyOf(nodes.items, nodes.size);
+    }
+
+    /**
+     * Searches up from both ends.
+     * @return the node the shortest path goes up to, -1 if there's no path
+     */
+    private int search(int start, int target) {
+        for (int i = 0; i < touchedCount; i++) {
+            forwardDist[touched[i]] = INF;
+            backwardDist[touched[i]] = INF;
+        }
+        touchedCount = 0;
+        settledCount = 0;
+        forwardQueue.clear();
+        backwardQueue.clear();
+
+        reach(forwardDist, forwardParent, forwardEdge, start, 0, -1, -1);
+        reach(backwardDist, backwardParent, backwardEdge, target, 0, -1, -1);
+        forwardQueue.push(0, start);
+        backwardQueue.push(0, target);
+
+        int best = INF;
+        int meet = -1;
+        boolean forward = true;
+        while (true) {
+            boolean forwardDone = forwardQueue.isEmpty() || forwardQueue.peekKey() >= best;
+            boolean backwardDone = backwardQueue.isEmpty() || backwardQueue.peekKey() >= best;
+            if (forwardDone && backwardDone) {
+                break;
+            }
+            // take turns, unless one side is finished
+            if (forwardDone) {
+                forward = false;
+            } else if (backwardDone) {
+                forward = true;
+            }
+            LongHeap queue = forward ? forwardQueue : backwardQueue;
+            int[] dist = forward ? forwardDist : backwardDist;
+            int[] other = forward ? backwardDist : forwardDist;
+            long top = queue.pop();
+            int d = (int) (top >>> 32);
+            int u = (int) top;
+            if (d > dist[u]) {
+                forward = !forward;
+                continue; // already reached by a shorter way
+            }
+            settledCount++;
+            if (other[u] != INF && d + other[u] < best) {
+                best = d + other[u];
+                meet = u;
+            }
+            if (stalled(u, d, forward)) {
+                forward = !forward;
+                continue;
+            }
+            if (forward) {
+                for (int e = upOffsets[u]; e < upOffsets[u + 1]; e++) {
+                    int v = upTargets[e];
+                    int nd = d + upWeights[e];
+                    if (nd < forwardDist[v]) {
+                        reach(forwardDist, forwardParent, forwardEdge, v, nd, u, e);
+                        forwardQueue.push(nd, v);
+                    }
+                }
+            } else {
+                for (int e = downOffsets[u]; e < downOffsets[u + 1]; e++) {
+                    int v = downSources[e];
+                    int nd = d + downWeights[e];
+                    if (nd < backwardDist[v]) {
+                        reach(backwardDist, backwardParent, backwardEdge, v, nd, u, e);
+                        backwardQueue.push(nd, v);
+                    }
+                }
+            }
+            forward = !forward;
+        }
+        return meet;
+    }
+
+    /**
+     * A node is stalled when the search already got to a higher node that
+     * leads back down to it for less. The path through it can't be the
+     * shortest then, so there's no point searching on from it.
+     */
+    private boolean stalled(int u, int d, boolean forward) {
+        if (forward) {
+            for (int e = downOffsets[u]; e < downOffsets[u + 1]; e++) {
+                int w = forwardDist[downSources[e]];
+                if (w != INF && w + downWeights[e] < d) {
+                    return true;
+                }
+            }
+        } else {
+            for (int e = upOffsets[u]; e < upOffsets[u + 1]; e++) {
+                int w = backwardDist[upTargets[e]];
+                if (w != INF && w + upWeights[e] < d) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void reach(int[] dist, int[] parent, int[] edge, int node, int d, int from, int via) {
+        if (forwardDist[node] == INF && backwardDist[node] == INF) {
+            touched[touchedCount++] = node;
+        }
+        dist[node] = d;
+        parent[node] = from;
+        edge[node] = via;
+    }
+
+    /**
+     * Adds the road graph nodes an edge stands for, after its first node, to
+     * the path. A shortcut from a to b over m is the edge from a down to m
+     * followed by the edge from m up to b, either of which can be a shortcut
+     * too.
+     */
+    private void unpack(int from, int to, int middle, IntList path) {
+        IntList stack = new IntList();
+        stack.add(from);
+        stack.add(to);
+        stack.add(middle);
+        while (stack.size > 0) {
+            int m = stack.items[--stack.size];
+            int b = stack.items[--stack.size];
+            int a = stack.items[--stack.size];
+            if (m == -1) {
+                path.add(b);
+                continue;
+            }
+            // second half first, so the first half comes off the stack first
+            int up = findUp(m, b);
+            stack.add(m);
+            stack.add(b);
+            stack.add(upMiddles[up]);
+            int down = findDown(m, a);
+            stack.add(a);
+            stack.add(m);
+            stack.add(downMiddles[down]);
+        }
+    }
+
+    private int findUp(int from, int to) {
+        for (int e = upOffsets[from]; e < upOffsets[from + 1]; e++) {
+            if (upTargets[e] == to) {
+                return e;
+            }
+        }
+        throw new IllegalStateException("Missing edge " + from + " -> " + to);
+    }
+
+    private int findDown(int to, int from) {
+        for (int e = downOffsets[to]; e < downOffsets[to + 1]; e++) {
+            if (downSources[e] == from) {
+                return e;
+            }
+        }
+        throw new IllegalStateException("Missing edge " + from + " -> " + to);
+    }
+
+    /**
+     * Gets the index for a map, loading it from next to the map file if it
+     * was saved there for this same road graph, or building and saving it
+     * there if not.
+     *
+     * @param mapFile - file the map was saved to or loaded from
+     * @param graph - the map's road graph
+     * @return the index
+     */
+    public static ContractionHierarchy forMap(String mapFile, RoadGraph graph) {
+        String filename = mapFile + ".ch";
+        ContractionHierarchy ch = load(filename, graph);
+        if (ch == null) {
+            ch = build(graph);
+            ch.save(filename);
+        }
+        return ch;
+    }
+
+    /**
+     * Saves the index.
+     *
+     * @param filename - file to write
+     * @return boolean indicating if the save was successful
+     */
+    public boolean save(String filename) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fingerprint);
+            out.writeInt(nodeCount);
+            for (int[] array : new int[][] {upOffsets, upTargets, upWeights, upMiddles,
+                downOffsets, downSources, downWeights, downMiddles}) {
+                out.writeInt(array.length);
+                for (int value : array) {
+                    out.writeInt(value);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Loads a saved index.
+     *
+     * @param filename - file to read
+     * @param graph - the road graph the index is for
+     * @return the index, or null if there's none saved or it was built for
+     * another graph
+     */
+    public static ContractionHierarchy load(String filename, RoadGraph graph) {
+        if (!new File(filename).isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                || in.readLong() != fingerprint(graph) || in.readInt() != graph.nodeCount()) {
+                return null;
+            }
+            int[][] arrays = new int[8][];
+            for (int i = 0; i < arrays.length; i++) {
+                arrays[i] = new int[in.readInt()];
+                for (int j = 0; j < arrays[i].length; j++) {
+                    arrays[i][j] = in.readInt();
+                }
+            }
+            return new ContractionHierarchy(graph.nodeCount(), fingerprint(graph),
+                arrays[0], arrays[1], arrays[2], arrays[3], arrays[4], arrays[5], arrays[6], arrays[7]);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static long fingerprint(RoadGraph graph) {
+        long hash = graph.nodeCount();
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                hash = hash * 31 + u;
+                hash = hash * 31 + graph.getTarget(e);
+                hash = hash * 31 + graph.getWeight(e);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Builds the index.
+     *
+     * @param graph - the road graph
+     * @return the index
+     */
+    public static ContractionHierarchy build(RoadGraph graph) {
+        return new Builder(graph).build();
+    }
+
+    /**
+     * Contracts the graph's nodes in order of how few shortcuts they add.
+     */
+    private static class Builder {
+        private final int n;
+        private final long fingerprint;
+
+        // the graph as it's being contracted, edges between nodes still in it
+        private final Edges[] out;
+        private final Edges[] in;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbors;
+
+        // how deep in the hierarchy each node's contracted neighbors go,
+        // contracting evenly across the map keeps it shallow
+        private final int[] level;
+
+        // the edges each node had left when it was contracted
+        private final Edges[] up;
+        private final Edges[] down;
+
+        // witness search state
+        private final int[] witnessDist;
+        private final int[] witnessTouched;
+        private int witnessTouchedCount;
+        private final LongHeap witnessQueue = new LongHeap();
+
+        Builder(RoadGraph graph) {
+            n = graph.nodeCount();
+            fingerprint = fingerprint(graph);
+            out = new Edges[n];
+            in = new Edges[n];
+            up = new Edges[n];
+            down = new Edges[n];
+            for (int u = 0; u < n; u++) {
+                out[u] = new Edges();
+                in[u] = new Edges();
+            }
+            for (int u = 0; u < n; u++) {
+                for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                    int v = graph.getTarget(e);
+                    if (v != u) {
+                        out[u].add(v, graph.getWeight(e), -1);
+                        in[v].add(u, graph.getWeight(e), -1);
+                    }
+                }
+            }
+            contracted = new boolean[n];
+            contractedNeighbors = new int[n];
+            level = new int[n];
+            witnessDist = new int[n];
+            witnessTouched = new int[n];
+            Arrays.fill(witnessDist, INF);
+        }
+
+        ContractionHierarchy build() {
+            LongHeap order = new LongHeap();
+            for (int v = 0; v < n; v++) {
+                order.push(priority(v), v);
+            }
+            while (!order.isEmpty()) {
+                int v = (int) order.pop();
+                // priorities go stale as neighbors are contracted, check
+                // this one is still the lowest before contracting it
+                int p = priority(v);
+                if (!order.isEmpty() && p > order.peekKey()) {
+                    order.push(p, v);
+                    continue;
+                }
+                contract(v, true);
+            }
+            return pack();
+        }
+
+        /**
+         * @return how good a node is to contract next, lower is better
+         */
+        private int priority(int v) {
+            int shortcuts = contract(v, false);
+            int degree = in[v].size + out[v].size;
+            return (shortcuts - degree) + contractedNeighbors[v] + level[v];
+        }
+
+        /**
+         * Contracts a node, or only counts the shortcuts contracting it would add.
+         * @return the shortcuts needed
+         */
+        private int contract(int v, boolean apply) {
+            Edges ins = in[v];
+            Edges outs = out[v];
+            int maxOut = 0;
+            for (int j = 0; j < outs.size; j++) {
+                maxOut = Math.max(maxOut, outs.weight[j]);
+            }
+            int shortcuts = 0;
+            for (int i = 0; i < ins.size; i++) {
+                int u = ins.node[i];
+                int limit = ins.weight[i] + maxOut;
+                witnessSearch(u, v, limit);
+                for (int j = 0; j < outs.size; j++) {
+                    int x = outs.node[j];
+                    if (x == u) {
+                        continue;
+                    }
+                    int through = ins.weight[i] + outs.weight[j];
+                    if (witnessDist[x] <= through) {
+                        continue; // there's a way around v that's as short
+                    }
+                    shortcuts++;
+                    if (apply) {
+                        addShortcut(u, x, through, v);
+                    }
+                }
+            }
+            if (apply) {
+                contracted[v] = true;
+                up[v] = outs;
+                down[v] = ins;
+                for (int i = 0; i < ins.size; i++) {
+                    out[ins.node[i]].remove(v);
+                    contractedNeighbors[ins.node[i]]++;
+                    level[ins.node[i]] = Math.max(level[ins.node[i]], level[v] + 1);
+                }
+                for (int j = 0; j < outs.size; j++) {
+                    in[outs.node[j]].remove(v);
+                    contractedNeighbors[outs.node[j]]++;
+                    level[outs.node[j]] = Math.max(level[outs.node[j]], level[v] + 1);
+                }
+            }
+            return shortcuts;
+        }
+
+        private void addShortcut(int u, int x, int weight, int middle) {
+            int e = out[u].indexOf(x);
+            if (e == -1) {
+                out[u].add(x, weight, middle);
+                in[x].add(u, weight, middle);
+            } else if (weight < out[u].weight[e]) {
+                out[u].weight[e] = weight;
+                out[u].middle[e] = middle;
+                int f = in[x].indexOf(u);
+                in[x].weight[f] = weight;
+                in[x].middle[f] = middle;
+            }
+        }
+
+        /**
+         * Finds the distances from u to the nodes around it without going
+         * through v, up to the limit.
+         */
+        private void witnessSearch(int u, int v, int limit) {
+            for (int i = 0; i < witnessTouchedCount; i++) {
+                witnessDist[witnessTouched[i]] = INF;
+            }
+            witnessTouchedCount = 0;
+            witnessQueue.clear();
+            witnessDist[u] = 0;
+            witnessTouched[witnessTouchedCount++] = u;
+            witnessQueue.push(0, u);
+            int settled = 0;
+            while (!witnessQueue.isEmpty() && settled < WITNESS_LIMIT) {
+                long top = witnessQueue.pop();
+                int d = (int) (top >>> 32);
+                int a = (int) top;
+                if (d > witnessDist[a]) {
+                    continue;
+                }
+                if (d > limit) {
+                    break;
+                }
+                settled++;
+                Edges edges = out[a];
+                for (int e = 0; e < edges.size; e++) {
+                    int b = edges.node[e];
+                    int nd = d + edges.weight[e];
+                    if (b == v || nd >= witnessDist[b]) {
+                        continue;
+                    }
+                    if (witnessDist[b] == INF) {
+                        witnessTouched[witnessTouchedCount++] = b;
+                    }
+                    witnessDist[b] = nd;
+                    witnessQueue.push(nd, b);
+                }
+            }
+        }
+
+        private ContractionHierarchy pack() {
+            int[] upOffsets = new int[n + 1];
+            int[] downOffsets = new int[n + 1];
+            for (int u = 0; u < n; u++) {
+                upOffsets[u + 1] = upOffsets[u] + up[u].size;
+                downOffsets[u + 1] = downOffsets[u] + down[u].size;
+            }
+            int[] upTargets = new int[upOffsets[n]];
+            int[] upWeights = new int[upOffsets[n]];
+            int[] upMiddles = new int[upOffsets[n]];
+            int[] downSources = new int[downOffsets[n]];
+            int[] downWeights = new int[downOffsets[n]];
+            int[] downMiddles = new int[downOffsets[n]];
+            for (int u = 0; u < n; u++) {
+                System.arraycopy(up[u].node, 0, upTargets, upOffsets[u], up[u].size);
+                System.arraycopy(up[u].weight, 0, upWeights, upOffsets[u], up[u].size);
+                System.arraycopy(up[u].middle, 0, upMiddles, upOffsets[u], up[u].size);
+                System.arraycopy(down[u].node, 0, downSources, downOffsets[u], down[u].size);
+                System.arraycopy(down[u].weight, 0, downWeights, downOffsets[u], down[u].size);
+                System.arraycopy(down[u].middle, 0, downMiddles, downOffsets[u], down[u].size);
+            }
+            return new ContractionHierarchy(n, fingerprint,
+                upOffsets, upTargets, upWeights, upMiddles, downOffsets, downSources, downWeights, downMiddles);
+        }
+    }
+
+    /**
+     * A node's edges while the graph is being contracted.
+     */
+    private static class Edges {
+        int[] node = new int[4];
+        int[] weight = new int[4];
+        int[] middle = new int[4];
+        int size;
+
+        void add(int other, int w, int via) {
+            if (size == node.length) {
+                node = Arrays.copyOf(node, size * 2);
+                weight = Arrays.copyOf(weight, size * 2);
+                middle = Arrays.copyOf(middle, size * 2);
+            }
+            node[size] = other;
+            weight[size] = w;
+            middle[size] = via;
+            size++;
+        }
+
+        int indexOf(int other) {
+            for (int i = 0; i < size; i++) {
+                if (node[i] == other) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void remove(int other) {
+            int i = indexOf(other);
+            if (i != -1) {
+                size--;
+                node[i] = node[size];
+                weight[i] = weight[size];
+                middle[i] = middle[size];
+            }
+        }
+    }
+
+    /**
+     * Min-heap of (key, node) pairs packed into longs. Entries are never
+     * updated in place, a node is pushed again with its new key and the stale
+     * entry skipped when it comes up.
+     */
+    private static class LongHeap {
+        private long[] items = new long[64];
+        private int size;
+
+        void push(int key, int node) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            long item = ((long) key << 32) | (node & 0xFFFFFFFFL);
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (items[parent] <= item) {
+                    break;
+                }
+                items[i] = items[parent];
+                i = parent;
+            }
+            items[i] = item;
+        }
+
+        long pop() {
+            long top = items[0];
+            long last = items[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && items[child + 1] < items[child]) {
+                    child++;
+                }
+                if (items[child] >= last) {
+                    break;
+                }
+                items[i] = items[child];
+                i = child;
+            }
+            items[i] = last;
+            return top;
+        }
+
+        int peekKey() {
+            return (int) (items[0] >>> 32);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    private static class IntList {
+        int[] items = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+    }
+}
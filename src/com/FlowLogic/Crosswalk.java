@@ -1,35 +1,29 @@
 package com.FlowLogic;
 
-import javafx.scene.image.Image;
-
 import java.util.ArrayList;
 
 public class Crosswalk extends OneWayRoad implements GridObject {
-    private final Image imageFile;
 
     public Crosswalk(Orientation orientation, int speedLimit, boolean isInRoad, int inCars, int rowNum, int colNum, Direction direction, int numLanes, ArrayList<Vehicle> vehicleList) {
-        super(orientation, 40, isInRoad, inCars, rowNum, colNum, direction, numLanes, vehicleList);
-        if (orientation == Orientation.VERTICAL) {
-            this.imageFile = new Image("file:Images/CrosswalkVertical.png");
-        } else {
-            this.imageFile = new Image("file:Images/CrosswalkHorizontal.png");
-        }
-
+        this(type(orientation, direction), isInRoad, inCars, rowNum, colNum, numLanes, vehicleList);
     }
 
     public Crosswalk(Crosswalk cross) {
-        super(cross.getOrientation(), cross.getSpeedLimit(), cross.isInRoad(), cross.getInCars(), cross.getRowNum(), cross.getColNum(), cross.getDirection(), cross.getNumLanes(), cross.getVehicleList());
-        this.imageFile = cross.imageFile;
+        this(cross.getTileType(), cross.isInRoad(), cross.getInCars(), cross.getRowNum(), cross.getColNum(), cross.getNumLanes(), new ArrayList<>(cross.getVehicleList()));
     }
 
-
-
-
-    @Override
-    public Image getImageFile() {
-        return this.imageFile;
+    // crosswalks always start at their kind's speed limit
+    private Crosswalk(TileType type, boolean isInRoad, int inCars, int rowNum, int colNum, int numLanes, ArrayList<Vehicle> vehicleList) {
+        super(type, type.getDefaultSpeed(), isInRoad, inCars, rowNum, colNum, numLanes, vehicleList);
     }
 
+    // one without a direction crosses the way the palette's crosswalk of its orientation does
+    private static TileType type(Orientation orientation, Direction direction) {
+        if (direction == null) {
+            direction = orientation == Orientation.VERTICAL ? Direction.UP : Direction.RIGHT;
+        }
+        return TileType.crosswalk(direction);
+    }
 
 
 
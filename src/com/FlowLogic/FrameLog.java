@@ -0,0 +1,272 @@
+package com.FlowLogic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Recording of a simulation run for playback. Each frame only holds what
+ * changed that tick: the vehicles that moved, turned, spawned or left, and
+ * the stop lights that switched. Records are kept in parallel primitive
+ * arrays instead of one object per change, so a long run with lots of
+ * vehicles stays small.
+ *
+ * A run can also be recorded in pieces, see next(), for playback to start on
+ * before the run is over.
+ */
+public class FrameLog {
+
+    // vehicle state of a record for a vehicle that left the map
+    public static final byte GONE = -1;
+
+    private int frameCount;
+
+    // frame f's records are [start[f], start[f + 1]), the last frame's run to the count
+    private int[] vehicleStart;
+    private int[] lightStart;
+
+    // vehicle records
+    private int vehicleCount;
+    private int[] vehicleId;
+    private int[] vehicleX;
+    private int[] vehicleY;
+    private short[] vehicleRotation;
+    private byte[] vehicleState;
+
+    // stop light records
+    private int lightCount;
+    private int[] lightRow;
+    private int[] lightCol;
+    private byte[] lightOneColor;
+    private byte[] lightImage;
+
+    // image files the light records point into
+    private final ArrayList<String> images;
+
+    // size of each vehicle, and what was last recorded for it, indexed by id
+    private int[] length;
+    private int[] width;
+    private int[] lastX;
+    private int[] lastY;
+    private int[] lastRotation;
+    private byte[] lastState;
+
+    public FrameLog() {
+        this(64, 256);
+        length = new int[0];
+        width = new int[0];
+        lastX = new int[0];
+        lastY = new int[0];
+        lastRotation = new int[0];
+        lastState = new byte[0];
+    }
+
+    private FrameLog(int frames, int vehicleRecords) {
+        vehicleStart = new int[frames];
+        lightStart = new int[frames];
+        vehicleId = new int[vehicleRecords];
+        vehicleX = new int[vehicleRecords];
+        vehicleY = new int[vehicleRecords];
+        vehicleRotation = new short[vehicleRecords];
+        vehicleState = new byte[vehicleRecords];
+        lightRow = new int[4];
+        lightCol = new int[4];
+        lightOneColor = new byte[4];
+        lightImage = new byte[4];
+        images = new ArrayList<>();
+    }
+
+    /**
+     * Starts the next piece of a recording made in pieces. It has no frames
+     * of its own yet, but knows the vehicles registered here and only records
+     * what changed since the records in this one.
+     * @return the next piece
+     */
+    public FrameLog next() {
+        FrameLog next = new FrameLog(Math.max(frameCount, 1), Math.max(vehicleCount, 16));
+        next.images.addAll(images);
+        // only the recording side touches the last values, sizes are fixed by now
+        next.length = length;
+        next.width = width;
+        next.lastX = lastX;
+        next.lastY = lastY;
+        next.lastRotation = lastRotation;
+        next.lastState = lastState;
+        return next;
+    }
+
+    /**
+     * Registers a vehicle's size, which doesn't change during the run.
+     * @param id - vehicle id
+     * @param length - vehicle length
+     * @param width - vehicle width
+     */
+    public void addVehicle(int id, int length, int width) {
+        if (id >= this.length.length) {
+            int capacity = Math.max(id + 1, this.length.length * 2);
+            this.length = Arrays.copyOf(this.length, capacity);
+            this.width = Arrays.copyOf(this.width, capacity);
+            lastX = Arrays.copyOf(lastX, capacity);
+            lastY = Arrays.copyOf(lastY, capacity);
+            lastRotation = Arrays.copyOf(lastRotation, capacity);
+            int old = lastState.length;
+            lastState = Arrays.copyOf(lastState, capacity);
+            Arrays.fill(lastState, old, capacity, GONE);
+        }
+        this.length[id] = length;
+        this.width[id] = width;
+    }
+
+    /**
+     * Starts a new frame, records after this go in it.
+     */
+    public void startFrame() {
+        if (frameCount == vehicleStart.length) {
+            vehicleStart = Arrays.copyOf(vehicleStart, frameCount * 2);
+            lightStart = Arrays.copyOf(lightStart, frameCount * 2);
+        }
+        vehicleStart[frameCount] = vehicleCount;
+        lightStart[frameCount] = lightCount;
+        frameCount++;
+    }
+
+    /**
+     * Records where a vehicle on the map is, unless nothing changed since
+     * the last record of it.
+     */
+    public void recordVehicle(int id, int x, int y, int rotation, CarState state) {
+        byte s = (byte) state.ordinal();
+        if (lastState[id] == s && lastX[id] == x && lastY[id] == y && lastRotation[id] == rotation) {
+            return;
+        }
+        addVehicleRecord(id, x, y, rotation, s);
+    }
+
+    /**
+     * Records that a vehicle left the map.
+     * @param id - vehicle id
+     */
+    public void recordVehicleGone(int id) {
+        if (lastState[id] != GONE) {
+            addVehicleRecord(id, lastX[id], lastY[id], lastRotation[id], GONE);
+        }
+    }
+
+    private void addVehicleRecord(int id, int x, int y, int rotation, byte state) {
+        if (vehicleCount == vehicleId.length) {
+            int capacity = vehicleCount * 2;
+            vehicleId = Arrays.copyOf(vehicleId, capacity);
+            vehicleX = Arrays.copyOf(vehicleX, capacity);
+            vehicleY = Arrays.copyOf(vehicleY, capacity);
+            vehicleRotation = Arrays.copyOf(vehicleRotation, capacity);
+            vehicleState = Arrays.copyOf(vehicleState, capacity);
+        }
+        vehicleId[vehicleCount] = id;
+        vehicleX[vehicleCount] = x;
+        vehicleY[vehicleCount] = y;
+        vehicleRotation[vehicleCount] = (short) rotation;
+        vehicleState[vehicleCount] = state;
+        vehicleCount++;
+        lastX[id] = x;
+        lastY[id] = y;
+        lastRotation[id] = rotation;
+        lastState[id] = state;
+    }
+
+    /**
+     * Records a stop light's current phase.
+     * @param light - the light that switched
+     */
+    public void recordLight(StopLight light) {
+        if (lightCount == lightRow.length) {
+            int capacity = lightCount * 2;
+            lightRow = Arrays.copyOf(lightRow, capacity);
+            lightCol = Arrays.copyOf(lightCol, capacity);
+            lightOneColor = Arrays.copyOf(lightOneColor, capacity);
+            lightImage = Arrays.copyOf(lightImage, capacity);
+        }
+        int image = images.indexOf(light.getImageFile());
+        if (image < 0) {
+            image = images.size();
+            images.add(light.getImageFile());
+        }
+        lightRow[lightCount] = light.getRowNum();
+        lightCol[lightCount] = light.getColNum();
+        lightOneColor[lightCount] = (byte) light.getLightOneColor();
+        lightImage[lightCount] = (byte) image;
+        lightCount++;
+    }
+
+    public int frameCount() {
+        return frameCount;
+    }
+
+    // Records of a frame are read by index: vehicle records of frame f are
+    // vehicleStart(f) up to vehicleEnd(f), light records likewise.
+
+    public int vehicleStart(int frame) {
+        return vehicleStart[frame];
+    }
+
+    public int vehicleEnd(int frame) {
+        return frame + 1 < frameCount ? vehicleStart[frame + 1] : vehicleCount;
+    }
+
+    public int lightStart(int frame) {
+        return lightStart[frame];
+    }
+
+    public int lightEnd(int frame) {
+        return frame + 1 < frameCount ? lightStart[frame + 1] : lightCount;
+    }
+
+    public int getVehicleId(int record) {
+        return vehicleId[record];
+    }
+
+    public int getVehicleX(int record) {
+        return vehicleX[record];
+    }
+
+    public int getVehicleY(int record) {
+        return vehicleY[record];
+    }
+
+    public int getVehicleRotation(int record) {
+        return vehicleRotation[record];
+    }
+
+    /**
+     * @return the vehicle's state, or null if the record is of it leaving the map
+     */
+    public CarState getVehicleState(int record) {
+        return vehicleState[record] == GONE ? null : CarState.values()[vehicleState[record]];
+    }
+
+    public boolean isVehicleGone(int record) {
+        return vehicleState[record] == GONE;
+    }
+
+    public int getVehicleLength(int id) {
+        return length[id];
+    }
+
+    public int getVehicleWidth(int id) {
+        return width[id];
+    }
+
+    public int getLightRow(int record) {
+        return lightRow[record];
+    }
+
+    public int getLightCol(int record) {
+        return lightCol[record];
+    }
+
+    public int getLightOneColor(int record) {
+        return lightOneColor[record];
+    }
+
+    public String getLightImage(int record) {
+        return images.get(lightImage[record]);
+    }
+}
@@ -0,0 +1,74 @@
+package com.FlowLogic;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded hand-off of recorded frames from a running simulation to playback.
+ * The simulation publishes pieces of the recording as it goes and playback
+ * takes them as it gets to them, so the first frame can be shown right away
+ * and only a queue's worth of frames is ever held. When playback falls behind
+ * and the queue is full, the simulation waits.
+ */
+public class FrameStream {
+
+    // marks the end of the run, never handed out
+    private static final FrameLog END = new FrameLog();
+
+    private final ArrayBlockingQueue<FrameLog> queue;
+
+    // set when playback stops early, so the simulation doesn't wait forever
+    private volatile boolean cancelled = false;
+
+    /**
+     * @param capacity - number of pieces the simulation can get ahead of playback
+     */
+    public FrameStream(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Hands a piece of the recording to playback, waiting while the queue is
+     * full.
+     * @param frames - the piece to publish
+     * @return false if playback has stopped and the simulation can stop too
+     */
+    public boolean publish(FrameLog frames) {
+        try {
+            while (!cancelled) {
+                if (queue.offer(frames, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Marks the end of the run, after everything published so far.
+     */
+    public void close() {
+        publish(END);
+    }
+
+    /**
+     * Takes the next piece of the recording, waiting for the simulation if
+     * there isn't one yet.
+     * @return the next piece, or null once the run is over
+     */
+    public FrameLog take() throws InterruptedException {
+        FrameLog frames = queue.take();
+        return frames == END ? null : frames;
+    }
+
+    /**
+     * Stops the stream from the playback side. The simulation's next publish
+     * returns false.
+     */
+    public void cancel() {
+        cancelled = true;
+        queue.clear();
+    }
+}
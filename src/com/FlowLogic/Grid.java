@@ -1,17 +1,12 @@
 package com.FlowLogic;
 
-import javafx.scene.image.Image;
-import javafx.scene.layout.VBox;
-import javafx.scene.paint.Color;
-import javafx.scene.paint.ImagePattern;
-import javafx.scene.shape.Rectangle;
 
-import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Consumer;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -31,9 +26,11 @@ public class Grid {
     // The number of columns in the grid
     private int numColumns;
 
-    // The grid where objects are stored
-    private GridObject[][] grid;
-    private Rectangle[][] frontGrid;
+    // The grid where objects are stored, see TileStore
+    private TileStore tiles;
+
+    // whatever is drawing this grid, null when running headless
+    private GridListener listener;
 
     public static int GRID_SIZE = 32;
 
@@ -42,63 +39,68 @@ public class Grid {
 
     ArrayList<GridObject> intersections;
 
+    // what the last buildRoadGraph() found, so the next one only redoes what
+    // was edited since. Null before the first build and after a resize or load.
+    private RoadGraphCache graphCache;
+
+    // roundabouts rewrite the tiles around them as they're grouped, a map
+    // with any is always built from scratch
+    private boolean hasRoundabouts;
+
     private final int MAX_SPEED_LIMIT = 100;
 
     boolean testingMode = false;
 
 
-    //Allows for quick conversion from Image file to backend object
-    public static HashMap<String, GridObject> imgToObj = new HashMap<>();
-
     public Grid(int numRows, int numColumns) {
         this.numRows = numRows;
         this.numColumns = numColumns;
-        grid = new GridObject[numRows][numColumns];
-        frontGrid = new Rectangle[numRows][numColumns];
-        populateMap();
+        tiles = new TileStore(numRows, numColumns);
     }
 
     public Grid(Grid g) { // Clone Constructor
         this.numRows = g.numRows;
         this.numColumns = g.numColumns;
-        this.grid = new GridObject[numRows][numColumns];
-        for (int i = 0; i < numRows; i++) {
-            for (int j = 0; j < numColumns; j++) {
-                if (g.grid[i][j] != null){
-                    this.grid[i][j] = g.grid[i][j].clone();
-                }
-            }
-        }
-        this.frontGrid = new Rectangle[numRows][numColumns];
-        for (int i = 0; i < numRows; i++) {
-            for (int j = 0; j < numColumns; j++) {
-                this.frontGrid[i][j] = g.frontGrid[i][j];
-            }
+        this.tiles = new TileStore(numRows, numColumns);
+        for (TileStore.Cursor tile = g.tiles.cursor(); tile.next(); ) {
+            this.tiles.set(tile.row(), tile.col(), tile.get().clone());
         }
+        this.listener = g.listener;
+    }
+
+    private Grid(Grid g, TileStore tiles) {
+        this.numRows = g.numRows;
+        this.numColumns = g.numColumns;
+        this.tiles = tiles;
+        this.listener = g.listener;
+        this.testingMode = g.testingMode;
+    }
+
+    /**
+     * Takes a copy of the grid as it is now, for undoing back to. Unlike the
+     * clone constructor nothing is copied up front: the copy shares the
+     * grid's chunks of tiles, and only a chunk that's edited afterwards gets
+     * copied, see TileStore.
+     *
+     * @return the copy
+     */
+    public Grid snapshot() {
+        return new Grid(this, tiles.snapshot());
     }
 
-    private void populateMap() {
-        imgToObj.put("RoadImageDown.png", new OneWayRoad(Orientation.VERTICAL, Direction.DOWN));
-        imgToObj.put("RoadImage.png", new OneWayRoad(Orientation.VERTICAL, UP));
-        imgToObj.put("RoadImageLeft.png", new OneWayRoad(Orientation.HORIZONTAL, Direction.LEFT));
-        imgToObj.put("RoadImageRight.png", new OneWayRoad(Orientation.HORIZONTAL, Direction.RIGHT));
-        imgToObj.put("BasicIntersection.png", new Intersection(0, 0, new Road[4]));
-        imgToObj.put("ParkingLot.png", new Parking());
-        imgToObj.put("YellowBuilding.png", new Building("yellow"));
-        imgToObj.put("GreenBuilding.png", new Building("green"));
-        imgToObj.put("RedBuilding.png", new Building("red"));
-        imgToObj.put("TwoWayRoadRight.png", new TwoWayRoad(Orientation.HORIZONTAL));
-        imgToObj.put("TwoWayRoad.png", new TwoWayRoad(Orientation.VERTICAL));
-        imgToObj.put("4WayStopSign.png", new StopSign(0, 0, new Road[4]));
-        imgToObj.put("AllRed4WayStopLight.png", new StopLight(null, null, 0, 0, 0, 0, new Road[4], 0, 0));
-        imgToObj.put("roundabout.png", new Roundabout(new Boolean[4], 0 ,0, null));
-        imgToObj.put("YellowRed4WayStopLight.png", new StopLight(null, null, 0, 0, 0, 0, new Road[4], 0, 0));
-        imgToObj.put("RedYellow4WayStopLight.png", new StopLight(null, null, 0, 0, 0, 0, new Road[4], 0, 0));
-        imgToObj.put("GreenRed4WayStopLight.png", new StopLight(null, null, 0, 0, 0, 0, new Road[4], 0, 0));
-        imgToObj.put("RedGreen4WayStopLight.png", new StopLight(null, null, 0, 0, 0, 0, new Road[4], 0, 0));
-        imgToObj.put("Hazard.png", new Hazard(0 ,0));
-        imgToObj.put("CrosswalkVertical.png", new Crosswalk(Orientation.VERTICAL, 0, false, 0, 0, 0, Direction.UP, 0, null));
-        imgToObj.put("CrosswalkHorizontal.png", new Crosswalk(Orientation.HORIZONTAL, 0, false, 0, 0, 0, Direction.RIGHT, 0, null));
+    /**
+     * Takes a copy of the grid for a simulation to run on, so the grid can be
+     * edited and drawn while the simulation runs. Unlike snapshot() every
+     * tile is copied up front, since the simulation changes the tiles it
+     * runs over, and the copy doesn't tell the grid's listener anything.
+     *
+     * @return the copy
+     */
+    public Grid copyForSimulation() {
+        Grid copy = new Grid(this);
+        copy.listener = null;
+        copy.testingMode = testingMode;
+        return copy;
     }
 
     /**
@@ -120,8 +122,8 @@ public class Grid {
             GRID_SIZE = gridJson.getInt("gridSize");
 
             // Initialize a new grid with the loaded dimensions
-            this.grid = new GridObject[numRows][numColumns];
-            this.frontGrid = new Rectangle[numRows][numColumns];
+            this.tiles = new TileStore(numRows, numColumns);
+            graphCache = null;
 
             // Load objects from JSON
             JSONArray gridObjectsArray = gridJson.getJSONArray("objects");
@@ -330,7 +332,7 @@ public class Grid {
                     JSONArray connectedRoads = properties.getJSONArray("connectedRoads");
 
                     // Get the appropriate object (either Intersection, StopSign, Stoplight)
-                    GridObject trafficController = grid[row][col];
+                    GridObject trafficController = tiles.get(row, col);
 
                     // Connect each road to the intersection or stop sign or stop light
                     for (int j = 0; j < connectedRoads.length(); j++) {
@@ -340,7 +342,7 @@ public class Grid {
 
                         // Find road from the grid
                         if (roadRow >= 0 && roadRow < numRows && roadCol >= 0 && roadCol < numColumns) {
-                            GridObject obj = grid[roadRow][roadCol];
+                            GridObject obj = tiles.get(roadRow, roadCol);
                             if (obj instanceof Road) {
                                 if (trafficController instanceof StopSign) {
                                     ((StopSign) trafficController).addRoad((Road) obj);
@@ -355,7 +357,6 @@ public class Grid {
                 }
             }
             if (!testingMode) {
-                UserInterface.refreshGrid(numRows);
                 synchronizeGrid();
             }
             System.out.println("Successfully loaded grid from " + filename);
@@ -387,153 +388,151 @@ public class Grid {
         // Create an array for the objects
         JSONArray gridObjectsArray = new JSONArray();
 
-        for (int row = 0; row < numRows; row++) {
-            for (int col = 0; col < numColumns; col++) {
-                GridObject obj = grid[row][col];
-                if (obj != null) {
-                    JSONObject cellJson = new JSONObject();
-                    cellJson.put("row", row);
-                    cellJson.put("column", col);
-                    cellJson.put("type", obj.getClass().getSimpleName());
-
-                    // Store type-specific properties
-                    JSONObject properties = new JSONObject();
-
-                    // Add different properties based on object type
-                    if (obj instanceof OneWayRoad road) {
-                        properties.put("orientation", road.getOrientation());
-                        properties.put("speedLimit", road.getSpeedLimit());
-                        properties.put("length", road.getLength());
-                        properties.put("isInRoad", road.isInRoad());
-                        properties.put("inCars", road.getInCars());
-                        properties.put("direction", road.getDirection());
-                        properties.put("numLanes", road.getNumLanes());
-                        properties.put("vehicleList", road.getVehicleList());
-                        properties.put("name", road.getName());
-                    }
-                    else if (obj instanceof TwoWayRoad road) {
-                        properties.put("orientation", road.getOrientation());
-                        properties.put("speedLimit", road.getSpeedLimit());
-                        properties.put("isInRoad", road.isInRoad());
-                        properties.put("inCars", road.getInCars());
-
-                        // Save left and right one-way roads
-                        JSONObject leftRoadJson = new JSONObject();
-                        if (road.getLeft() != null) {
-                            leftRoadJson.put("direction", road.getLeft().getDirection().toString());
-                            leftRoadJson.put("numLanes", road.getLeft().getNumLanes());
-                        }
-                        properties.put("left", leftRoadJson);
+        for (TileStore.Cursor tile = tiles.cursor(); tile.next(); ) {
+            int row = tile.row();
+            int col = tile.col();
+            GridObject obj = tile.get();
+            JSONObject cellJson = new JSONObject();
+            cellJson.put("row", row);
+            cellJson.put("column", col);
+            cellJson.put("type", obj.getClass().getSimpleName());
+
+            // Store type-specific properties
+            JSONObject properties = new JSONObject();
+
+            // Add different properties based on object type
+            if (obj instanceof OneWayRoad road) {
+                properties.put("orientation", road.getOrientation());
+                properties.put("speedLimit", road.getSpeedLimit());
+                properties.put("length", road.getLength());
+                properties.put("isInRoad", road.isInRoad());
+                properties.put("inCars", road.getInCars());
+                properties.put("direction", road.getDirection());
+                properties.put("numLanes", road.getNumLanes());
+                properties.put("vehicleList", road.getVehicleList());
+                properties.put("name", road.getName());
+            }
+            else if (obj instanceof TwoWayRoad road) {
+                properties.put("orientation", road.getOrientation());
+                properties.put("speedLimit", road.getSpeedLimit());
+                properties.put("isInRoad", road.isInRoad());
+                properties.put("inCars", road.getInCars());
+
+                // Save left and right one-way roads
+                JSONObject leftRoadJson = new JSONObject();
+                if (road.getLeft() != null) {
+                    leftRoadJson.put("direction", road.getLeft().getDirection().toString());
+                    leftRoadJson.put("numLanes", road.getLeft().getNumLanes());
+                }
+                properties.put("left", leftRoadJson);
 
-                        JSONObject rightRoadJson = new JSONObject();
-                        if (road.getRight() != null) {
-                            rightRoadJson.put("direction", road.getRight().getDirection().toString());
-                            rightRoadJson.put("numLanes", road.getRight().getNumLanes());
-                        }
-                        properties.put("right", rightRoadJson);
+                JSONObject rightRoadJson = new JSONObject();
+                if (road.getRight() != null) {
+                    rightRoadJson.put("direction", road.getRight().getDirection().toString());
+                    rightRoadJson.put("numLanes", road.getRight().getNumLanes());
+                }
+                properties.put("right", rightRoadJson);
 
-                        properties.put("name", road.getName());
-                    }
-                    else if (obj instanceof StopSign stopSign) {
-                        // Save the connected roads as an array of references
-                        JSONArray connectedRoads = new JSONArray();
-                        Road[] roadList = stopSign.getRoadList();
-
-                        if (roadList != null) {
-                            for (Road road : roadList) {
-                                if (road != null) {
-                                    JSONObject roadRef = new JSONObject();
-                                    roadRef.put("row", road.getRowNum());
-                                    roadRef.put("column", road.getColNum());
-                                    roadRef.put("orientation", road.getOrientation().toString());
-                                    connectedRoads.put(roadRef);
-                                }
-                            }
+                properties.put("name", road.getName());
+            }
+            else if (obj instanceof StopSign stopSign) {
+                // Save the connected roads as an array of references
+                JSONArray connectedRoads = new JSONArray();
+                Road[] roadList = stopSign.getRoadList();
+
+                if (roadList != null) {
+                    for (Road road : roadList) {
+                        if (road != null) {
+                            JSONObject roadRef = new JSONObject();
+                            roadRef.put("row", road.getRowNum());
+                            roadRef.put("column", road.getColNum());
+                            roadRef.put("orientation", road.getOrientation().toString());
+                            connectedRoads.put(roadRef);
                         }
-                        properties.put("connectedRoads", connectedRoads);
                     }
-                    else if (obj instanceof StopLight stopLight) {
-                        // Save the connected roads as an array of references
-                        JSONArray connectedRoads = new JSONArray();
-                        Road[] roadList = stopLight.getRoadList();
-
-                        if (roadList != null) {
-                            for (Road road : roadList) {
-                                if (road != null) {
-                                    JSONObject roadRef = new JSONObject();
-                                    roadRef.put("row", road.getRowNum());
-                                    roadRef.put("column", road.getColNum());
-                                    roadRef.put("orientation", road.getOrientation().toString());
-                                    connectedRoads.put(roadRef);
-                                }
-                            }
+                }
+                properties.put("connectedRoads", connectedRoads);
+            }
+            else if (obj instanceof StopLight stopLight) {
+                // Save the connected roads as an array of references
+                JSONArray connectedRoads = new JSONArray();
+                Road[] roadList = stopLight.getRoadList();
+
+                if (roadList != null) {
+                    for (Road road : roadList) {
+                        if (road != null) {
+                            JSONObject roadRef = new JSONObject();
+                            roadRef.put("row", road.getRowNum());
+                            roadRef.put("column", road.getColNum());
+                            roadRef.put("orientation", road.getOrientation().toString());
+                            connectedRoads.put(roadRef);
                         }
-                        properties.put("connectedRoads", connectedRoads);
-
-                        // Save stoplight-specific properties
-                        properties.put("timingOne", stopLight.getTimingOne());
-                        properties.put("timingTwo", stopLight.getTimingTwo());
-                        properties.put("lightOneColor", stopLight.getLightOneColor());
-                        properties.put("lightTwoColor", stopLight.getLightTwoColor());
                     }
-                    else if (obj instanceof Intersection intersection) {
-                        // Save the connected roads as an array of references
-                        JSONArray connectedRoads = new JSONArray();
-                        Road[] roadList = intersection.getRoadList();
-
-                        if (roadList != null) {
-                            for (Road road : roadList) {
-                                if (road != null) {
-                                    JSONObject roadRef = new JSONObject();
-                                    roadRef.put("row", road.getRowNum());
-                                    roadRef.put("column", road.getColNum());
-                                    roadRef.put("orientation", road.getOrientation());
-                                    connectedRoads.put(roadRef);
-                                }
-                            }
+                }
+                properties.put("connectedRoads", connectedRoads);
+
+                // Save stoplight-specific properties
+                properties.put("timingOne", stopLight.getTimingOne());
+                properties.put("timingTwo", stopLight.getTimingTwo());
+                properties.put("lightOneColor", stopLight.getLightOneColor());
+                properties.put("lightTwoColor", stopLight.getLightTwoColor());
+            }
+            else if (obj instanceof Intersection intersection) {
+                // Save the connected roads as an array of references
+                JSONArray connectedRoads = new JSONArray();
+                Road[] roadList = intersection.getRoadList();
+
+                if (roadList != null) {
+                    for (Road road : roadList) {
+                        if (road != null) {
+                            JSONObject roadRef = new JSONObject();
+                            roadRef.put("row", road.getRowNum());
+                            roadRef.put("column", road.getColNum());
+                            roadRef.put("orientation", road.getOrientation());
+                            connectedRoads.put(roadRef);
                         }
-                        properties.put("connectedRoads", connectedRoads);
-                    }
-                    else if (obj instanceof Building building) {
-                        properties.put("xLength", building.getxLength());
-                        properties.put("yLength", building.getyLength());
-                        properties.put("dailyPopulation", building.getDailyPopulation());
-                        properties.put("color", building.getColor());
-                        properties.put("name", building.getName());
-                    }
-                    else if (obj instanceof Parking parking) {
-                        properties.put("xLength", parking.getxLength());
-                        properties.put("yLength", parking.getyLength());
-                        properties.put("parkingCapacity", parking.getParkingCapacity());
-                        properties.put("numCars", parking.getNumCars());
-                    }
-                    else if (obj instanceof Hazard hazard) {
-                        OneWayRoad road = (OneWayRoad) hazard.getCoveredObject();
-                        properties.put("orientation", road.getOrientation());
-                        properties.put("speedLimit", road.getSpeedLimit());
-                        properties.put("length", road.getLength());
-                        properties.put("isInRoad", road.isInRoad());
-                        properties.put("inCars", road.getInCars());
-                        properties.put("direction", road.getDirection());
-                        properties.put("numLanes", road.getNumLanes());
-                        properties.put("vehicleList", road.getVehicleList());
-                        properties.put("name", road.getName());
-                    } else if (obj instanceof Crosswalk road) {
-                        properties.put("orientation", road.getOrientation());
-                        properties.put("speedLimit", road.getSpeedLimit());
-                        properties.put("length", road.getLength());
-                        properties.put("isInRoad", road.isInRoad());
-                        properties.put("inCars", road.getInCars());
-                        properties.put("direction", road.getDirection());
-                        properties.put("numLanes", road.getNumLanes());
-                        properties.put("vehicleList", road.getVehicleList());
-                        properties.put("name", road.getName());
                     }
-
-                    cellJson.put("properties", properties);
-                    gridObjectsArray.put(cellJson);
                 }
+                properties.put("connectedRoads", connectedRoads);
+            }
+            else if (obj instanceof Building building) {
+                properties.put("xLength", building.getxLength());
+                properties.put("yLength", building.getyLength());
+                properties.put("dailyPopulation", building.getDailyPopulation());
+                properties.put("color", building.getColor());
+                properties.put("name", building.getName());
+            }
+            else if (obj instanceof Parking parking) {
+                properties.put("xLength", parking.getxLength());
+                properties.put("yLength", parking.getyLength());
+                properties.put("parkingCapacity", parking.getParkingCapacity());
+                properties.put("numCars", parking.getNumCars());
+            }
+            else if (obj instanceof Hazard hazard) {
+                OneWayRoad road = (OneWayRoad) hazard.getCoveredObject();
+                properties.put("orientation", road.getOrientation());
+                properties.put("speedLimit", road.getSpeedLimit());
+                properties.put("length", road.getLength());
+                properties.put("isInRoad", road.isInRoad());
+                properties.put("inCars", road.getInCars());
+                properties.put("direction", road.getDirection());
+                properties.put("numLanes", road.getNumLanes());
+                properties.put("vehicleList", road.getVehicleList());
+                properties.put("name", road.getName());
+            } else if (obj instanceof Crosswalk road) {
+                properties.put("orientation", road.getOrientation());
+                properties.put("speedLimit", road.getSpeedLimit());
+                properties.put("length", road.getLength());
+                properties.put("isInRoad", road.isInRoad());
+                properties.put("inCars", road.getInCars());
+                properties.put("direction", road.getDirection());
+                properties.put("numLanes", road.getNumLanes());
+                properties.put("vehicleList", road.getVehicleList());
+                properties.put("name", road.getName());
             }
+
+            cellJson.put("properties", properties);
+            gridObjectsArray.put(cellJson);
         }
 
         gridJson.put("objects", gridObjectsArray);
@@ -561,19 +560,15 @@ public class Grid {
      * @param colNum - the col number where it was dropped
      */
     public void placeObjectByImage(String imageFile, int rowNum, int colNum) {
-        GridObject newObject = imgToObj.get(imageFile);
-        System.out.println(imageFile);
-        addObject(newObject.clone(), rowNum, colNum);
+        addObject(TileType.forImage(imageFile).create(), rowNum, colNum);
     }
 
     /**
      * This function checks an image file to see if it is a two-way road
      */
     public boolean isTwoWayRoad(String imageFile) {
-        return switch (imageFile) {
-            case "TwoWayRoad.png", "TwoWayRoadRight.png" -> true;
-            default -> false;
-        };
+        TileType type = TileType.forImage(imageFile);
+        return type == TileType.TWO_WAY_VERTICAL || type == TileType.TWO_WAY_HORIZONTAL;
     }
 
     /**
@@ -595,7 +590,7 @@ public class Grid {
      */
     public void mergeRoads(int rowNum, int colNum) {
         // get road from spot and create multilane for it
-        GridObject obj = getAtSpot(rowNum, colNum);
+        GridObject obj = editAt(rowNum, colNum);
         Road mainRoad;
         MultiLaneConnect container;
         if (obj instanceof Road) {
@@ -620,14 +615,14 @@ public class Grid {
         Direction oneDir = oneRoad.getDirection();
         if (oneDir == UP || oneDir == Direction.DOWN) {
             // check up and down obj to see if it is a road
-            obj = getAtSpot(rowNum, colNum + 1);
+            obj = editAt(rowNum, colNum + 1);
             mergeHelper(obj, container, oneDir);
-            obj = getAtSpot(rowNum, colNum - 1);
+            obj = editAt(rowNum, colNum - 1);
             mergeHelper(obj, container, oneDir);
         } else if (oneDir == Direction.RIGHT || oneDir == Direction.LEFT) {
-            obj = getAtSpot(rowNum + 1, colNum);
+            obj = editAt(rowNum + 1, colNum);
             mergeHelper(obj, container, oneDir);
-            obj = getAtSpot(rowNum - 1, colNum);
+            obj = editAt(rowNum - 1, colNum);
             mergeHelper(obj, container, oneDir);
         }
     }
@@ -646,6 +641,7 @@ public class Grid {
                 if (checkRoad.getLaneContainer() != null) {
                     List<Road> lanes = checkRoad.getLaneContainer().getLaneList();
                     for (Road road : lanes) {
+                        editAt(road.getRowNum(), road.getColNum());
                         road.setLaneContainer(container);
                         container.addRoadToList(road);
                     }
@@ -658,137 +654,75 @@ public class Grid {
         }
     }
 
-    /**
-     * This function is called from the frontend when the user clicks on a square on the grid. It goes through the
-     * options of each type of thing that could be clicked and does the appropriate action.
-     * for each type of
-     * @param row - row to select at
-     * @param col - col to select at
-     * @param optionLayout - the layout window to be further passed
-     */
-
-    public void select(int row, int col, VBox optionLayout) {
-        GridObject obj = getAtSpot(row, col);
-        if (obj instanceof Building) {
-            Building b = (Building) obj;
-            UserInterface.showBuildingOptions(optionLayout, this, b.getxLength(), b.getyLength(),
-                b.getDailyPopulation(), row, col);
-        } else if (obj instanceof Parking) {
-            Parking p = (Parking) obj;
-            UserInterface.showParkingOptions(optionLayout, this, p.getxLength(), p.getyLength(),
-                p.getParkingCapacity(), row, col);
-        } else if (obj instanceof Road) {
-            if (UserInterface.isEntireRoadSelectionEnabled()) {
-                // Get all connected road tiles
-                Set<int[]> connectedRoads = getConnectedRoadTiles(row, col);
-                UserInterface.showRoadOptions(optionLayout, this, row, col, connectedRoads);
-            }
-            else {
-                UserInterface.showRoadOptions(optionLayout, this, row, col);
-            }
-        }  else if (obj instanceof StopLight) {
-            UserInterface.showTrafficLightOptions(optionLayout, this, row, col);
-        } else if (obj instanceof Hazard) {
-            UserInterface.showHazardOptions(optionLayout, this, row, col);
-        } else if (obj instanceof  Intersection) {
-            UserInterface.showIntersectionOptions(optionLayout, this, row, col);
-        }
-    }
-
     /**
      * Function to find all connected road tiles that have the same direction and orientation
      * Used to select the entirety of a road.
      * @param row Starting row coordinate
      * @param col Starting column coordinate
-     * @return set of coordinates [row, col] of all connected matching road tiles
+     * @return cells of all connected matching road tiles, each row * numColumns + col,
+     * in the order they're reached from the start. Empty if there's no road there.
      */
-    public Set<int[]> getConnectedRoadTiles(int row, int col) {
-        GridObject startObject = getAtSpot(row, col);
-
-        if (!(startObject instanceof Road)) {
-            return new HashSet<>(); // Not a road, return
+    public int[] getConnectedRoadCells(int row, int col) {
+        if (!(getAtSpot(row, col) instanceof Road startRoad)) {
+            return new int[0]; // Not a road, return
         }
-
-        Road startRoad = (Road) startObject;
         Orientation roadOrientation = startRoad.getOrientation();
-        Direction roadDirection = null;
-
         // Get direction for one-way roads
-        if (startRoad instanceof OneWayRoad) {
-            roadDirection = ((OneWayRoad) startRoad).getDirection();
-        }
-
-        // Set to store visited coordinates
-        Set<int[]> visited = new HashSet<>();
-        // Queue for BFS traversal
-        Queue<int[]> queue = new LinkedList<>();
-
-        // Start from the provided position
-        queue.add(new int[]{row, col});
-
-        while (!queue.isEmpty()) {
-            int[] current = queue.poll();
-            int currentRow = current[0];
-            int currentCol = current[1];
-
-            // Skip the tile if it is already visited or goes out of range of the current grid
-            if (currentRow < 0 ||
-                    currentRow >= numRows ||
-                    currentCol < 0 ||
-                    currentCol >= numColumns ||
-                    contains(visited, current)) {
-                continue;
-            }
-
-            GridObject obj = getAtSpot(currentRow, currentCol);
-
-            // Check if this is a matching road
-            if (obj instanceof Road road) {
-
-                // Check if orientation matches
-                if (road.getOrientation() != roadOrientation) {
+        Direction roadDirection = startRoad instanceof OneWayRoad oneWay ? oneWay.getDirection() : null;
+
+        // cells already looked at, so each is only looked at once
+        BitSet seen = new BitSet();
+        // the matching cells found, the ones from head on haven't had
+        // their neighbours looked at yet
+        int[] found = new int[16];
+        int head = 0;
+        int count = 0;
+
+        int start = row * numColumns + col;
+        seen.set(start);
+        found[count++] = start;
+        while (head < count) {
+            int cell = found[head++];
+            int r = cell / numColumns;
+            int c = cell % numColumns;
+            for (int side = 0; side < 4; side++) {
+                int nextRow = side == 0 ? r - 1 : side == 1 ? r + 1 : r;
+                int nextCol = side == 2 ? c - 1 : side == 3 ? c + 1 : c;
+                if (nextRow < 0 || nextRow >= numRows || nextCol < 0 || nextCol >= numColumns) {
                     continue;
                 }
-
-                // For one-way roads, check if direction matches
-                if (roadDirection != null && road instanceof OneWayRoad &&
-                        ((OneWayRoad) road).getDirection() != roadDirection) {
+                int next = nextRow * numColumns + nextCol;
+                if (seen.get(next)) {
                     continue;
                 }
-
-                // Add to visited
-                visited.add(current);
-
-                // Add adjacent tiles to queue
-                queue.add(new int[]{currentRow - 1, currentCol}); // Up
-                queue.add(new int[]{currentRow + 1, currentCol}); // Down
-                queue.add(new int[]{currentRow, currentCol - 1}); // Left
-                queue.add(new int[]{currentRow, currentCol + 1}); // Right
+                seen.set(next);
+                if (sameRoad(tiles.get(nextRow, nextCol), roadOrientation, roadDirection)) {
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = next;
+                }
             }
         }
-        return visited;
+        return Arrays.copyOf(found, count);
     }
 
-    /**
-     * Helper method to check if a set of coordinates contains a specific coordinate
-     */
-    private boolean contains(Set<int[]> set, int[] coord) {
-        for (int[] item : set) {
-            if (item[0] == coord[0] && item[1] == coord[1]) {
-                return true;
-            }
+    // whether a tile is a road going the same way, any direction for two way roads
+    private static boolean sameRoad(GridObject obj, Orientation orientation, Direction direction) {
+        if (!(obj instanceof Road road) || road.getOrientation() != orientation) {
+            return false;
         }
-        return false;
+        return direction == null || !(road instanceof OneWayRoad oneWay) || oneWay.getDirection() == direction;
     }
 
     /**
-     * This function recursively removes all parts of the object at (row, col), even if it extends into other squares
+     * This function removes all parts of the object at (row, col), even if it extends into other squares
      * @param row - the row we want to delete at
      * @param col - the col we want to delete at
      */
 
     public void remove(int row, int col) {
-        GridObject obj = getAtSpot(row, col);
+        GridObject obj = editAt(row, col);
         if (obj == null) {
             return;
         }
@@ -797,19 +731,28 @@ public class Grid {
         if (obj instanceof OneWayRoad r && r.isInRoad()) {
             r.setInRoad(false);
         }
-        grid[row][col] = null;
-        frontGrid[row][col] = null;
-        if (obj == getAtSpot(row - 1, col)) {
-            remove(row - 1, col);
-        }
-        if (obj == getAtSpot(row + 1, col)) {
-            remove(row + 1, col);
-        }
-        if (obj == getAtSpot(row, col - 1)) {
-            remove(row, col - 1);
-        }
-        if (obj == getAtSpot(row, col + 1)) {
-            remove(row, col + 1);
+        // clear the touching tiles it covers with a stack of cells, a big
+        // object would run out of call stack recursing tile by tile
+        int[] stack = new int[16];
+        int top = 0;
+        tiles.set(row, col, null);
+        fireCellChanged(row, col);
+        stack[top++] = row * numColumns + col;
+        while (top > 0) {
+            int cell = stack[--top];
+            int r = cell / numColumns;
+            int c = cell % numColumns;
+            int[][] around = {{r - 1, c}, {r + 1, c}, {r, c - 1}, {r, c + 1}};
+            for (int[] spot : around) {
+                if (obj == getAtSpot(spot[0], spot[1])) {
+                    tiles.set(spot[0], spot[1], null);
+                    fireCellChanged(spot[0], spot[1]);
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = spot[0] * numColumns + spot[1];
+                }
+            }
         }
     }
 
@@ -820,7 +763,7 @@ public class Grid {
      * @param newPop - the new population to set
      */
     public void changeDailyPopulationBuilding(int row, int col, int newPop) {
-        GridObject obj = getAtSpot(row, col);
+        GridObject obj = editAt(row, col);
         if (!(obj instanceof Building)) {
             return;
         }
@@ -834,7 +777,7 @@ public class Grid {
      * @param newCap - the new capacity for the parking lot
      */
     public void changeParkingCapacity(int row, int col, int newCap) {
-        GridObject obj = getAtSpot(row, col);
+        GridObject obj = editAt(row, col);
         if (!(obj instanceof Parking)) {
             return;
         }
@@ -864,7 +807,7 @@ public class Grid {
      */
 
     public void changeBuildingSize(int row, int col, int newSizeX, int newSizeY) {
-        GridObject obj = getAtSpot(row, col);
+        GridObject obj = editAt(row, col);
         if (!(obj instanceof Building) && !(obj instanceof Parking)) {
             // if not building or parking lot return
             return;
@@ -903,34 +846,27 @@ public class Grid {
         }
 
         // recursively delete the existing building and make a new one
-        Image imageFile = grid[row][col].getImageFile();
-
-
         remove(row, col);
         // build new one
         for (int i = 0; i < newSizeX; i++) {
             for (int k = 0; k < newSizeY; k++) {
-                Rectangle current = new Rectangle(GRID_SIZE, GRID_SIZE);
-                current.setFill(new ImagePattern(imageFile));
-                current.setY((row + k) * GRID_SIZE);
-                current.setX((col + i) * GRID_SIZE);
-                grid[row + k][col + i] = obj;
-                frontGrid[row + k][col + i] = current;
+                tiles.set(row + k, col + i, obj);
+                fireCellChanged(row + k, col + i);
             }
         }
     }
 
     public void changeRoadDirection(int row, int col, Direction newDirection) {
-        GridObject obj = getAtSpot(row, col);
+        GridObject obj = editAt(row, col);
         if(!(obj instanceof Road)) {
             // not a road
             return;
         }
 
+        markChanged(row, col);
         if (obj instanceof OneWayRoad oneWayRoad) {
             oneWayRoad.rotateRoad(newDirection);
             updateIntersections(row, col, oneWayRoad);
-            System.out.println("Changed Road Direction!\n");
         } else if (obj instanceof TwoWayRoad twoWayRoad) {
             twoWayRoad.rotateRoad(newDirection);
             updateIntersections(row, col, twoWayRoad);
@@ -939,45 +875,59 @@ public class Grid {
     }
 
     /**
-     * This is a recursive function that sets all touching intersections to have the same ID
-     * @param value - the value of the ID
-     * @param row - row location of the intersection to check around
-     * @param col - col location of the intersection to check around
+     * Swaps the intersection at (row, col) for another kind, keeping the
+     * roads it lists. A new stop light starts green one way and red the other.
+     * @param row - row of the intersection to change
+     * @param col - col of the intersection to change
+     * @param kind - INTERSECTION, STOP_SIGN, STOP_LIGHT or ROUNDABOUT
      */
-    private void groupIntersections(int value, int row, int col) {
-        if (row < 0 || row >= numRows) return;
-        if (col < 0 || col >= numColumns) return;
-        if (!(getAtSpot(row, col) instanceof Intersection)) return;
-        Intersection i = (Intersection) getAtSpot(row, col);
-        if (i.getIntersectionID() != -1) return;
-
-        i.setIntersectionID(value);
-        groupIntersections(value, row + 1, col);
-        groupIntersections(value, row - 1, col);
-        groupIntersections(value, row, col + 1);
-        groupIntersections(value, row, col - 1);
-
-    }
-
-    private void groupRoundabouts(Roundabout round, int row, int col) {
-        // BASE CASE: round == spot, not intersection
-        GridObject obj = getAtSpot(row, col);
-        if (!(obj instanceof Intersection)) return;
-        //if (obj == round) return;
-
-        grid[row][col] = round; // replace with original
-
-        if (row + 1 < numRows) { // Downward
-            groupRoundabouts(round, row + 1, col);
+    public void changeIntersectionType(int row, int col, TileType kind) {
+        if (!(getAtSpot(row, col) instanceof Intersection current)) {
+            return;
         }
-        if (col + 1 < numColumns) { // To the right
-            groupRoundabouts(round, row, col + 1);
+        Road[] roads = current.getRoadList() != null ? current.getRoadList() : new Road[4];
+        Intersection changed = switch (kind) {
+            case ROUNDABOUT -> new Roundabout(new Boolean[]{true, true, true, true}, row, col, new Road[4]);
+            case STOP_SIGN -> new StopSign(row, col, roads);
+            case STOP_LIGHT -> {
+                // vertical road first, then horizontal
+                StopLight light = new StopLight(roads[0], roads[1], 30, 30, 2, 0, roads, row, col);
+                light.initializeStopLightGraphics();
+                yield light;
+            }
+            case INTERSECTION -> new Intersection(row, col, roads);
+            default -> null;
+        };
+        if (changed != null) {
+            setAtSpot(row, col, changed);
         }
-        synchronizeGrid();
     }
 
-    private void displayBigRoundabout(int row, int col, Roundabout round) {
+    /**
+     * Puts a hazard over the road at (row, col), which it keeps until the
+     * road is fixed, see fixHazard().
+     */
+    public void placeHazard(int row, int col) {
+        GridObject covered = getAtSpot(row, col);
+        remove(row, col);
+        placeObjectByImage("Hazard.png", row, col);
+        if (getAtSpot(row, col) instanceof Hazard hazard) {
+            hazard.setCoveredObject(covered);
+        }
+    }
 
+    /**
+     * Takes the hazard at (row, col) away, putting back the road under it.
+     */
+    public void fixHazard(int row, int col) {
+        if (!(getAtSpot(row, col) instanceof Hazard hazard)) {
+            return;
+        }
+        remove(row, col);
+        if (hazard.getCoveredObject() != null) {
+            addObject(hazard.getCoveredObject(), row, col);
+            mergeRoads(row, col);
+        }
     }
 
     public boolean checkAroundDest(Road r) {
@@ -1000,179 +950,390 @@ public class Grid {
         return false;
     }
 
-    private void getOutRoadsAroundHelper(int row, int col, ArrayList<OneWayRoad> response) {
-        // Add this intersection to the visited set
+    /**
+     * @return the one-way roads leading away from any tile of an intersection
+     * @param cells - the intersection's tiles
+     */
+    private ArrayList<OneWayRoad> getOutRoadsAround(int[] cells) {
+        ArrayList<OneWayRoad> response = new ArrayList<>();
+        for (int cell : cells) {
+            int row = cell / numColumns;
+            int col = cell % numColumns;
+            // ADD THE RIGHT ROADS TO THE LIST
+            if (getAtSpot(row + 1, col) instanceof OneWayRoad r && r.getDirection() == DOWN) {
+                response.add(r);
+            }
+            if (getAtSpot(row - 1, col) instanceof OneWayRoad r && r.getDirection() == UP) {
+                response.add(r);
+            }
+            if (getAtSpot(row, col + 1) instanceof OneWayRoad r && r.getDirection() == RIGHT) {
+                response.add(r);
+            }
+            if (getAtSpot(row, col - 1) instanceof OneWayRoad r && r.getDirection() == LEFT) {
+                response.add(r);
+            }
+        }
+        return response;
+    }
 
-        Intersection i = (Intersection) getAtSpot(row, col);
+    /**
+     * Builds the graph as an adjacency matrix, see buildRoadGraph(). Takes
+     * memory in the number of nodes squared, only meant for small maps.
+     *
+     * @return the weight of the road from node i to node j at [i][j], 0 if there's none
+     */
+    public int[][] gridToGraph() {
+        return buildRoadGraph().toMatrix();
+    }
 
-        System.out.println("Checking");
+    /**
+     * Builds the graph vehicles route on. Its nodes are the intersections,
+     * in-roads and destination roads, numbered in the order they're found
+     * row by row; every tile of a big intersection gets the same id. An edge
+     * is the stretch of road from one node to the next, weighted by how slow
+     * its roads are.
+     *
+     * The grid remembers what it found, and after edits only regroups the
+     * nodes around the edited cells and walks again out of the nodes whose
+     * roads ran through them, see markChanged().
+     *
+     * @return the graph of the map
+     */
+    public RoadGraph buildRoadGraph() {
+        if (graphCache == null || !graphCache.fits(numRows, numColumns) || hasRoundabouts
+            || !updateGraphNodes()) {
+            scanGraphNodes();
+        }
+        intersections = new ArrayList<>();
+        graphCache.assignIds(intersections);
+        for (RoadGraphCache.Node node : graphCache.nodes()) {
+            if (!node.walked) {
+                walkRoads(node);
+            }
+        }
+        return graphCache.toGraph();
+    }
 
-        // MAKE RECURSIVE CALLS TO THE INTERSECTIONS AROUND IT
-        // Only call recursively if we haven't visited this intersection before
-        if (row + 1 < numRows
-            && getAtSpot(row + 1, col) instanceof Intersection j
-            && j.getIntersectionID() == i.getIntersectionID()) {
-            getOutRoadsAroundHelper(row + 1, col, response);
-            System.out.println("VISITED DOWN");
+    /**
+     * Tells the grid a cell changed in a way the road graph might care about,
+     * for changes made to its objects directly, like a road's speed limit or
+     * in-road flag. Edits through the grid's own methods already do.
+     * @param row - row of the cell
+     * @param col - col of the cell
+     */
+    public void markChanged(int row, int col) {
+        if (graphCache != null) {
+            graphCache.markDirty(row, col);
         }
-        if (col + 1 < numColumns
-            && getAtSpot(row, col + 1) instanceof Intersection j
-            && j.getIntersectionID() == i.getIntersectionID()) {
-            getOutRoadsAroundHelper(row, col + 1, response);
-            System.out.println("VISITED RIGHT");
+    }
+
+    /**
+     * Finds every node of the graph from scratch. Touching intersection tiles
+     * are grouped into one node in a single pass over the grid, joining each
+     * tile with the ones above and to the left of it. A group with a
+     * roundabout in it is one big roundabout, and every tile of it is set to
+     * the group's first roundabout.
+     */
+    private void scanGraphNodes() {
+        int cellCount = numRows * numColumns;
+        UnionFind groups = new UnionFind(cellCount);
+        hasRoundabouts = false;
+        for (TileStore.Cursor tile = tiles.cursor(); tile.next(); ) {
+            int i = tile.row();
+            int j = tile.col();
+            if (tile.get() instanceof Intersection) {
+                int cell = i * numColumns + j;
+                if (i > 0 && tiles.get(i - 1, j) instanceof Intersection) {
+                    groups.union(cell, cell - numColumns);
+                }
+                if (j > 0 && tiles.get(i, j - 1) instanceof Intersection) {
+                    groups.union(cell, cell - 1);
+                }
+                if (tile.get() instanceof Roundabout) {
+                    hasRoundabouts = true;
+                }
+            }
         }
 
+        // the roundabout each group with one is set to, by the group's root
+        Roundabout[] roundaboutOf = null;
+        if (hasRoundabouts) {
+            roundaboutOf = new Roundabout[cellCount];
+            for (TileStore.Cursor tile = tiles.cursor(); tile.next(); ) {
+                if (tile.get() instanceof Roundabout r) {
+                    int root = groups.find(tile.row() * numColumns + tile.col());
+                    if (roundaboutOf[root] == null) {
+                        roundaboutOf[root] = r;
+                    }
+                }
+            }
+        }
 
-        // ADD THE RIGHT ROADS TO THE LIST
-        if (row + 1 < numRows
-            && getAtSpot(row + 1, col) instanceof OneWayRoad r
-            && r.getDirection() == DOWN) {
-            System.out.println("ADDED A ROAD DOWN");
-            response.add(r);
+        // number the nodes in the order their first tile comes row by row,
+        // clearing the ids of the roads that aren't one
+        int[] idOf = new int[cellCount];
+        int[] nodeOf = new int[cellCount];
+        Arrays.fill(idOf, -1);
+        Arrays.fill(nodeOf, -1);
+        int numIntersections = 0;
+        boolean merged = false;
+        for (TileStore.Cursor tile = tiles.cursor(); tile.next(); ) {
+            int cell = tile.row() * numColumns + tile.col();
+            if (tile.get() instanceof Intersection in) {
+                int root = groups.find(cell);
+                if (idOf[root] == -1) {
+                    idOf[root] = numIntersections++;
+                }
+                if (roundaboutOf != null && roundaboutOf[root] != null && in != roundaboutOf[root]) {
+                    in = roundaboutOf[root]; // replace with original
+                    tiles.set(tile.row(), tile.col(), in);
+                    merged = true;
+                }
+                in.setIntersectionID(idOf[root]);
+                nodeOf[cell] = idOf[root];
+            } else if (tile.get() instanceof OneWayRoad r && (r.isInRoad() || checkAroundDest(r))) {
+                // ADDED IN ROADS AND DESTINATION ROADS TO GRAPH
+                r.setIntersectionID(numIntersections);
+                nodeOf[cell] = numIntersections++;
+            } else if (tile.get() instanceof Road r) {
+                r.setIntersectionID(-1);
+            }
+        }
+        if (merged) {
+            synchronizeGrid();
+        }
+
+        // collect the tiles of each node, in order
+        int[] start = new int[numIntersections + 1];
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (nodeOf[cell] != -1) {
+                start[nodeOf[cell] + 1]++;
+            }
         }
-        if (row - 1 >= 0 &&
-            getAtSpot(row - 1, col) instanceof OneWayRoad r
-            && r.getDirection() == UP) {
-            response.add(r);
-            System.out.println("ADDED A ROAD UP");
+        for (int id = 0; id < numIntersections; id++) {
+            start[id + 1] += start[id];
         }
-        if (col + 1 < numColumns
-            && getAtSpot(row, col + 1) instanceof OneWayRoad r
-            && r.getDirection() == RIGHT) {
-            response.add(r);
-            System.out.println("ADDED A ROAD RIGHT");
+        int[] cells = new int[start[numIntersections]];
+        int[] fill = Arrays.copyOf(start, numIntersections);
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (nodeOf[cell] != -1) {
+                cells[fill[nodeOf[cell]]++] = cell;
+            }
         }
-        if (col - 1 >= 0 &&
-            getAtSpot(row, col - 1) instanceof OneWayRoad r
-            && r.getDirection() == LEFT) {
-            response.add(r);
-            System.out.println("ADDED A ROAD LEFT");
+        graphCache = new RoadGraphCache(numRows, numColumns);
+        for (int id = 0; id < numIntersections; id++) {
+            int[] nodeCells = Arrays.copyOfRange(cells, start[id], start[id + 1]);
+            GridObject[] objects = objectsAt(nodeCells);
+            if (objects[0] instanceof Roundabout r) {
+                r.is2x2 = (r == getAtSpot(r.getRowNum() + 1, r.getColNum() + 1));
+            }
+            graphCache.addNode(nodeCells, objects);
         }
     }
 
-    private ArrayList<OneWayRoad> getOutRoadsAround(Intersection i) {
-        ArrayList<OneWayRoad> response = new ArrayList<>();
-        getOutRoadsAroundHelper(i.getRowNum(), i.getColNum(), response);
-        return response;
-    }
+    /**
+     * Regroups the nodes around the cells edited since the last build, and
+     * marks the nodes whose walks went through them to be walked again.
+     * @return false if that couldn't be done, when roundabouts are involved,
+     * and the graph needs building from scratch
+     */
+    private boolean updateGraphNodes() {
+        int[] edited = graphCache.takeDirty();
+        if (edited.length == 0) {
+            return true;
+        }
+        ArrayList<Integer> rewalk = new ArrayList<>();
+        TreeSet<Integer> candidates = new TreeSet<>();
+        for (int cell : edited) {
+            if (tiles.get(cell / numColumns, cell % numColumns) instanceof Roundabout) {
+                return false;
+            }
+            for (int key : graphCache.readersOf(cell)) {
+                rewalk.add(key);
+            }
+            // whether a cell is a node depends on it and the cells next to it
+            int row = cell / numColumns;
+            int col = cell % numColumns;
+            int[][] around = {{row, col}, {row - 1, col}, {row + 1, col}, {row, col - 1}, {row, col + 1}};
+            for (int[] spot : around) {
+                if (spot[0] >= 0 && spot[0] < numRows && spot[1] >= 0 && spot[1] < numColumns) {
+                    candidates.add(spot[0] * numColumns + spot[1]);
+                }
+            }
+        }
 
-    public int[][] gridToGraph() {
-        if (intersections != null) {
-            for (GridObject i : intersections) {
-                if (i instanceof Intersection in) {
-                    in.setIntersectionID(-1);
-                } else if (i instanceof Road r) {
-                    r.setIntersectionID(-1);
+        // drop the nodes there, a whole intersection if any tile of it is
+        for (int cell : new ArrayList<>(candidates)) {
+            int key = graphCache.nodeAt(cell);
+            if (key != -1) {
+                RoadGraphCache.Node old = graphCache.removeNode(key);
+                for (int c : old.cells) {
+                    candidates.add(c);
                 }
             }
         }
-        intersections = new ArrayList<>();
-        // count intersections
-        int numIntersections = 0;
-        for (int i = 0; i < numRows; i++) {
-            for (int j = 0; j < numColumns; j++) {
-                if (getAtSpot(i, j) instanceof Intersection in) {
-                    if (in.getIntersectionID() == -1) {
-                        if (in instanceof Roundabout r) { // group together big ones
-                            r.setIntersectionID(numIntersections++);
-                            intersections.add(r);
-                            groupRoundabouts(r, i, j);
-                            displayBigRoundabout(i, j, r);
-                            r.is2x2 = (r == getAtSpot(r.getRowNum() + 1, r.getColNum() + 1));
-                        } else {
-                            groupIntersections(numIntersections++, i, j);
-                            intersections.add(in);
-                        }
-                    }
-                } else if (getAtSpot(i, j) instanceof OneWayRoad r && r.isInRoad()) { // ADDED IN ROADS TO GRAPH
-                    intersections.add(r);
-                    r.setIntersectionID(numIntersections++);
-                } else if (getAtSpot(i, j) instanceof OneWayRoad r) { // ADDED DESTINATION ROADS TO GRAPH
-                    if (checkAroundDest(r)) {
-                        intersections.add(r);
-                        r.setIntersectionID(numIntersections++);
-                    }
+
+        // and find them again
+        for (int cell : candidates) {
+            if (graphCache.nodeAt(cell) != -1) {
+                continue; // grouped with an intersection tile before it
+            }
+            GridObject obj = tiles.get(cell / numColumns, cell % numColumns);
+            if (obj instanceof Roundabout) {
+                return false;
+            } else if (obj instanceof Intersection) {
+                ArrayList<Integer> group = new ArrayList<>();
+                if (!collectIntersection(cell, group)) {
+                    return false;
                 }
+                int[] groupCells = toCells(group);
+                graphCache.addNode(groupCells, objectsAt(groupCells));
+            } else if (obj instanceof OneWayRoad r && (r.isInRoad() || checkAroundDest(r))) {
+                graphCache.addNode(new int[] {cell}, new GridObject[] {r});
             }
         }
-        int[][] graph = new int[numIntersections][numIntersections];
-
-        // route between intersections
-        for (GridObject obj : intersections) {
-            if (obj instanceof Intersection i) {
-                ArrayList<OneWayRoad> roads = getOutRoadsAround(i);
-                System.out.println("ROADS: " + roads.toString());
-                int originalID = i.getIntersectionID();
-                for (OneWayRoad r : roads) {
-                    GridObject cur = r;
-                    int count = 0;
-                    int lastID = -1;
-                    while (!(cur instanceof Intersection)) {
-                        if (cur instanceof Hazard) {
-                            break;
-                        }
-                        if (cur instanceof OneWayRoad d) {
-                            count += (MAX_SPEED_LIMIT - d.getSpeedLimit() + 1); // weighted graph
-                            if (checkAroundDest(d)) {
-                                lastID = d.getIntersectionID();
-                                break;
-                            }
-                            cur = switch (d.getDirection()) {
-                                case UP -> d.getRowNum() - 1 >= 0 ? getAtSpot(d.getRowNum() - 1, d.getColNum()) : null;
-                                case DOWN ->
-                                    d.getRowNum() + 1 < numRows ? getAtSpot(d.getRowNum() + 1, d.getColNum()) : null;
-                                case RIGHT -> d.getColNum() + 1 < numColumns ? getAtSpot(d.getRowNum(), d.getColNum() + 1) :
-                                    null;
-                                case LEFT -> d.getColNum() - 1 >= 0 ? getAtSpot(d.getRowNum(), d.getColNum() - 1) : null;
-                            };
-                            if (cur == null) {
-                                break;
-                            }
-                        }
-                    }
-                    if (cur instanceof Intersection j) {
-                        lastID = j.getIntersectionID();
-                    }
-                    if (lastID != -1) {
-                        graph[originalID][lastID] = count;
+
+        for (int key : rewalk) {
+            RoadGraphCache.Node node = graphCache.getNode(key);
+            if (node != null) {
+                graphCache.clearWalk(node);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects the touching intersection tiles from a cell, like
+     * scanGraphNodes() groups them.
+     * @return false if it ran into a roundabout or a tile already grouped
+     */
+    private boolean collectIntersection(int start, ArrayList<Integer> group) {
+        HashSet<Integer> seen = new HashSet<>();
+        ArrayDeque<Integer> stack = new ArrayDeque<>();
+        stack.push(start);
+        seen.add(start);
+        while (!stack.isEmpty()) {
+            int cell = stack.pop();
+            int row = cell / numColumns;
+            int col = cell % numColumns;
+            if (tiles.get(row, col) instanceof Roundabout || graphCache.nodeAt(cell) != -1) {
+                return false;
+            }
+            group.add(cell);
+            int[][] around = {{row - 1, col}, {row + 1, col}, {row, col - 1}, {row, col + 1}};
+            for (int[] spot : around) {
+                if (getAtSpot(spot[0], spot[1]) instanceof Intersection) {
+                    int next = spot[0] * numColumns + spot[1];
+                    if (seen.add(next)) {
+                        stack.push(next);
                     }
                 }
-            } else if (obj instanceof Road r) {
+            }
+        }
+        return true;
+    }
+
+    private static int[] toCells(ArrayList<Integer> cells) {
+        int[] array = new int[cells.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = cells.get(i);
+        }
+        return array;
+    }
+
+    private GridObject[] objectsAt(int[] cells) {
+        GridObject[] objects = new GridObject[cells.length];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = tiles.get(cells[i] / numColumns, cells[i] % numColumns);
+        }
+        return objects;
+    }
+
+    /**
+     * Walks the roads out of a node to the nodes they lead to, recording the
+     * edges and every cell looked at on the way. Ids have to be assigned
+     * first, an intersection finds its out-roads by them.
+     */
+    private void walkRoads(RoadGraphCache.Node node) {
+        graphCache.beginWalk(node);
+        GridObject obj = node.object;
+        if (obj instanceof Intersection i) {
+            for (int cell : node.cells) {
+                graphCache.addRead(node, cell / numColumns, cell % numColumns);
+            }
+            ArrayList<OneWayRoad> roads = getOutRoadsAround(node.cells);
+            for (OneWayRoad r : roads) {
                 GridObject cur = r;
                 int count = 0;
-                int lastID = -1;
+                GridObject last = null;
                 while (!(cur instanceof Intersection)) {
+                    graphCache.addRead(node, cur.getRowNum(), cur.getColNum());
                     if (cur instanceof Hazard) {
                         break;
                     }
                     if (cur instanceof OneWayRoad d) {
                         count += (MAX_SPEED_LIMIT - d.getSpeedLimit() + 1); // weighted graph
                         if (checkAroundDest(d)) {
-                            lastID = d.getIntersectionID();
-                            graph[r.getIntersectionID()][lastID] = count; // add to graph, but don't stop traversing
+                            last = d;
+                            break;
                         }
-                        cur = switch (d.getDirection()) {
-                            case UP -> d.getRowNum() - 1 >= 0 ? getAtSpot(d.getRowNum() - 1, d.getColNum()) : null;
-                            case DOWN ->
-                                d.getRowNum() + 1 < numRows ? getAtSpot(d.getRowNum() + 1, d.getColNum()) : null;
-                            case RIGHT -> d.getColNum() + 1 < numColumns ? getAtSpot(d.getRowNum(), d.getColNum() + 1) :
-                                null;
-                            case LEFT -> d.getColNum() - 1 >= 0 ? getAtSpot(d.getRowNum(), d.getColNum() - 1) : null;
-                        };
+                        cur = nextAlong(d);
                         if (cur == null) {
                             break;
                         }
                     }
                 }
-                if (cur instanceof Intersection i) {
-                    lastID = i.getIntersectionID();
+                if (cur instanceof Intersection j) {
+                    graphCache.addRead(node, j.getRowNum(), j.getColNum());
+                    last = j;
                 }
-                if (lastID != -1) {
-                    graph[r.getIntersectionID()][lastID] = count;
+                if (last != null) {
+                    graphCache.addEdge(node, last.getRowNum(), last.getColNum(), count);
                 }
             }
+        } else if (obj instanceof Road r) {
+            GridObject cur = r;
+            int count = 0;
+            GridObject last = null;
+            while (!(cur instanceof Intersection)) {
+                graphCache.addRead(node, cur.getRowNum(), cur.getColNum());
+                if (cur instanceof Hazard) {
+                    break;
+                }
+                if (cur instanceof OneWayRoad d) {
+                    count += (MAX_SPEED_LIMIT - d.getSpeedLimit() + 1); // weighted graph
+                    if (checkAroundDest(d)) {
+                        last = d;
+                        graphCache.addEdge(node, d.getRowNum(), d.getColNum(), count); // add to graph, but don't stop traversing
+                    }
+                    cur = nextAlong(d);
+                    if (cur == null) {
+                        break;
+                    }
+                }
+            }
+            if (cur instanceof Intersection i) {
+                graphCache.addRead(node, i.getRowNum(), i.getColNum());
+                last = i;
+            }
+            if (last != null) {
+                graphCache.addEdge(node, last.getRowNum(), last.getColNum(), count);
+            }
         }
-        return graph;
+    }
+
+    /**
+     * @return the tile a road leads onto, null at the edge of the grid
+     */
+    private GridObject nextAlong(OneWayRoad d) {
+        return switch (d.getDirection()) {
+            case UP -> d.getRowNum() - 1 >= 0 ? getAtSpot(d.getRowNum() - 1, d.getColNum()) : null;
+            case DOWN ->
+                d.getRowNum() + 1 < numRows ? getAtSpot(d.getRowNum() + 1, d.getColNum()) : null;
+            case RIGHT -> d.getColNum() + 1 < numColumns ? getAtSpot(d.getRowNum(), d.getColNum() + 1) :
+                null;
+            case LEFT -> d.getColNum() - 1 >= 0 ? getAtSpot(d.getRowNum(), d.getColNum() - 1) : null;
+        };
     }
 
 
@@ -1185,12 +1346,70 @@ public class Grid {
         return this.numColumns;
     }
 
-    public GridObject[][] getGrid() {
-        return this.grid;
+    /**
+     * Puts an object on a tile as it is, replacing whatever was there,
+     * without snapping roads into intersections like addObject() does.
+     * @param row - row of the tile
+     * @param col - col of the tile
+     * @param obj - the object, null to empty the tile
+     */
+    public void setAtSpot(int row, int col, GridObject obj) {
+        tiles.set(row, col, obj);
+        fireCellChanged(row, col);
+    }
+
+    /**
+     * Calls action with the object on every tile that has one, row by row.
+     * Only looks at the parts of the grid that have anything in them.
+     */
+    public void forEachObject(Consumer<GridObject> action) {
+        for (TileStore.Cursor tile = tiles.cursor(); tile.next(); ) {
+            action.accept(tile.get());
+        }
+    }
+
+    /**
+     * Like forEachObject, with the row and column of each tile too. An object
+     * covering several tiles comes up once for each of them.
+     */
+    public void forEachTile(TileAction action) {
+        for (TileStore.Cursor tile = tiles.cursor(); tile.next(); ) {
+            action.accept(tile.row(), tile.col(), tile.get());
+        }
+    }
+
+    public interface TileAction {
+        void accept(int row, int col, GridObject obj);
+    }
+
+    /**
+     * @return the nodes of the graph from the last buildRoadGraph(), null before the first
+     */
+    public ArrayList<GridObject> getIntersections() {
+        return this.intersections;
+    }
+
+    /**
+     * Empties the vehicle list of every road tile, used before and after
+     * running a simulation
+     */
+    public void clearVehicleLists() {
+        for (TileStore.Cursor tile = tiles.cursor(); tile.next(); ) {
+            if (tile.get() instanceof OneWayRoad road) {
+                road.clearVehicles();
+            }
+        }
     }
 
-    public Rectangle[][] getFrontGrid() {
-        return frontGrid;
+    public void setGridListener(GridListener listener) {
+        this.listener = listener;
+    }
+
+    private void fireCellChanged(int row, int col) {
+        markChanged(row, col);
+        if (listener != null) {
+            listener.cellChanged(row, col);
+        }
     }
 
     public GridObject getGridObject() {
@@ -1205,31 +1424,45 @@ public class Grid {
      * @param newNumCols - the number of columns for the new grid size
      */
     public void resize(int newNumRows, int newNumCols) {
-        // create new
-        GridObject[][] newGrid = new GridObject[newNumRows][newNumCols];
-        int leastRows = Math.min(numRows, newNumRows);
-        int leastCols = Math.min(numColumns, newNumCols);
-        Rectangle[][] newFront = new Rectangle[newNumRows][newNumCols];
-        // iterate
-        for (int i = 0; i < leastRows; i++) {
-            for (int k = 0; k < leastCols; k++) {
-                // copy objects from old grid to new one
-                newGrid[i][k] = grid[i][k];
-                newFront[i][k] = frontGrid[i][k];
-            }
-        }
+        // copy objects from old grid to new one, a chunk at a time
+        TileStore newTiles = tiles.resized(newNumRows, newNumCols);
 
         // update grid var
         this.numRows = newNumRows;
         this.numColumns = newNumCols;
-        this.grid = newGrid;
-        this.frontGrid = newFront;
+        this.tiles = newTiles;
+        graphCache = null;
+        synchronizeGrid();
+    }
 
+    /**
+     * Empties every tile outside the first rows x cols, the ones shrinking
+     * the grid to that size cuts off, so a GridCommand running it writes
+     * them down.
+     */
+    void clearOutside(int rows, int cols) {
+        ArrayList<int[]> cut = new ArrayList<>();
+        for (TileStore.Cursor tile = tiles.cursor(); tile.next(); ) {
+            if (tile.row() >= rows || tile.col() >= cols) {
+                cut.add(new int[]{tile.row(), tile.col()});
+            }
+        }
+        for (int[] cell : cut) {
+            tiles.set(cell[0], cell[1], null);
+        }
+    }
+
+    /**
+     * Writes down every tile changed from now on, see GridCommand.
+     * @param changes - where to write them, null to stop
+     */
+    void record(TileChanges changes) {
+        tiles.record(changes);
     }
 
     private void setIntersectionAt(int rowNum, int colNum, Road newRoad) {
         // if is intersection, just add the newRoad
-        if (grid[rowNum][colNum] instanceof Intersection i) {
+        if (tiles.edit(rowNum, colNum) instanceof Intersection i) {
             i.addRoad(newRoad);
             return;
         }
@@ -1237,39 +1470,33 @@ public class Grid {
         Intersection newIntersection = new Intersection(rowNum, colNum, new Road[4]);
 
         // check the sides
-        if (colNum > 0 && grid[rowNum][colNum - 1] instanceof Road &&
-            ((Road) grid[rowNum][colNum - 1]).getOrientation() == Orientation.HORIZONTAL) {
-            newIntersection.addRoad((Road) grid[rowNum][colNum - 1]);
+        if (colNum > 0 && tiles.get(rowNum, colNum - 1) instanceof Road &&
+            ((Road) tiles.get(rowNum, colNum - 1)).getOrientation() == Orientation.HORIZONTAL) {
+            newIntersection.addRoad((Road) tiles.get(rowNum, colNum - 1));
         }
-        if (colNum < numColumns - 1 && grid[rowNum][colNum + 1] instanceof Road &&
-            ((Road) grid[rowNum][colNum + 1]).getOrientation() == Orientation.HORIZONTAL) {
-            newIntersection.addRoad((Road) grid[rowNum][colNum + 1]);
+        if (colNum < numColumns - 1 && tiles.get(rowNum, colNum + 1) instanceof Road &&
+            ((Road) tiles.get(rowNum, colNum + 1)).getOrientation() == Orientation.HORIZONTAL) {
+            newIntersection.addRoad((Road) tiles.get(rowNum, colNum + 1));
         }
-        if (rowNum > 0 && grid[rowNum - 1][colNum] instanceof Road &&
-            ((Road) grid[rowNum - 1][colNum]).getOrientation() == Orientation.VERTICAL) {
-            newIntersection.addRoad((Road) grid[rowNum - 1][colNum]);
+        if (rowNum > 0 && tiles.get(rowNum - 1, colNum) instanceof Road &&
+            ((Road) tiles.get(rowNum - 1, colNum)).getOrientation() == Orientation.VERTICAL) {
+            newIntersection.addRoad((Road) tiles.get(rowNum - 1, colNum));
         }
-        if (rowNum < numRows - 1 && grid[rowNum + 1][colNum] instanceof Road &&
-            ((Road) grid[rowNum + 1][colNum]).getOrientation() == Orientation.VERTICAL) {
-            newIntersection.addRoad((Road) grid[rowNum + 1][colNum]);
+        if (rowNum < numRows - 1 && tiles.get(rowNum + 1, colNum) instanceof Road &&
+            ((Road) tiles.get(rowNum + 1, colNum)).getOrientation() == Orientation.VERTICAL) {
+            newIntersection.addRoad((Road) tiles.get(rowNum + 1, colNum));
         }
 
-        grid[rowNum][colNum] = newIntersection;
-
-        File imageFile = new File("Images/BasicIntersection.png");
-        Image intersection = new Image(imageFile.toURI().toString());
-        ImagePattern intersectionPattern = new ImagePattern(intersection);
+        tiles.set(rowNum, colNum, newIntersection);
+        markChanged(rowNum, colNum);
         if (!testingMode) {
-            frontGrid[rowNum][colNum].setFill(intersectionPattern);
+            fireCellChanged(rowNum, colNum);
         }
     }
 
     public void testGridInit() {
-        for (int i = 0; i < numRows; i++) {
-            for (int k = 0; k < numColumns; k++) {
-                frontGrid[i][k] = new Rectangle();
-            }
-        }
+        // tests run without a view, make sure nothing is listening
+        listener = null;
     }
 
 
@@ -1283,35 +1510,35 @@ public class Grid {
         if (rowNum < 0 || colNum < 0 || rowNum >= numRows || colNum >= numColumns) {
             return;
         }
-        if (grid[rowNum][colNum] instanceof Intersection) {
+        if (tiles.get(rowNum, colNum) instanceof Intersection) {
             setIntersectionAt(rowNum, colNum, newRoad);
         }
-        if (!(grid[rowNum][colNum] instanceof Road)) {
+        if (!(tiles.get(rowNum, colNum) instanceof Road)) {
             return;
         }
 
-        Road checkRoad = (Road) grid[rowNum][colNum];
+        Road checkRoad = (Road) tiles.get(rowNum, colNum);
         if (checkRoad.getOrientation() == Orientation.VERTICAL) {
             // check the sides
-            if (colNum > 0 && grid[rowNum][colNum - 1] instanceof Road &&
-                ((Road) grid[rowNum][colNum - 1]).getOrientation() == Orientation.HORIZONTAL) {
+            if (colNum > 0 && tiles.get(rowNum, colNum - 1) instanceof Road &&
+                ((Road) tiles.get(rowNum, colNum - 1)).getOrientation() == Orientation.HORIZONTAL) {
                 setIntersectionAt(rowNum, colNum, newRoad);
                 return;
             }
-            if (colNum < numColumns - 1 && grid[rowNum][colNum + 1] instanceof Road &&
-                ((Road) grid[rowNum][colNum + 1]).getOrientation() == Orientation.HORIZONTAL) {
+            if (colNum < numColumns - 1 && tiles.get(rowNum, colNum + 1) instanceof Road &&
+                ((Road) tiles.get(rowNum, colNum + 1)).getOrientation() == Orientation.HORIZONTAL) {
                 setIntersectionAt(rowNum, colNum, newRoad);
                 return;
             }
         } else {
             // check the top and bottom
-            if (rowNum > 0 && grid[rowNum - 1][colNum] instanceof Road &&
-                ((Road) grid[rowNum - 1][colNum]).getOrientation() == Orientation.VERTICAL) {
+            if (rowNum > 0 && tiles.get(rowNum - 1, colNum) instanceof Road &&
+                ((Road) tiles.get(rowNum - 1, colNum)).getOrientation() == Orientation.VERTICAL) {
                 setIntersectionAt(rowNum, colNum, newRoad);
                 return;
             }
-            if (rowNum < numRows - 1 && grid[rowNum + 1][colNum] instanceof Road &&
-                ((Road) grid[rowNum + 1][colNum]).getOrientation() == Orientation.VERTICAL) {
+            if (rowNum < numRows - 1 && tiles.get(rowNum + 1, colNum) instanceof Road &&
+                ((Road) tiles.get(rowNum + 1, colNum)).getOrientation() == Orientation.VERTICAL) {
                 setIntersectionAt(rowNum, colNum, newRoad);
                 return;
             }
@@ -1353,17 +1580,17 @@ public class Grid {
             System.out.println("Adding null object to the grid\n");
         }
         // if the spot is already full then do nothing
-        if (grid[rowNum][colNum] != null) {
+        if (tiles.get(rowNum, colNum) != null) {
             return;
         }
         // add object to grid
-        System.out.println(newObject.toString());
-        grid[rowNum][colNum] = newObject;
-        grid[rowNum][colNum].setColNum(colNum);
-        grid[rowNum][colNum].setRowNum(rowNum);
+        tiles.set(rowNum, colNum, newObject);
+        markChanged(rowNum, colNum);
+        tiles.get(rowNum, colNum).setColNum(colNum);
+        tiles.get(rowNum, colNum).setRowNum(rowNum);
         mergeRoads(rowNum, colNum);
 
-        if (grid[rowNum][colNum] instanceof OneWayRoad road) {
+        if (tiles.get(rowNum, colNum) instanceof OneWayRoad road) {
             if ((rowNum == 0 && road.getDirection() == Direction.DOWN) ||
                 (rowNum == numRows - 1 && road.getDirection() == Direction.UP) ||
                 (colNum == 0 && road.getDirection() == Direction.RIGHT) ||
@@ -1376,11 +1603,12 @@ public class Grid {
         if (newObject instanceof Road) {
             updateIntersections(rowNum, colNum, (Road) newObject);
         }
-
+        fireCellChanged(rowNum, colNum);
     }
 
     /**
-     * This gets the object at (rowNum, colNum) on the grid.
+     * This gets the object at (rowNum, colNum) on the grid. It may be shared
+     * with a snapshot of the grid, use editAt() to get it for changing.
      * @param rowNum - The row number to get at
      * @param colNum - The column number to get at
      * @return the GridObject at (rowNum, colNum)
@@ -1389,7 +1617,22 @@ public class Grid {
         if (rowNum < 0 || rowNum >= numRows || colNum < 0 || colNum >= numColumns) {
             return null;
         }
-        return grid[rowNum][colNum];
+        return tiles.get(rowNum, colNum);
+    }
+
+    /**
+     * This gets the object at (rowNum, colNum) on the grid to be changed.
+     * It's the same object getAtSpot() gives, but any snapshot sharing it
+     * keeps a copy of it as it is now.
+     * @param rowNum - The row number to get at
+     * @param colNum - The column number to get at
+     * @return the GridObject at (rowNum, colNum)
+     */
+    public GridObject editAt(int rowNum, int colNum) {
+        if (rowNum < 0 || rowNum >= numRows || colNum < 0 || colNum >= numColumns) {
+            return null;
+        }
+        return tiles.edit(rowNum, colNum);
     }
 
     /**
@@ -1431,23 +1674,16 @@ public class Grid {
         return answer;
     }
     /**
-     * This function updates the frontend to represent the backend
+     * This function tells the frontend to redraw itself from the backend
      */
     public void synchronizeGrid(){
-        for (int i = 0; i < numRows; i++) {
-            for (int k = 0; k < numColumns; k++) {
-                if (grid[i][k] != null) {
-                    frontGrid[i][k].setFill(new ImagePattern(grid[i][k].getImageFile()));
-                }
-                else {
-                    frontGrid[i][k].setFill(null);
-                }
-            }
+        if (listener != null) {
+            listener.gridChanged();
         }
-        UserInterface.refreshGrid(numRows);
     }
 
     public void updateTiming(StopLight s, int newTimingVertical, int newTimingHorizontal) {
+        editAt(s.getRowNum(), s.getColNum());
         s.setTimingOne(newTimingVertical);
         s.setTimingTwo(newTimingHorizontal);
     }
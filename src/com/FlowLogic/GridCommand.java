@@ -0,0 +1,791 @@
+package com.FlowLogic;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One edit to a grid that can be taken back, like placing a road or
+ * renaming one. Edits are kept as these instead of copies of the grid, see
+ * CommandLog.
+ *
+ * A command only says what to do, by tile, so the same one can be run again
+ * for a redo or read back from a journal. While it runs it writes down the
+ * tiles it changes, including the ones changed along the way like
+ * intersections snapping in around a new road, and whatever settings it
+ * changes on the objects, so undo() can put both back. What it does to other
+ * objects' bookkeeping, like which lanes a road is grouped with, is left as
+ * Grid.remove() leaves it.
+ */
+public abstract class GridCommand {
+
+    // tiles changed by the last run, null until it's run
+    private TileChanges changes;
+
+    /**
+     * Makes the edit, writing down what it changed so it can be undone.
+     */
+    public void apply(Grid grid) {
+        changes = new TileChanges();
+        grid.record(changes);
+        try {
+            run(grid);
+        } finally {
+            grid.record(null);
+        }
+    }
+
+    /**
+     * Takes the edit back. Anything applied after it has to be undone first.
+     */
+    public void undo(Grid grid) {
+        changes.revert(grid);
+        restore(grid);
+    }
+
+    /**
+     * @return about how much memory keeping this for an undo takes
+     */
+    public long bytes() {
+        return 48 + (changes == null ? 0 : changes.bytes());
+    }
+
+    // the edit itself, saving any setting it changes for restore()
+    protected abstract void run(Grid grid);
+
+    // puts back the settings run() changed, after the tiles are back
+    protected void restore(Grid grid) {
+    }
+
+    /**
+     * @return the command as json, for a journal, see fromJson()
+     */
+    public abstract JSONObject toJson();
+
+    /* The edits */
+
+    /**
+     * Places a new object from the palette, see Grid.placeObjectByImage().
+     */
+    public static GridCommand place(String imageFile, int row, int col) {
+        return new Place(imageFile, row, col);
+    }
+
+    /**
+     * Removes the whole object on (row, col), see Grid.remove().
+     */
+    public static GridCommand remove(int row, int col) {
+        return new Remove(row, col);
+    }
+
+    /**
+     * Turns the road on (row, col), see Grid.changeRoadDirection().
+     */
+    public static GridCommand rotate(int row, int col, Direction direction) {
+        return new Rotate(row, col, direction);
+    }
+
+    /**
+     * Resizes the building or parking lot on (row, col), see
+     * Grid.changeBuildingSize().
+     */
+    public static GridCommand resizeBuilding(int row, int col, int xLength, int yLength) {
+        return new ResizeBuilding(row, col, xLength, yLength);
+    }
+
+    /**
+     * Sets the daily population of the building on (row, col).
+     */
+    public static GridCommand population(int row, int col, int population) {
+        return new Amount("population", row, col, population);
+    }
+
+    /**
+     * Sets the capacity of the parking lot on (row, col).
+     */
+    public static GridCommand capacity(int row, int col, int capacity) {
+        return new Amount("capacity", row, col, capacity);
+    }
+
+    /**
+     * Sets the light timings of the stop light on (row, col).
+     */
+    public static GridCommand timing(int row, int col, int vertical, int horizontal) {
+        return new Timing(row, col, vertical, horizontal);
+    }
+
+    /**
+     * Renames the roads or buildings on the given tiles, each
+     * row * numColumns + col as Grid.getConnectedRoadCells() gives them.
+     */
+    public static GridCommand rename(int[] cells, int numColumns, String name) {
+        return new Rename(unpack(cells, numColumns), name);
+    }
+
+    /**
+     * Sets the speed limit of the roads on the given tiles, each
+     * row * numColumns + col as Grid.getConnectedRoadCells() gives them.
+     */
+    public static GridCommand speedLimit(int[] cells, int numColumns, int limit) {
+        return new SpeedLimit(unpack(cells, numColumns), limit);
+    }
+
+    /**
+     * Makes the road on (row, col) an in road, where vehicles come onto
+     * the grid, or stops it being one.
+     */
+    public static GridCommand inRoad(int row, int col, boolean inRoad) {
+        return new InRoad(row, col, inRoad);
+    }
+
+    /**
+     * Swaps the intersection on (row, col) for another kind, see
+     * Grid.changeIntersectionType().
+     */
+    public static GridCommand intersection(int row, int col, TileType kind) {
+        return new ChangeIntersection(row, col, kind);
+    }
+
+    /**
+     * Puts a hazard over the road on (row, col).
+     */
+    public static GridCommand hazard(int row, int col) {
+        return new HazardCommand(row, col, false);
+    }
+
+    /**
+     * Takes the hazard on (row, col) away.
+     */
+    public static GridCommand fixHazard(int row, int col) {
+        return new HazardCommand(row, col, true);
+    }
+
+    /**
+     * Resizes the whole grid, see Grid.resize().
+     */
+    public static GridCommand resizeGrid(int rows, int cols) {
+        return new ResizeGrid(rows, cols);
+    }
+
+    /**
+     * Several edits that are undone together, like the two lanes of a two
+     * way road.
+     */
+    public static GridCommand group(List<GridCommand> commands) {
+        return new Group(new ArrayList<>(commands));
+    }
+
+    /**
+     * Reads back a command written by toJson().
+     * @throws IllegalArgumentException if it isn't one
+     */
+    public static GridCommand fromJson(JSONObject json) {
+        String op = json.getString("op");
+        switch (op) {
+            case "place":
+                return place(json.getString("image"), json.getInt("row"), json.getInt("col"));
+            case "remove":
+                return remove(json.getInt("row"), json.getInt("col"));
+            case "rotate":
+                return rotate(json.getInt("row"), json.getInt("col"), Direction.valueOf(json.getString("direction")));
+            case "resizeBuilding":
+                return resizeBuilding(json.getInt("row"), json.getInt("col"),
+                    json.getInt("xLength"), json.getInt("yLength"));
+            case "population":
+            case "capacity":
+                return new Amount(op, json.getInt("row"), json.getInt("col"), json.getInt("value"));
+            case "timing":
+                return timing(json.getInt("row"), json.getInt("col"),
+                    json.getInt("vertical"), json.getInt("horizontal"));
+            case "rename":
+                return new Rename(cellsFromJson(json.getJSONArray("cells")), json.getString("name"));
+            case "speedLimit":
+                return new SpeedLimit(cellsFromJson(json.getJSONArray("cells")), json.getInt("limit"));
+            case "inRoad":
+                return inRoad(json.getInt("row"), json.getInt("col"), json.getBoolean("inRoad"));
+            case "intersection":
+                return intersection(json.getInt("row"), json.getInt("col"), TileType.valueOf(json.getString("kind")));
+            case "hazard":
+                return hazard(json.getInt("row"), json.getInt("col"));
+            case "fixHazard":
+                return fixHazard(json.getInt("row"), json.getInt("col"));
+            case "resizeGrid":
+                return resizeGrid(json.getInt("rows"), json.getInt("cols"));
+            case "group": {
+                ArrayList<GridCommand> commands = new ArrayList<>();
+                JSONArray commandsJson = json.getJSONArray("commands");
+                for (int i = 0; i < commandsJson.length(); i++) {
+                    commands.add(fromJson(commandsJson.getJSONObject(i)));
+                }
+                return new Group(commands);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown grid command: " + op);
+        }
+    }
+
+    // packed cells to row and col pairs, which stay right if the grid is resized
+    private static ArrayList<int[]> unpack(int[] cells, int numColumns) {
+        ArrayList<int[]> unpacked = new ArrayList<>();
+        for (int cell : cells) {
+            unpacked.add(new int[]{cell / numColumns, cell % numColumns});
+        }
+        return unpacked;
+    }
+
+    private static JSONArray cellsToJson(ArrayList<int[]> cells) {
+        JSONArray cellsJson = new JSONArray();
+        for (int[] cell : cells) {
+            cellsJson.put(new JSONArray().put(cell[0]).put(cell[1]));
+        }
+        return cellsJson;
+    }
+
+    private static ArrayList<int[]> cellsFromJson(JSONArray cellsJson) {
+        ArrayList<int[]> cells = new ArrayList<>();
+        for (int i = 0; i < cellsJson.length(); i++) {
+            JSONArray cell = cellsJson.getJSONArray(i);
+            cells.add(new int[]{cell.getInt(0), cell.getInt(1)});
+        }
+        return cells;
+    }
+
+    // the start of a command's json, with what it is and where
+    private static JSONObject json(String op, int row, int col) {
+        JSONObject json = new JSONObject();
+        json.put("op", op);
+        json.put("row", row);
+        json.put("col", col);
+        return json;
+    }
+
+    private static final class Place extends GridCommand {
+        private final String imageFile;
+        private final int row;
+        private final int col;
+
+        Place(String imageFile, int row, int col) {
+            this.imageFile = imageFile;
+            this.row = row;
+            this.col = col;
+        }
+
+        @Override
+        protected void run(Grid grid) {
+            grid.placeObjectByImage(imageFile, row, col);
+        }
+
+        @Override
+        public JSONObject toJson() {
+            return json("place", row, col).put("image", imageFile);
+        }
+    }
+
+    private static final class Remove extends GridCommand {
+        private final int row;
+        private final int col;
+
+        // an in road stops being one when it's removed
+        private OneWayRoad inRoad;
+
+        Remove(int row, int col) {
+            this.row = row;
+            this.col = col;
+        }
+
+        @Override
+        protected void run(Grid grid) {
+            inRoad = grid.getAtSpot(row, col) instanceof OneWayRoad road && road.isInRoad() ? road : null;
+            grid.remove(row, col);
+        }
+
+        @Override
+        protected void restore(Grid grid) {
+            if (inRoad != null) {
+                grid.editAt(row, col);
+                inRoad.setInRoad(true);
+                grid.markChanged(row, col);
+            }
+        }
+
+        @Override
+        public JSONObject toJson() {
+            return json("remove", row, col);
+        }
+    }
+
+    private static final class Rotate extends GridCommand {
+        private final int row;
+        private final int col;
+        private final Direction direction;
+
+        private Road road;
+        private Direction oldDirection;
+
+        Rotate(int row, int col, Direction direction) {
+            this.row = row;
+            this.col = col;
+            this.direction = direction;
+        }
+
+        @Override
+        protected void run(Grid grid) {
+            GridObject obj = grid.getAtSpot(row, col);
+            road = null;
+            if (obj instanceof OneWayRoad oneWay) {
+                road = oneWay;
+                oldDirection = oneWay.getDirection();
+            } else if (obj instanceof TwoWayRoad twoWay) {
+                road = twoWay;
+                oldDirection = twoWay.getRight().getDirection();
+            }
+            grid.changeRoadDirection(row, col, direction);
+        }
+
+        @Override
+        protected void restore(Grid grid) {
+            grid.editAt(row, col);
+            if (road instanceof OneWayRoad oneWay) {
+                oneWay.rotateRoad(oldDirection);
+            } else if (road instanceof TwoWayRoad twoWay) {
+                twoWay.rotateRoad(oldDirection);
+            }
+            grid.markChanged(row, col);
+        }
+
+        @Override
+        public JSONObject toJson() {
+            return json("rotate", row, col).put("direction", direction.name());
+        }
+    }
+
+    private static final class ResizeBuilding extends GridCommand {
+        private final int row;
+        private final int col;
+        private final int xLength;
+        private final int yLength;
+
+        private GridObject building;
+        private int oldXLength;
+        private int oldYLength;
+
+        ResizeBuilding(int row, int col, int xLength, int yLength) {
+            this.row = row;
+            this.col = col;
+            this.xLength = xLength;
+            this.yLength = yLength;
+        }
+
+        @Override
+        protected void run(Grid grid) {
+            building = grid.getAtSpot(row, col);
+            if (building instanceof Building b) {
+                oldXLength = b.getxLength();
+                oldYLength = b.getyLength();
+            } else if (building instanceof Parking p) {
+                oldXLength = p.getxLength();
+                oldYLength = p.getyLength();
+            }
+            grid.changeBuildingSize(row, col, xLength, yLength);
+        }
+
+        @Override
+        protected void restore(Grid grid) {
+            grid.editAt(row, col);
+            if (building instanceof Building b) {
+                b.setxLength(oldXLength);
+                b.setyLength(oldYLength);
+            } else if (building instanceof Parking p) {
+                p.setxLength(oldXLength);
+                p.setyLength(oldYLength);
+            }
+        }
+
+        @Override
+        public JSONObject toJson() {
+            return json("resizeBuilding", row, col).put("xLength", xLength).put("yLength", yLength);
+        }
+    }
+
+    // a building's population or a parking lot's capacity
+    private static final class Amount extends GridCommand {
+        private final String op;
+        private final int row;
+        private final int col;
+        private final int value;
+
+        private GridObject building;
+        private int oldValue;
+
+        Amount(String op, int row, int col, int value) {
+            this.op = op;
+            this.row = row;
+            this.col = col;
+            this.value = value;
+        }
+
+        @Override
+        protected void run(Grid grid) {
+            building = grid.getAtSpot(row, col);
+            if (building instanceof Building b) {
+                oldValue = b.getDailyPopulation();
+            } else if (building instanceof Parking p) {
+                oldValue = p.getParkingCapacity();
+            }
+            if (op.equals("population")) {
+                grid.changeDailyPopulationBuilding(row, col, value);
+            } else {
+                grid.changeParkingCapacity(row, col, value);
+            }
+        }
+
+        @Override
+        protected void restore(Grid grid) {
+            grid.editAt(row, col);
+            if (op.equals("population") && building instanceof Building b) {
+                b.setDailyPopulation(oldValue);
+            } else if (op.equals("capacity") && building instanceof Parking p) {
+                p.setParkingCapacity(oldValue);
+            }
+        }
+
+        @Override
+        public JSONObject toJson() {
+            return json(op, row, col).put("value", value);
+        }
+    }
+
+    private static final class Timing extends GridCommand {
+        private final int row;
+        private final int col;
+        private final int vertical;
+        private final int horizontal;
+
+        private StopLight light;
+        private int oldVertical;
+        private int oldHorizontal;
+
+        Timing(int row, int col, int vertical, int horizontal) {
+            this.row = row;
+            this.col = col;
+            this.vertical = vertical;
+            this.horizontal = horizontal;
+        }
+
+        @Override
+        protected void run(Grid grid) {
+            light = grid.getAtSpot(row, col) instanceof StopLight s ? s : null;
+            if (light != null) {
+                oldVertical = light.getTimingOne();
+                oldHorizontal = light.getTimingTwo();
+                grid.updateTiming(light, vertical, horizontal);
+            }
+        }
+
+        @Override
+        protected void restore(Grid grid) {
+            if (light != null) {
+                grid.editAt(row, col);
+                light.setTimingOne(oldVertical);
+                light.setTimingTwo(oldHorizontal);
+            }
+        }
+
+        @Override
+        public JSONObject toJson() {
+            return json("timing", row, col).put("vertical", vertical).put("horizontal", horizontal);
+        }
+    }
+
+    private static final class Rename extends GridCommand {
+        private final ArrayList<int[]> cells;
+        private final String name;
+
+        // the roads and buildings renamed, with the tile each was found on
+        private final ArrayList<GridObject> renamed = new ArrayList<>();
+        private final ArrayList<int[]> renamedCells = new ArrayList<>();
+        private final ArrayList<String> oldNames = new ArrayList<>();
+
+        Rename(ArrayList<int[]> cells, String name) {
+            this.cells = cells;
+            this.name = name;
+        }
+
+        @Override
+        protected void run(Grid grid) {
+            renamed.clear();
+            renamedCells.clear();
+            oldNames.clear();
+            for (int[] cell : cells) {
+                GridObject obj = grid.editAt(cell[0], cell[1]);
+                if (obj instanceof Road road) {
+                    oldNames.add(road.getName());
+                    road.setName(name);
+                } else if (obj instanceof Building building) {
+                    oldNames.add(building.getName());
+                    building.setName(name);
+                } else {
+                    continue;
+                }
+                renamed.add(obj);
+                renamedCells.add(cell);
+            }
+        }
+
+        @Override
+        protected void restore(Grid grid) {
+            for (int i = 0; i < renamed.size(); i++) {
+                grid.editAt(renamedCells.get(i)[0], renamedCells.get(i)[1]);
+                if (renamed.get(i) instanceof Road road) {
+                    road.setName(oldNames.get(i));
+                } else {
+                    ((Building) renamed.get(i)).setName(oldNames.get(i));
+                }
+            }
+        }
+
+        @Override
+        public long bytes() {
+            return super.bytes() + cells.size() * 48L + renamed.size() * 24L;
+        }
+
+        @Override
+        public JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("op", "rename");
+            json.put("cells", cellsToJson(cells));
+            json.put("name", name);
+            return json;
+        }
+    }
+
+    private static final class SpeedLimit extends GridCommand {
+        private final ArrayList<int[]> cells;
+        private final int limit;
+
+        // the roads changed, with the tile each was found on
+        private final ArrayList<Road> roads = new ArrayList<>();
+        private final ArrayList<int[]> roadCells = new ArrayList<>();
+        private final ArrayList<Integer> oldLimits = new ArrayList<>();
+
+        SpeedLimit(ArrayList<int[]> cells, int limit) {
+            this.cells = cells;
+            this.limit = limit;
+        }
+
+        @Override
+        protected void run(Grid grid) {
+            roads.clear();
+            roadCells.clear();
+            oldLimits.clear();
+            for (int[] cell : cells) {
+                if (grid.editAt(cell[0], cell[1]) instanceof Road road) {
+                    roads.add(road);
+                    roadCells.add(cell);
+                    oldLimits.add(road.getSpeedLimit());
+                    road.setSpeedLimit(limit);
+                    grid.markChanged(cell[0], cell[1]);
+                }
+            }
+        }
+
+        @Override
+        protected void restore(Grid grid) {
+            for (int i = 0; i < roads.size(); i++) {
+                int[] cell = roadCells.get(i);
+                grid.editAt(cell[0], cell[1]);
+                roads.get(i).setSpeedLimit(oldLimits.get(i));
+                grid.markChanged(cell[0], cell[1]);
+            }
+        }
+
+        @Override
+        public long bytes() {
+            return super.bytes() + cells.size() * 48L + roads.size() * 40L;
+        }
+
+        @Override
+        public JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("op", "speedLimit");
+            json.put("cells", cellsToJson(cells));
+            json.put("limit", limit);
+            return json;
+        }
+    }
+
+    private static final class InRoad extends GridCommand {
+        private final int row;
+        private final int col;
+        private final boolean inRoad;
+
+        private OneWayRoad road;
+        private boolean wasInRoad;
+
+        InRoad(int row, int col, boolean inRoad) {
+            this.row = row;
+            this.col = col;
+            this.inRoad = inRoad;
+        }
+
+        @Override
+        protected void run(Grid grid) {
+            road = grid.editAt(row, col) instanceof OneWayRoad r ? r : null;
+            if (road != null) {
+                wasInRoad = road.isInRoad();
+                road.setInRoad(inRoad);
+                grid.markChanged(row, col);
+            }
+        }
+
+        @Override
+        protected void restore(Grid grid) {
+            if (road != null) {
+                grid.editAt(row, col);
+                road.setInRoad(wasInRoad);
+                grid.markChanged(row, col);
+            }
+        }
+
+        @Override
+        public JSONObject toJson() {
+            return json("inRoad", row, col).put("inRoad", inRoad);
+        }
+    }
+
+    private static final class ChangeIntersection extends GridCommand {
+        private final int row;
+        private final int col;
+        private final TileType kind;
+
+        ChangeIntersection(int row, int col, TileType kind) {
+            this.row = row;
+            this.col = col;
+            this.kind = kind;
+        }
+
+        @Override
+        protected void run(Grid grid) {
+            grid.changeIntersectionType(row, col, kind);
+        }
+
+        @Override
+        public JSONObject toJson() {
+            return json("intersection", row, col).put("kind", kind.name());
+        }
+    }
+
+    private static final class HazardCommand extends GridCommand {
+        private final int row;
+        private final int col;
+        private final boolean fix;
+
+        HazardCommand(int row, int col, boolean fix) {
+            this.row = row;
+            this.col = col;
+            this.fix = fix;
+        }
+
+        @Override
+        protected void run(Grid grid) {
+            if (fix) {
+                grid.fixHazard(row, col);
+            } else {
+                grid.placeHazard(row, col);
+            }
+        }
+
+        @Override
+        public JSONObject toJson() {
+            return json(fix ? "fixHazard" : "hazard", row, col);
+        }
+    }
+
+    private static final class ResizeGrid extends GridCommand {
+        private final int rows;
+        private final int cols;
+
+        private int oldRows;
+        private int oldCols;
+
+        ResizeGrid(int rows, int cols) {
+            this.rows = rows;
+            this.cols = cols;
+        }
+
+        @Override
+        protected void run(Grid grid) {
+            oldRows = grid.getNumRows();
+            oldCols = grid.getNumColumns();
+            // empties what's cut off first, so only that is kept for the undo
+            grid.clearOutside(rows, cols);
+            grid.resize(rows, cols);
+        }
+
+        @Override
+        public void undo(Grid grid) {
+            // back to the old size before the tiles cut off go back on it
+            grid.resize(oldRows, oldCols);
+            super.undo(grid);
+        }
+
+        @Override
+        public JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("op", "resizeGrid");
+            json.put("rows", rows);
+            json.put("cols", cols);
+            return json;
+        }
+    }
+
+    private static final class Group extends GridCommand {
+        private final ArrayList<GridCommand> commands;
+
+        Group(ArrayList<GridCommand> commands) {
+            this.commands = commands;
+        }
+
+        @Override
+        public void apply(Grid grid) {
+            for (GridCommand command : commands) {
+                command.apply(grid);
+            }
+        }
+
+        @Override
+        public void undo(Grid grid) {
+            for (int i = commands.size() - 1; i >= 0; i--) {
+                commands.get(i).undo(grid);
+            }
+        }
+
+        @Override
+        public long bytes() {
+            long bytes = 48;
+            for (GridCommand command : commands) {
+                bytes += command.bytes();
+            }
+            return bytes;
+        }
+
+        @Override
+        protected void run(Grid grid) {
+            apply(grid);
+        }
+
+        @Override
+        public JSONObject toJson() {
+            JSONArray commandsJson = new JSONArray();
+            for (GridCommand command : commands) {
+                commandsJson.put(command.toJson());
+            }
+            JSONObject json = new JSONObject();
+            json.put("op", "group");
+            json.put("commands", commandsJson);
+            return json;
+        }
+    }
+}
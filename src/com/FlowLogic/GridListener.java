@@ -0,0 +1,13 @@
+package com.FlowLogic;
+
+/**
+ * Gets told when the contents of a grid change, so whatever is drawing the
+ * grid can update itself. The grid itself doesn't know how it's drawn.
+ */
+public interface GridListener {
+    // the object at (row, col) was placed, replaced or removed
+    void cellChanged(int row, int col);
+
+    // the whole grid changed (loaded, resized, undone), redraw everything
+    void gridChanged();
+}
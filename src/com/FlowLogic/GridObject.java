@@ -1,13 +1,17 @@
 package com.FlowLogic;
 
-import javafx.scene.image.Image;
-
 public interface GridObject {
     // Getter methods that classes must implement
     int getRowNum();
     int getColNum();
 
-    Image getImageFile();
+    // the kind of tile this is, shared with every other tile of the kind
+    TileType getTileType();
+
+    // image url the view draws this object with, e.g. "file:Images/RoadImage.png"
+    default String getImageFile() {
+        return getTileType().getImageFile();
+    }
 
     void setRowNum(int row);
     void setColNum(int col);
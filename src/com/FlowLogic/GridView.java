@@ -0,0 +1,135 @@
+package com.FlowLogic;
+
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.CycleMethod;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.paint.Stop;
+import javafx.scene.shape.Rectangle;
+
+import java.util.HashMap;
+
+/**
+ * The on-screen cells for a grid. Listens to the grid it's attached to and
+ * keeps the cell images matching the grid objects.
+ *
+ * Only occupied tiles get a cell. The empty grid under them is drawn by two
+ * rectangles filled with repeating lines, so empty areas cost nothing
+ * however big the grid is.
+ */
+public class GridView implements GridListener {
+    private Grid grid;
+
+    // cells of the occupied tiles, keyed by key(row, col)
+    private HashMap<Long, Rectangle> cells = new HashMap<>();
+
+    // the empty grid: light gray with a line down every column, and a line
+    // across every row on top of it
+    private final Rectangle columnLines = new Rectangle();
+    private final Rectangle rowLines = new Rectangle();
+
+    private final Group node = new Group(columnLines, rowLines);
+
+    public GridView(Grid grid) {
+        columnLines.setStroke(Color.BLACK);
+        setGrid(grid);
+    }
+
+    /**
+     * Points the view at a different grid, e.g. when a new one is made.
+     * @param grid - the grid to draw
+     */
+    public void setGrid(Grid grid) {
+        this.grid = grid;
+        grid.setGridListener(this);
+        sizeBackground();
+    }
+
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return the node that draws the grid, the background with the cells
+     * on top
+     */
+    public Group getNode() {
+        return node;
+    }
+
+    /**
+     * @return the cell for (row, col), or null if there's nothing on that tile
+     */
+    public Rectangle getCell(int row, int col) {
+        return cells.get(key(row, col));
+    }
+
+    private static long key(int row, int col) {
+        return (long) row << 32 | col;
+    }
+
+    private void sizeBackground() {
+        int size = Grid.GRID_SIZE;
+        double line = 1.0 / size;
+        columnLines.setWidth(grid.getNumColumns() * size);
+        columnLines.setHeight(grid.getNumRows() * size);
+        columnLines.setFill(new LinearGradient(0, 0, size, 0, false, CycleMethod.REPEAT,
+            new Stop(0, Color.BLACK), new Stop(line, Color.BLACK),
+            new Stop(line, Color.LIGHTGRAY), new Stop(1, Color.LIGHTGRAY)));
+        rowLines.setWidth(grid.getNumColumns() * size);
+        rowLines.setHeight(grid.getNumRows() * size);
+        rowLines.setFill(new LinearGradient(0, 0, 0, size, false, CycleMethod.REPEAT,
+            new Stop(0, Color.BLACK), new Stop(line, Color.BLACK),
+            new Stop(line, Color.TRANSPARENT), new Stop(1, Color.TRANSPARENT)));
+    }
+
+    private Rectangle newCell(int row, int col) {
+        Rectangle cell = new Rectangle(Grid.GRID_SIZE, Grid.GRID_SIZE);
+        cell.setX(col * Grid.GRID_SIZE);
+        cell.setY(row * Grid.GRID_SIZE);
+        cell.setStroke(Color.BLACK);
+        return cell;
+    }
+
+    @Override
+    public void cellChanged(int row, int col) {
+        if (row < 0 || row >= grid.getNumRows() || col < 0 || col >= grid.getNumColumns()) {
+            return;
+        }
+        GridObject obj = grid.getAtSpot(row, col);
+        if (obj == null) {
+            Rectangle cell = cells.remove(key(row, col));
+            if (cell != null) {
+                node.getChildren().remove(cell);
+            }
+            return;
+        }
+        Rectangle cell = cells.get(key(row, col));
+        if (cell == null) {
+            cell = newCell(row, col);
+            cells.put(key(row, col), cell);
+            node.getChildren().add(cell);
+        }
+        cell.setFill(ImageCache.pattern(obj.getImageFile()));
+    }
+
+    @Override
+    public void gridChanged() {
+        sizeBackground();
+        // keeps the cells of tiles that are still occupied, so whoever holds
+        // on to one keeps drawing on screen
+        HashMap<Long, Rectangle> old = cells;
+        cells = new HashMap<>();
+        node.getChildren().setAll(columnLines, rowLines);
+        grid.forEachTile((row, col, obj) -> {
+            Rectangle cell = old.get(key(row, col));
+            if (cell == null) {
+                cell = newCell(row, col);
+            }
+            cell.setFill(ImageCache.pattern(obj.getImageFile()));
+            cells.put(key(row, col), cell);
+            node.getChildren().add(cell);
+        });
+        UserInterface.refreshGrid(grid.getNumRows());
+    }
+}
@@ -1,26 +1,22 @@
 package com.FlowLogic;
 
-import javafx.scene.image.Image;
 import org.w3c.dom.html.HTMLAreaElement;
 
 public class Hazard implements GridObject {
     private int rowNum;
     private int colNum;
-    private final Image imageFile;
     private GridObject coveredObject;
 
 
     public Hazard(int rowNum, int colNum) {
         this.rowNum = rowNum;
         this.colNum = colNum;
-        this.imageFile = new Image("file:Images/Hazard.png");
         this.coveredObject = null;
     }
 
     public Hazard(Hazard hazard) {
         this.rowNum = hazard.rowNum;
         this.colNum = hazard.colNum;
-        this.imageFile = hazard.imageFile;
         this.coveredObject = hazard.coveredObject;
     }
 
@@ -35,8 +31,8 @@ public class Hazard implements GridObject {
     }
 
     @Override
-    public Image getImageFile() {
-        return imageFile;
+    public TileType getTileType() {
+        return TileType.HAZARD;
     }
 
     @Override
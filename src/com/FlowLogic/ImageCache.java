@@ -0,0 +1,23 @@
+package com.FlowLogic;
+
+import javafx.scene.image.Image;
+import javafx.scene.paint.ImagePattern;
+
+import java.util.HashMap;
+
+/**
+ * Loads each image the view needs once and hands out the same copy after
+ * that. The model only refers to images by url.
+ */
+public class ImageCache {
+    private static final HashMap<String, Image> images = new HashMap<>();
+    private static final HashMap<String, ImagePattern> patterns = new HashMap<>();
+
+    public static Image get(String url) {
+        return images.computeIfAbsent(url, Image::new);
+    }
+
+    public static ImagePattern pattern(String url) {
+        return patterns.computeIfAbsent(url, u -> new ImagePattern(get(u)));
+    }
+}
@@ -1,13 +1,10 @@
 package com.FlowLogic;
 
-import javafx.scene.image.Image;
-
 public class Intersection implements GridObject {
 
     private Road[] roadList;
     private int rowNum;
     private int colNum;
-    private Image imageFile;
 
     private int intersectionID = -1;
 
@@ -15,14 +12,12 @@ public class Intersection implements GridObject {
         this.rowNum = rowNum;
         this.colNum = colNum;
         this.roadList = roadList;
-        this.imageFile = new Image("file:Images/BasicIntersection.png");
     }
 
     public Intersection(Intersection i) {
         this.rowNum = i.getRowNum();
         this.colNum = i.getColNum();
         this.roadList = i.getRoadList();
-        this.imageFile = new Image("file:Images/BasicIntersection.png");
     }
 
     public int getIntersectionID() {
@@ -76,15 +71,15 @@ public class Intersection implements GridObject {
     }
 
 
-    public Image getImageFile() {
-        return imageFile;
-    }
-
-    public void setImageFile(Image imageFile) {
-        this.imageFile = imageFile;
+    public TileType getTileType() {
+        return TileType.INTERSECTION;
     }
 
-    public Step tick() {
-        return null;
+    /**
+     * Updates the intersection for each simulation tick.
+     * @return true if the intersection looks different afterwards
+     */
+    public boolean tick() {
+        return false;
     }
 }
@@ -0,0 +1,70 @@
+package com.FlowLogic;
+
+/**
+ * The shortest way to one destination from every node of the road graph:
+ * for each node, the next node to head for and how far the destination is
+ * from it. Built with a single search backwards from the destination, after
+ * which routing any vehicle there, from anywhere, is a lookup per stop.
+ */
+public class NextHopTable {
+
+    private final int destination;
+
+    // next node on the way to the destination, -1 at the destination and
+    // where there's no way there
+    private final int[] next;
+    private final int[] distance;
+
+    private NextHopTable(int destination, int[] next, int[] distance) {
+        this.destination = destination;
+        this.next = next;
+        this.distance = distance;
+    }
+
+    /**
+     * Builds the table for one destination.
+     *
+     * @param reverseRouter - solver over the road graph turned around, see RoadGraph.reverse()
+     * @param destination - node to route to
+     * @return the table
+     */
+    public static NextHopTable build(RouteSolver reverseRouter, int destination) {
+        // searching backwards, the node a node was reached from is the next
+        // one on its way forwards
+        int[] previous = reverseRouter.solve(destination, -1);
+        int n = previous.length;
+        int[] next = previous.clone();
+        int[] distance = new int[n];
+        for (int i = 0; i < n; i++) {
+            distance[i] = reverseRouter.getDistance(i);
+        }
+        return new NextHopTable(destination, next, distance);
+    }
+
+    public int getDestination() {
+        return destination;
+    }
+
+    /**
+     * @return the next node from the given one, -1 if it is the destination
+     * or can't get there
+     */
+    public int nextHop(int node) {
+        return next[node];
+    }
+
+    /**
+     * @return true if there's a way from the node to the destination
+     */
+    public boolean reaches(int node) {
+        return distance[node] != Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return length of the shortest way from the node to the destination,
+     * Integer.MAX_VALUE if there isn't one
+     */
+    public int getDistance(int node) {
+        return distance[node];
+    }
+}
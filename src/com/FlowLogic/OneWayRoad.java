@@ -1,7 +1,5 @@
 package com.FlowLogic;
 
-import javafx.scene.image.Image;
-
 import java.util.ArrayList;
 
 
@@ -12,39 +10,36 @@ import java.util.ArrayList;
  */
 public class OneWayRoad extends Road implements GridObject {
 
-    private Direction direction;
     private int numLanes;
     private ArrayList<Vehicle> vehicleList;
-    private int rowNum;
-    private int colNum;
-    private Image imageFile;
 
 
 
 
     public OneWayRoad(Orientation orientation, int speedLimit, boolean isInRoad, int inCars, int rowNum, int colNum, Direction direction, int numLanes, ArrayList<Vehicle> vehicleList) {
-        super(orientation, speedLimit, isInRoad, inCars, rowNum, colNum);
-        this.direction = direction;
-        this.numLanes = numLanes;
-        this.vehicleList = vehicleList;
-        updateGraphic();
+        this(type(orientation, direction), speedLimit, isInRoad, inCars, rowNum, colNum, numLanes, vehicleList);
     }
 
     public OneWayRoad(Orientation orientation, Direction direction) {
-        super(orientation, 40, false, 0, 0, 0);
-        this.direction = direction;
-        this.numLanes = 1;
-        this.vehicleList = new ArrayList<Vehicle>();
-        updateGraphic();
+        this(type(orientation, direction), type(orientation, direction).getDefaultSpeed(), false, 0, 0, 0, 1,
+            new ArrayList<Vehicle>());
     }
 
     public OneWayRoad(OneWayRoad road) {
-        super(road.getOrientation(), road.getSpeedLimit(), road.isInRoad(), road.getInCars(), road.getRowNum(),
-            road.getColNum());
-        this.direction = road.getDirection();
-        this.numLanes = road.numLanes;
-        this.vehicleList = road.getVehicleList();
-        updateGraphic();
+        this(road.getTileType(), road.getSpeedLimit(), road.isInRoad(), road.getInCars(), road.getRowNum(),
+            road.getColNum(), road.numLanes, new ArrayList<>(road.getVehicleList()));
+    }
+
+    protected OneWayRoad(TileType type, int speedLimit, boolean isInRoad, int inCars, int rowNum, int colNum, int numLanes, ArrayList<Vehicle> vehicleList) {
+        super(type, speedLimit, isInRoad, inCars, rowNum, colNum);
+        this.numLanes = numLanes;
+        this.vehicleList = vehicleList;
+    }
+
+    // a one-way road's direction decides which way it runs, the orientation
+    // only counts for one without a direction
+    private static TileType type(Orientation orientation, Direction direction) {
+        return direction == null ? TileType.road(orientation) : TileType.road(direction);
     }
 
     public boolean addCar(ArrayList<Vehicle> addCarList) {
@@ -65,25 +60,85 @@ public class OneWayRoad extends Road implements GridObject {
         return true;
     }
 
-    public void updateGraphic() {
-        if (this.getDirection() == Direction.UP) {
-            this.imageFile = new Image("file:Images/RoadImage.png");
-            this.setOrientation(Orientation.VERTICAL);
-        } else if (this.getDirection() == Direction.LEFT) {
-            this.setOrientation(Orientation.HORIZONTAL);
-            this.imageFile = new Image("file:Images/RoadImageLeft.png");
-        } else if (this.getDirection() == Direction.DOWN) {
-            this.setOrientation(Orientation.VERTICAL);
-            this.imageFile = new Image("file:Images/RoadImageDown.png");
-        } else if (this.getDirection() == Direction.RIGHT) {
-            this.setOrientation(Orientation.HORIZONTAL);
-            this.imageFile = new Image("file:Images/RoadImageRight.png");
+    /**
+     * Files a vehicle that just drove onto this tile. The vehicle list is kept
+     * in order along the road's direction, with the front-most vehicle first,
+     * so each vehicle's leader is simply the one before it.
+     * @param car - the vehicle entering the tile
+     */
+    public void enterVehicle(Vehicle car) {
+        int i = vehicleList.size();
+        while (i > 0 && progress(vehicleList.get(i - 1)) < progress(car)) {
+            i--;
         }
+        vehicleList.add(i, car);
+    }
+
+    /**
+     * Removes a vehicle that left this tile.
+     * @param car - the vehicle leaving the tile
+     */
+    public void exitVehicle(Vehicle car) {
+        vehicleList.remove(car);
+    }
+
+    /**
+     * Restores the ordering after a vehicle moved within this tile. Vehicles
+     * don't pass each other in a lane, so this is usually a no-op.
+     * @param car - the vehicle that moved
+     */
+    public void updateVehiclePosition(Vehicle car) {
+        int i = vehicleList.indexOf(car);
+        if (i == -1) {
+            return;
+        }
+        while (i > 0 && progress(vehicleList.get(i - 1)) < progress(car)) {
+            vehicleList.set(i, vehicleList.get(i - 1));
+            vehicleList.set(--i, car);
+        }
+        while (i < vehicleList.size() - 1 && progress(vehicleList.get(i + 1)) > progress(car)) {
+            vehicleList.set(i, vehicleList.get(i + 1));
+            vehicleList.set(++i, car);
+        }
+    }
+
+    /**
+     * Gets the vehicle directly ahead of the given one on this tile.
+     * @param car - a vehicle on this tile
+     * @return the vehicle in front of car, or null if car is the front-most one
+     */
+    public Vehicle getVehicleAhead(Vehicle car) {
+        int i = vehicleList.indexOf(car);
+        return i > 0 ? vehicleList.get(i - 1) : null;
+    }
+
+    /**
+     * Gets the vehicle furthest back on this tile, which is the leader for
+     * whoever is first on the tile behind this one.
+     * @return the rear-most vehicle, or null if the tile is empty
+     */
+    public Vehicle getLastVehicle() {
+        return vehicleList.isEmpty() ? null : vehicleList.get(vehicleList.size() - 1);
+    }
+
+    public void clearVehicles() {
+        vehicleList.clear();
+    }
+
+    /**
+     * How far along this road's direction the vehicle is, in pixels
+     */
+    private int progress(Vehicle car) {
+        return switch (getDirection()) {
+            case UP -> -car.getY();
+            case DOWN -> car.getY();
+            case LEFT -> -car.getX();
+            case RIGHT -> car.getX();
+        };
     }
 
    public void rotateRoad(Direction direction) {
-        this.direction = direction;
-        updateGraphic();
+        setTileType(getTileType().facing(direction));
    }
 
    @Override
@@ -95,11 +150,11 @@ public class OneWayRoad extends Road implements GridObject {
     /* Getters and setters */
 
     public Direction getDirection() {
-        return direction;
+        return getTileType().getDirection();
     }
 
     public void setDirection(Direction direction) {
-        this.direction = direction;
+        rotateRoad(direction);
     }
 
     public int getNumLanes() {
@@ -117,31 +172,4 @@ public class OneWayRoad extends Road implements GridObject {
     public void setVehicleList(ArrayList<Vehicle> vehicleList) {
         this.vehicleList = vehicleList;
     }
-
-    public int getRowNum() {
-        return rowNum;
-    }
-
-    public int getColNum() {
-        return colNum;
-    }
-
-    public void setColNum(int newCol) {
-        this.colNum = newCol;
-    }
-
-    public void setRowNum(int newRow) {
-        this.rowNum = newRow;
-
-    }
-
-    @Override
-    public Image getImageFile() {
-        return imageFile;
-    }
-
-    @Override
-    public void setImageFile(Image imageFile) {
-        this.imageFile = imageFile;
-    }
 }
@@ -1,7 +1,5 @@
 package com.FlowLogic;
 
-import javafx.scene.image.Image;
-
 /**
  * Class Definition File for com.FlowLogic.Parking objects
  * Purdue University
@@ -13,7 +11,6 @@ public class Parking implements GridObject {
     int rowNum;
     int colNum;
     int xLength, yLength, parkingCapacity, numCars;
-    private Image imageFile;
 
 
     /**
@@ -29,7 +26,6 @@ public class Parking implements GridObject {
         this.parkingCapacity = parkingCapacity;
         this.numCars = numCars;
         //numParking++;
-        imageFile = new Image("file:Images/ParkingLot.png");
     }
 
     public Parking() {
@@ -37,15 +33,15 @@ public class Parking implements GridObject {
         this.yLength = 1;
         this.parkingCapacity = 0;
         this.numCars = 0;
-        imageFile = new Image("file:Images/ParkingLot.png");
     }
 
     public Parking(Parking p) {
+        this.rowNum = p.getRowNum();
+        this.colNum = p.getColNum();
         this.xLength = p.getxLength();
         this.yLength = p.getyLength();
         this.parkingCapacity = p.getParkingCapacity();
         this.numCars = p.getNumCars();
-        imageFile = new Image("file:Images/ParkingLot.png");
     }
 
     /*
@@ -118,8 +114,8 @@ public class Parking implements GridObject {
                 ", numCars=" + numCars +
                 '}';
     }
-    public Image getImageFile() {
-        return imageFile;
+    public TileType getTileType() {
+        return TileType.PARKING;
     }
 
 }
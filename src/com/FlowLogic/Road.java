@@ -1,8 +1,6 @@
 package com.FlowLogic;
 
 
-import javafx.scene.image.Image;
-
 /**
  * This class is a Grid Object for a road. The road will connect
  * buildings and cars will drive on them. They are placed on the grid
@@ -11,12 +9,12 @@ import javafx.scene.image.Image;
 public class Road implements GridObject {
     private static int numInRoads = 0;
     private String name;
-    private Orientation orientation;
+    // kind of road, with which way it runs, shared with every road of the kind
+    private TileType type;
     private int speedLimit;
     private int length;
     private boolean isInRoad;
     private int inCars;
-    private Image imageFile;
     private int rowNum;
     private int colNum;
     private boolean inLaneList;
@@ -26,7 +24,11 @@ public class Road implements GridObject {
 
 
     public Road(Orientation orientation, int speedLimit, boolean isInRoad, int inCars, int rowNum, int colNum) {
-        this.orientation = orientation;
+        this(TileType.road(orientation), speedLimit, isInRoad, inCars, rowNum, colNum);
+    }
+
+    protected Road(TileType type, int speedLimit, boolean isInRoad, int inCars, int rowNum, int colNum) {
+        this.type = type;
         this.speedLimit = speedLimit;
         this.isInRoad = isInRoad;
         if (isInRoad) {
@@ -35,7 +37,6 @@ public class Road implements GridObject {
         this.inCars = inCars;
         this.rowNum = rowNum;
         this.colNum = colNum;
-        this.imageFile = new Image("file:Images/RoadImage.png");
         this.inLaneList = false;
         this.laneContainer = null;
         this.name = "Road";
@@ -74,11 +75,7 @@ public class Road implements GridObject {
     }
 
     public Orientation getOrientation() {
-        return orientation;
-    }
-
-    public void setOrientation(Orientation orientation) {
-        this.orientation = orientation;
+        return type.getOrientation();
     }
 
     public int getSpeedLimit() {
@@ -118,12 +115,15 @@ public class Road implements GridObject {
         this.inCars = inCars;
     }
 
-    public Image getImageFile() {
-        return imageFile;
+    public TileType getTileType() {
+        return type;
     }
 
-    public void setImageFile(Image imageFile) {
-        this.imageFile = imageFile;
+    /**
+     * Makes this a road of another kind, like when it's turned.
+     */
+    protected void setTileType(TileType type) {
+        this.type = type;
     }
 
     public void setLaneContainer(MultiLaneConnect laneContainer) {
@@ -0,0 +1,250 @@
+package com.FlowLogic;
+
+import java.util.Arrays;
+
+/**
+ * The road network as a graph between intersections, in-roads and
+ * destination roads, numbered by their intersection ids, see
+ * Grid.buildRoadGraph().
+ * Stored as compressed sparse rows: the edges leaving node u are
+ * edgeStart(u) up to edgeEnd(u), each with a target and a weight. A node has
+ * at most a handful of edges, so this takes memory in the number of edges
+ * instead of nodes squared.
+ */
+public class RoadGraph {
+
+    private final int nodeCount;
+
+    // edges of node u are [offsets[u], offsets[u + 1])
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+
+    // grid position of each node
+    private final int[] rows;
+    private final int[] cols;
+
+    // weight per tile of grid distance that no edge beats, see estimate()
+    private final double scale;
+
+    private RoadGraph(int nodeCount, int[] offsets, int[] targets, int[] weights, int[] rows, int[] cols) {
+        this.nodeCount = nodeCount;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.rows = rows;
+        this.cols = cols;
+
+        // the lowest weight per tile of any edge, so that no path can be
+        // cheaper than its grid distance times this
+        double min = Double.MAX_VALUE;
+        for (int u = 0; u < nodeCount; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int tiles = gridDistance(u, targets[e]);
+                if (tiles > 0) {
+                    min = Math.min(min, (double) weights[e] / tiles);
+                }
+            }
+        }
+        this.scale = min == Double.MAX_VALUE ? 0 : min;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    public int edgeStart(int node) {
+        return offsets[node];
+    }
+
+    public int edgeEnd(int node) {
+        return offsets[node + 1];
+    }
+
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    public int getWeight(int edge) {
+        return weights[edge];
+    }
+
+    public int getRow(int node) {
+        return rows[node];
+    }
+
+    public int getCol(int node) {
+        return cols[node];
+    }
+
+    /**
+     * @return how many tiles apart two nodes are on the grid, going along
+     * rows and columns
+     */
+    public int gridDistance(int a, int b) {
+        return Math.abs(rows[a] - rows[b]) + Math.abs(cols[a] - cols[b]);
+    }
+
+    /**
+     * Lower bound on the length of any path between two nodes, from their
+     * grid distance. It never overestimates and drops by no more than an
+     * edge's weight along the edge, which is what A* needs to find the
+     * shortest path.
+     *
+     * @return the estimate
+     */
+    public int estimate(int from, int to) {
+        return (int) (scale * gridDistance(from, to));
+    }
+
+    /**
+     * @return the weight of the edge from one node to another, 0 if there isn't one
+     */
+    public int getWeight(int from, int to) {
+        for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+            if (targets[e] == to) {
+                return weights[e];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return index of the edge from one node to another, -1 if there isn't one
+     */
+    public int findEdge(int from, int to) {
+        for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+            if (targets[e] == to) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param newWeights - weight of each edge, by edge index
+     * @return the same roads with other weights on them
+     */
+    public RoadGraph withWeights(int[] newWeights) {
+        return new RoadGraph(nodeCount, offsets, targets, newWeights.clone(), rows, cols);
+    }
+
+    /**
+     * @return the same graph with every edge turned around, for searching
+     * backwards from a node
+     */
+    public RoadGraph reverse() {
+        Builder reversed = new Builder(nodeCount);
+        for (int u = 0; u < nodeCount; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                reversed.addEdge(targets[e], u, weights[e]);
+            }
+            reversed.setPosition(u, rows[u], cols[u]);
+        }
+        return reversed.build();
+    }
+
+    /**
+     * @return the graph as an adjacency matrix, 0 where there's no edge. Takes
+     * nodes squared memory, only meant for small maps.
+     */
+    public int[][] toMatrix() {
+        int[][] matrix = new int[nodeCount][nodeCount];
+        for (int u = 0; u < nodeCount; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                matrix[u][targets[e]] = weights[e];
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Collects edges in any order and packs them into a RoadGraph.
+     */
+    static class Builder {
+        private final int nodeCount;
+        private int edgeCount;
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int[] weight = new int[16];
+        private final int[] rows;
+        private final int[] cols;
+
+        Builder(int nodeCount) {
+            this.nodeCount = nodeCount;
+            this.rows = new int[nodeCount];
+            this.cols = new int[nodeCount];
+        }
+
+        /**
+         * Sets where a node is on the grid.
+         */
+        void setPosition(int node, int row, int col) {
+            rows[node] = row;
+            cols[node] = col;
+        }
+
+        /**
+         * Adds an edge. Adding the same edge again replaces its weight.
+         */
+        void addEdge(int from, int to, int weight) {
+            if (edgeCount == this.from.length) {
+                this.from = Arrays.copyOf(this.from, edgeCount * 2);
+                this.to = Arrays.copyOf(this.to, edgeCount * 2);
+                this.weight = Arrays.copyOf(this.weight, edgeCount * 2);
+            }
+            this.from[edgeCount] = from;
+            this.to[edgeCount] = to;
+            this.weight[edgeCount] = weight;
+            edgeCount++;
+        }
+
+        RoadGraph build() {
+            // counting sort by source node, keeping the order edges were added in
+            int[] offsets = new int[nodeCount + 1];
+            for (int i = 0; i < edgeCount; i++) {
+                offsets[from[i] + 1]++;
+            }
+            for (int u = 0; u < nodeCount; u++) {
+                offsets[u + 1] += offsets[u];
+            }
+            int[] fill = Arrays.copyOf(offsets, nodeCount);
+            int[] targets = new int[edgeCount];
+            int[] weights = new int[edgeCount];
+            for (int i = 0; i < edgeCount; i++) {
+                int at = fill[from[i]]++;
+                targets[at] = to[i];
+                weights[at] = weight[i];
+            }
+
+            // drop replaced edges, the later one wins
+            int kept = 0;
+            for (int u = 0; u < nodeCount; u++) {
+                int start = offsets[u];
+                int end = offsets[u + 1];
+                offsets[u] = kept;
+                for (int e = start; e < end; e++) {
+                    boolean replaced = false;
+                    for (int later = e + 1; later < end; later++) {
+                        if (targets[later] == targets[e]) {
+                            replaced = true;
+                            break;
+                        }
+                    }
+                    if (!replaced) {
+                        targets[kept] = targets[e];
+                        weights[kept] = weights[e];
+                        kept++;
+                    }
+                }
+            }
+            offsets[nodeCount] = kept;
+            return new RoadGraph(nodeCount, offsets, Arrays.copyOf(targets, kept), Arrays.copyOf(weights, kept),
+                rows, cols);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.FlowLogic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeMap;
+
+/**
+ * What the last Grid.buildRoadGraph() found, kept so the next build only
+ * redoes the parts of the map edited since: which cells make up each node,
+ * the edges walked out of each node, and which cells each of those walks
+ * looked at. An edit marks its cell dirty, and the next build regroups the
+ * nodes around the dirty cells and walks again only out of the nodes whose
+ * walks looked at one.
+ *
+ * Nodes are kept by their key, the first of their cells row by row, which
+ * is the order the full build numbers them in, so ids come out the same
+ * either way.
+ */
+class RoadGraphCache {
+
+    /**
+     * A node of the graph: an intersection, with every tile of it for a big
+     * one, an in-road or a destination road.
+     */
+    static class Node {
+        final int key;
+        final int[] cells;
+        final GridObject[] objects;
+
+        // the object the node is known by, the one on its first cell
+        final GridObject object;
+
+        int id;
+
+        // edges out of the node, to whichever node has the target cell when
+        // the graph is put together
+        int[] edgeCells = new int[4];
+        int[] edgeWeights = new int[4];
+        int edgeCount;
+
+        // cells the walk out of the node looked at
+        int[] reads = new int[8];
+        int readCount;
+        boolean walked;
+
+        Node(int[] cells, GridObject[] objects) {
+            int first = 0;
+            for (int i = 1; i < cells.length; i++) {
+                if (cells[i] < cells[first]) {
+                    first = i;
+                }
+            }
+            this.key = cells[first];
+            this.cells = cells;
+            this.objects = objects;
+            this.object = objects[first];
+        }
+    }
+
+    private final int rows;
+    private final int cols;
+
+    // key of the node each cell is part of, -1 for cells that aren't
+    private final int[] nodeOf;
+
+    // id of the node with each key, as of the last assignIds()
+    private final int[] idOf;
+    private final TreeMap<Integer, Node> nodes = new TreeMap<>();
+
+    // keys of the nodes whose walks looked at each cell
+    private final int[][] readers;
+    private final int[] readerCount;
+
+    // cells edited since the last build
+    private final boolean[] dirty;
+    private int[] dirtyCells = new int[16];
+    private int dirtyCount;
+
+    // walk each cell was last read by, so a walk reads each cell once
+    private final int[] readStamp;
+    private int walkSerial;
+
+    RoadGraphCache(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        nodeOf = new int[rows * cols];
+        idOf = new int[rows * cols];
+        readers = new int[rows * cols][];
+        readerCount = new int[rows * cols];
+        dirty = new boolean[rows * cols];
+        readStamp = new int[rows * cols];
+        Arrays.fill(nodeOf, -1);
+    }
+
+    boolean fits(int rows, int cols) {
+        return this.rows == rows && this.cols == cols;
+    }
+
+    void markDirty(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            return;
+        }
+        int cell = row * cols + col;
+        if (!dirty[cell]) {
+            dirty[cell] = true;
+            if (dirtyCount == dirtyCells.length) {
+                dirtyCells = Arrays.copyOf(dirtyCells, dirtyCount * 2);
+            }
+            dirtyCells[dirtyCount++] = cell;
+        }
+    }
+
+    /**
+     * @return the cells edited since the last call, and forgets them
+     */
+    int[] takeDirty() {
+        int[] cells = Arrays.copyOf(dirtyCells, dirtyCount);
+        for (int cell : cells) {
+            dirty[cell] = false;
+        }
+        dirtyCount = 0;
+        return cells;
+    }
+
+    /**
+     * @return key of the node the cell is part of, -1 if none
+     */
+    int nodeAt(int cell) {
+        return nodeOf[cell];
+    }
+
+    Node getNode(int key) {
+        return nodes.get(key);
+    }
+
+    /**
+     * @return the nodes in key order, which is id order
+     */
+    Collection<Node> nodes() {
+        return nodes.values();
+    }
+
+    Node addNode(int[] cells, GridObject[] objects) {
+        Node node = new Node(cells, objects);
+        for (int cell : cells) {
+            nodeOf[cell] = node.key;
+        }
+        nodes.put(node.key, node);
+        return node;
+    }
+
+    /**
+     * Drops a node, clearing its objects' ids.
+     * @return the node, null if there was none with that key
+     */
+    Node removeNode(int key) {
+        Node node = nodes.remove(key);
+        if (node == null) {
+            return null;
+        }
+        for (int cell : node.cells) {
+            nodeOf[cell] = -1;
+        }
+        for (GridObject obj : node.objects) {
+            setId(obj, -1);
+        }
+        clearWalk(node);
+        return node;
+    }
+
+    /**
+     * Numbers the nodes in key order, setting the id on each of their
+     * objects.
+     * @param intersections - list to fill with the nodes' objects, indexed by id
+     */
+    void assignIds(ArrayList<GridObject> intersections) {
+        int id = 0;
+        for (Node node : nodes.values()) {
+            node.id = id++;
+            idOf[node.key] = node.id;
+            for (GridObject obj : node.objects) {
+                setId(obj, node.id);
+            }
+            intersections.add(node.object);
+        }
+    }
+
+    private static void setId(GridObject obj, int id) {
+        if (obj instanceof Intersection i) {
+            i.setIntersectionID(id);
+        } else if (obj instanceof Road r) {
+            r.setIntersectionID(id);
+        }
+    }
+
+    /**
+     * Forgets the walk out of a node, so the next build walks it again.
+     */
+    void clearWalk(Node node) {
+        for (int i = 0; i < node.readCount; i++) {
+            int cell = node.reads[i];
+            int[] list = readers[cell];
+            for (int j = 0; j < readerCount[cell]; j++) {
+                if (list[j] == node.key) {
+                    list[j] = list[--readerCount[cell]];
+                    break;
+                }
+            }
+        }
+        node.readCount = 0;
+        node.edgeCount = 0;
+        node.walked = false;
+    }
+
+    /**
+     * Starts recording the walk out of a node.
+     */
+    void beginWalk(Node node) {
+        clearWalk(node);
+        walkSerial++;
+        node.walked = true;
+    }
+
+    /**
+     * Records that the walk out of a node looked at a cell, and so may have
+     * looked at the cells next to it.
+     */
+    void addRead(Node node, int row, int col) {
+        read(node, row, col);
+        read(node, row - 1, col);
+        read(node, row + 1, col);
+        read(node, row, col - 1);
+        read(node, row, col + 1);
+    }
+
+    private void read(Node node, int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            return;
+        }
+        int cell = row * cols + col;
+        if (readStamp[cell] == walkSerial) {
+            return;
+        }
+        readStamp[cell] = walkSerial;
+        if (node.readCount == node.reads.length) {
+            node.reads = Arrays.copyOf(node.reads, node.readCount * 2);
+        }
+        node.reads[node.readCount++] = cell;
+        if (readers[cell] == null) {
+            readers[cell] = new int[2];
+        } else if (readerCount[cell] == readers[cell].length) {
+            readers[cell] = Arrays.copyOf(readers[cell], readerCount[cell] * 2);
+        }
+        readers[cell][readerCount[cell]++] = node.key;
+    }
+
+    /**
+     * @return keys of the nodes whose walks looked at the cell
+     */
+    int[] readersOf(int cell) {
+        return readers[cell] == null ? new int[0] : Arrays.copyOf(readers[cell], readerCount[cell]);
+    }
+
+    void addEdge(Node node, int row, int col, int weight) {
+        if (node.edgeCount == node.edgeCells.length) {
+            node.edgeCells = Arrays.copyOf(node.edgeCells, node.edgeCount * 2);
+            node.edgeWeights = Arrays.copyOf(node.edgeWeights, node.edgeCount * 2);
+        }
+        node.edgeCells[node.edgeCount] = row * cols + col;
+        node.edgeWeights[node.edgeCount] = weight;
+        node.edgeCount++;
+    }
+
+    /**
+     * Puts the graph together from the nodes and their walks, after
+     * assignIds().
+     */
+    RoadGraph toGraph() {
+        RoadGraph.Builder graph = new RoadGraph.Builder(nodes.size());
+        for (Node node : nodes.values()) {
+            graph.setPosition(node.id, node.object.getRowNum(), node.object.getColNum());
+        }
+        for (Node node : nodes.values()) {
+            for (int e = 0; e < node.edgeCount; e++) {
+                int target = nodeOf[node.edgeCells[e]];
+                if (target != -1) {
+                    graph.addEdge(node.id, idOf[target], node.edgeWeights[e]);
+                }
+            }
+        }
+        return graph.build();
+    }
+}
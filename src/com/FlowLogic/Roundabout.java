@@ -1,5 +1,4 @@
 package com.FlowLogic;
-import javafx.scene.image.Image;
 
 import java.util.ArrayDeque;
 import java.util.List;
@@ -20,8 +19,6 @@ public class Roundabout extends Intersection{
     private final int WAIT_TIME = 2; // TODO: adjust if necessary
     int timer = WAIT_TIME;
 
-    private Image imageFile;
-
     public boolean is2x2 = false;
 
     /**
@@ -35,13 +32,11 @@ public class Roundabout extends Intersection{
      */
     public Roundabout(Boolean[] availableSpots, int row, int col, Road[] roadList) {
         super(row, col, roadList);
-        this.imageFile = new Image("file:Images/roundabout.png");
     }
 
     public Roundabout(Roundabout r) {
         super(r.getRowNum(), r.getColNum(), r.getRoadList());
-        this.availableSpots = r.getAvailableSpots();
-        this.imageFile = r.getImageFile();
+        this.availableSpots = r.getAvailableSpots().clone();
     }
 
 
@@ -76,11 +71,9 @@ public class Roundabout extends Intersection{
         this.availableSpots = availableSpots;
     }
 
-    public Image getImageFile() {
-        return imageFile;
-    }
-    public void setImageFile(Image imageFile) {
-        this.imageFile = imageFile;
+    @Override
+    public TileType getTileType() {
+        return TileType.ROUNDABOUT;
     }
 
     public Queue<Vehicle> getQueue() {
@@ -88,7 +81,7 @@ public class Roundabout extends Intersection{
     }
 
 
-    public Step tick() {
+    public boolean tick() {
         timer--;
         if (timer <= 0) {
             if (!queue.isEmpty()) {
@@ -97,7 +90,7 @@ public class Roundabout extends Intersection{
                 go.roundAboutGo(this);
             }
         }
-        return null;
+        return false;
     }
 
 }
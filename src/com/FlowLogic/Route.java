@@ -0,0 +1,203 @@
+package com.FlowLogic;
+
+import java.util.ArrayList;
+import java.util.Stack;
+
+/**
+ * A path through the road graph: the stops along it, from the entrance to
+ * the destination, and the direction taken to get from each stop to the next.
+ * Routes never change once found, so every vehicle going between the same
+ * two roads can share one and move along it with its own cursors.
+ */
+public final class Route {
+
+    // route of a vehicle that hasn't been routed yet
+    public static final Route EMPTY = new Route(new GridObject[0], new Direction[0]);
+
+    private final GridObject[] stops;
+
+    // directions[i] is the way from stops[i] to stops[i + 1]
+    private final Direction[] directions;
+
+    private Route(GridObject[] stops, Direction[] directions) {
+        this.stops = stops;
+        this.directions = directions;
+    }
+
+    /**
+     * Finds the shortest route between two nodes of the road graph, with an
+     * A* search towards the target.
+     *
+     * @param router Solver over the road graph
+     * @param start Node the route starts at
+     * @param target Node the route ends at
+     * @param intersections The graph's nodes, indexed by id
+     * @return the route
+     */
+    public static Route find(RouteSolver router, int start, int target, ArrayList<GridObject> intersections) {
+        return fromPrevious(router.solveGuided(start, target), start, target, intersections);
+    }
+
+    /**
+     * Finds the shortest route between two nodes of the road graph with a
+     * contraction hierarchy query.
+     *
+     * @param hierarchy Index over the road graph
+     * @param start Node the route starts at
+     * @param target Node the route ends at
+     * @param intersections The graph's nodes, indexed by id
+     * @return the route
+     */
+    public static Route find(ContractionHierarchy hierarchy, int start, int target,
+                             ArrayList<GridObject> intersections) {
+        int[] path = hierarchy.path(start, target);
+        if (path == null) {
+            // no way there, head straight for it like the search does
+            path = new int[] {start, target};
+        }
+        GridObject[] stops = new GridObject[path.length];
+        for (int i = 0; i < path.length; i++) {
+            stops[i] = intersections.get(path[i]);
+        }
+        return fromStops(stops);
+    }
+
+    /**
+     * Builds a route from the predecessors found by a shortest path search.
+     *
+     * @param previous Array of previous vertices
+     * @param start Start vertex
+     * @param target Target vertex
+     * @param intersections List of all intersections
+     */
+    private static Route fromPrevious(int[] previous, int start, int target,
+                                      ArrayList<GridObject> intersections) {
+        // Use a stack to build the path in reverse order
+        Stack<GridObject> tempPath = new Stack<>();
+        int current = target;
+
+        // Trace back from target to start
+        while (current != start && current >= 0) {
+            tempPath.push(intersections.get(current));
+            current = previous[current];
+        }
+
+        // Add the starting point
+        tempPath.push(intersections.get(start));
+
+        GridObject[] stops = new GridObject[tempPath.size()];
+        for (int i = 0; i < stops.length; i++) {
+            stops[i] = tempPath.pop();
+        }
+        return fromStops(stops);
+    }
+
+    /**
+     * Builds the route from a node to a next-hop table's destination by
+     * following the table.
+     *
+     * @param table Next hops towards the destination
+     * @param start Node the route starts at
+     * @param intersections The graph's nodes, indexed by id
+     * @return the route
+     */
+    public static Route follow(NextHopTable table, int start, ArrayList<GridObject> intersections) {
+        ArrayList<GridObject> stops = new ArrayList<>();
+        stops.add(intersections.get(start));
+        if (table.reaches(start)) {
+            for (int node = table.nextHop(start); node != -1; node = table.nextHop(node)) {
+                stops.add(intersections.get(node));
+            }
+        } else {
+            // no way there, head straight for it like the search does
+            stops.add(intersections.get(table.getDestination()));
+        }
+        return fromStops(stops.toArray(new GridObject[0]));
+    }
+
+    /**
+     * Builds a route that goes to one stop and from there along another route.
+     *
+     * @param first Stop to start at
+     * @param rest Route on from the stop after it
+     * @return the route
+     */
+    public static Route prepend(GridObject first, Route rest) {
+        GridObject[] stops = new GridObject[rest.stops.length + 1];
+        stops[0] = first;
+        System.arraycopy(rest.stops, 0, stops, 1, rest.stops.length);
+        return fromStops(stops);
+    }
+
+    /**
+     * Works out the direction between each stop and the next.
+     */
+    private static Route fromStops(GridObject[] stops) {
+        Direction[] directions = new Direction[stops.length - 1];
+        for (int i = 1; i < stops.length; i++) {
+            GridObject prev = stops[i - 1];
+            GridObject next = stops[i];
+
+            Direction calculatedDirection = Direction.UP; // aribitrary
+            int colDiff = Math.abs(next.getColNum() - prev.getColNum());
+            int rowDiff = Math.abs(next.getRowNum() - prev.getRowNum());
+            if (colDiff > rowDiff) {
+                if (next.getColNum() > prev.getColNum()) {
+                    calculatedDirection = Direction.RIGHT;
+                } else if (next.getColNum() < prev.getColNum()) {
+                    calculatedDirection = Direction.LEFT;
+                }
+            } else if (rowDiff > colDiff) {
+                if (next.getRowNum() > prev.getRowNum()) {
+                    calculatedDirection = Direction.DOWN;
+                } else {
+                    calculatedDirection = Direction.UP;
+                }
+            } else {
+                if (next.getColNum() > prev.getColNum()) {
+                    calculatedDirection = Direction.RIGHT;
+                } else if (next.getColNum() < prev.getColNum()) {
+                    calculatedDirection = Direction.LEFT;
+                } else if (next.getRowNum() > prev.getRowNum()) {
+                    calculatedDirection = Direction.DOWN;
+                } else {
+                    calculatedDirection = Direction.UP;
+                }
+            }
+
+            // NEW: Validate direction if next is a one-way road
+            if (next instanceof OneWayRoad oneWayRoad) {
+                if (oneWayRoad.getDirection() != calculatedDirection) {
+                    System.out.println("WARNING: Path contains wrong direction on one-way road!");
+                    // Handle the error - either skip this road or find alternative
+                }
+            }
+
+            directions[i - 1] = calculatedDirection;
+        }
+        return new Route(stops, directions);
+    }
+
+    public int stopCount() {
+        return stops.length;
+    }
+
+    public GridObject getStop(int i) {
+        return stops[i];
+    }
+
+    public int directionCount() {
+        return directions.length;
+    }
+
+    public Direction getDirection(int i) {
+        return directions[i];
+    }
+
+    /**
+     * @return the last stop, where the route ends
+     */
+    public GridObject getDestination() {
+        return stops[stops.length - 1];
+    }
+}
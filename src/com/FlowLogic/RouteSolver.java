@@ -0,0 +1,223 @@
+package com.FlowLogic;
+
+import java.util.Arrays;
+
+/**
+ * Shortest paths over a RoadGraph with Dijkstra's algorithm, taking the
+ * next closest node off a binary heap instead of scanning every node for it.
+ * The arrays it works in are allocated once and only the entries a search
+ * touched are reset for the next one, so routing a lot of vehicles one after
+ * the other doesn't allocate.
+ *
+ * For a single start and target, solveGuided() runs A* instead, which
+ * heads for the target using the nodes' grid positions and settles far fewer
+ * nodes on big maps.
+ *
+ * Not thread safe, each thread routing at the same time needs its own.
+ */
+public class RouteSolver {
+
+    private static final int UNSEEN = Integer.MAX_VALUE;
+
+    private final RoadGraph graph;
+
+    // best distance found so far and the node it was reached from, per node
+    private final int[] distance;
+    private final int[] previous;
+    private final boolean[] settled;
+
+    // nodes the last search reached, the only ones to reset
+    private final int[] touched;
+    private int touchedCount;
+
+    // heap order of each node: its distance, plus its estimate to the target
+    // for a guided search
+    private final int[] priority;
+
+    // nodes settled by the last search
+    private int settledCount;
+
+    // binary heap of nodes waiting to be settled, and where each one is in it
+    private final int[] heap;
+    private final int[] heapIndex;
+    private int heapSize;
+
+    public RouteSolver(RoadGraph graph) {
+        this.graph = graph;
+        int n = graph.nodeCount();
+        distance = new int[n];
+        previous = new int[n];
+        settled = new boolean[n];
+        touched = new int[n];
+        priority = new int[n];
+        heap = new int[n];
+        heapIndex = new int[n];
+        Arrays.fill(distance, UNSEEN);
+        Arrays.fill(previous, -1);
+        Arrays.fill(heapIndex, -1);
+    }
+
+    public RoadGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Finds the shortest path from start to target. Among equally short
+     * paths it picks the same one the old matrix search did.
+     *
+     * @param start - node to start from
+     * @param target - node to get to, -1 to find the paths to every node
+     * @return the node each node was reached from, -1 for the start and for
+     * nodes that weren't reached. Owned by the solver, only good until the
+     * next search.
+     */
+    public int[] solve(int start, int target) {
+        return search(start, target, false);
+    }
+
+    /**
+     * Finds a shortest path from start to target with A*, guided by the grid
+     * distance to the target, see RoadGraph.estimate(). The path is as short
+     * as solve()'s, but where there are several it may pick another one.
+     *
+     * @param start - node to start from
+     * @param target - node to get to
+     * @return the node each node was reached from, as solve() does
+     */
+    public int[] solveGuided(int start, int target) {
+        return search(start, target, true);
+    }
+
+    private int[] search(int start, int target, boolean guided) {
+        reset();
+        touch(start, 0, -1);
+        priority[start] = guided ? graph.estimate(start, target) : 0;
+        push(start);
+
+        while (heapSize > 0) {
+            int u = pop();
+            if (u == target) {
+                break;
+            }
+            settled[u] = true;
+            settledCount++;
+
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.getTarget(e);
+                int d = distance[u] + graph.getWeight(e);
+                if (settled[v] || d >= distance[v]) {
+                    continue;
+                }
+                boolean seen = distance[v] != UNSEEN;
+                if (!seen) {
+                    touch(v, d, u);
+                } else {
+                    distance[v] = d;
+                    previous[v] = u;
+                }
+                priority[v] = guided ? d + graph.estimate(v, target) : d;
+                if (!seen) {
+                    push(v);
+                } else {
+                    siftUp(heapIndex[v]);
+                }
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * @return length of the shortest path to the node found by the last
+     * search, Integer.MAX_VALUE if it wasn't reached
+     */
+    public int getDistance(int node) {
+        return distance[node];
+    }
+
+    /**
+     * @return how many nodes the last search settled before it was done
+     */
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    private void touch(int node, int d, int from) {
+        distance[node] = d;
+        previous[node] = from;
+        touched[touchedCount++] = node;
+    }
+
+    private void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            int node = touched[i];
+            distance[node] = UNSEEN;
+            previous[node] = -1;
+            settled[node] = false;
+            heapIndex[node] = -1;
+        }
+        touchedCount = 0;
+        settledCount = 0;
+        heapSize = 0;
+    }
+
+    // The heap is ordered by priority, ties go to the higher node id, which
+    // for an unguided search is the node the old linear scan would have picked.
+
+    private boolean before(int a, int b) {
+        return priority[a] < priority[b] || (priority[a] == priority[b] && a > b);
+    }
+
+    private void push(int node) {
+        heap[heapSize] = node;
+        heapIndex[node] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private int pop() {
+        int top = heap[0];
+        heapIndex[top] = -1;
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndex[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int i) {
+        int node = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(node, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            heapIndex[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = node;
+        heapIndex[node] = i;
+    }
+
+    private void siftDown(int i) {
+        int node = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], node)) {
+                break;
+            }
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = node;
+        heapIndex[node] = i;
+    }
+}
@@ -0,0 +1,142 @@
+package com.FlowLogic;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Trace of simulation events like spawns, stops and arrivals, for figuring
+ * out what happened in a run without printing on every event. Events are
+ * fixed-size records in a ring buffer that keeps the latest ones; vehicles
+ * ticking on different threads claim slots with a single atomic increment,
+ * no locks. Nothing is written out until dump() is called.
+ *
+ * Tracing is off unless enable() is called, or the flowlogic.trace system
+ * property is set to the number of events to keep. While it's off an event
+ * costs one field read.
+ */
+public final class SimTrace {
+
+    // event types
+    public static final byte SPAWN = 0;    // data: unused
+    public static final byte STOP = 1;     // data: unused
+    public static final byte RELEASE = 2;  // data: ticks waited
+    public static final byte REROUTE = 3;  // data: intersections on the new path
+    public static final byte ARRIVAL = 4;  // data: trip time in ticks
+
+    private static final String[] NAMES = {"SPAWN", "STOP", "RELEASE", "REROUTE", "ARRIVAL"};
+
+    private static volatile boolean enabled = false;
+
+    // tick the simulation is on, stamped on each event
+    private static volatile int tick;
+
+    // total events ever written, the next one goes in slot next % capacity
+    private static final AtomicLong next = new AtomicLong();
+
+    // records, one slot per index. seq holds the event number + 1 once the
+    // slot is fully written, so a dump can skip slots being overwritten.
+    private static int mask;
+    private static AtomicLongArray seq;
+    private static int[] ticks;
+    private static byte[] types;
+    private static int[] vehicles;
+    private static int[] xs;
+    private static int[] ys;
+    private static int[] data;
+
+    static {
+        String capacity = System.getProperty("flowlogic.trace");
+        if (capacity != null) {
+            enable(Integer.parseInt(capacity));
+        }
+    }
+
+    private SimTrace() {
+    }
+
+    /**
+     * Turns tracing on, keeping the latest events.
+     * @param capacity - number of events to keep, rounded up to a power of two
+     */
+    public static synchronized void enable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        mask = size - 1;
+        seq = new AtomicLongArray(size);
+        ticks = new int[size];
+        types = new byte[size];
+        vehicles = new int[size];
+        xs = new int[size];
+        ys = new int[size];
+        data = new int[size];
+        next.set(0);
+        enabled = true;
+    }
+
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the tick stamped on events from here on.
+     */
+    static void setTick(int t) {
+        tick = t;
+    }
+
+    /**
+     * Records an event, overwriting the oldest one once the buffer is full.
+     * @param type - one of the event types above
+     * @param vehicle - id of the vehicle
+     * @param x - x-coordinate of the vehicle
+     * @param y - y-coordinate of the vehicle
+     * @param value - event specific, see the event types
+     */
+    public static void event(byte type, int vehicle, int x, int y, int value) {
+        if (!enabled) {
+            return;
+        }
+        long n = next.getAndIncrement();
+        int i = (int) (n & mask);
+        seq.lazySet(i, 0);
+        ticks[i] = tick;
+        types[i] = type;
+        vehicles[i] = vehicle;
+        xs[i] = x;
+        ys[i] = y;
+        data[i] = value;
+        seq.set(i, n + 1);
+    }
+
+    /**
+     * Writes the buffered events to a file as CSV, oldest first.
+     * @param filename - file to write
+     */
+    public static synchronized void dump(String filename) throws IOException {
+        if (seq == null) {
+            return;
+        }
+        try (PrintWriter out = new PrintWriter(new FileWriter(filename))) {
+            out.println("tick,event,vehicle,x,y,data");
+            long end = next.get();
+            long start = Math.max(0, end - (mask + 1));
+            for (long n = start; n < end; n++) {
+                int i = (int) (n & mask);
+                if (seq.get(i) != n + 1) {
+                    continue; // not written yet or already overwritten
+                }
+                String line = ticks[i] + "," + NAMES[types[i]] + "," + vehicles[i] + ","
+                    + xs[i] + "," + ys[i] + "," + data[i];
+                if (seq.get(i) == n + 1) {
+                    out.println(line);
+                }
+            }
+        }
+    }
+}
@@ -3,16 +3,15 @@ package com.FlowLogic;
 import javafx.application.Platform;
 import javafx.scene.Node;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.VBox;
-import javafx.scene.paint.ImagePattern;
 import javafx.stage.Stage;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.paint.Color;
 import javafx.scene.layout.Pane;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -23,7 +22,7 @@ import static com.FlowLogic.UserInterface.canZoom;
 public class Simulation {
     int numVehicles;
     ArrayList<Vehicle> vehicles;
-    ArrayList<Frame> frames;
+    FrameStream frames;
     long avgTimeAtIntersections = 0;
     long avgTripTime = 360;
     long maxTimeAtIntersections = 0;
@@ -32,30 +31,33 @@ public class Simulation {
     int totalTime = 0;
     VBox left;
 
+    // on-screen car for each vehicle id, the model vehicles have no graphics
+    HashMap<Integer, Rectangle> cars;
+
     public Simulation(int numVehicles) {
+        this(numVehicles, new FrameStream(1));
+        frames.close();
+    }
+
+    public Simulation(int numVehicles, FrameStream frames) {
         this.numVehicles = numVehicles;//This and next line may need to be changed based
         vehicles = new ArrayList<Vehicle>();//on how users decide on vehicles in simulation
-        frames = new ArrayList<Frame>();
+        this.frames = frames;
+        cars = new HashMap<>();
         left = new VBox();
     }
 
-    public void addFrame(Frame f) {
-        frames.add(f);
-    }
-
     public void disperse(Grid grid) {
         ArrayList<OneWayRoad> roads = new ArrayList<>();
         ArrayList<Parking> parking = new ArrayList<>();
-        for (GridObject[] row : grid.getGrid()) {
-            for (GridObject o : row) {
-                if (o instanceof OneWayRoad) {
-                    roads.add((OneWayRoad)o);
-                }
-                if (o instanceof  Parking) {
-                    parking.add((Parking)o);
-                }
+        grid.forEachObject(o -> {
+            if (o instanceof OneWayRoad) {
+                roads.add((OneWayRoad)o);
             }
-        }
+            if (o instanceof  Parking) {
+                parking.add((Parking)o);
+            }
+        });
 
         for (Vehicle v : vehicles) {
             Random random = new Random();
@@ -69,7 +71,7 @@ public class Simulation {
     }
     int SCREEN_WIDTH = 1280;
     int SCREEN_HEIGHT = 720;
-    public void display(Stage stage, AnchorPane root, Pane gridGroup, Grid grid){
+    public void display(Stage stage, AnchorPane root, Pane gridGroup, GridView gridView){
         VBox right = new VBox();
         right.setStyle("-fx-border-color: black; -fx-border-width: 2px;");
         right.setPrefWidth((SCREEN_WIDTH - SCREEN_HEIGHT * 1.0) / 2);
@@ -196,85 +198,89 @@ public class Simulation {
 
         new Thread(() -> {
             canZoom = false;
-            for (Frame f : frames) {
-                if (exit.get() == true) {
-                    break;
-                }
-                Platform.runLater(() -> { // Ensures UI updates happen on JavaFX thread
-                    System.out.println("Rendering frame");
-                    //updateStatisticsLabels(left);
-                    for (Step s : f.getSteps()) {
-                        Object oldObj = s.oldObject;
-                        Object newObj = s.newObject;
-
-                        if (oldObj instanceof  Vehicle) {
-                            Vehicle car = (Vehicle) oldObj;
-                            if (gridGroup.getChildren().contains(car.getCar())) {
-                                gridGroup.getChildren().remove(car.getCar());
-                            }
+            FrameLog log;
+            try {
+                // frames arrive while the simulation is still running
+                while ((log = frames.take()) != null) {
+                    for (int frame = 0; frame < log.frameCount(); frame++) {
+                        if (exit.get() == true) {
+                            break;
                         }
-
-                        if (newObj instanceof Vehicle) {
-                            Vehicle car = (Vehicle) newObj;
-                            int x = car.getX();
-                            int y = car.getY();
-                            double cell_size = (720 * 1.0)/GRID_SIZE;
-                            x = (int) (((x * 1.0) /32) * cell_size);
-                            y = (int) (((y * 1.0) /32) * cell_size);
-                            Rectangle update = car.getCar();
-                            update.setX(x);
-                            update.setY(y);
-                            //update.setFill(car.getCar().getFill());
-                            Image image;
-                            if (car.getLength() <= 15) {
-                                image = new Image("file:Images/Prius.png");
-                            } else if (car.getLength() <= 20) {
-                                image = new Image("file:Images/BlueCar.png");
-                            } else if (car.getLength() <= 25) {
-                                image = new Image("file:Images/BusTaxi.png");
-                            } else {
-                                image = new Image("file:Images/Semi.png");
+                        FrameLog piece = log;
+                        int f = frame;
+                        Platform.runLater(() -> { // Ensures UI updates happen on JavaFX thread
+                            System.out.println("Rendering frame");
+                            //updateStatisticsLabels(left);
+                            for (int i = piece.vehicleStart(f); i < piece.vehicleEnd(f); i++) {
+                                int id = piece.getVehicleId(i);
+
+                                if (piece.isVehicleGone(i)) {
+                                    // vehicle left the map
+                                    Rectangle gone = cars.remove(id);
+                                    if (gone != null) {
+                                        gridGroup.getChildren().remove(gone);
+                                    }
+                                    continue;
+                                }
+
+                                int x = piece.getVehicleX(i);
+                                int y = piece.getVehicleY(i);
+                                int length = piece.getVehicleLength(id);
+                                int width = piece.getVehicleWidth(id);
+                                double cell_size = (720 * 1.0)/GRID_SIZE;
+                                x = (int) (((x * 1.0) /32) * cell_size);
+                                y = (int) (((y * 1.0) /32) * cell_size);
+                                Rectangle update = cars.get(id);
+                                if (update == null) {
+                                    update = new Rectangle();
+                                    cars.put(id, update);
+                                    gridGroup.getChildren().add(update);
+                                }
+                                update.setX(x);
+                                update.setY(y);
+                                String image;
+                                if (length <= 15) {
+                                    image = "file:Images/Prius.png";
+                                } else if (length <= 20) {
+                                    image = "file:Images/BlueCar.png";
+                                } else if (length <= 25) {
+                                    image = "file:Images/BusTaxi.png";
+                                } else {
+                                    image = "file:Images/Semi.png";
+                                }
+                                update.setFill(ImageCache.pattern(image));
+                                update.setWidth(((width * 1.0) /32) * cell_size / 2);
+                                update.setHeight(((length * 1.0) /32) * cell_size / 2);
+                                update.setRotate(piece.getVehicleRotation(i));
                             }
-                            update.setFill(new ImagePattern(image));
-                            //update.setStroke(Color.BLACK);
-                            //update.setStrokeWidth(2);
-                            update.setWidth(((car.getWidth() * 1.0) /32) * cell_size / 2);
-                            update.setHeight(((car.getLength() * 1.0) /32) * cell_size / 2);
-                            //update.setFill(Color.BLUE);
-                            //update.setStroke(Color.BLACK);
-                            //update.setStrokeWidth(2);
-                            update.setRotate(car.getCurRotation());
-                            if (!gridGroup.getChildren().contains(car.getCar())) {
-                                gridGroup.getChildren().add(car.getCar());
+                            for (int i = piece.lightStart(f); i < piece.lightEnd(f); i++) {
+                                int row = piece.getLightRow(i);
+                                int col = piece.getLightCol(i);
+                                Rectangle rect = gridView.getCell(row, col);
+                                rect.setX(col * Grid.GRID_SIZE);
+                                rect.setY(row * Grid.GRID_SIZE);
+
+                                if (piece.getLightOneColor(i) != 0) rect.setRotate(90);
+                                else rect.setRotate(0);
+                                rect.setFill(ImageCache.pattern(piece.getLightImage(i)));
                             }
-                        }
-                        if (newObj instanceof StopLight) {
-                            StopLight light = (StopLight) newObj;
-                            Rectangle rect = grid.getFrontGrid()[light.getRowNum()][light.getColNum()];
-                            //double cell_size = (720.0)/GRID_SIZE;
-                            int x = light.getColNum() * Grid.GRID_SIZE;
-                            int y = light.getRowNum() * Grid.GRID_SIZE;
-
-                            x = (int) (((x * 1.0))); ///32)) * cell_size);
-                            y = (int) (((y * 1.0))); ///32)) * cell_size);
+                        });
 
-                            rect.setX(x);
-                            rect.setY(y);
-
-
-                            if (light.getLightOneColor() != 0) rect.setRotate(90);
-                            else rect.setRotate(0);
-                            rect.setFill(new ImagePattern(light.getImageFile()));
+                        try {
+                            Thread.sleep((long)(500 / delay.get())); // Simulate delay, but UI won't freeze
+                        } catch (InterruptedException e) {
+                            e.printStackTrace();
                         }
                     }
-                });
-
-                try {
-                    Thread.sleep((long)(500 / delay.get())); // Simulate delay, but UI won't freeze
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+                    if (exit.get() == true) {
+                        break;
+                    }
                 }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
             }
+            // let the simulation stop if playback ended early
+            frames.cancel();
             canZoom = true;
         }).start();
 
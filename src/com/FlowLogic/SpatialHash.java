@@ -0,0 +1,125 @@
+package com.FlowLogic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Uniform spatial hash that buckets vehicles by the pixel cell they are in.
+ * Vehicles only interact with other vehicles a few cells away, so neighbor
+ * queries look at the buckets around a point instead of scanning every
+ * vehicle in the simulation.
+ */
+public class SpatialHash {
+
+    private final int cellSize;
+
+    // bucket key -> vehicles currently in that cell
+    private final HashMap<Long, ArrayList<Vehicle>> buckets;
+
+    // vehicle -> bucket key it was last filed under
+    private final IdentityHashMap<Vehicle, Long> cellOf;
+
+    /**
+     * Creates a spatial hash using the grid's tile size as the cell size.
+     */
+    public SpatialHash() {
+        this(Grid.GRID_SIZE);
+    }
+
+    /**
+     * Creates a spatial hash with the given cell size.
+     * @param cellSize - side length of a bucket in pixels
+     */
+    public SpatialHash(int cellSize) {
+        this.cellSize = cellSize;
+        this.buckets = new HashMap<>();
+        this.cellOf = new IdentityHashMap<>();
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xffffffffL);
+    }
+
+    private long keyFor(int x, int y) {
+        return key(Math.floorDiv(x, cellSize), Math.floorDiv(y, cellSize));
+    }
+
+    /**
+     * Files the vehicle under the cell of its current position, moving it out
+     * of its old cell if it has crossed into a new one.
+     * @param v - the vehicle to insert or move
+     */
+    public void update(Vehicle v) {
+        long newKey = keyFor(v.getX(), v.getY());
+        Long oldKey = cellOf.get(v);
+        if (oldKey != null) {
+            if (oldKey == newKey) {
+                return;
+            }
+            removeFromBucket(oldKey, v);
+        }
+        cellOf.put(v, newKey);
+        buckets.computeIfAbsent(newKey, k -> new ArrayList<>()).add(v);
+    }
+
+    /**
+     * Removes the vehicle from the hash, if present.
+     * @param v - the vehicle to remove
+     */
+    public void remove(Vehicle v) {
+        Long oldKey = cellOf.remove(v);
+        if (oldKey != null) {
+            removeFromBucket(oldKey, v);
+        }
+    }
+
+    private void removeFromBucket(long key, Vehicle v) {
+        ArrayList<Vehicle> bucket = buckets.get(key);
+        if (bucket == null) {
+            return;
+        }
+        bucket.remove(v);
+        if (bucket.isEmpty()) {
+            buckets.remove(key);
+        }
+    }
+
+    /**
+     * Adds every vehicle in the cells overlapping the square of the given
+     * radius around (x, y) to out. Callers still do their own exact distance
+     * checks, this only narrows down the candidates.
+     * @param x - center x in pixels
+     * @param y - center y in pixels
+     * @param radius - half the side of the square to search, in pixels
+     * @param out - list the candidates are added to
+     */
+    public void query(int x, int y, int radius, List<Vehicle> out) {
+        int minCellX = Math.floorDiv(x - radius, cellSize);
+        int maxCellX = Math.floorDiv(x + radius, cellSize);
+        int minCellY = Math.floorDiv(y - radius, cellSize);
+        int maxCellY = Math.floorDiv(y + radius, cellSize);
+        for (int cx = minCellX; cx <= maxCellX; cx++) {
+            for (int cy = minCellY; cy <= maxCellY; cy++) {
+                ArrayList<Vehicle> bucket = buckets.get(key(cx, cy));
+                if (bucket != null) {
+                    out.addAll(bucket);
+                }
+            }
+        }
+    }
+
+    public boolean contains(Vehicle v) {
+        return cellOf.containsKey(v);
+    }
+
+    public int size() {
+        return cellOf.size();
+    }
+
+    public void clear() {
+        buckets.clear();
+        cellOf.clear();
+    }
+}
@@ -1,6 +1,5 @@
 package com.FlowLogic;
 
-import javafx.scene.image.Image;
 import java.util.LinkedList;
 import java.util.Queue;
 
@@ -12,16 +11,17 @@ public class StopLight extends Intersection implements GridObject {
     final int RED = 0;
     final int YELLOW = 1;
     final int GREEN = 2;
-    private int rowNum;
-    private int colNum;
 
     private int YELLOW_TIMING = 5;
-    private Image imageFile;
-    private Image redGreen4WayImage;
-    private Image redYellow4WayImage;
-    private Image greenRed4WayImage;
-    private Image yellowRed4WayImage;
-    private Image allRed4WayImage;
+    private String imageFile;
+
+    // images for each light state, loaded by the view. Unlike other tiles a
+    // light's image is its own, it changes as the lights do
+    static final String RED_GREEN_IMAGE = "file:Images/RedGreen4WayStopLight.png";
+    static final String RED_YELLOW_IMAGE = "file:Images/RedYellow4WayStopLight.png";
+    static final String GREEN_RED_IMAGE = "file:Images/GreenRed4WayStopLight.png";
+    static final String YELLOW_RED_IMAGE = "file:Images/YellowRed4WayStopLight.png";
+    static final String ALL_RED_IMAGE = "file:Images/AllRed4WayStopLight.png";
 
     private int timer = 10;
 
@@ -37,12 +37,7 @@ public class StopLight extends Intersection implements GridObject {
         this.lightTwoColor = lightTwoColor; // Horizontal Light
         this.timingOne = timingOne;
         this.timingTwo = timingTwo;
-        this.redGreen4WayImage = new Image("file:Images/RedGreen4WayStopLight.png");
-        this.redYellow4WayImage = new Image("file:Images/RedYellow4WayStopLight.png");
-        this.greenRed4WayImage = new Image("file:Images/GreenRed4WayStopLight.png");
-        this.yellowRed4WayImage = new Image("file:Images/YellowRed4WayStopLight.png");
-        this.allRed4WayImage = new Image("file:Images/AllRed4WayStopLight.png");
-        this.imageFile = new Image("file:Images/RedGreen4WayStopLight.png");
+        this.imageFile = RED_GREEN_IMAGE;
 
         // Initialize the vehicle queues
         this.verticalQueue = new LinkedList<>();
@@ -51,17 +46,10 @@ public class StopLight extends Intersection implements GridObject {
 
     public StopLight(StopLight s) {
         super(s.getRowNum(), s.getColNum(), s.getRoadList());
-        this.rowNum = s.getRowNum();
-        this.colNum = s.getColNum();
         this.lightOneColor = s.getLightOneColor(); // Vertical Light
         this.lightTwoColor = s.getLightTwoColor(); // Horizontal Light
         this.timingOne = s.getTimingOne();
         this.timingTwo = s.getTimingTwo();
-        this.redGreen4WayImage = new Image("file:Images/RedGreen4WayStopLight.png");
-        this.redYellow4WayImage = new Image("file:Images/RedYellow4WayStopLight.png");
-        this.greenRed4WayImage = new Image("file:Images/GreenRed4WayStopLight.png");
-        this.yellowRed4WayImage = new Image("file:Images/YellowRed4WayStopLight.png");
-        this.allRed4WayImage = new Image("file:Images/AllRed4WayStopLight.png");
         this.imageFile = s.getImageFile();
 
         // Copy the queues
@@ -71,9 +59,9 @@ public class StopLight extends Intersection implements GridObject {
 
     public void initializeStopLightGraphics() {
         if (lightOneColor == RED) {
-            imageFile = redGreen4WayImage;
+            imageFile = RED_GREEN_IMAGE;
         } else if (lightOneColor == GREEN) {
-            imageFile = greenRed4WayImage;
+            imageFile = GREEN_RED_IMAGE;
         }
     }
 
@@ -96,24 +84,24 @@ public class StopLight extends Intersection implements GridObject {
         if (lightOneColor == YELLOW) {
             lightOneColor = RED;
             lightTwoColor = GREEN;
-            this.imageFile = getRedGreen4WayImage();
+            this.imageFile = RED_GREEN_IMAGE;
             releaseVehicles(false, true); // Release horizontal traffic
             return timingTwo;
         } else if (lightOneColor == GREEN) {
             lightOneColor = YELLOW;
             lightTwoColor = RED;
-            this.imageFile = getRedYellow4WayImage();
+            this.imageFile = RED_YELLOW_IMAGE;
             return YELLOW_TIMING;
         } else if (lightTwoColor == YELLOW) {
             lightTwoColor = RED;
             lightOneColor = GREEN;
-            this.imageFile = getRedGreen4WayImage();
+            this.imageFile = RED_GREEN_IMAGE;
             releaseVehicles(true, false); // Release vertical traffic
             return timingOne;
         } else if (lightTwoColor == GREEN) {
             lightTwoColor = YELLOW;
             lightOneColor = RED;
-            this.imageFile = getRedYellow4WayImage();
+            this.imageFile = RED_YELLOW_IMAGE;
             return YELLOW_TIMING;
         }
         return -1;
@@ -155,16 +143,15 @@ public class StopLight extends Intersection implements GridObject {
 
     /**
      * Called by the simulation to get and change the state of the light at hand
-     * @return Step containing before and after states if there was a change
+     * @return true if the lights switched
      */
-    public Step tick() {
+    public boolean tick() {
         timer--;
         if (timer <= 0) {
-            StopLight clone = (StopLight) this.clone();
             timer = switchLights();
-            return new Step(clone, new StopLight(this));
+            return true;
         }
-        return null;
+        return false;
     }
 
     // Add getters for the queues
@@ -178,13 +165,13 @@ public class StopLight extends Intersection implements GridObject {
 
     // Existing getters and setters...
     @Override
-    public Image getImageFile() {
-        return imageFile;
+    public TileType getTileType() {
+        return TileType.STOP_LIGHT;
     }
 
     @Override
-    public void setImageFile(Image imageFile) {
-        this.imageFile = imageFile;
+    public String getImageFile() {
+        return imageFile;
     }
 
     public int getTimingOne() {
@@ -218,36 +205,4 @@ public class StopLight extends Intersection implements GridObject {
     public void setLightTwoColor(int lightTwoColor) {
         this.lightTwoColor = lightTwoColor;
     }
-
-    public int getRowNum() {
-        return rowNum;
-    }
-
-    public int getColNum() {
-        return colNum;
-    }
-
-    public void setColNum(int newCol) {
-        this.colNum = newCol;
-    }
-
-    public void setRowNum(int newRow) {
-        this.rowNum = newRow;
-    }
-
-    public Image getRedGreen4WayImage() {
-        return redGreen4WayImage;
-    }
-
-    public void setRedGreen4WayImage(Image redGreen4WayImage) {
-        this.redGreen4WayImage = redGreen4WayImage;
-    }
-
-    public Image getRedYellow4WayImage() {
-        return redYellow4WayImage;
-    }
-
-    public void setRedYellow4WayImage(Image redYellow4WayImage) {
-        this.redYellow4WayImage = redYellow4WayImage;
-    }
 }
\ No newline at end of file
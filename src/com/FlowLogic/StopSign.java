@@ -1,5 +1,4 @@
 package com.FlowLogic;
-import javafx.scene.image.Image;
 
 import java.util.ArrayDeque;
 import java.util.Queue;
@@ -9,35 +8,30 @@ public class StopSign extends Intersection {
     private final int WAIT_TIME = 5; // This is the wait time for vehicles at the stop sign
     int timer = WAIT_TIME;
 
-    private Image imageFile;
-
     public StopSign(int rowNum, int colNum, Road[] roads) {
         super(rowNum, colNum, roads);
-        this.imageFile = new Image("file:Images/4WayStopSign.png");
     }
 
     public StopSign(StopSign s) {
         super(s.getRowNum(), s.getColNum(), s.getRoadList());
-        this.imageFile = new Image("file:Images/4WayStopSign.png");
     }
 
     /**
      * Updates the stop sign state for each simulation tick.
      * Decrements timer and releases vehicles from queue when timer reaches zero.
      *
-     * @return A Step object (usually null for stop signs)
+     * @return false, stop signs look the same every tick
      */
-    public Step tick() {
+    public boolean tick() {
         timer--;
         if (timer <= 0) {
             timer = WAIT_TIME;
             if (!queue.isEmpty()) {
                 Vehicle go = queue.poll(); // Use poll() to remove and return the first vehicle
                 go.stopSignLetGo(); // Call the vehicle's method to release it
-                System.out.println("StopSign releasing vehicle");
             }
         }
-        return null;
+        return false;
     }
 
     /**
@@ -51,7 +45,6 @@ public class StopSign extends Intersection {
                 timer = WAIT_TIME;
             }
             queue.add(vehicle);
-            System.out.println("Vehicle added to stop sign queue, queue size: " + queue.size());
         }
     }
 
@@ -65,13 +58,8 @@ public class StopSign extends Intersection {
     }
 
     @Override
-    public Image getImageFile() {
-        return imageFile;
-    }
-
-    @Override
-    public void setImageFile(Image imageFile) {
-        this.imageFile = imageFile;
+    public TileType getTileType() {
+        return TileType.STOP_SIGN;
     }
 
     public void setQueue(Queue<Vehicle> queue) {
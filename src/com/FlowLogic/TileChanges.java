@@ -0,0 +1,50 @@
+package com.FlowLogic;
+
+import java.util.Arrays;
+
+/**
+ * The tiles a command changed on a grid, in the order it changed them, and
+ * what was on each one before, so they can all be put back. Filled in by
+ * TileStore.set() while a GridCommand runs.
+ */
+class TileChanges {
+    // row and col of each change, two ints per change
+    private int[] cells = new int[8];
+
+    // what was on the tile before each change, null if it was empty
+    private GridObject[] before = new GridObject[4];
+
+    private int count;
+
+    void add(int row, int col, GridObject was) {
+        if (count == before.length) {
+            cells = Arrays.copyOf(cells, cells.length * 2);
+            before = Arrays.copyOf(before, before.length * 2);
+        }
+        cells[count * 2] = row;
+        cells[count * 2 + 1] = col;
+        before[count] = was;
+        count++;
+    }
+
+    /**
+     * Puts back what was on each tile, undoing the last change first.
+     */
+    void revert(Grid grid) {
+        for (int i = count - 1; i >= 0; i--) {
+            grid.setAtSpot(cells[i * 2], cells[i * 2 + 1], before[i]);
+        }
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * @return about how much memory this takes, not counting the objects it
+     * keeps, which are mostly still on the grid or on another command's list
+     */
+    long bytes() {
+        return 32 + cells.length * 4L + before.length * 8L;
+    }
+}
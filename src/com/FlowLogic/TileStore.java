@@ -0,0 +1,399 @@
+package com.FlowLogic;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The tiles of a Grid, kept in 64x64 chunks that are only allocated when
+ * something is first put in them and dropped again once they're empty. Most
+ * of a big map is empty lots, which this way cost one null reference per
+ * chunk instead of one per tile.
+ *
+ * Chunks line up with the top left corner of the grid, so resizing shares
+ * every chunk that's still wholly inside it, copy on write like a snapshot.
+ *
+ * A snapshot shares every chunk with the store it was taken from, copy on
+ * write. The first change either of them makes to a shared chunk gives it
+ * a chunk of its own, keeping the objects in it, and leaves everyone else
+ * sharing the old one with clones of them as they were. Objects are changed
+ * in place all over, so anything about to change one has to go through
+ * edit() first, not just get().
+ */
+class TileStore {
+
+    private static final int CHUNK_BITS = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // hands out a number for each store, a chunk belongs to the store
+    // whose number it has
+    private static final AtomicInteger generations = new AtomicInteger();
+
+    private final int rows;
+    private final int cols;
+    private final int chunkRows;
+    private final int chunkCols;
+
+    // chunks row by row, null while empty
+    private Chunk[] chunks;
+
+    // whether chunks is still shared with a snapshot, and has to be copied
+    // before it's changed
+    private boolean sharedTable;
+
+    private int generation;
+
+    private int size;
+
+    // where set() writes down what it changes while a command runs, null
+    // the rest of the time
+    private TileChanges changes;
+
+    TileStore(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        chunkRows = (rows + CHUNK_MASK) >> CHUNK_BITS;
+        chunkCols = (cols + CHUNK_MASK) >> CHUNK_BITS;
+        chunks = new Chunk[chunkRows * chunkCols];
+        generation = generations.incrementAndGet();
+    }
+
+    // a snapshot of another store, sharing its table of chunks
+    private TileStore(TileStore from) {
+        rows = from.rows;
+        cols = from.cols;
+        chunkRows = from.chunkRows;
+        chunkCols = from.chunkCols;
+        chunks = from.chunks;
+        sharedTable = true;
+        size = from.size;
+        generation = generations.incrementAndGet();
+    }
+
+    private static final class Chunk {
+        // the tiles row by row
+        GridObject[] tiles;
+
+        // occupied tiles
+        int count;
+
+        // generation of the store it belongs to, the others only share it
+        final int owner;
+
+        Chunk(GridObject[] tiles, int count, int owner) {
+            this.tiles = tiles;
+            this.count = count;
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * @return the object on the tile, null if it's empty. The tile has to
+     * be inside the grid.
+     */
+    GridObject get(int row, int col) {
+        Chunk chunk = chunks[(row >> CHUNK_BITS) * chunkCols + (col >> CHUNK_BITS)];
+        return chunk == null ? null : chunk.tiles[((row & CHUNK_MASK) << CHUNK_BITS) | (col & CHUNK_MASK)];
+    }
+
+    /**
+     * @return the object on the tile for changing, null if it's empty. Any
+     * snapshot sharing it gets a copy of it as it is now. The tile has to be
+     * inside the grid.
+     */
+    GridObject edit(int row, int col) {
+        writable((row >> CHUNK_BITS) * chunkCols + (col >> CHUNK_BITS));
+        return get(row, col);
+    }
+
+    /**
+     * Puts an object on the tile, null to empty it. The tile has to be
+     * inside the grid.
+     */
+    void set(int row, int col, GridObject obj) {
+        if (changes != null && get(row, col) != obj) {
+            changes.add(row, col, get(row, col));
+        }
+        int index = (row >> CHUNK_BITS) * chunkCols + (col >> CHUNK_BITS);
+        Chunk chunk = writable(index);
+        if (chunk == null) {
+            if (obj == null) {
+                return;
+            }
+            chunk = new Chunk(new GridObject[CHUNK_SIZE * CHUNK_SIZE], 0, generation);
+            chunks[index] = chunk;
+        }
+        int tile = ((row & CHUNK_MASK) << CHUNK_BITS) | (col & CHUNK_MASK);
+        if (chunk.tiles[tile] == null && obj != null) {
+            chunk.count++;
+            size++;
+        } else if (chunk.tiles[tile] != null && obj == null) {
+            chunk.count--;
+            size--;
+        }
+        chunk.tiles[tile] = obj;
+        if (chunk.count == 0) {
+            chunks[index] = null;
+        }
+    }
+
+    /**
+     * Starts writing down every change set() makes, see GridCommand.
+     * @param changes - where to write them, null to stop
+     */
+    void record(TileChanges changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * @return a store with the same tiles, sharing all of its chunks with
+     * this one until either is changed. Takes the same time however big the
+     * grid is.
+     */
+    TileStore snapshot() {
+        TileStore snapshot = new TileStore(this);
+        sharedTable = true;
+        // neither owns any chunk now, the first to change one copies it
+        generation = generations.incrementAndGet();
+        return snapshot;
+    }
+
+    /**
+     * @return the chunk, after making sure it's this store's own to change,
+     * null if it's empty
+     */
+    private Chunk writable(int index) {
+        if (sharedTable) {
+            chunks = chunks.clone();
+            sharedTable = false;
+        }
+        Chunk chunk = chunks[index];
+        if (chunk != null && chunk.owner != generation) {
+            detach(index);
+            chunk = chunks[index];
+        }
+        return chunk;
+    }
+
+    /**
+     * Takes a shared chunk for this store along with the objects in it,
+     * leaving clones of them in the one everyone else shares. An object
+     * running on past the chunk's edge, like a big building, has to be the
+     * same object on both sides, so the chunks it runs into are taken too.
+     * That relies on an object's tiles all touching, as Grid.remove() does.
+     */
+    private void detach(int first) {
+        IdentityHashMap<GridObject, GridObject> clones = new IdentityHashMap<>();
+        int[] pending = {first};
+        int count = 1;
+        while (count > 0) {
+            int index = pending[--count];
+            Chunk shared = chunks[index];
+            if (shared == null || shared.owner == generation) {
+                continue;
+            }
+            GridObject[] tiles = shared.tiles;
+            GridObject[] frozen = new GridObject[tiles.length];
+            for (int i = 0; i < tiles.length; i++) {
+                if (tiles[i] != null) {
+                    frozen[i] = clones.computeIfAbsent(tiles[i], GridObject::clone);
+                }
+            }
+            shared.tiles = frozen;
+            chunks[index] = new Chunk(tiles, shared.count, generation);
+
+            int cr = index / chunkCols;
+            int cc = index % chunkCols;
+            int[] around = {
+                cr > 0 ? index - chunkCols : -1, cr < chunkRows - 1 ? index + chunkCols : -1,
+                cc > 0 ? index - 1 : -1, cc < chunkCols - 1 ? index + 1 : -1
+            };
+            for (int side = 0; side < 4; side++) {
+                if (around[side] >= 0 && runsInto(tiles, side, chunks[around[side]])) {
+                    if (count == pending.length) {
+                        pending = Arrays.copyOf(pending, count * 2);
+                    }
+                    pending[count++] = around[side];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether an object on the edge of one chunk's tiles is also on
+     * the touching edge of a neighbouring chunk that isn't this store's own
+     * @param side 0 for the neighbour above, 1 below, 2 left, 3 right
+     */
+    private boolean runsInto(GridObject[] tiles, int side, Chunk neighbour) {
+        if (neighbour == null || neighbour.owner == generation) {
+            return false;
+        }
+        for (int k = 0; k < CHUNK_SIZE; k++) {
+            int edge = switch (side) {
+                case 0 -> k;
+                case 1 -> (CHUNK_MASK << CHUNK_BITS) | k;
+                case 2 -> k << CHUNK_BITS;
+                default -> (k << CHUNK_BITS) | CHUNK_MASK;
+            };
+            int across = switch (side) {
+                case 0 -> (CHUNK_MASK << CHUNK_BITS) | k;
+                case 1 -> k;
+                case 2 -> (k << CHUNK_BITS) | CHUNK_MASK;
+                default -> k << CHUNK_BITS;
+            };
+            if (tiles[edge] != null && tiles[edge] == neighbour.tiles[across]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return how many tiles have something on them
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return how many chunks are allocated
+     */
+    int chunkCount() {
+        int count = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the same tiles in a grid of another size, cut off at its edges.
+     * The chunks still wholly inside it are shared with this store, neither
+     * owning them, so the first change to one copies it.
+     */
+    TileStore resized(int newRows, int newCols) {
+        TileStore resized = new TileStore(newRows, newCols);
+        generation = generations.incrementAndGet();
+        for (int cr = 0; cr < Math.min(chunkRows, resized.chunkRows); cr++) {
+            for (int cc = 0; cc < Math.min(chunkCols, resized.chunkCols); cc++) {
+                Chunk chunk = chunks[cr * chunkCols + cc];
+                if (chunk == null) {
+                    continue;
+                }
+                int rowEnd = Math.min(CHUNK_SIZE, newRows - (cr << CHUNK_BITS));
+                int colEnd = Math.min(CHUNK_SIZE, newCols - (cc << CHUNK_BITS));
+                if (rowEnd == CHUNK_SIZE && colEnd == CHUNK_SIZE) {
+                    // wholly inside, shared until one of the stores changes it
+                    resized.chunks[cr * resized.chunkCols + cc] = chunk;
+                    resized.size += chunk.count;
+                    continue;
+                }
+                // cut, the objects kept go into a chunk of the resized store's own
+                for (int r = 0; r < rowEnd; r++) {
+                    for (int c = 0; c < colEnd; c++) {
+                        GridObject obj = chunk.tiles[(r << CHUNK_BITS) | c];
+                        if (obj != null) {
+                            resized.set((cr << CHUNK_BITS) + r, (cc << CHUNK_BITS) + c, obj);
+                        }
+                    }
+                }
+            }
+        }
+        resized.changes = changes;
+        changes = null;
+        return resized;
+    }
+
+    /**
+     * @return a cursor over the occupied tiles, row by row
+     */
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Goes over the occupied tiles in the same order a loop over every row
+     * and column would find them, but only looks inside the allocated chunks.
+     * Tiles can be changed as it goes, as long as no chunk ahead of it is
+     * emptied or filled for the first time.
+     */
+    class Cursor {
+        // allocated chunk columns in the current band of chunk rows
+        private final int[] bandChunks = new int[chunkCols];
+        private int bandCount;
+
+        private int chunkRow = -1;
+        private int row;
+        private int chunkIndex;
+        private int tileCol = -1;
+
+        private int foundRow;
+        private int foundCol;
+        private GridObject found;
+
+        /**
+         * Moves to the next occupied tile.
+         * @return false once there are none left
+         */
+        boolean next() {
+            while (true) {
+                if (chunkRow >= 0 && chunkIndex < bandCount) {
+                    Chunk current = chunks[chunkRow * chunkCols + bandChunks[chunkIndex]];
+                    GridObject[] chunk = current == null ? null : current.tiles;
+                    int colEnd = Math.min(CHUNK_SIZE, cols - (bandChunks[chunkIndex] << CHUNK_BITS));
+                    int base = (row & CHUNK_MASK) << CHUNK_BITS;
+                    while (chunk != null && ++tileCol < colEnd) {
+                        if (chunk[base | tileCol] != null) {
+                            foundRow = row;
+                            foundCol = (bandChunks[chunkIndex] << CHUNK_BITS) | tileCol;
+                            found = chunk[base | tileCol];
+                            return true;
+                        }
+                    }
+                    chunkIndex++;
+                    tileCol = -1;
+                    continue;
+                }
+                // on to the next row of this band, or the next band with chunks in it
+                if (chunkRow >= 0 && (row & CHUNK_MASK) < CHUNK_MASK && row + 1 < rows) {
+                    row++;
+                } else if (!nextBand()) {
+                    return false;
+                }
+                chunkIndex = 0;
+                tileCol = -1;
+            }
+        }
+
+        private boolean nextBand() {
+            while (++chunkRow < chunkRows) {
+                bandCount = 0;
+                for (int cc = 0; cc < chunkCols; cc++) {
+                    if (chunks[chunkRow * chunkCols + cc] != null) {
+                        bandChunks[bandCount++] = cc;
+                    }
+                }
+                if (bandCount > 0) {
+                    row = chunkRow << CHUNK_BITS;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int row() {
+            return foundRow;
+        }
+
+        int col() {
+            return foundCol;
+        }
+
+        GridObject get() {
+            return found;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.FlowLogic;
+
+import java.util.HashMap;
+
+/**
+ * What kind of tile a grid object is, with everything every tile of that
+ * kind has in common: the image it's drawn with and, for roads, which way
+ * it runs, which way traffic goes on it and the speed limit it starts with.
+ * There's one of each, shared by every tile of the kind, so the tiles
+ * themselves only keep what's their own, like a road's speed limit or an
+ * intersection's id. Turning a road swaps its kind, see facing().
+ *
+ * Also makes a new tile of each kind for placing from the palette, see
+ * Grid.placeObjectByImage().
+ */
+public enum TileType {
+    ROAD_UP("RoadImage.png", Orientation.VERTICAL, Direction.UP, 40),
+    ROAD_DOWN("RoadImageDown.png", Orientation.VERTICAL, Direction.DOWN, 40),
+    ROAD_LEFT("RoadImageLeft.png", Orientation.HORIZONTAL, Direction.LEFT, 40),
+    ROAD_RIGHT("RoadImageRight.png", Orientation.HORIZONTAL, Direction.RIGHT, 40),
+    // a road that runs one way without a direction of its own, a plain Road
+    // or a one-way road not given one
+    ROAD_VERTICAL("RoadImage.png", Orientation.VERTICAL, null, 40),
+    ROAD_HORIZONTAL("RoadImageRight.png", Orientation.HORIZONTAL, null, 40),
+    TWO_WAY_VERTICAL("TwoWayRoad.png", Orientation.VERTICAL, null, 25),
+    TWO_WAY_HORIZONTAL("TwoWayRoadRight.png", Orientation.HORIZONTAL, null, 25),
+    // the palette places the first of each orientation
+    CROSSWALK_UP("CrosswalkVertical.png", Orientation.VERTICAL, Direction.UP, 40),
+    CROSSWALK_DOWN("CrosswalkVertical.png", Orientation.VERTICAL, Direction.DOWN, 40),
+    CROSSWALK_RIGHT("CrosswalkHorizontal.png", Orientation.HORIZONTAL, Direction.RIGHT, 40),
+    CROSSWALK_LEFT("CrosswalkHorizontal.png", Orientation.HORIZONTAL, Direction.LEFT, 40),
+    INTERSECTION("BasicIntersection.png", null, null, 0),
+    STOP_SIGN("4WayStopSign.png", null, null, 0),
+    // a stop light's image changes with its lights, this is the one it starts with
+    STOP_LIGHT("RedGreen4WayStopLight.png", null, null, 0, "AllRed4WayStopLight.png",
+        "YellowRed4WayStopLight.png", "RedYellow4WayStopLight.png", "GreenRed4WayStopLight.png"),
+    ROUNDABOUT("roundabout.png", null, null, 0),
+    HAZARD("Hazard.png", null, null, 0),
+    PARKING("ParkingLot.png", null, null, 0),
+    RED_BUILDING("RedBuilding.png", null, null, 0),
+    YELLOW_BUILDING("YellowBuilding.png", null, null, 0),
+    GREEN_BUILDING("GreenBuilding.png", null, null, 0);
+
+    // image names the palette uses, to the kind of tile they place
+    private static final HashMap<String, TileType> byImage = new HashMap<>();
+
+    static {
+        for (TileType type : values()) {
+            byImage.putIfAbsent(type.imageName, type);
+            for (String alias : type.aliases) {
+                byImage.putIfAbsent(alias, type);
+            }
+        }
+    }
+
+    private final String imageName;
+    private final String imageFile;
+    private final Orientation orientation;
+    private final Direction direction;
+    private final int defaultSpeed;
+    private final String[] aliases;
+
+    TileType(String imageName, Orientation orientation, Direction direction, int defaultSpeed,
+             String... aliases) {
+        this.imageName = imageName;
+        this.imageFile = "file:Images/" + imageName;
+        this.orientation = orientation;
+        this.direction = direction;
+        this.defaultSpeed = defaultSpeed;
+        this.aliases = aliases;
+    }
+
+    /**
+     * @return image url the view draws tiles of this kind with
+     */
+    public String getImageFile() {
+        return imageFile;
+    }
+
+    /**
+     * @return which way roads of this kind run, null if it isn't a road
+     */
+    public Orientation getOrientation() {
+        return orientation;
+    }
+
+    /**
+     * @return which way traffic goes on one-way roads of this kind, null for
+     * anything else
+     */
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return the speed limit a new road of this kind gets, 0 if it isn't a road
+     */
+    public int getDefaultSpeed() {
+        return defaultSpeed;
+    }
+
+    /**
+     * @return the kind of tile this one becomes when it's turned to carry
+     * traffic in direction, a crosswalk stays a crosswalk
+     */
+    public TileType facing(Direction direction) {
+        return isCrosswalk() ? crosswalk(direction) : road(direction);
+    }
+
+    private boolean isCrosswalk() {
+        return this == CROSSWALK_UP || this == CROSSWALK_DOWN || this == CROSSWALK_RIGHT
+            || this == CROSSWALK_LEFT;
+    }
+
+    public static TileType road(Direction direction) {
+        return switch (direction) {
+            case UP -> ROAD_UP;
+            case DOWN -> ROAD_DOWN;
+            case LEFT -> ROAD_LEFT;
+            case RIGHT -> ROAD_RIGHT;
+        };
+    }
+
+    /**
+     * @return the kind of road that runs this way without a direction
+     */
+    public static TileType road(Orientation orientation) {
+        return orientation == Orientation.HORIZONTAL ? ROAD_HORIZONTAL : ROAD_VERTICAL;
+    }
+
+    public static TileType twoWayRoad(Orientation orientation) {
+        return orientation == Orientation.HORIZONTAL ? TWO_WAY_HORIZONTAL : TWO_WAY_VERTICAL;
+    }
+
+    public static TileType crosswalk(Direction direction) {
+        return switch (direction) {
+            case UP -> CROSSWALK_UP;
+            case DOWN -> CROSSWALK_DOWN;
+            case LEFT -> CROSSWALK_LEFT;
+            case RIGHT -> CROSSWALK_RIGHT;
+        };
+    }
+
+    /**
+     * @return the kind of building of a color, red for any other
+     */
+    public static TileType building(String color) {
+        if ("yellow".equals(color)) {
+            return YELLOW_BUILDING;
+        } else if ("green".equals(color)) {
+            return GREEN_BUILDING;
+        }
+        return RED_BUILDING;
+    }
+
+    /**
+     * @param imageName - image file name the palette shows, e.g. "RoadImage.png"
+     * @return the kind of tile it places, null if none
+     */
+    public static TileType forImage(String imageName) {
+        return byImage.get(imageName);
+    }
+
+    /**
+     * @return a new tile of this kind, not placed anywhere yet
+     */
+    public GridObject create() {
+        return switch (this) {
+            case ROAD_UP, ROAD_DOWN, ROAD_LEFT, ROAD_RIGHT -> new OneWayRoad(orientation, direction);
+            case ROAD_VERTICAL, ROAD_HORIZONTAL -> new Road(orientation, defaultSpeed, false, 0, 0, 0);
+            case TWO_WAY_VERTICAL, TWO_WAY_HORIZONTAL -> new TwoWayRoad(orientation);
+            case CROSSWALK_UP, CROSSWALK_DOWN, CROSSWALK_RIGHT, CROSSWALK_LEFT ->
+                new Crosswalk(orientation, 0, false, 0, 0, 0, direction, 0, null);
+            case INTERSECTION -> new Intersection(0, 0, new Road[4]);
+            case STOP_SIGN -> new StopSign(0, 0, new Road[4]);
+            case STOP_LIGHT -> new StopLight(null, null, 0, 0, 0, 0, new Road[4], 0, 0);
+            case ROUNDABOUT -> new Roundabout(new Boolean[4], 0, 0, new Road[4]);
+            case HAZARD -> new Hazard(0, 0);
+            case PARKING -> new Parking();
+            case RED_BUILDING -> new Building("red");
+            case YELLOW_BUILDING -> new Building("yellow");
+            case GREEN_BUILDING -> new Building("green");
+        };
+    }
+}
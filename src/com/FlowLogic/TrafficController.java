@@ -4,14 +4,22 @@ import java.lang.reflect.Array;
 import java.sql.SQLOutput;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.PriorityQueue;
 import java.util.Random;
-import static com.FlowLogic.UserInterface.GRID_SIZE;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 
 public class TrafficController {
 
     public static int numCarsLeft;
     private ArrayList<Vehicle> vehicles;
+
+    // per-vehicle state, indexed by vehicle id
+    private final VehicleStore store;
     private ArrayList<GridObject> intersections;
 
     private int totalTime = 20000;
@@ -23,28 +31,113 @@ public class TrafficController {
 
     private Grid grid;
 
-    private final Random random = new Random();
+    private final Random random;
+
+    private RoadGraph graph;
+
+    // next hops towards each destination, indexed by the destination's node
+    // id, null for nodes that aren't destinations
+    private NextHopTable[] nextHops;
+
+    // routes vehicles instead of the next hop tables when set, for maps too
+    // big to build a table per destination
+    private ContractionHierarchy hierarchy;
+
+    // road graph nodes from which a saved map is simulated with a hierarchy
+    // instead of next hop tables, see setHierarchy()
+    public static final int HIERARCHY_MIN_NODES = 10000;
+
+    // destinations per next hop task
+    private static final int NEXT_HOP_BATCH = 4;
+
+    // trips per route finding task
+    private static final int ROUTE_BATCH = 32;
+
+    // routes found so far, keyed by start and end node, see routeKey()
+    private final HashMap<Long, Route> routes = new HashMap<>();
+
+    // reroutes vehicles around congestion during the run when on, see setRerouting()
+    private boolean rerouting;
+
+    // ticks between replanning passes, each pass replans one of the groups
+    // of vehicles so they don't all pile onto the same way round at once
+    private static final int REROUTE_INTERVAL = 25;
+    private static final int REROUTE_GROUPS = 4;
+
+    // a vehicle only switches to a way that's quicker than this much of the
+    // rest of its route, so it doesn't flip between two that are about as good
+    private static final double REROUTE_GAIN = 0.9;
+
+    // vehicles per replanning task
+    private static final int REROUTE_BATCH = 16;
+
+    // measured driving times, while rerouting
+    private TravelTimes travelTimes;
+
+    // per vehicle: its route and stop index as of the last tick, and the
+    // tick it passed that stop, for timing the edge it's on
+    private Route[] legRoute;
+    private int[] legIndex;
+    private int[] legStart;
+
+    // ways found by a replanning pass, by vehicle id, null to keep going
+    private Route[] replanned;
+
+    private int reroutes;
+
+    // how long the last run took to set up the vehicles' trips and routes,
+    // and to run the ticks after, in nanoseconds
+    private long setupTime;
+    private long simulationTime;
+
+    // buckets the vehicles on the road by cell for neighbor queries
+    private final SpatialHash spatialHash = new SpatialHash();
+
+    // vehicles tick on this many threads, the result is the same for any count
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    // vehicles per fork/join task
+    private static final int TICK_BATCH = 64;
 
-    private int[][] graph;
+    // vehicles that haven't started ticking yet, soonest entry first
+    private final PriorityQueue<Vehicle> pending = new PriorityQueue<>(
+        Comparator.comparingInt(Vehicle::getTimeIn).thenComparingInt(Vehicle::getId));
+
+    // ids of the vehicles that tick, in id order: those whose entry time has
+    // come, whether or not they've found room to spawn yet, until they finish
+    private int[] active = new int[0];
+    private int activeCount;
 
     // stats parameters
     private long totalTripTime;
+    private int activeVehicles;
 
     public TrafficController(int avgSize, int numCars, Grid g) {
-        graph = g.gridToGraph();
-        this.numCarsLeft = numCars;
+        this(avgSize, numCars, g, new Random());
+    }
+
+    /**
+     * Creates a controller whose vehicle sizes and routes come from the given
+     * seed, so the same seed always gives the same simulation.
+     */
+    public TrafficController(int avgSize, int numCars, Grid g, long seed) {
+        this(avgSize, numCars, g, new Random(seed));
+    }
 
-        System.out.println("Graph: " + Arrays.deepToString(graph));
+    private TrafficController(int avgSize, int numCars, Grid g, Random random) {
+        this.random = random;
+        graph = g.buildRoadGraph();
+        this.numCarsLeft = numCars;
 
         grid = g;
         vehicles = new ArrayList<>();
+        store = new VehicleStore(numCars);
         destinations = new ArrayList<>();
         entrances = new ArrayList<>();
 
-        Random ran = new Random();
         for (int i = 0; i < numCars; i++) {
-            int len = ran.nextInt(6) -3 + avgSize;
-            vehicles.add(new Vehicle(len));
+            int len = random.nextInt(6) -3 + avgSize;
+            vehicles.add(new Vehicle(len, store));
         }
         System.out.println("Num cars: " + vehicles.size());
         intersections = g.intersections;
@@ -52,11 +145,9 @@ public class TrafficController {
         for (GridObject obj : grid.intersections) {
             if (obj instanceof OneWayRoad r) {
                 if (grid.checkAroundDest(r)) {
-                    System.out.println("Dest: x: " + r.getColNum() + " y: " + r.getRowNum());
                     destinations.add(r);
                 }
                 if (r.isInRoad()) {
-                    System.out.println("Ent: x: " + r.getColNum() + " y: " + r.getRowNum());
                     entrances.add(r);
                 }
             }
@@ -76,68 +167,555 @@ public class TrafficController {
         return destinations.get(randInd);
     }
 
-    public Simulation runSimulation() {
-        Simulation sim = new Simulation(numCarsLeft);
-
-        // generate cars and their in-roads and out-roads and time of entrance and destination
-        int currentTime = 0;
-        // get each car's route
-        for (Vehicle v : vehicles) {
-            v.setInOut(getRandomInRoad(), getRandomDestination());
-            v.setTimeIn(currentTime += time_between);
-            v.findPath(graph, grid.intersections);
-        }
-
-        // run simulation
-        boolean running = true;
-        while (running) {
-            Frame f = new Frame();
-            totalTime--;
-            if (totalTime <= 0 || numCarsLeft <= 0) {
-                running = false;
-            }
-            for (GridObject g : intersections) {
-                // update each intersection
-                if (g instanceof Intersection i) {
-                    Step s = i.tick();
-                    // add old / new intersection to the sim
-                    if (s != null && !s.getNewObject().equals(s.getOldObject())) {
-                        f.addStep(s);
+    /**
+     * Runs the simulation to completion without drawing anything.
+     * @return the recording of the run, for a Simulation to play back
+     */
+    public FrameLog runSimulation() {
+        FrameLog frames = new FrameLog();
+        simulate(frames, null);
+        return frames;
+    }
+
+    /**
+     * Runs the simulation to completion, publishing each frame to the stream
+     * as soon as it's made. Waits whenever the stream is full, and stops early
+     * if playback cancels it. The stream is closed at the end either way.
+     * @param out - stream the frames are published to
+     */
+    public void runSimulation(FrameStream out) {
+        try {
+            simulate(new FrameLog(), out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Runs the simulation, recording it into frames. With a stream, each frame
+     * is published in its own piece of the recording instead of all of them
+     * piling up in one.
+     */
+    private void simulate(FrameLog frames, FrameStream out) {
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+
+        try {
+            // generate cars and their in-roads and out-roads and time of entrance and destination.
+            // The draws are cheap and made in order, so a seed gives the same trips however
+            // many threads the routes are then found on
+            int currentTime = 0;
+            long[] keys = new long[vehicles.size()];
+            for (int i = 0; i < vehicles.size(); i++) {
+                Vehicle v = vehicles.get(i);
+                Road entrance = getRandomInRoad();
+                Road destination = getRandomDestination();
+                v.setInOut(entrance, destination);
+                v.setTimeIn(currentTime += time_between);
+                keys[i] = routeKey(entrance.getIntersectionID(), destination.getIntersectionID());
+                frames.addVehicle(v.getId(), v.getLength(), v.getWidth());
+            }
+
+            // get each car's route, vehicles going the same way share one
+            findRoutes(pool, keys);
+            for (int i = 0; i < vehicles.size(); i++) {
+                vehicles.get(i).setRoute(routes.get(keys[i]));
+            }
+
+            if (rerouting) {
+                travelTimes = new TravelTimes(graph);
+                legRoute = new Route[vehicles.size()];
+                legIndex = new int[vehicles.size()];
+                legStart = new int[vehicles.size()];
+                replanned = new Route[vehicles.size()];
+                reroutes = 0;
+            }
+
+            setupTime = System.nanoTime() - start;
+            start = System.nanoTime();
+
+            spatialHash.clear();
+            grid.clearVehicleLists();
+
+            pending.clear();
+            pending.addAll(vehicles);
+            active = new int[vehicles.size()];
+            activeCount = 0;
+            activeVehicles = 0;
+            int tick = 0;
+
+            // run simulation
+            boolean running = true;
+            while (running) {
+                frames.startFrame();
+                tick++;
+                SimTrace.setTick(tick);
+                totalTime--;
+                if (totalTime <= 0 || numCarsLeft <= 0) {
+                    running = false;
+                }
+                for (GridObject g : intersections) {
+                    // update each intersection
+                    if (g instanceof Intersection i) {
+                        // record the new phase of lights that switched
+                        if (i.tick() && i instanceof StopLight light) {
+                            frames.recordLight(light);
+                        }
+                    }
+
+                }
+
+                activateDue(tick);
+
+                // every vehicle ticks against the state at the end of the last tick
+                store.snapshot(active, activeCount);
+                TickTask ticks = new TickTask(0, activeCount);
+                if (pool != null) {
+                    pool.invoke(ticks);
+                } else {
+                    ticks.compute();
+                }
+
+                // then they're committed in id order, which settles who gets a
+                // contested stop light no matter how the ticks were scheduled
+                int kept = 0;
+                for (int i = 0; i < activeCount; i++) {
+                    int id = active[i];
+                    Vehicle v = vehicles.get(id);
+                    v.commit(spatialHash);
+                    // keep the spatial hash and road tiles in sync with where the vehicle moved to
+                    if (v.isSpawned()) {
+                        spatialHash.update(v);
+                    } else {
+                        spatialHash.remove(v);
                     }
+                    v.updateRoadOccupancy(grid);
+                    if (rerouting) {
+                        timeLeg(v, tick);
+                    }
+                    if (v.isSpawned() != store.wasSpawned(id)) {
+                        activeVehicles += v.isSpawned() ? 1 : -1;
+                    }
+                    // finished vehicles have nothing left to do
+                    if (v.getState() != CarState.DESTINATION_REACHED) {
+                        active[kept++] = id;
+                    }
+                    //System.out.println("Active vehicles = " + UserInterface.activeVehicles);
+                    //sim.updateStatisticsLabels(sim.getLeft());
+                    // record vehicles that moved, spawned or left
+                    if (v.isSpawned()) {
+                        frames.recordVehicle(id, v.getX(), v.getY(), v.getCurRotation(), v.getState());
+                    } else if (v.getState() == CarState.DESTINATION_REACHED) {
+                        frames.recordVehicleGone(id);
+                    }
+                }
+                activeCount = kept;
+
+                if (rerouting && tick % REROUTE_INTERVAL == 0) {
+                    replan(pool, tick / REROUTE_INTERVAL % REROUTE_GROUPS);
                 }
 
+                if (out != null) {
+                    if (!out.publish(frames)) {
+                        running = false;
+                    }
+                    frames = frames.next();
+                }
             }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        simulationTime = System.nanoTime() - start;
+        // don't leave vehicles behind on the roads, they'd end up in the save file
+        grid.clearVehicleLists();
+    }
 
-            for (Vehicle v : vehicles) {
-                // update each vehicle
-                Step s = v.tick(grid, vehicles);
-                calcActiveVehicles();
-                //System.out.println("Active vehicles = " + UserInterface.activeVehicles);
-                //sim.updateStatisticsLabels(sim.getLeft());
-                // add old / new vehicles to the sim
-                if (s != null && (s.getNewObject() == null || !s.getNewObject().equals(s.getOldObject()))) {
-                    f.addStep(s);
+    /**
+     * Finds the routes for the given trips that haven't been found yet,
+     * splitting them between the pool's workers, and adds them to routes.
+     * Without a hierarchy, the next hop tables of the trips' destinations
+     * are built first the same way.
+     * @param pool - pool to search on, null to search on the calling thread
+     * @param keys - trips to route, see routeKey()
+     */
+    private void findRoutes(ForkJoinPool pool, long[] keys) {
+        // each trip not routed yet, once, in the order they come
+        HashSet<Long> seen = new HashSet<>();
+        long[] missing = new long[keys.length];
+        int missingCount = 0;
+        for (long key : keys) {
+            if (!routes.containsKey(key) && seen.add(key)) {
+                missing[missingCount++] = key;
+            }
+        }
+
+        if (hierarchy == null) {
+            if (nextHops == null) {
+                nextHops = new NextHopTable[graph.nodeCount()];
+            }
+            // destinations without a table yet, each once
+            boolean[] queued = new boolean[graph.nodeCount()];
+            int[] ends = new int[missingCount];
+            int endCount = 0;
+            for (int i = 0; i < missingCount; i++) {
+                int end = (int) missing[i];
+                if (nextHops[end] == null && !queued[end]) {
+                    queued[end] = true;
+                    ends[endCount++] = end;
                 }
             }
-            sim.addFrame(f);
+            NextHopTask build = new NextHopTask(graph.reverse(), ends, 0, endCount);
+            if (pool != null) {
+                pool.invoke(build);
+            } else {
+                build.compute();
+            }
+        }
+
+        Route[] found = new Route[missingCount];
+        RouteTask search = new RouteTask(missing, found, 0, missingCount);
+        if (pool != null) {
+            pool.invoke(search);
+        } else {
+            search.compute();
+        }
+        for (int i = 0; i < missingCount; i++) {
+            routes.put(missing[i], found[i]);
         }
-        return sim;
     }
+
+    /**
+     * Builds the next hop tables of a range of the destinations. Each table
+     * only depends on its own destination, so they come out the same however
+     * the work is split.
+     */
+    private class NextHopTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RoadGraph reverse;
+        private final int[] ends;
+        private final int from;
+        private final int to;
+
+        NextHopTask(RoadGraph reverse, int[] ends, int from, int to) {
+            this.reverse = reverse;
+            this.ends = ends;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= NEXT_HOP_BATCH) {
+                RouteSolver router = new RouteSolver(reverse);
+                for (int i = from; i < to; i++) {
+                    nextHops[ends[i]] = NextHopTable.build(router, ends[i]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new NextHopTask(reverse, ends, from, mid), new NextHopTask(reverse, ends, mid, to));
+        }
+    }
+
+    /**
+     * Finds the routes of a range of trips. The graph, the next hop tables
+     * and the hierarchy's edges are only read, each task queries its own copy
+     * of the hierarchy.
+     */
+    private class RouteTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] keys;
+        private final Route[] found;
+        private final int from;
+        private final int to;
+
+        RouteTask(long[] keys, Route[] found, int from, int to) {
+            this.keys = keys;
+            this.found = found;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROUTE_BATCH) {
+                ContractionHierarchy ch = hierarchy == null ? null : hierarchy.copy();
+                for (int i = from; i < to; i++) {
+                    int start = (int) (keys[i] >> 32);
+                    int end = (int) keys[i];
+                    if (ch != null) {
+                        found[i] = Route.find(ch, start, end, grid.intersections);
+                    } else {
+                        found[i] = Route.follow(nextHops[end], start, grid.intersections);
+                    }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RouteTask(keys, found, from, mid), new RouteTask(keys, found, mid, to));
+        }
+    }
+
+    /**
+     * Records how long a vehicle took to drive the edge it just finished, if
+     * it did. Called as each vehicle is committed.
+     */
+    private void timeLeg(Vehicle v, int tick) {
+        int id = v.getId();
+        Route route = v.getRoute();
+        int index = v.getStopIndex();
+        if (v.isSpawned() && !store.wasSpawned(id)) {
+            // just spawned, on the first edge of its route
+            legRoute[id] = route;
+            legIndex[id] = index;
+            legStart[id] = tick;
+            return;
+        }
+        if (legRoute[id] != route) {
+            return; // never spawned
+        }
+        int from = legIndex[id];
+        boolean arrived = !v.isSpawned() && v.getState() == CarState.DESTINATION_REACHED
+            && from + 2 == route.stopCount();
+        if ((index > from || arrived) && from + 1 < route.stopCount()) {
+            // if it passed more than one stop this tick, only the first edge took any time
+            travelTimes.record(nodeId(route.getStop(from)), nodeId(route.getStop(from + 1)), tick - legStart[id]);
+            legIndex[id] = index;
+            legStart[id] = tick;
+        }
+    }
+
+    /**
+     * Looks for quicker ways on for one group of the vehicles on the road,
+     * given how long the roads are taking now, and switches them over. The
+     * searches are split between the pool's workers; each one only depends
+     * on its own vehicle, so the result is the same for any thread count.
+     * @param pool - pool to search on, null to search on the calling thread
+     * @param group - which group of vehicles to replan
+     */
+    private void replan(ForkJoinPool pool, int group) {
+        RoadGraph live = travelTimes.currentGraph();
+        ReplanTask task = new ReplanTask(live, group, 0, activeCount);
+        if (pool != null) {
+            pool.invoke(task);
+        } else {
+            task.compute();
+        }
+        for (int i = 0; i < activeCount; i++) {
+            int id = active[i];
+            if (replanned[id] != null) {
+                Vehicle v = vehicles.get(id);
+                v.reroute(replanned[id]);
+                replanned[id] = null;
+                // still on the same edge, which is now the first of the route
+                legRoute[id] = v.getRoute();
+                legIndex[id] = 0;
+                reroutes++;
+            }
+        }
+    }
+
+    /**
+     * Replans a range of the active set, splitting it between fork/join workers.
+     */
+    private class ReplanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RoadGraph live;
+        private final int group;
+        private final int from;
+        private final int to;
+
+        ReplanTask(RoadGraph live, int group, int from, int to) {
+            this.live = live;
+            this.group = group;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= REROUTE_BATCH) {
+                RouteSolver router = null;
+                for (int i = from; i < to; i++) {
+                    int id = active[i];
+                    Vehicle v = vehicles.get(id);
+                    Route route = v.getRoute();
+                    int index = v.getStopIndex();
+                    // only vehicles driving along a road, with a choice to
+                    // make after the stop they're heading for
+                    if (id % REROUTE_GROUPS != group || !v.isSpawned() || v.getState() != CarState.FORWARD
+                        || route.stopCount() - index < 3) {
+                        continue;
+                    }
+                    int next = nodeId(route.getStop(index + 1));
+                    int destination = nodeId(route.getDestination());
+                    if (router == null) {
+                        router = new RouteSolver(live);
+                    }
+                    router.solveGuided(next, destination);
+                    long best = router.getDistance(destination);
+                    if (best != Integer.MAX_VALUE && best < remainingCost(route, index + 1) * REROUTE_GAIN) {
+                        replanned[id] = Route.find(router, next, destination, grid.intersections);
+                    }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ReplanTask(live, group, from, mid), new ReplanTask(live, group, mid, to));
+        }
+
+        /**
+         * @return how long the route from one of its stops to the end takes
+         * now, Long.MAX_VALUE if it isn't along edges of the graph
+         */
+        private long remainingCost(Route route, int from) {
+            long cost = 0;
+            for (int k = from; k + 1 < route.stopCount(); k++) {
+                int e = live.findEdge(nodeId(route.getStop(k)), nodeId(route.getStop(k + 1)));
+                if (e == -1) {
+                    return Long.MAX_VALUE;
+                }
+                cost += live.getWeight(e);
+            }
+            return cost;
+        }
+    }
+
+    private static int nodeId(GridObject obj) {
+        if (obj instanceof Intersection i) {
+            return i.getIntersectionID();
+        }
+        return ((Road) obj).getIntersectionID();
+    }
+
+    private static long routeKey(int start, int end) {
+        return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Moves the vehicles whose entry time has come from the pending queue to
+     * the active set.
+     * @param tick - ticks since the start of the run, starting at 1
+     */
+    private void activateDue(int tick) {
+        while (!pending.isEmpty() && pending.peek().getTimeIn() <= tick) {
+            Vehicle v = pending.poll();
+            // catch up on the spawn countdown it skipped while waiting
+            v.setTimeIn(v.getTimeIn() - (tick - 1));
+
+            // keep the set in id order, vehicles are committed in that order
+            int at = Arrays.binarySearch(active, 0, activeCount, v.getId());
+            at = -at - 1;
+            System.arraycopy(active, at, active, at + 1, activeCount - at);
+            active[at] = v.getId();
+            activeCount++;
+        }
+    }
+
+    /**
+     * Ticks a range of the active set, splitting it between fork/join workers.
+     */
+    private class TickTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        TickTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TICK_BATCH) {
+                for (int i = from; i < to; i++) {
+                    vehicles.get(active[i]).tick(grid, spatialHash);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TickTask(from, mid), new TickTask(mid, to));
+        }
+    }
+
+    /**
+     * Sets how many threads vehicles tick on. 1 ticks them on the calling thread.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Routes vehicles with a contraction hierarchy of the grid's road graph
+     * instead of building a next hop table per destination, see
+     * ContractionHierarchy.forMap(). Simulating from the build menu does this
+     * for saved maps of HIERARCHY_MIN_NODES road graph nodes or more.
+     */
+    public void setHierarchy(ContractionHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        routes.clear();
+    }
+
+    /**
+     * Turns rerouting on or off. When on, how long vehicles take to drive
+     * each stretch of road is measured as they go, and every so often the
+     * vehicles on the road are replanned with those times and switched to a
+     * quicker way on if there is one.
+     */
+    public void setRerouting(boolean rerouting) {
+        this.rerouting = rerouting;
+    }
+
+    /**
+     * @return how many times vehicles were switched to another way during
+     * the last run
+     */
+    public int getReroutes() {
+        return reroutes;
+    }
+
+    /**
+     * @return milliseconds the last run spent picking the vehicles' trips
+     * and finding their routes
+     */
+    public long getSetupTime() {
+        return setupTime / 1000000;
+    }
+
+    /**
+     * @return milliseconds the last run spent ticking the vehicles, after setup
+     */
+    public long getSimulationTime() {
+        return simulationTime / 1000000;
+    }
+
+    public RoadGraph getRoadGraph() {
+        return graph;
+    }
+
     public void rushHour() {
         this.time_between = 3;
         Vehicle.rushHour(5, 3);
     }
 
 
+    public int getActiveVehicles() {
+        return activeVehicles;
+    }
+
     public ArrayList<Vehicle> getVehicles() {
         return vehicles;
     }
     public long getAvgTripTime() {
-        int num = vehicles.size();
-        for (Vehicle vehicle : vehicles) {
-            totalTripTime += vehicle.getTripTime();
-            System.out.println("Vehcile trip time = " + vehicle.getTripTime());
-        }
+        int num = store.size();
+        totalTripTime += store.sumTripTime();
         System.out.println("AVGSTAT: total time = " + totalTripTime + " Num = " + num);
         if (num != 0) {
             return totalTripTime / num;
@@ -146,12 +724,8 @@ public class TrafficController {
     }
 
     public long getAvgIntersectionWaitTime() {
-        int totalStops = 0;
-        long totalWaitTime = 0;
-        for (Vehicle vehicle : vehicles) {
-            totalWaitTime += vehicle.getTotalWaitTime();
-            totalStops += vehicle.getTotalStops();
-        }
+        int totalStops = store.sumStops();
+        long totalWaitTime = store.sumWaitTime();
         if (totalStops != 0) {
             return totalWaitTime / totalStops;
         }
@@ -159,33 +733,14 @@ public class TrafficController {
     }
 
     public long getMaxWaitTime() {
-        long max = 0;
-        for (Vehicle vehicle : vehicles) {
-            if (vehicle.getMaxWaitTime() > max) {
-                max = vehicle.getMaxWaitTime();
-            }
-        }
-        return max;
+        return store.maxWaitTime();
     }
     public long getMinWaitTime() {
-        long min = Integer.MAX_VALUE;
-        for (Vehicle vehicle : vehicles) {
-            if (vehicle.getMinWaitTime() < min) {
-                min = vehicle.getMinWaitTime();
-                //System.out.println("Final min wait is now: " + min);
-            }
-        }
-        return min;
+        return store.minWaitTime();
     }
 
     public void calcActiveVehicles() {
-        int totalCars = 0;
-        for (Vehicle vehicle : vehicles) {
-            if (vehicle.isSpawned()) {
-                totalCars++;
-            }
-        }
-        UserInterface.activeVehicles = totalCars;
+        activeVehicles = store.countSpawned();
     }
 
 
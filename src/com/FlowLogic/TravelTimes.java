@@ -0,0 +1,71 @@
+package com.FlowLogic;
+
+import java.util.Arrays;
+
+/**
+ * How long vehicles have been taking to drive each edge of the road graph,
+ * kept as a moving average of the times measured as they reach the end of
+ * one, for routing around congestion. Edges nobody has driven yet are
+ * guessed from their static weight, scaled by how measured times have been
+ * comparing to static weights overall.
+ */
+public class TravelTimes {
+
+    // how far each new measurement moves an edge's average
+    private static final double ALPHA = 0.3;
+
+    private final RoadGraph graph;
+
+    // average ticks to drive each edge, NaN until one has been
+    private final double[] average;
+
+    // average ticks per unit of static weight over every measurement
+    private double ticksPerWeight = Double.NaN;
+
+    private int samples;
+
+    public TravelTimes(RoadGraph graph) {
+        this.graph = graph;
+        average = new double[graph.edgeCount()];
+        Arrays.fill(average, Double.NaN);
+    }
+
+    /**
+     * Records a vehicle driving from one node to the next.
+     *
+     * @param from - node it left
+     * @param to - node it got to
+     * @param ticks - how long it took
+     */
+    public void record(int from, int to, int ticks) {
+        int e = graph.findEdge(from, to);
+        if (e == -1) {
+            return; // not an edge, the route there was a guess
+        }
+        average[e] = Double.isNaN(average[e]) ? ticks : ALPHA * ticks + (1 - ALPHA) * average[e];
+        double rate = (double) ticks / graph.getWeight(e);
+        ticksPerWeight = Double.isNaN(ticksPerWeight) ? rate : ALPHA * rate + (1 - ALPHA) * ticksPerWeight;
+        samples++;
+    }
+
+    /**
+     * @return how many measurements have been recorded
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return the road graph weighted by how long each edge is taking to
+     * drive now, in ticks
+     */
+    public RoadGraph currentGraph() {
+        double rate = Double.isNaN(ticksPerWeight) ? 1 : ticksPerWeight;
+        int[] weights = new int[graph.edgeCount()];
+        for (int e = 0; e < weights.length; e++) {
+            double ticks = Double.isNaN(average[e]) ? graph.getWeight(e) * rate : average[e];
+            weights[e] = Math.max(1, (int) Math.round(ticks));
+        }
+        return graph.withWeights(weights);
+    }
+}
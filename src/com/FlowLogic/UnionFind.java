@@ -0,0 +1,54 @@
+package com.FlowLogic;
+
+/**
+ * Disjoint sets over the cells of a grid, numbered row by row, for grouping
+ * touching tiles without recursing across them. Joins are by size and finds
+ * halve the path as they go, so grouping a whole grid takes about linear
+ * time however big its groups are.
+ */
+class UnionFind {
+
+    // the cell each cell points towards, a set's root points to itself
+    private final int[] parent;
+
+    // number of cells in the set, only kept for roots
+    private final int[] size;
+
+    UnionFind(int cellCount) {
+        parent = new int[cellCount];
+        size = new int[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+    }
+
+    /**
+     * @return the root of the set the cell is in, the same for every cell of it
+     */
+    int find(int cell) {
+        while (parent[cell] != cell) {
+            parent[cell] = parent[parent[cell]];
+            cell = parent[cell];
+        }
+        return cell;
+    }
+
+    /**
+     * Puts two cells' sets together.
+     */
+    void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return;
+        }
+        if (size[rootA] < size[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parent[rootB] = rootA;
+        size[rootA] += size[rootB];
+    }
+}
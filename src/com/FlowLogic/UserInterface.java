@@ -1,8 +1,6 @@
 package com.FlowLogic;
 
 import javafx.application.Application;
-import javafx.beans.value.ChangeListener;
-import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -42,6 +40,7 @@ public class UserInterface extends Application {
     private static final int SCREEN_HEIGHT = 720;     // Height of the screen
 
     private static final int CELL_SIZE = 32;          // Fixed cell size of 32x32
+    private static final int FRAME_BUFFER = 256;      // Frames the simulation can get ahead of playback
 
     public static int GRID_SIZE = 20;         // Number of rows and columns in the grid
 
@@ -49,9 +48,13 @@ public class UserInterface extends Application {
     private static double offsetX = 0;
     private static double offsetY = 0;
     public static Grid grid = new Grid(0,0);
+    public static GridView gridView = new GridView(grid);
 
-    //Stores the last 10 grid states
-    public static CappedStack<Grid> undo = new CappedStack<>(10);
+    // file the grid was last saved to or loaded from, null for a new one
+    private static String mapFile;
+
+    // The edits made to the grid, for undo and redo
+    public static CommandLog history = new CommandLog(200, 16 << 20);
 
     // Tracks if the User is Panning the screen disables clicking events
     private static boolean pan = false;
@@ -111,6 +114,9 @@ public class UserInterface extends Application {
                 int value = Integer.parseInt(sizeField.getText());
                 System.out.println("User entered: " + value);
                 grid = new Grid(value,value);
+                mapFile = null;
+                history.clear();
+                gridView.setGrid(grid);
                 GRID_SIZE = value;
                 dialog.close();
                 setupBuildMenu();
@@ -232,10 +238,8 @@ public class UserInterface extends Application {
         });
 
         gridContainer.setOnDragDropped(event -> {
-            saveState();
             //Fills the cell with the image
             Dragboard db = event.getDragboard();
-            Image dbImage = db.getImage();
             // Get the mouse click coordinates
             double x = (event.getX() - offsetX) / scale.getX();
             double y = (event.getY() - offsetY) / scale.getY();
@@ -243,62 +247,39 @@ public class UserInterface extends Application {
             // Calculate the grid position (row, column)
             int row = (int) (y / CELL_SIZE);
             int col = (int) (x / CELL_SIZE);
-            Rectangle cell = grid.getFrontGrid()[row][col];
             // check to see if it is a hazard
             if (grid.isHazard(db.getString())) {
-                Image image = new Image("file:Images/Hazard.png");
                 GridObject obj = grid.getAtSpot(row, col);
                 System.out.println("Should be Road: "+ obj.toString());
-                grid.remove(row, col);
-                grid.placeObjectByImage("Hazard.png", row, col);
-                cell.setFill(new ImagePattern(image));
-                Hazard hazard = (Hazard) grid.getAtSpot(row, col);
-
-                hazard.setCoveredObject(obj);
+                history.run(grid, GridCommand.hazard(row, col));
             }
             // Check to see if it is a two-way road
             if (grid.isTwoWayRoad(db.getString())) {
                 System.out.println("This is a two way road\n");
-                // add the two roads to the graph
-                int row2;
-                int col2;
-                Rectangle cell2;
+                // add the two roads to the graph, the view draws them as they're placed
+                ArrayList<GridCommand> lanes = new ArrayList<>();
                 if(db.getString().equals("TwoWayRoad.png")) {
                     // add up and down one-ways
-                    col2 = col + 1;
-                    cell2 = grid.getFrontGrid()[row][col2];
-                    Image image = new Image("file:Images/RoadImage.png");
-                    if (!(cell2.getFill() instanceof ImagePattern)) {
-                        cell2.setFill(new ImagePattern(image));
-                        grid.placeObjectByImage("RoadImage.png", row, col2);
-                        System.out.println(image.getUrl());
+                    if (grid.getAtSpot(row, col + 1) == null) {
+                        lanes.add(GridCommand.place("RoadImage.png", row, col + 1));
                     }
-                    dbImage = new Image("file:Images/RoadImageDown.png");
-                    if (!(cell.getFill() instanceof ImagePattern)) {
-                        cell.setFill(new ImagePattern(dbImage));
-                        grid.placeObjectByImage("RoadImageDown.png", row, col);
-                        System.out.println(dbImage.getUrl());
+                    if (grid.getAtSpot(row, col) == null) {
+                        lanes.add(GridCommand.place("RoadImageDown.png", row, col));
                     }
                 } else {
                     // add left and right one-ways
-                    row2 = row + 1;
-                    cell2 = grid.getFrontGrid()[row2][col];
-                    Image image = new Image("file:Images/RoadImageRight.png");
-                    if (!(cell2.getFill() instanceof ImagePattern)) {
-                        cell2.setFill(new ImagePattern(image));
-                        grid.placeObjectByImage("RoadImageRight.png", row2, col);
-                        System.out.println(image.getUrl());
+                    if (grid.getAtSpot(row + 1, col) == null) {
+                        lanes.add(GridCommand.place("RoadImageRight.png", row + 1, col));
                     }
-                    dbImage = new Image("file:Images/RoadImageLeft.png");
-                    if (!(cell.getFill() instanceof ImagePattern)) {
-                        cell.setFill(new ImagePattern(dbImage));
-                        grid.placeObjectByImage("RoadImageLeft.png", row, col);
-                        System.out.println(dbImage.getUrl());
+                    if (grid.getAtSpot(row, col) == null) {
+                        lanes.add(GridCommand.place("RoadImageLeft.png", row, col));
                     }
                 }
-            } else if (!(cell.getFill() instanceof ImagePattern)) {
-                cell.setFill(new ImagePattern(dbImage));
-                grid.placeObjectByImage(db.getString(), row, col);
+                if (!lanes.isEmpty()) {
+                    history.run(grid, GridCommand.group(lanes));
+                }
+            } else if (grid.getAtSpot(row, col) == null) {
+                history.run(grid, GridCommand.place(db.getString(), row, col));
                 System.out.println(db.getString());
             }
             // Update container classes for roads
@@ -376,25 +357,46 @@ public class UserInterface extends Application {
                 if (back[0] == -1) {
                     return;
                 }
-                TrafficController tc = new TrafficController(back[1], back[0], grid);
+                // the simulation runs on its own copy, the grid stays free
+                // for editing and drawing while it goes
+                TrafficController tc = new TrafficController(back[1], back[0], grid.copyForSimulation());
                 if (back[2] != 0) {
                     tc.rushHour();
                 }
-                Simulation sim = tc.runSimulation();
-                long avgTripTime = tc.getAvgTripTime();
-                long avgWaitTime = tc.getAvgIntersectionWaitTime();
-                long maxWaitTime = tc.getMaxWaitTime();
-                long minWaitTime = tc.getMinWaitTime();
-                System.out.println("Avg trip time = " + avgTripTime);
-                System.out.println("Avg wait time = " + avgWaitTime);
-                sim.setAvgTripTime(avgTripTime);
-                sim.setAvgTimeAtIntersections(avgWaitTime);
-                sim.setMaxTimeAtIntersections(maxWaitTime);
-                sim.setMinTimeAtIntersections(minWaitTime);
-                sim.setNumActiveVehicles(activeVehicles);
+                tc.setRerouting(back[3] != 0);
+                // the simulation runs in the background and playback starts
+                // on its first frames, statistics come in when it's done
+                FrameStream stream = new FrameStream(FRAME_BUFFER);
+                Simulation sim = new Simulation(back[0], stream);
+                String hierarchyFile = mapFile;
+                Thread engine = new Thread(() -> {
+                    // big saved maps route with a hierarchy kept next to the
+                    // map file, it's only built again once the roads change
+                    RoadGraph graph = tc.getRoadGraph();
+                    if (hierarchyFile != null && graph.nodeCount() >= TrafficController.HIERARCHY_MIN_NODES) {
+                        tc.setHierarchy(ContractionHierarchy.forMap(hierarchyFile, graph));
+                    }
+                    tc.runSimulation(stream);
+                    long avgTripTime = tc.getAvgTripTime();
+                    long avgWaitTime = tc.getAvgIntersectionWaitTime();
+                    long maxWaitTime = tc.getMaxWaitTime();
+                    long minWaitTime = tc.getMinWaitTime();
+                    System.out.println("Avg trip time = " + avgTripTime);
+                    System.out.println("Avg wait time = " + avgWaitTime);
+                    Platform.runLater(() -> {
+                        sim.setAvgTripTime(avgTripTime);
+                        sim.setAvgTimeAtIntersections(avgWaitTime);
+                        sim.setMaxTimeAtIntersections(maxWaitTime);
+                        sim.setMinTimeAtIntersections(minWaitTime);
+                        activeVehicles = tc.getActiveVehicles();
+                        sim.setNumActiveVehicles(activeVehicles);
+                    });
+                }, "simulation");
+                engine.setDaemon(true);
+                engine.start();
                 root.getChildren().remove(right);
                 root.getChildren().remove(left);
-                sim.display(stage, root, gridContainer, grid); // display the simulation
+                sim.display(stage, root, gridContainer, gridView); // display the simulation
                 grid.synchronizeGrid();
             }
             else if (numInRoads == 0){
@@ -409,14 +411,23 @@ public class UserInterface extends Application {
         Button undoButton = new Button("Undo");
         undoButton.setPrefSize((SCREEN_WIDTH - SCREEN_HEIGHT * 1.0) / 2, 30);
         undoButton.setOnAction(e -> {
-            if (!undo.isEmpty()) {
-                System.out.println("Pop!");
-                grid = undo.pop();
-                grid.synchronizeGrid();
+            int size = grid.getNumRows();
+            if (history.undo(grid)) {
+                showHistoryChange(size);
             }
         });
         right.getChildren().add(undoButton);
 
+        Button redoButton = new Button("Redo");
+        redoButton.setPrefSize((SCREEN_WIDTH - SCREEN_HEIGHT * 1.0) / 2, 30);
+        redoButton.setOnAction(e -> {
+            int size = grid.getNumRows();
+            if (history.redo(grid)) {
+                showHistoryChange(size);
+            }
+        });
+        right.getChildren().add(redoButton);
+
         // Add a checkbox under the menu button
         selectEntireRoadCheckbox = new CheckBox("Toggle Select Entire Road");
         selectEntireRoadCheckbox.setPrefWidth((SCREEN_WIDTH - SCREEN_HEIGHT * 1.0) / 2);
@@ -440,7 +451,7 @@ public class UserInterface extends Application {
                 int col = (int) (x / CELL_SIZE);
 
                 // select the square
-                grid.select(row, col, right);
+                select(row, col, right);
             }
             pan = false;
         });
@@ -469,9 +480,10 @@ public class UserInterface extends Application {
         avgSizeField.setPromptText("Average Size of Car");
 
         CheckBox rushHourBox = new CheckBox("Rush Hour Mode");
+        CheckBox reroutingBox = new CheckBox("Reroute Around Traffic");
 
         Label message = new Label("Enter simulation settings:");
-        final int[] userValue = {10, 25, 0};  // Default values
+        final int[] userValue = {10, 25, 0, 0};  // Default values
 
         Button runButton = new Button("Run");
         runButton.setOnAction(e -> {
@@ -484,6 +496,7 @@ public class UserInterface extends Application {
             } catch (NumberFormatException ignored) { /* Keep default */ }
 
             userValue[2] = rushHourBox.isSelected() ? 1 : 0;
+            userValue[3] = reroutingBox.isSelected() ? 1 : 0;
 
             popup.close();
         });
@@ -497,15 +510,51 @@ public class UserInterface extends Application {
         HBox buttonRow = new HBox(10, runButton, cancelButton);
         buttonRow.setAlignment(Pos.CENTER);
 
-        VBox layout = new VBox(10, message, numCarsField, avgSizeField, rushHourBox, buttonRow);
+        VBox layout = new VBox(10, message, numCarsField, avgSizeField, rushHourBox, reroutingBox, buttonRow);
         layout.setStyle("-fx-padding: 20; -fx-alignment: center;");
 
-        popup.setScene(new Scene(layout, 300, 250));
+        popup.setScene(new Scene(layout, 300, 280));
         popup.showAndWait();
 
         return userValue;
     }
 
+    /**
+     * This function is called from the frontend when the user clicks on a square on the grid. It goes through the
+     * options of each type of thing that could be clicked and does the appropriate action.
+     * @param row - row to select at
+     * @param col - col to select at
+     * @param optionLayout - the layout window to be further passed
+     */
+
+    public static void select(int row, int col, VBox optionLayout) {
+        GridObject obj = grid.getAtSpot(row, col);
+        if (obj instanceof Building) {
+            Building b = (Building) obj;
+            showBuildingOptions(optionLayout, grid, b.getxLength(), b.getyLength(),
+                b.getDailyPopulation(), row, col);
+        } else if (obj instanceof Parking) {
+            Parking p = (Parking) obj;
+            showParkingOptions(optionLayout, grid, p.getxLength(), p.getyLength(),
+                p.getParkingCapacity(), row, col);
+        } else if (obj instanceof Road) {
+            if (isEntireRoadSelectionEnabled()) {
+                // Get all connected road tiles
+                int[] connectedRoads = grid.getConnectedRoadCells(row, col);
+                showRoadOptions(optionLayout, grid, row, col, connectedRoads);
+            }
+            else {
+                showRoadOptions(optionLayout, grid, row, col);
+            }
+        }  else if (obj instanceof StopLight) {
+            showTrafficLightOptions(optionLayout, grid, row, col);
+        } else if (obj instanceof Hazard) {
+            showHazardOptions(optionLayout, grid, row, col);
+        } else if (obj instanceof  Intersection) {
+            showIntersectionOptions(optionLayout, grid, row, col);
+        }
+    }
+
     /**
      * Helper function that returns the status of the "Select Entire Road" checkbox
      * @return boolean indicating true if the checkbox is checked, false otherwise
@@ -594,6 +643,8 @@ public class UserInterface extends Application {
 
                     if (loadSuccessful) {
                         System.out.println("Grid loaded successfully from " + selectedFileName);
+                        mapFile = selectedFile.getAbsolutePath();
+                        history.clear();
                         setupBuildMenu();
                     } else {
                         // Show error message
@@ -646,25 +697,8 @@ public class UserInterface extends Application {
     }
 
     private static void createGridCells(Group gridGroup) {
-        // Create a large grid of cells that always exists
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                // Create each cell as a rectangle
-                Rectangle cell = grid.getFrontGrid()[row][col];
-                if (cell == null) {
-                    cell = new Rectangle(CELL_SIZE, CELL_SIZE);
-                }
-                if (!(cell.getFill() instanceof ImagePattern)) {
-                    //Default Cell config
-                    cell.setFill(Color.LIGHTGRAY);
-                    cell.setStroke(Color.BLACK);
-                    cell.setX(col * CELL_SIZE);
-                    cell.setY(row * CELL_SIZE);
-                    grid.getFrontGrid()[row][col] = cell;
-                }
-                gridGroup.getChildren().add(cell);
-            }
-        }
+        // the view draws the empty grid itself, and a cell per occupied tile
+        gridGroup.getChildren().add(gridView.getNode());
     }
 
     private static void ensureXY(Pane gridContainer, Scale scale){
@@ -769,6 +803,7 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
                 boolean saveSuccessful = grid.saveGridState(filePath);
 
                 if (saveSuccessful) {
+                    mapFile = filePath;
                     showInfoAlert("Layout saved", "Layout saved successfully as " + filename);
                     System.out.println("Grid saved successfully to " + filename);
                 } else {
@@ -1035,8 +1070,8 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
     }
 
     /**
-     * This function goes through and recreates the grid cell by cell (this is maybe not ideal). It is also used when
-     * we need to resize the grid.
+     * This function puts the grid view back on screen and resets the zoom to fit it. It is also used when we need
+     * to resize the grid.
      * @param newSize - the size of the grid
      */
     public static void refreshGrid(int newSize) {
@@ -1088,7 +1123,6 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
 
         Button submitButton = new Button("Submit");
         submitButton.setOnAction(e -> {
-            saveState();
             String input = sizeField.getText();
             int size;
             if (input.isEmpty()) {
@@ -1096,7 +1130,7 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
             } else {
                 size = Integer.parseInt(input);
             }
-            grid.resize(size, size);
+            history.run(grid, GridCommand.resizeGrid(size, size));
             refreshGrid(size);
 
         });
@@ -1181,23 +1215,26 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         options.getChildren().add(closeButton);
 
         renameButton.setOnAction(e-> {
-            openBuildingRenameDialog((Building)obj);
+            openBuildingRenameDialog((Building) grid.getAtSpot(row, col));
             options.getChildren().clear();
             showBuildingOptions(mainLayout, grid, xLen, yLen, dailyPop, row, col);
             refreshGrid(GRID_SIZE);
         });
 
         submitButton.setOnAction(e -> {
-            saveState();
             int xLenNew = Integer.parseInt(xLengthField.getText());
             int yLenNew = Integer.parseInt(yLengthField.getText());
             int popNew = Integer.parseInt(populationField.getText());
             if (xLenNew > 0 && yLenNew > 0 && popNew >= 0) {
+                ArrayList<GridCommand> changes = new ArrayList<>();
                 if (xLenNew != xLen || yLenNew != yLen) {
-                    grid.changeBuildingSize(row, col, xLenNew, yLenNew);
+                    changes.add(GridCommand.resizeBuilding(row, col, xLenNew, yLenNew));
                 }
                 if (popNew != dailyPop) {
-                    grid.changeDailyPopulationBuilding(row, col, popNew);
+                    changes.add(GridCommand.population(row, col, popNew));
+                }
+                if (!changes.isEmpty()) {
+                    history.run(grid, GridCommand.group(changes));
                 }
                 options.getChildren().clear();
                 showBuildingOptions(mainLayout, grid, xLenNew, yLenNew, popNew, row, col);
@@ -1206,7 +1243,7 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         });
 
         removeButton.setOnAction(e -> {
-            grid.remove(row, col);
+            history.run(grid, GridCommand.remove(row, col));
             refreshGrid(GRID_SIZE);
             options.getChildren().clear();
         });
@@ -1277,16 +1314,19 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         options.getChildren().add(closeButton);
 
         submitButton.setOnAction(e -> {
-            saveState();
             int xLenNew = Integer.parseInt(xLengthField.getText());
             int yLenNew = Integer.parseInt(yLengthField.getText());
             int popNew = Integer.parseInt(parkingField.getText());
             if (xLenNew > 0 && yLenNew > 0 && popNew >= 0) {
+                ArrayList<GridCommand> changes = new ArrayList<>();
                 if (xLenNew != xLen || yLenNew != yLen) {
-                    grid.changeBuildingSize(row, col, xLenNew, yLenNew);
+                    changes.add(GridCommand.resizeBuilding(row, col, xLenNew, yLenNew));
                 }
                 if (popNew != dailyPop) {
-                    grid.changeParkingCapacity(row, col, popNew);
+                    changes.add(GridCommand.capacity(row, col, popNew));
+                }
+                if (!changes.isEmpty()) {
+                    history.run(grid, GridCommand.group(changes));
                 }
                 options.getChildren().clear();
 
@@ -1297,7 +1337,7 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         });
 
         removeButton.setOnAction(e -> {
-            grid.remove(row, col);
+            history.run(grid, GridCommand.remove(row, col));
             refreshGrid(GRID_SIZE);
             options.getChildren().clear();
         });
@@ -1328,7 +1368,9 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         // Show the dialog and wait for user input
         dialog.showAndWait().ifPresent(newName -> {
             if (!newName.isEmpty()) {
-                building.setName(newName);
+                int cols = grid.getNumColumns();
+                history.run(grid, GridCommand.rename(
+                    new int[]{building.getRowNum() * cols + building.getColNum()}, cols, newName));
                 System.out.println("Building renamed to: " + newName);
             }
         });
@@ -1357,7 +1399,9 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         // Show the dialog and wait for user input
         dialog.showAndWait().ifPresent(newName -> {
             if (!newName.isEmpty()) {
-                road.setName(newName);
+                int cols = grid.getNumColumns();
+                history.run(grid, GridCommand.rename(
+                    new int[]{road.getRowNum() * cols + road.getColNum()}, cols, newName));
                 System.out.println("Road renamed to: " + newName);
             }
         });
@@ -1370,18 +1414,18 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
      *
      * @param mainLayout The VBox layout to add UI elements to
      * @param grid The Grid containing the road objects
-     * @param connectedRoads Set of road coordinates to be renamed
+     * @param connectedRoads cells of the roads to be renamed, row * columns + col
      * @return true if successful, false otherwise
      */
-    public static boolean renameConnectedRoads(VBox mainLayout, Grid grid, Set<int[]> connectedRoads) {
-        if (connectedRoads == null || connectedRoads.isEmpty()) {
+    public static boolean renameConnectedRoads(VBox mainLayout, Grid grid, int[] connectedRoads) {
+        if (connectedRoads == null || connectedRoads.length == 0) {
             showErrorAlert("No roads selected to rename");
             return false;
         }
 
         // Get the first road to determine the current name
-        int[] firstCoord = connectedRoads.iterator().next();
-        Road firstRoad = (Road) grid.getAtSpot(firstCoord[0], firstCoord[1]);
+        int cols = grid.getNumColumns();
+        Road firstRoad = (Road) grid.getAtSpot(connectedRoads[0] / cols, connectedRoads[0] % cols);
 
         if (firstRoad == null) {
             showErrorAlert("Selected tile is not a road");
@@ -1393,8 +1437,8 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         // Create a dialog to get the new road name
         TextInputDialog dialog = new TextInputDialog(currentName);
         dialog.setTitle("Rename Road");
-        dialog.setHeaderText("Enter a new name for " + (connectedRoads.size() > 1 ?
-                "these " + connectedRoads.size() + " road tiles" :
+        dialog.setHeaderText("Enter a new name for " + (connectedRoads.length > 1 ?
+                "these " + connectedRoads.length + " road tiles" :
                 "this road tile"));
         dialog.setContentText("Road name:");
 
@@ -1402,14 +1446,9 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         dialog.showAndWait().ifPresent(newName -> {
             if (!newName.isEmpty()) {
                 // Apply the new name to all connected road tiles
-                for (int[] coord : connectedRoads) {
-                    GridObject obj = grid.getAtSpot(coord[0], coord[1]);
-                    if (obj instanceof Road) {
-                        ((Road) obj).setName(newName);
-                    }
-                }
+                history.run(grid, GridCommand.rename(connectedRoads, cols, newName));
 
-                System.out.println("Renamed " + connectedRoads.size() +
+                System.out.println("Renamed " + connectedRoads.length +
                         " road tiles to: " + newName);
             }
         });
@@ -1432,7 +1471,6 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         GridObject obj = grid.getAtSpot(row, col);
         String name = ((Road)obj).getName();
         OneWayRoad oneRoad = (OneWayRoad)obj;
-        Image image = oneRoad.getImageFile();
         //String multiLane = ("MultiLaneConnector: " + ((Road) obj).getLaneContainer().getCount());
 
         Label titleLabel = new Label(name + " Options");
@@ -1475,50 +1513,34 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         options.getChildren().add(closeButton);
 
 
-        OneWayRoad road = (OneWayRoad) grid.getGrid()[row][col];
+        OneWayRoad road = (OneWayRoad) grid.getAtSpot(row, col);
         if ((row == 0 && road.getDirection() == Direction.DOWN) ||
                 (row == grid.getNumRows() - 1 && road.getDirection() == Direction.UP) ||
                 (col == 0 && road.getDirection() == Direction.RIGHT) ||
                 (col == grid.getNumColumns() - 1 && road.getDirection() == Direction.LEFT))
         {
             // default to in road if needed
-            inRoad.setSelected(((OneWayRoad) grid.getGrid()[row][col]).isInRoad());
+            inRoad.setSelected(((OneWayRoad) grid.getAtSpot(row, col)).isInRoad());
             options.getChildren().add(inRoad);
         }
 
         addLaneRight.setOnAction(e -> {
             Direction oneDir = oneRoad.getDirection();
             if (oneDir == UP) {
-                Rectangle cell = grid.getFrontGrid()[row][col + 1];
-                if (!(cell.getFill() instanceof ImagePattern)) {
-                    saveState();
-                    cell.setFill(new ImagePattern(image));
-                    grid.placeObjectByImage("RoadImage.png", row, col + 1);
-                    System.out.println(image.getUrl());
+                if (grid.getAtSpot(row, col + 1) == null) {
+                    history.run(grid, GridCommand.place("RoadImage.png", row, col + 1));
                 }
             } else if (oneDir == Direction.DOWN) {
-                Rectangle cell = grid.getFrontGrid()[row][col - 1];
-                if (!(cell.getFill() instanceof ImagePattern)) {
-                    saveState();
-                    cell.setFill(new ImagePattern(image));
-                    grid.placeObjectByImage("RoadImageDown.png", row, col - 1);
-                    System.out.println(image);
+                if (grid.getAtSpot(row, col - 1) == null) {
+                    history.run(grid, GridCommand.place("RoadImageDown.png", row, col - 1));
                 }
             } else if (oneDir == Direction.RIGHT) {
-                Rectangle cell = grid.getFrontGrid()[row + 1][col];
-                if (!(cell.getFill() instanceof ImagePattern)) {
-                    saveState();
-                    cell.setFill(new ImagePattern(image));
-                    grid.placeObjectByImage("RoadImageRight.png", row + 1, col);
-                    System.out.println(image);
+                if (grid.getAtSpot(row + 1, col) == null) {
+                    history.run(grid, GridCommand.place("RoadImageRight.png", row + 1, col));
                 }
             } else if (oneDir == Direction.LEFT) {
-                Rectangle cell = grid.getFrontGrid()[row - 1][col];
-                if (!(cell.getFill() instanceof ImagePattern)) {
-                    saveState();
-                    cell.setFill(new ImagePattern(image));
-                    grid.placeObjectByImage("RoadImageLeft.png", row - 1, col);
-                    System.out.println(image);
+                if (grid.getAtSpot(row - 1, col) == null) {
+                    history.run(grid, GridCommand.place("RoadImageLeft.png", row - 1, col));
                 }
             }
         });
@@ -1526,46 +1548,28 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         addLaneLeft.setOnAction(e -> {
             Direction oneDir = oneRoad.getDirection();
             if (oneDir == UP) {
-                Rectangle cell = grid.getFrontGrid()[row][col - 1];
-                if (!(cell.getFill() instanceof ImagePattern)) {
-                    saveState();
-                    cell.setFill(new ImagePattern(image));
-                    grid.placeObjectByImage("RoadImage.png", row, col - 1);
-                    System.out.println(image);
+                if (grid.getAtSpot(row, col - 1) == null) {
+                    history.run(grid, GridCommand.place("RoadImage.png", row, col - 1));
                 }
             } else if (oneDir == Direction.DOWN) {
-                Rectangle cell = grid.getFrontGrid()[row][col + 1];
-                if (!(cell.getFill() instanceof ImagePattern)) {
-                    saveState();
-                    cell.setFill(new ImagePattern(image));
-                    grid.placeObjectByImage("RoadImageDown.png", row, col + 1);
-                    System.out.println(image);
+                if (grid.getAtSpot(row, col + 1) == null) {
+                    history.run(grid, GridCommand.place("RoadImageDown.png", row, col + 1));
                 }
             } else if (oneDir == Direction.RIGHT) {
-                Rectangle cell = grid.getFrontGrid()[row - 1][col];
-                if (!(cell.getFill() instanceof ImagePattern)) {
-                    saveState();
-                    cell.setFill(new ImagePattern(image));
-                    grid.placeObjectByImage("RoadImageRight.png", row - 1, col);
-                    System.out.println(image);
+                if (grid.getAtSpot(row - 1, col) == null) {
+                    history.run(grid, GridCommand.place("RoadImageRight.png", row - 1, col));
                 }
             } else if (oneDir == Direction.LEFT) {
-                Rectangle cell = grid.getFrontGrid()[row + 1][col];
-                if (!(cell.getFill() instanceof ImagePattern)) {
-                    saveState();
-                    cell.setFill(new ImagePattern(image));
-                    grid.placeObjectByImage("RoadImageLeft.png", row + 1, col);
-                    System.out.println(image);
+                if (grid.getAtSpot(row + 1, col) == null) {
+                    history.run(grid, GridCommand.place("RoadImageLeft.png", row + 1, col));
                 }
             }
         });
 
         upButt.setOnAction(e -> {
-            saveState();
-            Rectangle cell = grid.getFrontGrid()[row][col];
+            Rectangle cell = gridView.getCell(row, col);
             cell.setFill(new ImagePattern(new Image("file:Images/RoadImage.png")));
-            grid.placeObjectByImage("RoadImage.png", row, col);
-            grid.changeRoadDirection(row, col, Direction.UP);
+            history.run(grid, GridCommand.rotate(row, col, Direction.UP));
             options.getChildren().clear();
 
 
@@ -1574,11 +1578,9 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         });
 
         downButt.setOnAction(e -> {
-            saveState();
-            Rectangle cell = grid.getFrontGrid()[row][col];
+            Rectangle cell = gridView.getCell(row, col);
             cell.setFill(new ImagePattern(new Image("file:Images/RoadImageDown.png")));
-            grid.placeObjectByImage("RoadImageDown.png", row, col);
-            grid.changeRoadDirection(row, col, Direction.DOWN);
+            history.run(grid, GridCommand.rotate(row, col, Direction.DOWN));
             options.getChildren().clear();
 
             showRoadOptions(mainLayout, grid, row, col);
@@ -1586,11 +1588,9 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         });
 
         leftButt.setOnAction(e -> {
-            saveState();
-            Rectangle cell = grid.getFrontGrid()[row][col];
+            Rectangle cell = gridView.getCell(row, col);
             cell.setFill(new ImagePattern(new Image("file:Images/RoadImageLeft.png")));
-            grid.placeObjectByImage("RoadImageLeft.png", row, col);
-            grid.changeRoadDirection(row, col, Direction.LEFT);
+            history.run(grid, GridCommand.rotate(row, col, Direction.LEFT));
             options.getChildren().clear();
 
 
@@ -1599,11 +1599,9 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         });
 
         rightButt.setOnAction(e -> {
-            saveState();
-            Rectangle cell = grid.getFrontGrid()[row][col];
+            Rectangle cell = gridView.getCell(row, col);
             cell.setFill(new ImagePattern(new Image("file:Images/RoadImageRight.png")));
-            grid.placeObjectByImage("RoadImageRight.png", row, col);
-            grid.changeRoadDirection(row, col, Direction.RIGHT);
+            history.run(grid, GridCommand.rotate(row, col, Direction.RIGHT));
             options.getChildren().clear();
 
             showRoadOptions(mainLayout, grid, row, col);
@@ -1611,16 +1609,14 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         });
 
         removeButton.setOnAction(e -> {
-            saveState();
-            grid.remove(row, col);
+            history.run(grid, GridCommand.remove(row, col));
             refreshGrid(GRID_SIZE);
             options.getChildren().clear();
 
         });
 
         renameButt.setOnAction(e -> {
-            saveState();
-            openRoadRenameDialog((Road)obj);
+            openRoadRenameDialog((Road) grid.editAt(row, col));
             options.getChildren().clear();
 
 
@@ -1628,15 +1624,19 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
             refreshGrid(GRID_SIZE);
         });
 
-        speedField.textProperty().addListener(new ChangeListener<String>() {
-            public void changed(ObservableValue<? extends String> observableValue, String s, String t1) {
-                Set<int[]> connectedRoads = grid.getConnectedRoadTiles(row, col);
-                for (int[] coord : connectedRoads) {
-                    GridObject obj = grid.getAtSpot(coord[0], coord[1]);
-                    if (obj instanceof Road) {
-                        ((Road) obj).setSpeedLimit(Integer.parseInt(t1));
-                    }
-                }
+        // set the speed limit of the whole road once it's entered, not on every key
+        Runnable setSpeedLimit = () -> {
+            if (speedField.getText().isEmpty() ||
+                    Integer.parseInt(speedField.getText()) == oneRoad.getSpeedLimit()) {
+                return;
+            }
+            history.run(grid, GridCommand.speedLimit(grid.getConnectedRoadCells(row, col),
+                grid.getNumColumns(), Integer.parseInt(speedField.getText())));
+        };
+        speedField.setOnAction(e -> setSpeedLimit.run());
+        speedField.focusedProperty().addListener((observable, wasFocused, focused) -> {
+            if (!focused) {
+                setSpeedLimit.run();
             }
         });
 
@@ -1645,11 +1645,7 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         });
 
         inRoad.setOnAction(event -> {
-            if (inRoad.isSelected()) {
-                road.setInRoad(true);
-            } else {
-                road.setInRoad(false);
-            }
+            history.run(grid, GridCommand.inRoad(row, col, inRoad.isSelected()));
         });
     }
 
@@ -1660,7 +1656,7 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         // Get the road object
         GridObject obj = grid.getAtSpot(row, col);
         Hazard hazard= (Hazard)obj;
-        Image image = hazard.getCoveredObject().getImageFile();
+        Image image = ImageCache.get(hazard.getCoveredObject().getImageFile());
         System.out.println("Covered image: " + image.getUrl());
 
         Label titleLabel = new Label("Hazard Options");
@@ -1673,14 +1669,11 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         options.getChildren().add(closeButton);
 
         fixRoad.setOnAction(e -> {
-            saveState();
             grid.synchronizeGrid();
-            Rectangle cell = grid.getFrontGrid()[row][col];
-            System.out.println(grid.getFrontGrid()[row][col].toString());
+            Rectangle cell = gridView.getCell(row, col);
+            System.out.println(gridView.getCell(row, col).toString());
             cell.setFill(new ImagePattern(image));
-            grid.remove(row, col);
-            grid.addObject(hazard.getCoveredObject(), row, col);
-            grid.mergeRoads(row, col);
+            history.run(grid, GridCommand.fixHazard(row, col));
         });
 
         closeButton.setOnAction(e -> {
@@ -1696,15 +1689,15 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
      * @param grid - current grid object
      * @param row - row of the selected object
      * @param col - column of the selected object
-     * @param connectedRoads - set of the selected road objects
+     * @param connectedRoads - cells of the selected road objects, row * columns + col
      */
-    public static void showRoadOptions(VBox mainLayout, Grid grid, int row, int col, Set<int[]> connectedRoads) {
+    public static void showRoadOptions(VBox mainLayout, Grid grid, int row, int col, int[] connectedRoads) {
         options.getChildren().clear();
+        int cols = grid.getNumColumns();
         // Get the first road to determine the name
         String roadName = "Road";
-        if (!connectedRoads.isEmpty()) {
-            int[] firstCoord = connectedRoads.iterator().next();
-            GridObject obj = grid.getAtSpot(firstCoord[0], firstCoord[1]);
+        if (connectedRoads.length > 0) {
+            GridObject obj = grid.getAtSpot(connectedRoads[0] / cols, connectedRoads[0] % cols);
             if (obj instanceof Road) {
                 roadName = ((Road) obj).getName();
             }
@@ -1718,8 +1711,8 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
 
         // Label showing number of selected road tiles
         Label selectedTilesLabel;
-        if (connectedRoads.size() > 1) {
-            selectedTilesLabel = new Label("Selected Road Tiles: " + connectedRoads.size());
+        if (connectedRoads.length > 1) {
+            selectedTilesLabel = new Label("Selected Road Tiles: " + connectedRoads.length);
             options.getChildren().add(selectedTilesLabel);
         }
 
@@ -1730,11 +1723,11 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         options.getChildren().add(closeButton);
 
         flipDirectionButton.setOnAction(e -> {
-            saveState();
             // For each connected road tile, flip its direction
-            for (int[] coord : connectedRoads) {
-                int r = coord[0];
-                int c = coord[1];
+            ArrayList<GridCommand> flips = new ArrayList<>();
+            for (int cell : connectedRoads) {
+                int r = cell / cols;
+                int c = cell % cols;
                 GridObject obj = grid.getAtSpot(r, c);
 
                 if (obj instanceof Road) {
@@ -1749,44 +1742,45 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
                         switch (currentDirection) {
                             case UP:
                                 newDirection = Direction.DOWN;
-                                grid.getFrontGrid()[r][c].setFill(new ImagePattern(new Image("file:Images/RoadImageDown.png")));
+                                gridView.getCell(r, c).setFill(new ImagePattern(new Image("file:Images/RoadImageDown.png")));
                                 break;
                             case DOWN:
                                 newDirection = Direction.UP;
-                                grid.getFrontGrid()[r][c].setFill(new ImagePattern(new Image("file:Images/RoadImage.png")));
+                                gridView.getCell(r, c).setFill(new ImagePattern(new Image("file:Images/RoadImage.png")));
                                 break;
                             case LEFT:
                                 newDirection = Direction.RIGHT;
-                                grid.getFrontGrid()[r][c].setFill(new ImagePattern(new Image("file:Images/RoadImageRight.png")));
+                                gridView.getCell(r, c).setFill(new ImagePattern(new Image("file:Images/RoadImageRight.png")));
                                 break;
                             case RIGHT:
                                 newDirection = Direction.LEFT;
-                                grid.getFrontGrid()[r][c].setFill(new ImagePattern(new Image("file:Images/RoadImageLeft.png")));
+                                gridView.getCell(r, c).setFill(new ImagePattern(new Image("file:Images/RoadImageLeft.png")));
                                 break;
                         }
 
                         // Apply the new direction
                         if (newDirection != null) {
-                            grid.changeRoadDirection(r, c, newDirection);
+                            flips.add(GridCommand.rotate(r, c, newDirection));
                         }
                     }
                 }
             }
+            if (!flips.isEmpty()) {
+                history.run(grid, GridCommand.group(flips));
+            }
             options.getChildren().clear();
-            showRoadOptions(mainLayout, grid, row, col, grid.getConnectedRoadTiles(row, col));
+            showRoadOptions(mainLayout, grid, row, col, grid.getConnectedRoadCells(row, col));
             refreshGrid(GRID_SIZE);
         });
 
         renameRoadButton.setOnAction(e -> {
             // Use the new renameConnectedRoads function
-            saveState();
             boolean renameSuccessful = renameConnectedRoads(mainLayout, grid, connectedRoads);
 
             if (renameSuccessful) {
                 // Update the title label with the new name (get from first road)
-                if (!connectedRoads.isEmpty()) {
-                    int[] firstCoord = connectedRoads.iterator().next();
-                    GridObject obj = grid.getAtSpot(firstCoord[0], firstCoord[1]);
+                if (connectedRoads.length > 0) {
+                    GridObject obj = grid.getAtSpot(connectedRoads[0] / cols, connectedRoads[0] % cols);
                     if (obj instanceof Road) {
                         String newName = ((Road) obj).getName();
 
@@ -1798,16 +1792,17 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
                 }
             }
             options.getChildren().clear();
-            showRoadOptions(mainLayout, grid, row, col, grid.getConnectedRoadTiles(row, col));
+            showRoadOptions(mainLayout, grid, row, col, grid.getConnectedRoadCells(row, col));
             refreshGrid(GRID_SIZE);
         });
 
         removeButton.setOnAction(e -> {
-            saveState();
             // Remove all connected road tiles
-            for (int[] coord : connectedRoads) {
-                grid.remove(coord[0], coord[1]);
+            ArrayList<GridCommand> removes = new ArrayList<>();
+            for (int cell : connectedRoads) {
+                removes.add(GridCommand.remove(cell / cols, cell % cols));
             }
+            history.run(grid, GridCommand.group(removes));
             refreshGrid(GRID_SIZE);
             options.getChildren().clear();
         });
@@ -1831,7 +1826,7 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
 
         changeButton.setOnAction(e -> {
             // Get current intersection
-            GridObject currentObject = grid.getGrid()[row][col];
+            GridObject currentObject = grid.getAtSpot(row, col);
 
             // Create popup for intersection type selection
             Stage popup = new Stage();
@@ -1847,21 +1842,10 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
 
             // Create buttons for each intersection type except current one
             if (!(currentObject instanceof Roundabout)) {
-                saveState();
                 Button roundaboutButton = new Button("Roundabout");
                 roundaboutButton.setOnAction(event -> {
-                    Road[] roads = null;
-
-                    // Preserve connected roads
-                    if (currentObject instanceof Intersection) {
-                        roads = ((Intersection) currentObject).getRoadList();
-                    }
-
-                    Boolean[] availableSpots = new Boolean[]{true, true, true, true};
-                    Roundabout newRoundabout = new Roundabout(availableSpots, row, col, new Road[4]);
-
-                    grid.getGrid()[row][col] = newRoundabout;
-                    grid.getFrontGrid()[row][col].setFill(new ImagePattern(new Image("file:Images/roundabout.png")));
+                    history.run(grid, GridCommand.intersection(row, col, TileType.ROUNDABOUT));
+                    gridView.getCell(row, col).setFill(new ImagePattern(new Image("file:Images/roundabout.png")));
                     refreshGrid(GRID_SIZE);
                     popup.close();
                 });
@@ -1869,54 +1853,22 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
             }
 
             if (!(currentObject instanceof StopSign)) {
-                saveState();
                 Button stopSignButton = new Button("Stop Sign");
                 stopSignButton.setOnAction(event -> {
-                    Road[] roads = null;
-
-                    // Preserve connected roads
-                    if (currentObject instanceof Intersection) {
-                        roads = ((Intersection) currentObject).getRoadList();
-                    } else {
-                        roads = new Road[4];
-                    }
-
-                    StopSign newStopSign = new StopSign(row, col, roads);
-                    grid.getGrid()[row][col] = newStopSign;
+                    history.run(grid, GridCommand.intersection(row, col, TileType.STOP_SIGN));
                     popup.close();
                     refreshGrid(GRID_SIZE);
-                    grid.getFrontGrid()[row][col].setFill(new ImagePattern(new Image("file:Images/4WayStopSign.png")));
+                    gridView.getCell(row, col).setFill(new ImagePattern(new Image("file:Images/4WayStopSign.png")));
                 });
                 popupLayout.getChildren().add(stopSignButton);
             }
 
             if (!(currentObject instanceof StopLight)) {
-                saveState();
                 Button stopLightButton = new Button("Stop Light");
                 stopLightButton.setOnAction(event -> {
-                    Road[] roads = null;
-
-                    // Preserve connected roads
-                    if (currentObject instanceof Intersection) {
-                        roads = ((Intersection) currentObject).getRoadList();
-                    } else {
-                        roads = new Road[4];
-                    }
-
-                    // Default settings for the stoplight
-                    Road roadOne = roads[0]; // vertical
-                    Road roadTwo = roads[1]; // horizontal
-                    int timingOne = 30;
-                    int timingTwo = 30;
-                    int lightOneColor = 2; // GREEN
-                    int lightTwoColor = 0; // RED
-
-                    StopLight newStopLight = new StopLight(roadOne, roadTwo, timingOne, timingTwo,
-                            lightOneColor, lightTwoColor, roads, row, col);
-                    newStopLight.initializeStopLightGraphics();
-                    grid.getGrid()[row][col] = newStopLight;
+                    history.run(grid, GridCommand.intersection(row, col, TileType.STOP_LIGHT));
                     popup.close();
-                    grid.getFrontGrid()[row][col].setFill(new ImagePattern(new Image("file:Images/AllRed4WayStopLight.png")));
+                    gridView.getCell(row, col).setFill(new ImagePattern(new Image("file:Images/AllRed4WayStopLight.png")));
                     refreshGrid(GRID_SIZE);
                 });
                 popupLayout.getChildren().add(stopLightButton);
@@ -1927,20 +1879,9 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
                     (currentObject instanceof StopLight)) {
                 Button basicIntersectionButton = new Button("Basic Intersection");
                 basicIntersectionButton.setOnAction(event -> {
-                    saveState();
-                    Road[] roads = null;
-
-                    // Preserve connected roads
-                    if (currentObject instanceof Intersection) {
-                        roads = ((Intersection) currentObject).getRoadList();
-                    } else {
-                        roads = new Road[4];
-                    }
-
-                    Intersection newIntersection = new Intersection(row, col, roads);
-                    grid.getGrid()[row][col] = newIntersection;
+                    history.run(grid, GridCommand.intersection(row, col, TileType.INTERSECTION));
                     refreshGrid(GRID_SIZE);
-                    grid.getFrontGrid()[row][col].setFill(new ImagePattern(new Image("file:Images/BasicIntersection.png")));
+                    gridView.getCell(row, col).setFill(new ImagePattern(new Image("file:Images/BasicIntersection.png")));
                     popup.close();
                 });
                 popupLayout.getChildren().add(basicIntersectionButton);
@@ -1956,8 +1897,7 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         });
 
         removeButton.setOnAction(e -> {
-            saveState();
-            grid.remove(row, col);
+            history.run(grid, GridCommand.remove(row, col));
             refreshGrid(GRID_SIZE);
             options.getChildren().clear();
         });
@@ -2011,16 +1951,15 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
         options.getChildren().add(closeButton);
 
         submitButton.setOnAction(e -> {
-            saveState();
             int vert = Integer.parseInt(verticalField.getText());
             int hor = Integer.parseInt(horizontalField.getText());
-            grid.updateTiming(light, vert, hor);
+            history.run(grid, GridCommand.timing(row, col, vert, hor));
             options.getChildren().clear();
             showTrafficLightOptions(mainLayout, grid, row, col);
         });
 
         removeButton.setOnAction(e -> {
-            grid.remove(row, col);
+            history.run(grid, GridCommand.remove(row, col));
             refreshGrid(GRID_SIZE);
             options.getChildren().clear();
         });
@@ -2032,9 +1971,18 @@ file:/C:/Users/colin/IdeaProjects/FlowLogic/Images/Semi.png
 
     }
 
-    public static void saveState() {
-        Grid g = new Grid(grid);//Makes a copy
-        undo.add(g);//Saves copy
+    /**
+     * Redraws the grid after an undo or redo, and closes the options shown
+     * for whatever was selected, which may not be there anymore.
+     * @param oldSize - number of rows the grid had before
+     */
+    private static void showHistoryChange(int oldSize) {
+        options.getChildren().clear();
+        if (grid.getNumRows() != oldSize) {
+            refreshGrid(grid.getNumRows());
+        } else {
+            grid.synchronizeGrid();
+        }
     }
 
 
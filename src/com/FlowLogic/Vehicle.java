@@ -1,16 +1,9 @@
 package com.FlowLogic;
 
-import com.sun.prism.paint.Stop;
-import javafx.scene.image.Image;
-import javafx.scene.paint.ImagePattern;
-import javafx.scene.shape.Rectangle;
-
 import java.util.*;
 
 import static com.FlowLogic.CarState.*;
 import static com.FlowLogic.Direction.*;
-import static com.FlowLogic.UserInterface.GRID_SIZE;
-import static com.FlowLogic.UserInterface.grid;
 import java.time.Duration;
 import java.time.Instant;
 
@@ -22,28 +15,25 @@ public class Vehicle {
     // Vehicle physical properties
     private int length;
     private int width = 10;
-    private Rectangle car;
 
-    // Vehicle position and movement
-    private int x;
-    private int y;
-    private int speed;
+    // Position, movement, spawn timer, wait statistics and path cursors live
+    // in the store. Copies made for the display get their own store, so slot
+    // is where our state is and id stays the same across copies.
+    private VehicleStore store;
+    private int slot;
+    private int id;
+
     private int curRotation = 0; // Degrees
-    private Direction direction;
-    private CarState state;
 
-    // Path properties
-    private ArrayList<GridObject> intersectionPath;
-    private ArrayList<Direction> directionPath;
+    // Path properties. Routes don't change once found and may be shared with
+    // other vehicles, we move along ours with the cursors in the store.
+    private Route route;
     private int startRoadID;
     private int endRoadID;
-    private int timeIn;
 
     // Intersection handling
     private Intersection currentIntersection;
     private Intersection lastStopped;
-    private int lastIntersectionX;
-    private int lastIntersectionY;
     private boolean turnPositionSet = false;
 
     // Roundabout properties
@@ -59,52 +49,51 @@ public class Vehicle {
 
     private StopLight straight;
 
-    // statistics properties
-    private boolean isSpawned;
-    private boolean isWaiting;
-    private int tripTime;
-    private long totalWaitTime;
-    private long tempWaitTime;
-
-    private long minWaitTime;
-    private long maxWaitTime;
-    private int totalStops;
-
     private int holdWindDown;
     private StopLight holding;
 
+    // Scratch list for spatial hash queries, reused every tick
+    private final ArrayList<Vehicle> neighbors = new ArrayList<>();
+
+    // road tile whose vehicle list we're filed in, null when off the road
+    private OneWayRoad currentRoad;
+
+    // Vehicles tick in parallel, so anything a tick does to state other
+    // vehicles or intersections share is held here until commit()
+    private final ArrayList<Runnable> deferred = new ArrayList<>();
+    private StopLight claim;
+    private boolean spawnedThisTick;
+
+    // fields outside the store that a rolled back tick has to put back
+    private int rotationBackup;
+    private boolean turnPositionBackup;
+    private StopLight holdingBackup;
+    private int holdWindDownBackup;
+
     /**
-     * Creates a new vehicle with the specified length.
+     * Creates a new vehicle with the specified length, with its own store.
      * @param length The length of the vehicle
      */
     public Vehicle(int length) {
+        this(length, new VehicleStore(1));
+    }
+
+    /**
+     * Creates a new vehicle with the specified length in the next free slot
+     * of the given store.
+     * @param length The length of the vehicle
+     * @param store The store holding the vehicle's state
+     */
+    public Vehicle(int length, VehicleStore store) {
         this.length = length;
-        this.intersectionPath = new ArrayList<>();
-        this.directionPath = new ArrayList<>();
+        this.store = store;
+        this.slot = store.add();
+        this.id = slot;
+        this.route = Route.EMPTY;
         this.startRoadID = 0;
         this.endRoadID = 0;
-        this.timeIn = 0;
-        this.x = 0;
-        this.y = 0;
-        this.speed = 0;
-        this.state = NOT_SPAWNED;
-        this.direction = null;
         this.currentIntersection = null;
         //this.startTime = Instant.now();
-        this.minWaitTime = Integer.MAX_VALUE;
-        this.maxWaitTime = 0;
-        this.totalStops = 0;
-        this.totalWaitTime = 0;
-        this.isSpawned = false;
-        this.isWaiting = false;
-
-        // Initialize vehicle visualization off-screen
-        Rectangle newCar = new Rectangle(-100, -100, width, length);
-        newCar.setRotate(curRotation);
-        newCar.setVisible(true);
-        Image image = new Image("file:Images/BlueCar.png");
-        newCar.setFill(new ImagePattern(image));
-        this.car = newCar;
     }
 
     /**
@@ -112,46 +101,31 @@ public class Vehicle {
      * @param v The vehicle to copy
      */
     public Vehicle(Vehicle v) {
-        this.intersectionPath = new ArrayList<>(v.intersectionPath);
-        this.directionPath = new ArrayList<>(v.directionPath);
+        this.store = new VehicleStore(1);
+        this.slot = store.addCopy(v.store, v.slot);
+        this.id = v.id;
+        this.route = v.route;
         this.width = v.width;
         this.length = v.length;
         this.curRotation = v.curRotation;
         this.startRoadID = v.startRoadID;
         this.endRoadID = v.endRoadID;
-        this.timeIn = v.timeIn;
-        this.x = v.x;
-        this.y = v.y;
-        this.speed = v.speed;
-        this.state = v.state;
-        this.direction = v.direction;
-        this.car = v.car;
-        this.car.setFill(v.car.getFill());
         this.currentIntersection = v.currentIntersection;
         this.lastStopped = v.lastStopped;
-        this.lastIntersectionX = v.lastIntersectionX;
-        this.lastIntersectionY = v.lastIntersectionY;
         this.turnPositionSet = v.turnPositionSet;
         this.roundAboutPos = v.roundAboutPos;
         this.curRoundabout = v.curRoundabout;
-        this.tripTime = v.tripTime;
-        this.minWaitTime = v.minWaitTime;
-        this.maxWaitTime = v.maxWaitTime;
-        this.totalStops = v.totalStops;
-        this.totalWaitTime = v.totalWaitTime;
-        this.isSpawned = v.isSpawned;
-        this.isWaiting = v.isWaiting;
     }
 
     /**
      * Attempts to spawn the vehicle on the grid.
      * Checks for collisions with other vehicles before spawning.
      *
-     * @param allVehicles List of all vehicles in the simulation
+     * @param nearby Spatial hash of the vehicles on the road
      * @return true if successfully spawned, false otherwise
      */
-    private boolean spawn(List<Vehicle> allVehicles) {
-        int[] coords = Grid.getRealCoords(this.intersectionPath.get(0));
+    private boolean spawn(SpatialHash nearby) {
+        int[] coords = Grid.getRealCoords(route.getStop(0));
         int spawnX = coords[1];
         int spawnY = coords[0];
 
@@ -160,41 +134,59 @@ public class Vehicle {
         int tempY = spawnY + 16 - (length / 4);
 
         // Check if any existing vehicle is occupying the spawn location
-        for (Vehicle other : allVehicles) {
-            if (this == other) continue; // Skip self
-            if (other.getState() == DESTINATION_REACHED) continue; // skip cars already finished
-
-            // Calculate distance between spawn point and other vehicle center
-            double dx = tempX - other.getX();
-            double dy = tempY - other.getY();
-            double distance = Math.sqrt(dx*dx + dy*dy);
-
-            // If another vehicle is too close to our spawn point, don't spawn
-            if (distance < length + 1) {  // Added safety margin
-                return false; // Cannot spawn, location occupied
-            }
+        if (spawnBlocked(nearby, tempX, tempY, false)) {
+            return false; // Cannot spawn, location occupied
         }
 
         // Location is clear, proceed with spawning
-        x = tempX;
-        y = tempY;
-        speed = 0;
-        direction = directionPath.get(0);
-        state = FORWARD;
-        this.isSpawned = true;
+        store.x[slot] = tempX;
+        store.y[slot] = tempY;
+        store.speed[slot] = 0;
+        setDirection(dirPathAt(0));
+        setState(FORWARD);
+        store.spawned[slot] = true;
         // Set initial rotation based on direction
-        switch (direction) {
+        switch (getDirection()) {
             case UP -> curRotation = 0;
             case RIGHT -> curRotation = 90;
             case DOWN -> curRotation = 180;
             case LEFT -> curRotation = 270;
         }
 
-        car = new Rectangle(x, y, width, length);
-        System.out.println("Spawned Car!");
         return true; // Successfully spawned
     }
 
+    /**
+     * Checks whether another vehicle is too close to a spawn point.
+     *
+     * @param nearby Spatial hash of the vehicles on the road
+     * @param tempX Spawn x-coordinate
+     * @param tempY Spawn y-coordinate
+     * @param committed true to see the vehicles committed before us this tick where they are now
+     * @return true if the spawn point is taken
+     */
+    private boolean spawnBlocked(SpatialHash nearby, int tempX, int tempY, boolean committed) {
+        neighbors.clear();
+        nearby.query(tempX, tempY, length + 1, neighbors);
+        for (Vehicle other : neighbors) {
+            if (this == other) continue; // Skip self
+            boolean current = committed && other.id < id;
+            CarState otherState = current ? other.getState() : other.seenState();
+            if (otherState == DESTINATION_REACHED) continue; // skip cars already finished
+
+            // Calculate distance between spawn point and other vehicle center
+            double dx = tempX - (current ? other.getX() : other.seenX());
+            double dy = tempY - (current ? other.getY() : other.seenY());
+            double distance = Math.sqrt(dx*dx + dy*dy);
+
+            // If another vehicle is too close to our spawn point, don't spawn
+            if (distance < length + 1) {  // Added safety margin
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Moves the vehicle forward based on its current direction and speed.
      */
@@ -202,22 +194,27 @@ public class Vehicle {
         int xVel = 0;
         int yVel = 0;
 
-        switch (direction) {
-            case UP -> yVel = -speed;
-            case RIGHT -> xVel = speed;
-            case DOWN -> yVel = speed;
-            case LEFT -> xVel = -speed;
+        switch (getDirection()) {
+            case UP -> yVel = -store.speed[slot];
+            case RIGHT -> xVel = store.speed[slot];
+            case DOWN -> yVel = store.speed[slot];
+            case LEFT -> xVel = -store.speed[slot];
         }
 
         if (holdWindDown > 0) {
-            holdWindDown -= speed;
+            holdWindDown -= store.speed[slot];
         } else if (this.holding != null) {
-            this.holding.isHolding = null;
+            StopLight released = this.holding;
+            deferred.add(() -> {
+                if (released.isHolding == this) {
+                    released.isHolding = null;
+                }
+            });
             this.holdWindDown = 0;
             this.holding = null;
         }
-        x += xVel;
-        y += yVel;
+        store.x[slot] += xVel;
+        store.y[slot] += yVel;
     }
 
     /**
@@ -227,7 +224,7 @@ public class Vehicle {
      * @return The grid object at the vehicle's current position
      */
     private GridObject getCurrentGridObject(Grid g) {
-        return g.getSpotRealCoords(x, y);
+        return g.getSpotRealCoords(store.x[slot], store.y[slot]);
     }
 
     /**
@@ -245,7 +242,7 @@ public class Vehicle {
      * Increases the vehicle's speed.
      */
     private void accelerate() {
-        speed += ACCEL;
+        store.speed[slot] += ACCEL;
     }
 
     /**
@@ -255,10 +252,10 @@ public class Vehicle {
      * @return The color of the light for the vehicle's direction
      */
     private int getLightStateForDirection(StopLight light) {
-        if (direction == UP || direction == DOWN) {
+        if (getDirection() == UP || getDirection() == DOWN) {
             // Vertical traffic - check lightOne
             return light.getLightOneColor();
-        } else if (direction == LEFT || direction == RIGHT) {
+        } else if (getDirection() == LEFT || getDirection() == RIGHT) {
             // Horizontal traffic - check lightTwo
             return light.getLightTwoColor();
         }
@@ -273,37 +270,116 @@ public class Vehicle {
         int moveDistance = 10; // Distance to move after turning
 
         // Move vehicle forward in the current direction
-        switch (direction) {
+        switch (getDirection()) {
             case UP:
-                y -= moveDistance;
+                store.y[slot] -= moveDistance;
                 break;
             case DOWN:
-                y += moveDistance;
+                store.y[slot] += moveDistance;
                 break;
             case LEFT:
-                x -= moveDistance;
+                store.x[slot] -= moveDistance;
                 break;
             case RIGHT:
-                x += moveDistance;
+                store.x[slot] += moveDistance;
                 break;
         }
     }
 
+    /**
+     * Fills neighbors with the vehicles that could be in front of us. On a
+     * straight stretch of road that's just our leader in the lane: the vehicle
+     * ahead on our tile, or the last one on the next occupied tile. Once an
+     * intersection is within reach we also need the vehicles turning through
+     * it, which aren't on any road tile, so we fall back to the spatial hash.
+     *
+     * @param g The grid containing all objects
+     * @param nearby Spatial hash of the vehicles on the road
+     */
+    private void collectVehiclesAhead(Grid g, SpatialHash nearby) {
+        neighbors.clear();
+        int reach = FOLLOWING_DISTANCE + store.speed[slot] + 2 * length + 2 * Grid.GRID_SIZE;
+        if (currentRoad == null || currentRoad.getDirection() != getDirection()) {
+            nearby.query(store.x[slot], store.y[slot], reach, neighbors);
+            return;
+        }
+
+        Vehicle leader = currentRoad.getVehicleAhead(this);
+        if (leader != null) {
+            neighbors.add(leader);
+        }
+
+        int rowStep = 0;
+        int colStep = 0;
+        switch (getDirection()) {
+            case UP -> rowStep = -1;
+            case DOWN -> rowStep = 1;
+            case LEFT -> colStep = -1;
+            case RIGHT -> colStep = 1;
+        }
+        int row = currentRoad.getRowNum();
+        int col = currentRoad.getColNum();
+        for (int dist = 0; dist < reach; dist += Grid.GRID_SIZE) {
+            row += rowStep;
+            col += colStep;
+            if (g.getAtSpot(row, col) instanceof OneWayRoad next && next.getDirection() == getDirection()) {
+                if (leader == null) {
+                    leader = next.getLastVehicle();
+                    if (leader != null) {
+                        neighbors.add(leader);
+                    }
+                }
+            } else {
+                // intersection or end of the road within reach
+                nearby.query(store.x[slot], store.y[slot], reach, neighbors);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Keeps this vehicle filed in the vehicle list of the road tile it's on,
+     * moving it between tiles as it crosses tile boundaries.
+     *
+     * @param g The grid containing all objects
+     */
+    public void updateRoadOccupancy(Grid g) {
+        OneWayRoad road = null;
+        if (store.spawned[slot] && getCurrentGridObject(g) instanceof OneWayRoad r) {
+            road = r;
+        }
+        if (road == currentRoad) {
+            if (road != null) {
+                road.updateVehiclePosition(this);
+            }
+            return;
+        }
+        if (currentRoad != null) {
+            currentRoad.exitVehicle(this);
+        }
+        if (road != null) {
+            road.enterVehicle(this);
+        }
+        currentRoad = road;
+    }
+
     /**
      * Checks if the vehicle needs to decelerate based on obstacles ahead.
      * Handles traffic lights, stop signs, other vehicles, and destination approaches.
      *
      * @param g The grid containing all objects
-     * @param otherVehicles List of all other vehicles to check for collisions
+     * @param nearby Spatial hash of the vehicles on the road
      * @return true if deceleration is needed, false otherwise
      */
-    private boolean decelerate(Grid g, List<Vehicle> otherVehicles) {
+    private boolean decelerate(Grid g, SpatialHash nearby) {
         boolean needToDecelerate = false;
 
-        // Check for vehicles in front
-        for (Vehicle other : otherVehicles) {
+        // Check for vehicles in front. Only vehicles within our following distance,
+        // or turning in the intersection just ahead of us, can slow us down.
+        collectVehiclesAhead(g, nearby);
+        for (Vehicle other : neighbors) {
             if (this == other) continue; // Skip self
-            if (other.state == NOT_SPAWNED || other.state == DESTINATION_REACHED) continue;
+            if (other.seenState() == NOT_SPAWNED || other.seenState() == DESTINATION_REACHED) continue;
 
             // Calculate distance to other vehicle
             double distance = calculateDistanceToVehicle(other);
@@ -311,7 +387,7 @@ public class Vehicle {
             // Check if other vehicle is in front of us
             if (isVehicleInFront(other)) {
                 // Calculate safe following distance based on our speed
-                int safeDistance = FOLLOWING_DISTANCE + speed;
+                int safeDistance = FOLLOWING_DISTANCE + store.speed[slot];
 
                 // If we're within the safe distance, slow down proportionally
                 if (distance < safeDistance) {
@@ -321,17 +397,17 @@ public class Vehicle {
                         int targetSpeed = (int)(distance / 3);
 
                         // Only slow down if our current speed is higher than the target
-                        if (speed > targetSpeed) {
-                            speed = targetSpeed;
+                        if (store.speed[slot] > targetSpeed) {
+                            store.speed[slot] = targetSpeed;
                         }
 
                         // Maintain minimum speed unless very close
-                        if (speed < 5 && distance > length) {
-                            speed = 5;
+                        if (store.speed[slot] < 5 && distance > length) {
+                            store.speed[slot] = 5;
                         }
                     } else  {
                         // Emergency stop if distance is zero or negative (collision)
-                        speed = 0;
+                        store.speed[slot] = 0;
                         return true;
                     }
 
@@ -341,7 +417,7 @@ public class Vehicle {
         }
 
         // Check for traffic lights ahead - scan farther ahead for higher speeds
-        int lookAheadDistance = Math.max(64, ((speed / 5) + 1) * 32);
+        int lookAheadDistance = Math.max(64, ((store.speed[slot] / 5) + 1) * 32);
 
         for (int i = 0; i < lookAheadDistance; i += 16) {  // Smaller step size for more precise detection
             if (getCurrentGridObject(g, front(i)) instanceof StopLight light) {
@@ -352,40 +428,40 @@ public class Vehicle {
                     // Original code for stopping at red light when not in intersection
                     if (i < 15) {
                         int[] coords = Grid.getRealCoords(light);
-                        lastIntersectionX = coords[1];
-                        lastIntersectionY = coords[0];
+                        store.intersectionX[slot] = coords[1];
+                        store.intersectionY[slot] = coords[0];
 
                         lastStopped = light;
-                        speed = 0;
+                        store.speed[slot] = 0;
                         currentIntersection = light;
 
                         // Position the vehicle precisely at the stop line
-                        positionAtStopLine(light, otherVehicles);
+                        positionAtStopLine(light, nearby);
 
                         // Set appropriate state based on path
-                        if (light != straight && directionPath.size() > 1 && directionPath.get(1) != direction) {
-                            state = STOPPED_TURNING;
+                        if (light != straight && dirPathSize() > 1 && dirPathAt(1) != getDirection()) {
+                            setState(STOPPED_TURNING);
                         } else {
-                            state = STOPPED_FORWARD;
+                            setState(STOPPED_FORWARD);
                         }
 
                         // Add the vehicle to the appropriate queue
-                        light.addToQueue(this);
+                        deferred.add(() -> light.addToQueue(this));
                     } else {
                         // Gradual deceleration as we approach
-                        speed = i / 3;
-                        if (speed < 5 && i > 32) speed = 5; // Maintain minimum speed unless very close
+                        store.speed[slot] = i / 3;
+                        if (store.speed[slot] < 5 && i > 32) store.speed[slot] = 5; // Maintain minimum speed unless very close
                     }
                     return true;
                 } else if (lightState == light.YELLOW) {
 
                     // If already in intersection or too close to stop safely, proceed
-                    if (i < 30 && speed > 10) {
+                    if (i < 30 && store.speed[slot] > 10) {
                         // Already committed to intersection - proceed through
-                        if (direction != directionPath.get(1) && light != straight) {
+                        if (dirPathSize() > 1 && getDirection() != dirPathAt(1) && light != straight) {
                             int targetSpeed = i / 3 + 5;
-                            if (targetSpeed < speed) {
-                                speed = targetSpeed;
+                            if (targetSpeed < store.speed[slot]) {
+                                store.speed[slot] = targetSpeed;
                             }
                             int coords[] = Grid.getRealCoords(light);
                             int intersectionX = coords[1] + 16;
@@ -396,56 +472,56 @@ public class Vehicle {
                                 (int) Math.sqrt(Math.pow((intersectionX - frontX), 2) + Math.pow((intersectionY - frontY),
                                     2));
                             if (distance < 36) {
-                                intersectionPath.remove(0);
-                                lastStopped = (Intersection) intersectionPath.get(0);
-                                lastIntersectionX = intersectionPath.get(0).getColNum() * Grid.GRID_SIZE;
-                                lastIntersectionY = intersectionPath.get(0).getRowNum() * Grid.GRID_SIZE;
-                                lastDir = directionPath.remove(0);
-                                direction = directionPath.get(0);
-                                speed = 0;
-                                state = TURNING;
+                                advancePath();
+                                lastStopped = (Intersection) pathAt(0);
+                                store.intersectionX[slot] = pathAt(0).getColNum() * Grid.GRID_SIZE;
+                                store.intersectionY[slot] = pathAt(0).getRowNum() * Grid.GRID_SIZE;
+                                lastDir = advanceDirPath();
+                                setDirection(dirPathAt(0));
+                                store.speed[slot] = 0;
+                                setState(TURNING);
                             }
                         }
                     } else {
                         // slow down
                         int targetSpeed = i / 3;
-                        if (targetSpeed < speed) {
-                            speed = targetSpeed;
-                            if (speed < 3) speed = 3;
+                        if (targetSpeed < store.speed[slot]) {
+                            store.speed[slot] = targetSpeed;
+                            if (store.speed[slot] < 3) store.speed[slot] = 3;
                         }
 
                         if (i < 15) { // close enough to just stop
                             int[] coords = Grid.getRealCoords(light);
-                            lastIntersectionX = coords[1];
-                            lastIntersectionY = coords[0];
+                            store.intersectionX[slot] = coords[1];
+                            store.intersectionY[slot] = coords[0];
 
                             lastStopped = light;
-                            speed = 0;
+                            store.speed[slot] = 0;
                             currentIntersection = light;
 
                             // Position vehicle precisely at stop line
-                            positionAtStopLine(light, otherVehicles);
+                            positionAtStopLine(light, nearby);
 
                             // Set appropriate state based on path
-                            if (light != straight && directionPath.size() > 1 && directionPath.get(1) != direction) {
-                                state = STOPPED_TURNING;
+                            if (light != straight && dirPathSize() > 1 && dirPathAt(1) != getDirection()) {
+                                setState(STOPPED_TURNING);
                             } else {
-                                state = STOPPED_FORWARD;
+                                setState(STOPPED_FORWARD);
                             }
 
                             // Add vehicle to appropriate queue
                             //startWaitTime();
-                            light.addToQueue(this);
+                            deferred.add(() -> light.addToQueue(this));
                         }
                     }
                 } else {
                     // light is green
                     // if we need to turn
                     if (light != straight) {
-                        if (directionPath.size() > 1 && direction != directionPath.get(1)) {
+                        if (dirPathSize() > 1 && getDirection() != dirPathAt(1)) {
                             int targetSpeed = i / 3 + 5;
-                            if (targetSpeed < speed) {
-                                speed = targetSpeed;
+                            if (targetSpeed < store.speed[slot]) {
+                                store.speed[slot] = targetSpeed;
                             }
                             int coords[] = Grid.getRealCoords(light);
                             int intersectionX = coords[1] + 16;
@@ -456,14 +532,14 @@ public class Vehicle {
                                 (int) Math.sqrt(Math.pow((intersectionX - frontX), 2) + Math.pow((intersectionY - frontY),
                                     2));
                             if (distance < 36) {
-                                intersectionPath.remove(0);
-                                lastStopped = (Intersection) intersectionPath.get(0);
-                                lastDir = directionPath.remove(0);
-                                direction = directionPath.get(0);
-                                lastIntersectionX = intersectionPath.get(0).getColNum() * Grid.GRID_SIZE;
-                                lastIntersectionY = intersectionPath.get(0).getRowNum() * Grid.GRID_SIZE;
-                                speed = 0;
-                                state = TURNING;
+                                advancePath();
+                                lastStopped = (Intersection) pathAt(0);
+                                lastDir = advanceDirPath();
+                                setDirection(dirPathAt(0));
+                                store.intersectionX[slot] = pathAt(0).getColNum() * Grid.GRID_SIZE;
+                                store.intersectionY[slot] = pathAt(0).getRowNum() * Grid.GRID_SIZE;
+                                store.speed[slot] = 0;
+                                setState(TURNING);
                             }
                         }
                     }
@@ -477,22 +553,22 @@ public class Vehicle {
                 if (lastStopped != s) {
                     if (i <= 10) {
                         int[] coords = Grid.getRealCoords(s);
-                        lastIntersectionX = coords[1];
-                        lastIntersectionY = coords[0];
+                        store.intersectionX[slot] = coords[1];
+                        store.intersectionY[slot] = coords[0];
 
                         lastStopped = s;
-                        speed = 0;
+                        store.speed[slot] = 0;
                         currentIntersection = s;
 
-                        positionAtStopLine(s, otherVehicles);
+                        positionAtStopLine(s, nearby);
 
-                        if (directionPath.size() > 1 && directionPath.get(1) != direction) {
-                            state = STOPPED_TURNING;
+                        if (dirPathSize() > 1 && dirPathAt(1) != getDirection()) {
+                            setState(STOPPED_TURNING);
                         } else {
-                            state = STOPPED_FORWARD;
+                            setState(STOPPED_FORWARD);
                         }
 
-                        s.addToIntersection(this);
+                        deferred.add(() -> s.addToIntersection(this));
                     }
                 }
             }
@@ -501,24 +577,25 @@ public class Vehicle {
         // Roundabout logic
         if (getCurrentGridObject(g, front(5)) instanceof Roundabout r) {
             if (curRoundabout != r) {
-                speed = 0;
-                r.getQueue().add(this);
-                if (directionPath.size() > 1 && directionPath.get(0) != directionPath.get(1)) {
-                    state = STOPPED_TURNING;
+                store.speed[slot] = 0;
+                startWaitTime();
+                deferred.add(() -> r.getQueue().add(this));
+                if (dirPathSize() > 1 && dirPathAt(0) != dirPathAt(1)) {
+                    setState(STOPPED_TURNING);
                 } else {
-                    state = STOPPED_FORWARD;
+                    setState(STOPPED_FORWARD);
                 }
             }
         }
 
         // Check if nearing destination or stop sign
-        for (int i = 0; i < ((speed / 10) + 1) * 32; i += 32) {
+        for (int i = 0; i < ((store.speed[slot] / 10) + 1) * 32; i += 32) {
             if (getCurrentGridObject(g, front(i)) instanceof Road r && r.getIntersectionID() == endRoadID ||
                 getCurrentGridObject(g, front(i)) instanceof StopSign ||
                 getCurrentGridObject(g, front(i)) instanceof Roundabout ||
                 getCurrentGridObject(g, front(i)) instanceof Crosswalk) {
-                if (speed > i / 3) speed = i / 3;
-                if (speed < 5) speed = 5;
+                if (store.speed[slot] > i / 3) store.speed[slot] = i / 3;
+                if (store.speed[slot] < 5) store.speed[slot] = 5;
                 return true;
             }
         }
@@ -538,7 +615,7 @@ public class Vehicle {
      *
      * @param intersection The intersection element to stop at
      */
-    private void positionAtStopLine(GridObject intersection, List<Vehicle> others) {
+    private void positionAtStopLine(GridObject intersection, SpatialHash nearby) {
         startWaitTime();
         int[] intersectionCoords = Grid.getRealCoords(intersection);
         int intersectionX = intersectionCoords[1];  // Column coordinate
@@ -550,7 +627,7 @@ public class Vehicle {
 
         int targetCenterX, targetCenterY;
 
-        switch (direction) {
+        switch (getDirection()) {
             case UP:
                 targetCenterX = intersectionCenterX;
                 targetCenterY = intersectionY + gridSize + length / 2;
@@ -579,11 +656,13 @@ public class Vehicle {
 
 
         //Check if another vehicle is already at the stop line
-        for (Vehicle v : others) {
+        neighbors.clear();
+        nearby.query(targetX, targetY, length, neighbors);
+        for (Vehicle v : neighbors) {
             if (this == v) continue; // Skip self
 
-            double dx = targetX - v.getX();
-            double dy = targetY - v.getY();
+            double dx = targetX - v.seenX();
+            double dy = targetY - v.seenY();
             double distance = Math.sqrt(dx*dx + dy*dy);
 
             if (distance < length) {  // Added safety margin
@@ -591,8 +670,8 @@ public class Vehicle {
             }
         }
 
-        x = targetX;
-        y = targetY;
+        store.x[slot] = targetX;
+        store.y[slot] = targetY;
     }
 
     /**
@@ -604,11 +683,7 @@ public class Vehicle {
     private double calculateDistanceToVehicle(Vehicle other) {
         // Get front coordinates of this vehicle and back coordinates of other vehicle
         int[] myFront = front();
-        int[] otherBack = other.back(0);
-
-        // Calculate center of other vehicle
-        int otherCenterX = other.x + other.width/2;
-        int otherCenterY = other.y + other.length/2;
+        int[] otherBack = other.seenBack(0);
 
         // Calculate the back of the other vehicle based on its direction
         // Calculate dist between my front and other's back
@@ -633,10 +708,10 @@ public class Vehicle {
      */
     private boolean isVehicleInFront(Vehicle other) {
         // First check: is the other vehicle turning in an intersection?
-        if (other.state == TURNING) {
+        if (other.seenState() == TURNING) {
             // Get intersection boundaries
-            int otherIntersectionX = other.lastIntersectionX;
-            int otherIntersectionY = other.lastIntersectionY;
+            int otherIntersectionX = other.store.prevIntersectionX[other.slot];
+            int otherIntersectionY = other.store.prevIntersectionY[other.slot];
             int gridSize = Grid.GRID_SIZE;
 
             // Check if we're approaching the same intersection
@@ -653,7 +728,7 @@ public class Vehicle {
         }
 
         // For vehicles heading in the same direction
-        if (direction != other.direction) return false;
+        if (getDirection() != other.seenDirection()) return false;
 
         int myCenterX = 0;
         int myCenterY = 0;
@@ -661,35 +736,35 @@ public class Vehicle {
         int otherCenterY = 0;
 
         // Calculate centers
-        switch (direction) {
+        switch (getDirection()) {
             case UP:
-                myCenterX = x + width/4;
-                myCenterY = y + length/4;
-                otherCenterX = other.x + other.width/2;
-                otherCenterY = other.y + other.length/2;
+                myCenterX = store.x[slot] + width/4;
+                myCenterY = store.y[slot] + length/4;
+                otherCenterX = other.seenX() + other.width/2;
+                otherCenterY = other.seenY() + other.length/2;
                 break;
             case DOWN:
-                myCenterX = x + width/4;
-                myCenterY = y + length/4;
-                otherCenterX = other.x + other.width/4;
-                otherCenterY = other.y + other.length/4;
+                myCenterX = store.x[slot] + width/4;
+                myCenterY = store.y[slot] + length/4;
+                otherCenterX = other.seenX() + other.width/4;
+                otherCenterY = other.seenY() + other.length/4;
                 break;
             case LEFT:
-                myCenterX = x + length/4;
-                myCenterY = y + width/4;
-                otherCenterX = other.x + other.length/4;
-                otherCenterY = other.y + other.width/4;
+                myCenterX = store.x[slot] + length/4;
+                myCenterY = store.y[slot] + width/4;
+                otherCenterX = other.seenX() + other.length/4;
+                otherCenterY = other.seenY() + other.width/4;
                 break;
             case RIGHT:
-                myCenterX = x + length/4;
-                myCenterY = y + width/4;
-                otherCenterX = other.x + other.length/4;
-                otherCenterY = other.y + other.width/4;
+                myCenterX = store.x[slot] + length/4;
+                myCenterY = store.y[slot] + width/4;
+                otherCenterX = other.seenX() + other.length/4;
+                otherCenterY = other.seenY() + other.width/4;
                 break;
         }
 
 
-        switch (direction) {
+        switch (getDirection()) {
             case UP:
                 return otherCenterY < myCenterY && Math.abs(otherCenterX - myCenterX) < width;
             case DOWN:
@@ -707,16 +782,15 @@ public class Vehicle {
      * Executes a right turn at an intersection.
      * Fixed to handle coordinate system correctly and prevent teleporting.
      *
-     * @return A Step object containing the previous and current state
      */
-    private Step turnRight(Grid g) {
-        Vehicle past = new Vehicle(this);
+    private void turnRight(Grid g) {
 
-        GridObject gO = getCurrentGridObject(g,new int[]{lastIntersectionX, lastIntersectionY});
+        GridObject gO = getCurrentGridObject(g,new int[]{store.intersectionX[slot], store.intersectionY[slot]});
         if (gO instanceof StopLight s && s.isHolding != null && s.isHolding != this) {
-            return new Step(past, past);
+            return;
         } else if (gO instanceof StopLight s) {
-            s.isHolding = this;
+            // claimed for real in commit(), another vehicle may want it too
+            claim = s;
             this.holding = s;
             holdWindDown = 5;
         }
@@ -724,14 +798,14 @@ public class Vehicle {
         // If turn position hasn't been set yet, set it
         if (!turnPositionSet) {
             // Position the vehicle properly at the center of the intersection
-            int centerX = lastIntersectionX + Grid.GRID_SIZE/2;
-            int centerY = lastIntersectionY + Grid.GRID_SIZE/2;
+            int centerX = store.intersectionX[slot] + Grid.GRID_SIZE/2;
+            int centerY = store.intersectionY[slot] + Grid.GRID_SIZE/2;
 
             // Position car to turn around the center of the intersection
             // Offset by half the smaller dimension (width) to ensure turning radius is consistent
             // Use center positions instead of top-left for proper pivoting
-            this.x = centerX - width/4;
-            this.y = centerY - length/4;
+            store.x[slot] = centerX - width/4;
+            store.y[slot] = centerY - length/4;
             turnPositionSet = true;
         }
 
@@ -747,28 +821,25 @@ public class Vehicle {
         if (curRotation % 90 == 0) {
 
             // Turn completed
-            state = FORWARD;
+            setState(FORWARD);
             turnPositionSet = false;
             moveForwardAfterTurn();
         }
-
-        return new Step(past, new Vehicle(this));
     }
 
     /**
      * Executes a left turn at an intersection.
      * Fixed to handle coordinate system correctly and prevent teleporting.
      *
-     * @return A Step object containing the previous and current state
      */
-    private Step turnLeft(Grid g) {
-        Vehicle past = new Vehicle(this);
+    private void turnLeft(Grid g) {
 
-        GridObject gO = getCurrentGridObject(g,new int[]{lastIntersectionX, lastIntersectionY});
+        GridObject gO = getCurrentGridObject(g,new int[]{store.intersectionX[slot], store.intersectionY[slot]});
         if (gO instanceof StopLight s && s.isHolding != null && s.isHolding != this) {
-            return new Step(past, past);
+            return;
         } else if (gO instanceof StopLight s) {
-            s.isHolding = this;
+            // claimed for real in commit(), another vehicle may want it too
+            claim = s;
             this.holding = s;
             holdWindDown = 5;
         }
@@ -776,13 +847,13 @@ public class Vehicle {
         // If turn position hasn't been set yet, set it
         if (!turnPositionSet) {
             // Position the vehicle properly at the center of the intersection
-            int centerX = lastIntersectionX + Grid.GRID_SIZE/2;
-            int centerY = lastIntersectionY + Grid.GRID_SIZE/2;
+            int centerX = store.intersectionX[slot] + Grid.GRID_SIZE/2;
+            int centerY = store.intersectionY[slot] + Grid.GRID_SIZE/2;
 
             // Position car to turn around the center of the intersection
             // Offset by half the smaller dimension (width) to ensure turning radius is consistent
-            this.x = centerX - width/4;
-            this.y = centerY - length/4;
+            store.x[slot] = centerX - width/4;
+            store.y[slot] = centerY - length/4;
             turnPositionSet = true;
 
         }
@@ -798,171 +869,163 @@ public class Vehicle {
         // Check if we've completed the turn (reached a cardinal direction)
         if (curRotation % 90 == 0) {
             // Turn completed
-            state = FORWARD;
+            setState(FORWARD);
             turnPositionSet = false;
             moveForwardAfterTurn();
         }
-
-        return new Step(past, new Vehicle(this));
     }
 
     /**
      * Main method that updates the vehicle state for each simulation tick.
+     * Other vehicles are only looked at as they were at the store's last
+     * snapshot, and changes to shared state wait for commit(), so vehicles
+     * can tick in any order or at the same time.
      *
      * @param g The grid containing all objects
-     * @param allVehicles List of all vehicles in the simulation
-     * @return A Step object containing the previous and current state
+     * @param nearby Spatial hash of the vehicles on the road
      */
-    public Step tick(Grid g, List<Vehicle> allVehicles) {
-
-        if (isSpawned) {
-            tripTime++;
+    public void tick(Grid g, SpatialHash nearby) {
+        deferred.clear();
+        claim = null;
+        spawnedThisTick = false;
+        rotationBackup = curRotation;
+        turnPositionBackup = turnPositionSet;
+        holdingBackup = holding;
+        holdWindDownBackup = holdWindDown;
+
+        if (store.spawned[slot]) {
+            store.tripTime[slot]++;
         }
 
-        if (isWaiting) {
-            tempWaitTime++;
+        if (store.waiting[slot]) {
+            store.tempWaitTime[slot]++;
         }
 
         // Check if destination reached
-        if (state != DESTINATION_REACHED &&
-            getCurrentGridObject(g) == intersectionPath.get(intersectionPath.size() - 1)) {
-            System.out.println("Destination Reached");
-            state = DESTINATION_REACHED;
+        if (getState() != DESTINATION_REACHED &&
+            getCurrentGridObject(g) == route.getDestination()) {
+            SimTrace.event(SimTrace.ARRIVAL, id, store.x[slot], store.y[slot], store.tripTime[slot]);
+            setState(DESTINATION_REACHED);
             // for ending at right time
-            TrafficController.numCarsLeft--;
-            isSpawned = false;
+            deferred.add(() -> TrafficController.numCarsLeft--);
+            store.spawned[slot] = false;
             //System.out.println("Trip time was: " +  tripTime);
-            return new Step(this, null);
-        } else if (state == DESTINATION_REACHED) {
-            Instant endTime = Instant.now();
-            isSpawned = false;
-            return null;
+            return;
+        } else if (getState() == DESTINATION_REACHED) {
+            store.spawned[slot] = false;
+            return;
         }
 
         // STATE MACHINE
-        if (state == NOT_SPAWNED) {
+        if (getState() == NOT_SPAWNED) {
             // Handle vehicle spawn timer
-            this.timeIn--;
-            if (this.timeIn <= 0) {
-                if (this.spawn(allVehicles)) {
-                    return new Step(null, new Vehicle(this));
-                } else {
-                    return null;
-                }
+            store.timeIn[slot]--;
+            if (store.timeIn[slot] <= 0) {
+                spawnedThisTick = this.spawn(nearby);
             }
-            return null;
-        } else if (state == FORWARD) {
+        } else if (getState() == FORWARD) {
             // Normal forward movement
-            Vehicle before = new Vehicle(this);
 
 
             // ADD BACK HERE
 
             // check all cells that we'd pass through
-            int oldX = x;
-            int oldY = y;
+            int oldX = store.x[slot];
+            int oldY = store.y[slot];
 
             // If we're still in FORWARD state after decelerate check, move forward
-            if (state == FORWARD) {
+            if (getState() == FORWARD) {
                 moveForward();
 
                 // remove if we went through a stoplight
-                if (oldX != x) {
-                    if (x > oldX) {
-                        for (int i = oldX; i <= x; i += 32) {
+                if (oldX != store.x[slot]) {
+                    if (store.x[slot] > oldX) {
+                        for (int i = oldX; i <= store.x[slot]; i += 32) {
                             // Check for StopLight
-                            if (intersectionPath.size() > 1 && getCurrentGridObject(g, new int[]{i, y}) instanceof StopLight s && s == intersectionPath.get(1)) {
-                                if (directionPath.size() > 1 && directionPath.get(0) == directionPath.get(1)) {
-                                    System.out.println("Removed StopLight: " + intersectionPath.get(0) + " by " + this);
+                            if (pathSize() > 1 && getCurrentGridObject(g, new int[]{i, store.y[slot]}) instanceof StopLight s && s == pathAt(1)) {
+                                if (dirPathSize() > 1 && dirPathAt(0) == dirPathAt(1)) {
                                     straight = s;
-                                    intersectionPath.remove(0);
-                                    lastDir = directionPath.remove(0);
-                                    if (!directionPath.isEmpty()) {
-                                        direction = directionPath.get(0);
+                                    advancePath();
+                                    lastDir = advanceDirPath();
+                                    if (!dirPathIsEmpty()) {
+                                        setDirection(dirPathAt(0));
                                     }
                                 }
                             }
                             // Check for ONE_WAY Road
-                            if (intersectionPath.size() > 1 && getCurrentGridObject(g, new int[]{i, y}) instanceof OneWayRoad road && road == intersectionPath.get(1)) {
-                                System.out.println("Removed ONE_WAY Road: " + intersectionPath.get(0) + " by " + this);
-                                intersectionPath.remove(0);
-                                lastDir = directionPath.remove(0);
-                                if (!directionPath.isEmpty()) {
-                                    direction = directionPath.get(0);
+                            if (pathSize() > 1 && getCurrentGridObject(g, new int[]{i, store.y[slot]}) instanceof OneWayRoad road && road == pathAt(1)) {
+                                advancePath();
+                                lastDir = advanceDirPath();
+                                if (!dirPathIsEmpty()) {
+                                    setDirection(dirPathAt(0));
                                 }
                             }
                         }
                     } else {
-                        for (int i = x; i <= oldX; i += 32) {
+                        for (int i = store.x[slot]; i <= oldX; i += 32) {
                             // Check for StopLight
-                            if (intersectionPath.size() > 1 && getCurrentGridObject(g, new int[]{i, y}) instanceof StopLight s && s == intersectionPath.get(1)) {
-                                if (directionPath.size() > 1 && directionPath.get(0) == directionPath.get(1)) {
-                                    System.out.println("Removed StopLight: " + intersectionPath.get(0) + " by " + this);
+                            if (pathSize() > 1 && getCurrentGridObject(g, new int[]{i, store.y[slot]}) instanceof StopLight s && s == pathAt(1)) {
+                                if (dirPathSize() > 1 && dirPathAt(0) == dirPathAt(1)) {
                                     straight = s;
-                                    intersectionPath.remove(0);
-                                    lastDir = directionPath.remove(0);
-                                    if (!directionPath.isEmpty()) {
-                                        direction = directionPath.get(0);
+                                    advancePath();
+                                    lastDir = advanceDirPath();
+                                    if (!dirPathIsEmpty()) {
+                                        setDirection(dirPathAt(0));
                                     }
                                 }
                             }
                             // Check for ONE_WAY Road
-                            if (intersectionPath.size() > 1 && getCurrentGridObject(g, new int[]{i, y}) instanceof OneWayRoad road && road == intersectionPath.get(1)) {
-                                System.out.println("Removed ONE_WAY Road: " + intersectionPath.get(0) + " by " + this);
-                                intersectionPath.remove(0);
-                                lastDir = directionPath.remove(0);
-                                if (!directionPath.isEmpty()) {
-                                    direction = directionPath.get(0);
+                            if (pathSize() > 1 && getCurrentGridObject(g, new int[]{i, store.y[slot]}) instanceof OneWayRoad road && road == pathAt(1)) {
+                                advancePath();
+                                lastDir = advanceDirPath();
+                                if (!dirPathIsEmpty()) {
+                                    setDirection(dirPathAt(0));
                                 }
                             }
                         }
                     }
-                } else if (oldY != y) {
-                    if (y > oldY) {
-                        for (int i = oldY; i <= y; i += 32) {
+                } else if (oldY != store.y[slot]) {
+                    if (store.y[slot] > oldY) {
+                        for (int i = oldY; i <= store.y[slot]; i += 32) {
                             // Check for StopLight
-                            if (intersectionPath.size() > 1 && getCurrentGridObject(g, new int[]{x, i}) instanceof StopLight s && s == intersectionPath.get(1)) {
-                                if (directionPath.size() > 1 && directionPath.get(0) == directionPath.get(1)) {
-                                    System.out.println("Removed StopLight: " + intersectionPath.get(0) + " by " + this);
+                            if (pathSize() > 1 && getCurrentGridObject(g, new int[]{store.x[slot], i}) instanceof StopLight s && s == pathAt(1)) {
+                                if (dirPathSize() > 1 && dirPathAt(0) == dirPathAt(1)) {
                                     straight = s;
-                                    intersectionPath.remove(0);
-                                    lastDir = directionPath.remove(0);
-                                    if (!directionPath.isEmpty()) {
-                                        direction = directionPath.get(0);
+                                    advancePath();
+                                    lastDir = advanceDirPath();
+                                    if (!dirPathIsEmpty()) {
+                                        setDirection(dirPathAt(0));
                                     }
                                 }
                             }
                             // Check for ONE_WAY Road
-                            if (intersectionPath.size() > 1 && getCurrentGridObject(g, new int[]{x, i}) instanceof OneWayRoad road && road == intersectionPath.get(1)) {
-                                System.out.println("Removed ONE_WAY Road: " + intersectionPath.get(0) + " by " + this);
-                                intersectionPath.remove(0);
-                                lastDir = directionPath.remove(0);
-                                if (!directionPath.isEmpty()) {
-                                    direction = directionPath.get(0);
+                            if (pathSize() > 1 && getCurrentGridObject(g, new int[]{store.x[slot], i}) instanceof OneWayRoad road && road == pathAt(1)) {
+                                advancePath();
+                                lastDir = advanceDirPath();
+                                if (!dirPathIsEmpty()) {
+                                    setDirection(dirPathAt(0));
                                 }
                             }
                         }
                     } else {
-                        for (int i = y; i <= oldY; i += 32) {
+                        for (int i = store.y[slot]; i <= oldY; i += 32) {
                             // Check for StopLight
-                            if (intersectionPath.size() > 1 && getCurrentGridObject(g, new int[]{x, i}) instanceof StopLight s && s == intersectionPath.get(1)) {
-                                if (directionPath.size() > 1 && directionPath.get(0) == directionPath.get(1)) {
-                                    System.out.println("Removed StopLight: " + intersectionPath.get(0) + " by " + this);
+                            if (pathSize() > 1 && getCurrentGridObject(g, new int[]{store.x[slot], i}) instanceof StopLight s && s == pathAt(1)) {
+                                if (dirPathSize() > 1 && dirPathAt(0) == dirPathAt(1)) {
                                     straight = s;
-                                    intersectionPath.remove(0);
-                                    lastDir = directionPath.remove(0);
-                                    if (!directionPath.isEmpty()) {
-                                        direction = directionPath.get(0);
+                                    advancePath();
+                                    lastDir = advanceDirPath();
+                                    if (!dirPathIsEmpty()) {
+                                        setDirection(dirPathAt(0));
                                     }
                                 }
                             }
                             // Check for ONE_WAY Road
-                            if (intersectionPath.size() > 1 && getCurrentGridObject(g, new int[]{x, i}) instanceof OneWayRoad road && road == intersectionPath.get(1)) {
-                                System.out.println("Removed ONE_WAY Road: " + intersectionPath.get(0) + " by " + this);
-                                intersectionPath.remove(0);
-                                lastDir = directionPath.remove(0);
-                                if (!directionPath.isEmpty()) {
-                                    direction = directionPath.get(0);
+                            if (pathSize() > 1 && getCurrentGridObject(g, new int[]{store.x[slot], i}) instanceof OneWayRoad road && road == pathAt(1)) {
+                                advancePath();
+                                lastDir = advanceDirPath();
+                                if (!dirPathIsEmpty()) {
+                                    setDirection(dirPathAt(0));
                                 }
                             }
                         }
@@ -971,43 +1034,34 @@ public class Vehicle {
             }
 
             // Check if we need to decelerate, otherwise accelerate if below speed limit
-            if (!decelerate(g, allVehicles) &&
+            if (!decelerate(g, nearby) &&
                 ((getCurrentGridObject(g) instanceof Road r &&
-                    r.getSpeedLimit() > speed) || (getCurrentGridObject(g) instanceof Intersection))) {
+                    r.getSpeedLimit() > store.speed[slot]) || (getCurrentGridObject(g) instanceof Intersection))) {
                 accelerate();
             }
-
-            return new Step(before, new Vehicle(this));
-        } else if (state == STOPPED_FORWARD || state == STOPPED_TURNING) {
+        } else if (getState() == STOPPED_FORWARD || getState() == STOPPED_TURNING) {
             // Waiting at a traffic light or stop sign
-            return new Step(new Vehicle(this), new Vehicle(this));
-        } else if (state == TURNING) {
+        } else if (getState() == TURNING) {
             // Execute turns based on current and next direction
-            if (directionPath.size() >= 1) {
-                if ((direction == RIGHT && lastDir == UP) // correct
-                    || (direction == DOWN && lastDir == RIGHT) // correct
-                    || (direction == UP && lastDir == LEFT) // correct
-                    || (direction == LEFT && lastDir == DOWN)) { // correct
-                    return this.turnRight(g);
-                } else if ((lastDir == RIGHT && direction == UP) // correct
-                    || (lastDir == DOWN && direction == RIGHT) // correct
-                    || (lastDir == UP && direction == LEFT) // correct
-                    || (lastDir == LEFT && direction == DOWN)) { // correct
-                    return this.turnLeft(g);
-                } else {
-                    System.out.println("Turning but directions don't match");
-                    System.out.println("Cur Dir: " + this.direction + " Last Dir: " + this.lastDir);
+            if (dirPathSize() >= 1) {
+                if ((getDirection() == RIGHT && lastDir == UP) // correct
+                    || (getDirection() == DOWN && lastDir == RIGHT) // correct
+                    || (getDirection() == UP && lastDir == LEFT) // correct
+                    || (getDirection() == LEFT && lastDir == DOWN)) { // correct
+                    this.turnRight(g);
+                } else if ((lastDir == RIGHT && getDirection() == UP) // correct
+                    || (lastDir == DOWN && getDirection() == RIGHT) // correct
+                    || (lastDir == UP && getDirection() == LEFT) // correct
+                    || (lastDir == LEFT && getDirection() == DOWN)) { // correct
+                    this.turnLeft(g);
                 }
-            } else {
-                System.out.println("Turning but doesn't work");
+                // any other pair of directions isn't a turn, nothing moves
             }
-        } else if (state == ROUND_ABOUT_GO) {
+        } else if (getState() == ROUND_ABOUT_GO) {
             // Handle roundabout movement
-            Vehicle old = new Vehicle(this);
-            curRoundabout.availableSpots[roundAboutPos] = true;
+            setSpot(curRoundabout, roundAboutPos, true);
             roundAboutPos = (roundAboutPos + 1) % 4;
-            curRoundabout.availableSpots[roundAboutPos] = false;
-            System.out.println(Arrays.toString(curRoundabout.getAvailableSpots()));
+            setSpot(curRoundabout, roundAboutPos, false);
 
             // Position vehicle based on roundabout position
             int[] coords = Grid.getRealCoords(this.curRoundabout);
@@ -1020,41 +1074,41 @@ public class Vehicle {
                 int centerY = roundY + Grid.GRID_SIZE;
 
                 // Convert to top-left position for rectangle
-                x = centerX - (width / 4);
-                y = centerY - (length / 4);
+                store.x[slot] = centerX - (width / 4);
+                store.y[slot] = centerY - (length / 4);
 
                 // Set rotation and direction based on position
                 switch (roundAboutPos) {
                     case 0: // Right side of roundabout
                         this.curRotation = 90;  // Facing right
-                        this.direction = RIGHT;
-                        if (directionPath.get(0) == RIGHT) {
-                            this.state = FORWARD;
-                            curRoundabout.availableSpots[roundAboutPos] = true;
+                        setDirection(RIGHT);
+                        if (dirPathAt(0) == RIGHT) {
+                            setState(FORWARD);
+                            setSpot(curRoundabout, roundAboutPos, true);
                         }
                         break;
                     case 1: // Top of roundabout
                         this.curRotation = 0;   // Facing up
-                        this.direction = UP;
-                        if (directionPath.get(0) == UP) {
-                            this.state = FORWARD;
-                            curRoundabout.availableSpots[roundAboutPos] = true;
+                        setDirection(UP);
+                        if (dirPathAt(0) == UP) {
+                            setState(FORWARD);
+                            setSpot(curRoundabout, roundAboutPos, true);
                         }
                         break;
                     case 2: // Left side of roundabout
                         this.curRotation = 270; // Facing left
-                        this.direction = LEFT;
-                        if (directionPath.get(0) == LEFT) {
-                            this.state = FORWARD;
-                            curRoundabout.availableSpots[roundAboutPos] = true;
+                        setDirection(LEFT);
+                        if (dirPathAt(0) == LEFT) {
+                            setState(FORWARD);
+                            setSpot(curRoundabout, roundAboutPos, true);
                         }
                         break;
                     case 3: // Bottom of roundabout
                         this.curRotation = 180; // Facing down
-                        this.direction = DOWN;
-                        if (directionPath.get(0) == DOWN) {
-                            this.state = FORWARD;
-                            curRoundabout.availableSpots[roundAboutPos] = true;
+                        setDirection(DOWN);
+                        if (dirPathAt(0) == DOWN) {
+                            setState(FORWARD);
+                            setSpot(curRoundabout, roundAboutPos, true);
                         }
                         break;
 
@@ -1062,20 +1116,20 @@ public class Vehicle {
 
                 switch (roundAboutPos) {
                     case 0: // Right side
-                        x += 16;
-                        y += 16;
+                        store.x[slot] += 16;
+                        store.y[slot] += 16;
                         break;
                     case 1: // Top
-                        y -= 16;
-                        x += 16;
+                        store.y[slot] -= 16;
+                        store.x[slot] += 16;
                         break;
                     case 2: // Left side
-                        x -= 16;
-                        y -= 16;
+                        store.x[slot] -= 16;
+                        store.y[slot] -= 16;
                         break;
                     case 3: // Bottom
-                        y += 16;
-                        x -= 16;
+                        store.y[slot] += 16;
+                        store.x[slot] -= 16;
                         break;
                 }
 
@@ -1086,41 +1140,41 @@ public class Vehicle {
                 int centerY = roundY + (Grid.GRID_SIZE / 2);
 
                 // Convert to top-left position for rectangle
-                x = centerX - (width / 4);
-                y = centerY - (length / 4);
+                store.x[slot] = centerX - (width / 4);
+                store.y[slot] = centerY - (length / 4);
 
                 // Set rotation and direction based on position
                 switch (roundAboutPos) {
                     case 0: // Right side of roundabout
                         this.curRotation = 90;  // Facing right
-                        this.direction = RIGHT;
-                        if (directionPath.get(0) == RIGHT) {
-                            this.state = FORWARD;
-                            curRoundabout.availableSpots[roundAboutPos] = true;
+                        setDirection(RIGHT);
+                        if (dirPathAt(0) == RIGHT) {
+                            setState(FORWARD);
+                            setSpot(curRoundabout, roundAboutPos, true);
                         }
                         break;
                     case 1: // Top of roundabout
                         this.curRotation = 0;   // Facing up
-                        this.direction = UP;
-                        if (directionPath.get(0) == UP) {
-                            this.state = FORWARD;
-                            curRoundabout.availableSpots[roundAboutPos] = true;
+                        setDirection(UP);
+                        if (dirPathAt(0) == UP) {
+                            setState(FORWARD);
+                            setSpot(curRoundabout, roundAboutPos, true);
                         }
                         break;
                     case 2: // Left side of roundabout
                         this.curRotation = 270; // Facing left
-                        this.direction = LEFT;
-                        if (directionPath.get(0) == LEFT) {
-                            this.state = FORWARD;
-                            curRoundabout.availableSpots[roundAboutPos] = true;
+                        setDirection(LEFT);
+                        if (dirPathAt(0) == LEFT) {
+                            setState(FORWARD);
+                            setSpot(curRoundabout, roundAboutPos, true);
                         }
                         break;
                     case 3: // Bottom of roundabout
                         this.curRotation = 180; // Facing down
-                        this.direction = DOWN;
-                        if (directionPath.get(0) == DOWN) {
-                            this.state = FORWARD;
-                            curRoundabout.availableSpots[roundAboutPos] = true;
+                        setDirection(DOWN);
+                        if (dirPathAt(0) == DOWN) {
+                            setState(FORWARD);
+                            setSpot(curRoundabout, roundAboutPos, true);
                         }
                         break;
                 }
@@ -1128,23 +1182,73 @@ public class Vehicle {
                 // offset
                 switch (roundAboutPos) {
                     case 0: // Right side
-                        x += 10;
+                        store.x[slot] += 10;
                         break;
                     case 1: // Top
-                        y -= 10;
+                        store.y[slot] -= 10;
                         break;
                     case 2: // Left side
-                        x -= 10;
+                        store.x[slot] -= 10;
                         break;
                     case 3: // Bottom
-                        y += 10;
+                        store.y[slot] += 10;
                         break;
                 }
             }
+        }
+    }
 
-            return new Step(old, new Vehicle(this));
+    /**
+     * Marks a roundabout spot free or taken once the tick is committed.
+     */
+    private void setSpot(Roundabout r, int pos, boolean free) {
+        deferred.add(() -> r.availableSpots[pos] = free);
+    }
+
+    /**
+     * Applies what the last tick did to state shared with other vehicles,
+     * like joining an intersection queue or claiming a stop light. Vehicles
+     * are committed one at a time in id order, so when two of them claim the
+     * same stop light in a tick the lower id gets it. The other one, and a
+     * vehicle spawning on top of one committed before it, are put back the
+     * way they were before the tick and try again next tick.
+     *
+     * @param nearby Spatial hash of the vehicles on the road
+     */
+    public void commit(SpatialHash nearby) {
+        if (claim != null) {
+            if (claim.isHolding == null || claim.isHolding == this) {
+                claim.isHolding = this;
+            } else {
+                rollback();
+                return;
+            }
         }
-        return null;
+        if (spawnedThisTick) {
+            if (spawnBlocked(nearby, store.x[slot], store.y[slot], true)) {
+                rollback();
+                return;
+            }
+            SimTrace.event(SimTrace.SPAWN, id, store.x[slot], store.y[slot], 0);
+        }
+        for (Runnable effect : deferred) {
+            effect.run();
+        }
+        deferred.clear();
+    }
+
+    /**
+     * Throws away the last tick, leaving the vehicle as it was at the snapshot.
+     */
+    private void rollback() {
+        store.restore(slot);
+        curRotation = rotationBackup;
+        turnPositionSet = turnPositionBackup;
+        holding = holdingBackup;
+        holdWindDown = holdWindDownBackup;
+        claim = null;
+        spawnedThisTick = false;
+        deferred.clear();
     }
 
 
@@ -1157,46 +1261,39 @@ public class Vehicle {
         boolean shouldTurn = false;
         Direction nextDirection = null;
 
-        if (directionPath.size() > 1) {
-            nextDirection = directionPath.get(1);
-            shouldTurn = nextDirection != direction;
+        if (dirPathSize() > 1) {
+            nextDirection = dirPathAt(1);
+            shouldTurn = nextDirection != getDirection();
         }
 
-        if (state == STOPPED_FORWARD || (state == STOPPED_TURNING && !shouldTurn)) {
+        if (getState() == STOPPED_FORWARD || (getState() == STOPPED_TURNING && !shouldTurn)) {
             // Change state to ensure the vehicle starts moving
-            this.state = FORWARD;
+            setState(FORWARD);
             // Move the vehicle slightly forward past the stop line
             moveForwardAfterStop();
-        } else if (state == STOPPED_TURNING || shouldTurn) {
+        } else if (getState() == STOPPED_TURNING || shouldTurn) {
             // For turns, set the turning state and let the turn handler take over
-            this.state = TURNING;
+            setState(TURNING);
             turnPositionSet = false; // Will be set in turnLeft/turnRight methods
 
-            // Ensure we're using the correct direction for determining turn direction
-            if (shouldTurn && nextDirection != null) {
-                // The vehicle needs to know it's turning
-                System.out.println("Vehicle turning at stop sign from " + direction + " to " + nextDirection);
-            }
         }
         currentIntersection = null;
 
         // Update path information
-        if (!intersectionPath.isEmpty()) {
-            System.out.println("Removed: " + intersectionPath.get(0) + " by " + this);
-            intersectionPath.remove(0);
+        if (!pathIsEmpty()) {
+            advancePath();
         }
-        if (!directionPath.isEmpty()) {
-            lastDir = directionPath.remove(0);
-            direction = directionPath.get(0);
-            System.out.println("New Direction = " + direction);
+        if (!dirPathIsEmpty()) {
+            lastDir = advanceDirPath();
+            if (!dirPathIsEmpty()) {
+                setDirection(dirPathAt(0));
+            }
         }
 
-        // Ensure car is visible and active
-        car.setVisible(true);
 
         // Set a moderate starting speed
-        speed = 5;
-        totalWaitTime += endWaitTime();
+        store.speed[slot] = 5;
+        store.totalWaitTime[slot] += endWaitTime();
     }
 
     /**
@@ -1207,27 +1304,27 @@ public class Vehicle {
         int moveDistance = 12; // Distance to move after stopping
 
         // Move vehicle forward in the current direction
-        switch (direction) {
+        switch (getDirection()) {
             case UP:
                 // Move upward (negative Y)
-                y -= moveDistance;
+                store.y[slot] -= moveDistance;
                 break;
             case DOWN:
                 // Move downward (positive Y)
-                y += moveDistance;
+                store.y[slot] += moveDistance;
                 break;
             case LEFT:
                 // Move left (negative X)
-                x -= moveDistance;
+                store.x[slot] -= moveDistance;
                 break;
             case RIGHT:
                 // Move right (positive X)
-                x += moveDistance;
+                store.x[slot] += moveDistance;
                 break;
         }
 
         // Set a moderate starting speed to ensure smooth acceleration
-        speed = 8;
+        store.speed[slot] = 8;
     }
 
     /**
@@ -1235,77 +1332,58 @@ public class Vehicle {
      * Enhanced to ensure proper state transitions and prevent getting stuck.
      */
     public void stopLightLetGo() {
-        totalWaitTime += endWaitTime();
-        System.out.println("stopSignLetGo called on vehicle at [" + x + "," + y +
-            "], state: " + state + ", direction: " + direction);
+        store.totalWaitTime[slot] += endWaitTime();
 
         // Verify we have a valid path
-        if (directionPath == null || directionPath.isEmpty()) {
+        if (dirPathIsEmpty()) {
             System.out.println("WARNING: Vehicle has no direction path!");
             // Set to FORWARD state to prevent getting stuck
-            this.state = FORWARD;
-            speed = 5;
+            setState(FORWARD);
+            store.speed[slot] = 5;
             return;
         }
 
-        // Print current path information for debugging
-        System.out.println("Current path info - path size: " + directionPath.size() +
-            ", current direction: " + direction);
-        if (directionPath.size() > 1) {
-            System.out.println("Next direction in path: " + directionPath.get(1));
-        }
-
         // Check if we need to turn based on the next direction in our path
         Direction nextDirection = null;
 
-        if (state == STOPPED_FORWARD) {
+        if (getState() == STOPPED_FORWARD) {
             // Change state to ensure the vehicle starts moving
-            CarState oldState = this.state;
-            this.state = FORWARD;
-            System.out.println("State transition: " + oldState + " -> " + this.state);
+            setState(FORWARD);
 
             // Move the vehicle slightly forward past the stop line
-            int oldX = x;
-            int oldY = y;
             moveForwardAfterStop();
-            speed = 5;
-            System.out.println("Position change: [" + oldX + "," + oldY + "] -> [" + x + "," + y + "]");
+            store.speed[slot] = 5;
             return;
-        } else if (state == STOPPED_TURNING) {
+        } else if (getState() == STOPPED_TURNING) {
             // For turns, set the turning state and let the turn handler take over
-            CarState oldState = this.state;
-            this.state = TURNING;
-            System.out.println("State transition: " + oldState + " -> " + this.state);
+            setState(TURNING);
 
             turnPositionSet = false; // Will be set in turnLeft/turnRight methods
 
         } else {
-            System.out.println("WARNING: Unexpected vehicle state: " + state);
+            System.out.println("WARNING: Unexpected vehicle state: " + getState());
             // Try to recover by setting to FORWARD state
-            this.state = FORWARD;
-            speed = 5;
+            setState(FORWARD);
+            store.speed[slot] = 5;
         }
 
 
-        // Ensure car is visible and active
-        car.setVisible(true);
 
         // Set a moderate starting speed
-        speed = 5;
-        System.out.println("Vehicle speed set to: " + speed);
+        store.speed[slot] = 5;
 
 
 
         // Update path information
-        if (!intersectionPath.isEmpty()) {
-                System.out.println("Removed: " + intersectionPath.get(0) + " by " + this);
-                intersectionPath.remove(0);
+        if (!pathIsEmpty()) {
+                advancePath();
 
         }
-        if (!directionPath.isEmpty()) {
-            lastDir = directionPath.remove(0);
-            direction = directionPath.get(0);
-            System.out.println("New Direction = " + direction);
+        if (!dirPathIsEmpty()) {
+            lastDir = advanceDirPath();
+            if (!dirPathIsEmpty()) {
+                setDirection(dirPathAt(0));
+            }
         }
     }
 
@@ -1317,7 +1395,7 @@ public class Vehicle {
      */
     public void roundAboutGo(Roundabout r) {
         int entryPoint = 0;
-        switch (direction) {
+        switch (getDirection()) {
             case UP -> entryPoint = 3;
             case RIGHT -> entryPoint = 2;
             case DOWN -> entryPoint = 1;
@@ -1326,18 +1404,18 @@ public class Vehicle {
 
         int prev = (entryPoint - 1 == -1) ? 3 : entryPoint - 1;
         if (r.getAvailableSpots()[entryPoint] && r.getAvailableSpots()[prev]) {
-            System.out.println("Entering slot:" + entryPoint);
+            // traced, but roundabout waits were never part of the wait stats
+            releaseWait();
             r.getAvailableSpots()[entryPoint] = false;
             curRoundabout = r;
             roundAboutPos = entryPoint;
-            state = ROUND_ABOUT_GO;
-            if (!intersectionPath.isEmpty()) {
-                System.out.println("Removed: " + intersectionPath.get(0) + " by " + this);
-                intersectionPath.remove(0);
+            setState(ROUND_ABOUT_GO);
+            if (!pathIsEmpty()) {
+                advancePath();
             }
-            if (!directionPath.isEmpty()) {
-                lastDir = directionPath.remove(0);
-                direction = directionPath.get(0);
+            if (!dirPathIsEmpty()) {
+                lastDir = advanceDirPath();
+                setDirection(dirPathAt(0));
             }
         }
     }
@@ -1359,168 +1437,99 @@ public class Vehicle {
      * @param timeIn The time delay
      */
     public void setTimeIn(int timeIn) {
-        this.timeIn = timeIn;
+        store.timeIn[slot] = timeIn;
     }
 
-    /**
-     * Builds a path from path arrays generated by Dijkstra's algorithm.
-     *
-     * @param previous Array of previous vertices
-     * @param start Start vertex
-     * @param target Target vertex
-     * @param intersections List of all intersections
-     */
-    private void getArrayListsFromDjikstras(int[] previous, int start, int target,
-                                            ArrayList<GridObject> intersections) {
-        if (intersectionPath == null) intersectionPath = new ArrayList<>();
-        else intersectionPath.clear();
-
-        if (directionPath == null) directionPath = new ArrayList<>();
-        else directionPath.clear();
-
-        // Use a stack to build the path in reverse order
-        Stack<GridObject> tempPath = new Stack<>();
-        int current = target;
-
-        // Trace back from target to start
-        while (current != start && current >= 0) {
-            tempPath.push(intersections.get(current));
-            current = previous[current];
-        }
-
-        // Add the starting point
-        tempPath.push(intersections.get(start));
-
-        // Convert stack to path and calculate directions
-        intersectionPath.add(tempPath.pop());
-        while (!tempPath.isEmpty()) {
-            GridObject prev = intersectionPath.get(intersectionPath.size() - 1);
-            GridObject next = tempPath.pop();
-            intersectionPath.add(next);
-
-            Direction calculatedDirection = Direction.UP; // aribitrary
-            int colDiff = Math.abs(next.getColNum() - prev.getColNum());
-            int rowDiff = Math.abs(next.getRowNum() - prev.getRowNum());
-            if (colDiff > rowDiff) {
-                if (next.getColNum() > prev.getColNum()) {
-                    calculatedDirection = Direction.RIGHT;
-                } else if (next.getColNum() < prev.getColNum()) {
-                    calculatedDirection = Direction.LEFT;
-                }
-            } else if (rowDiff > colDiff) {
-                if (next.getRowNum() > prev.getRowNum()) {
-                    calculatedDirection = Direction.DOWN;
-                } else {
-                    calculatedDirection = Direction.UP;
-                }
-            } else {
-                if (next.getColNum() > prev.getColNum()) {
-                    calculatedDirection = Direction.RIGHT;
-                } else if (next.getColNum() < prev.getColNum()) {
-                    calculatedDirection = Direction.LEFT;
-                } else if (next.getRowNum() > prev.getRowNum()) {
-                    calculatedDirection = Direction.DOWN;
-                } else {
-                    calculatedDirection = Direction.UP;
-                }
-            }
+    // The paths are read through the cursors: index 0 is the next stop we
+    // haven't passed yet, and advancing moves the cursor instead of shifting
+    // the whole list down.
 
-            // NEW: Validate direction if next is a one-way road
-            if (next instanceof OneWayRoad oneWayRoad) {
-                if (oneWayRoad.getDirection() != calculatedDirection) {
-                    System.out.println("WARNING: Path contains wrong direction on one-way road!");
-                    // Handle the error - either skip this road or find alternative
-                }
-            }
+    private GridObject pathAt(int i) {
+        return route.getStop(store.pathCursor[slot] + i);
+    }
 
-            directionPath.add(calculatedDirection);
-        }
-        System.out.println("Path found!");
+    private int pathSize() {
+        return route.stopCount() - store.pathCursor[slot];
     }
 
-    /**
-     * Implements Dijkstra's algorithm to find the shortest path.
-     *
-     * @param adjMatrix Adjacency matrix representing the road network
-     * @param startID Start vertex ID
-     * @param target Target vertex ID
-     * @param intersections List of all intersections
-     */
-    private void modifiedDjikstras(int[][] adjMatrix, int startID, int target, ArrayList<GridObject> intersections) {
-        int n = adjMatrix.length;
-        int[] distance = new int[n];
-        boolean[] visited = new boolean[n];
-        int[] previous = new int[n];
-
-        // Initialize arrays
-        for (int i = 0; i < n; i++) {
-            distance[i] = Integer.MAX_VALUE;
-            visited[i] = false;
-            previous[i] = -1;
-        }
+    private boolean pathIsEmpty() {
+        return pathSize() <= 0;
+    }
 
-        // Start vertex has distance 0
-        distance[startID] = 0;
+    private GridObject advancePath() {
+        return route.getStop(store.pathCursor[slot]++);
+    }
 
-        // Process each vertex
-        for (int count = 0; count < n - 1; count++) {
-            int u = minDistance(distance, visited, n);
+    private Direction dirPathAt(int i) {
+        return route.getDirection(store.dirCursor[slot] + i);
+    }
 
-            // Early termination if target reached
-            if (u == target) {
-                break;
-            }
+    private int dirPathSize() {
+        return route.directionCount() - store.dirCursor[slot];
+    }
 
-            visited[u] = true;
+    private boolean dirPathIsEmpty() {
+        return dirPathSize() <= 0;
+    }
 
-            // Update distances to adjacent vertices
-            for (int v = 0; v < n; v++) {
-                if (!visited[v] && adjMatrix[u][v] != 0 &&
-                    distance[u] != Integer.MAX_VALUE &&
-                    distance[u] + adjMatrix[u][v] < distance[v]) {
+    private Direction advanceDirPath() {
+        return route.getDirection(store.dirCursor[slot]++);
+    }
 
-                    distance[v] = distance[u] + adjMatrix[u][v];
-                    previous[v] = u;
-                }
-            }
-        }
+    /**
+     * Finds the shortest path from start to end.
+     *
+     * @param graph The road network
+     * @param intersections List of all intersections
+     */
+    public void findPath(RoadGraph graph, ArrayList<GridObject> intersections) {
+        findPath(new RouteSolver(graph), intersections);
+    }
 
-        // Build the path from the results
-        getArrayListsFromDjikstras(previous, startID, target, intersections);
+    /**
+     * Finds the shortest path from start to end, reusing a solver's work
+     * arrays. Use this when routing many vehicles.
+     *
+     * @param router Solver over the road network
+     * @param intersections List of all intersections
+     */
+    public void findPath(RouteSolver router, ArrayList<GridObject> intersections) {
+        setRoute(Route.find(router, startRoadID, endRoadID, intersections));
     }
 
     /**
-     * Finds the vertex with minimum distance.
+     * Puts the vehicle at the start of a route found for it, or shared with
+     * other vehicles going the same way.
      *
-     * @param distance Array of distances
-     * @param visited Array of visited flags
-     * @param n Number of vertices
-     * @return Index of the vertex with minimum distance
+     * @param route The route from the vehicle's start road to its end road
      */
-    private int minDistance(int[] distance, boolean[] visited, int n) {
-        int min = Integer.MAX_VALUE;
-        int minIndex = -1;
-
-        for (int v = 0; v < n; v++) {
-            if (!visited[v] && distance[v] <= min) {
-                min = distance[v];
-                minIndex = v;
-            }
-        }
-        return minIndex;
+    public void setRoute(Route route) {
+        this.route = route;
+        store.pathCursor[slot] = 0;
+        store.dirCursor[slot] = 0;
+    }
+
+    public Route getRoute() {
+        return route;
+    }
+
+    /**
+     * @return index in the route of the last stop the vehicle passed, the
+     * next one it's heading for is the one after
+     */
+    public int getStopIndex() {
+        return store.pathCursor[slot];
     }
 
     /**
-     * Finds the shortest path from start to end using Dijkstra's algorithm.
+     * Swaps the rest of the route, from the stop the vehicle is heading for
+     * on, for another way to the same destination. Only between ticks.
      *
-     * @param adjMatrix Adjacency matrix representing the road network
-     * @param intersections List of all intersections
+     * @param rest The new way on, starting at the next stop
      */
-    public void findPath(int[][] adjMatrix, ArrayList<GridObject> intersections) {
-        System.out.println("Dijkstra's Alg: ");
-        System.out.println("Start x: " + intersections.get(startRoadID).getColNum() + " y: " + intersections.get(startRoadID).getRowNum());
-        System.out.println("End x: " + intersections.get(endRoadID).getColNum() + " y: " + intersections.get(endRoadID).getRowNum());
-        modifiedDjikstras(adjMatrix, startRoadID, endRoadID, intersections);
+    public void reroute(Route rest) {
+        setRoute(Route.prepend(pathAt(0), rest));
+        SimTrace.event(SimTrace.REROUTE, id, store.x[slot], store.y[slot], route.stopCount());
     }
 
     /**
@@ -1559,11 +1568,11 @@ public class Vehicle {
      */
     private int[] front(int delta) {
         // Calculate the center of the vehicle
-        int centerX = x + width/2;
-        int centerY = y + length/2;
+        int centerX = store.x[slot] + width/2;
+        int centerY = store.y[slot] + length/2;
 
         // Calculate the position in front based on direction
-        switch (direction) {
+        switch (getDirection()) {
             case RIGHT:
                 return new int[]{centerX + length/2 + delta, centerY};
             case LEFT:
@@ -1576,19 +1585,19 @@ public class Vehicle {
     }
 
     /**
-     * Gets the coordinates in front of the vehicle with an offset.
-     * Accounts for vehicle's central rotation.
+     * Gets the coordinates behind the vehicle as of the last snapshot, for
+     * other vehicles to keep their distance from.
      *
      * @param delta Distance offset
-     * @return Array [x, y] of coordinates in front of the vehicle
+     * @return Array [x, y] of coordinates behind the vehicle
      */
-    private int[] back(int delta) {
+    private int[] seenBack(int delta) {
         // Calculate the center of the vehicle
-        int centerX = x + width/2;
-        int centerY = y + length/2;
+        int centerX = seenX() + width/2;
+        int centerY = seenY() + length/2;
 
         // Calculate the position in front based on direction
-        switch (direction) {
+        switch (seenDirection()) {
             case RIGHT:
                 return new int[]{centerX - length/2 - delta, centerY};
             case LEFT:
@@ -1611,11 +1620,11 @@ public class Vehicle {
      */
     private int[] left(int delta) {
         // Calculate the center of the vehicle
-        int centerX = x + width/2;
-        int centerY = y + length/2;
+        int centerX = store.x[slot] + width/2;
+        int centerY = store.y[slot] + length/2;
 
         // Calculate the position to the left based on direction
-        switch (direction) {
+        switch (getDirection()) {
             case RIGHT:
                 return new int[]{centerX, centerY - width/2 - delta};
             case LEFT:
@@ -1636,11 +1645,11 @@ public class Vehicle {
      */
     private int[] right(int delta) {
         // Calculate the center of the vehicle
-        int centerX = x + width/2;
-        int centerY = y + length/2;
+        int centerX = store.x[slot] + width/2;
+        int centerY = store.y[slot] + length/2;
 
         // Calculate the position to the right based on direction
-        switch (direction) {
+        switch (getDirection()) {
             case RIGHT:
                 return new int[]{centerX, centerY + width/2 + delta};
             case LEFT:
@@ -1654,49 +1663,51 @@ public class Vehicle {
 
 
     private void startWaitTime() {
-        isWaiting = true;
-        System.out.println("Car stopped, timer starting");
+        store.waiting[slot] = true;
+        SimTrace.event(SimTrace.STOP, id, store.x[slot], store.y[slot], 0);
     }
 
     private long endWaitTime() {
-        totalStops += 1;
-        isWaiting = false;
-        long wait = tempWaitTime;
-        tempWaitTime = 0;
-        System.out.println("Car moving again after " + wait + " ticks");
-        System.out.println("Total stops = " + totalStops);
-        System.out.println("MinWait = " + minWaitTime);
-        System.out.println("MaxWait = " + maxWaitTime);
-        if (wait > maxWaitTime) {
-            maxWaitTime = wait;
+        store.totalStops[slot] += 1;
+        long wait = releaseWait();
+        if (wait > store.maxWaitTime[slot]) {
+            store.maxWaitTime[slot] = wait;
         }
-        if (wait < minWaitTime) {
-            minWaitTime = wait;
-            System.out.println("MinWait is now: " + minWaitTime);
+        if (wait < store.minWaitTime[slot]) {
+            store.minWaitTime[slot] = wait;
         }
         return wait;
     }
 
+    // stops the wait counter without counting the wait in the stats
+    private long releaseWait() {
+        store.waiting[slot] = false;
+        long wait = store.tempWaitTime[slot];
+        store.tempWaitTime[slot] = 0;
+        SimTrace.event(SimTrace.RELEASE, id, store.x[slot], store.y[slot], (int) wait);
+        return wait;
+    }
+
     // Getters and setters
 
 
 
     public long getTotalWaitTime() {
-        return totalWaitTime;
+        return store.totalWaitTime[slot];
     }
 
 
 
     public long getMinWaitTime() {
-        return minWaitTime;
+        return store.minWaitTime[slot];
     }
 
     public long getMaxWaitTime() {
-        return maxWaitTime;
+        return store.maxWaitTime[slot];
     }
 
     public int getTotalStops() {
-        return totalStops;
+        return store.totalStops[slot];
     }
     /**
      * Gets the vehicle's direction.
@@ -1704,7 +1715,11 @@ public class Vehicle {
      * @return The current direction
      */
     public Direction getDirection() {
-        return direction;
+        return store.getDirection(slot);
+    }
+
+    private void setDirection(Direction direction) {
+        store.setDirection(slot, direction);
     }
 
     /**
@@ -1713,25 +1728,20 @@ public class Vehicle {
      * @return The current state
      */
     public CarState getState() {
-        return state;
+        return store.getState(slot);
     }
 
-    /**
-     * Gets the vehicle's visual representation.
-     *
-     * @return The Rectangle representing the vehicle
-     */
-    public Rectangle getCar() {
-        return car;
+    private void setState(CarState state) {
+        store.setState(slot, state);
     }
 
     /**
-     * Sets the vehicle's visual representation.
+     * Gets the vehicle's id, which copies of it share.
      *
-     * @param car The Rectangle to use
+     * @return The vehicle id
      */
-    public void setCar(Rectangle car) {
-        this.car = car;
+    public int getId() {
+        return id;
     }
 
     /**
@@ -1758,7 +1768,7 @@ public class Vehicle {
      * @return The x-coordinate
      */
     public int getX() {
-        return x;
+        return store.x[slot];
     }
 
     /**
@@ -1767,7 +1777,7 @@ public class Vehicle {
      * @return The y-coordinate
      */
     public int getY() {
-        return y;
+        return store.y[slot];
     }
 
     /**
@@ -1781,11 +1791,30 @@ public class Vehicle {
 
 
     public int getTripTime() {
-        return tripTime;
+        return store.tripTime[slot];
     }
 
     public boolean isSpawned() {
-        return isSpawned;
+        return store.spawned[slot];
+    }
+
+    // What other vehicles see of this one while ticking: its state as of the
+    // store's last snapshot, whether or not it has ticked yet.
+
+    private int seenX() {
+        return store.prevX[slot];
+    }
+
+    private int seenY() {
+        return store.prevY[slot];
+    }
+
+    private Direction seenDirection() {
+        return store.getPrevDirection(slot);
+    }
+
+    private CarState seenState() {
+        return store.getPrevState(slot);
     }
     public static void rushHour(int dist, int accel) {
         FOLLOWING_DISTANCE = dist;
@@ -1793,6 +1822,6 @@ public class Vehicle {
     }
 
     public int getTimeIn() {
-        return timeIn;
+        return store.timeIn[slot];
     }
 }
\ No newline at end of file
@@ -0,0 +1,287 @@
+package com.FlowLogic;
+
+import java.util.Arrays;
+
+/**
+ * Holds the per-tick state of every vehicle in parallel primitive arrays
+ * indexed by vehicle id. The simulation loop walks these arrays in order
+ * instead of chasing a separate object per vehicle, and Vehicle is just a
+ * view onto one slot.
+ *
+ * The state other vehicles can see is double buffered: snapshot() copies it
+ * into the prev arrays at the start of the vehicle phase of a tick, and while
+ * vehicles tick they only look at each other through those. Only the vehicles
+ * that tick are copied, the others aren't on the road for anyone to see.
+ */
+public class VehicleStore {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final CarState[] STATES = CarState.values();
+
+    // marks a null direction / state in the byte arrays
+    private static final byte NONE = -1;
+
+    private int size;
+
+    // position and movement
+    int[] x;
+    int[] y;
+    int[] speed;
+    byte[] direction;
+    byte[] state;
+
+    // spawn timer and trip statistics
+    int[] timeIn;
+    int[] tripTime;
+    boolean[] spawned;
+    boolean[] waiting;
+    long[] tempWaitTime;
+    long[] totalWaitTime;
+    long[] minWaitTime;
+    long[] maxWaitTime;
+    int[] totalStops;
+
+    // how far along its intersection / direction path each vehicle is
+    int[] pathCursor;
+    int[] dirCursor;
+
+    // top left corner of the intersection the vehicle last stopped at or turned in
+    int[] intersectionX;
+    int[] intersectionY;
+
+    // state as of the last snapshot, null until the first one
+    int[] prevX;
+    int[] prevY;
+    int[] prevSpeed;
+    byte[] prevDirection;
+    byte[] prevState;
+    boolean[] prevSpawned;
+    int[] prevIntersectionX;
+    int[] prevIntersectionY;
+
+    /**
+     * Creates a store with room for the given number of vehicles. It grows as
+     * needed when more are added.
+     * @param capacity - initial number of vehicle slots
+     */
+    public VehicleStore(int capacity) {
+        capacity = Math.max(capacity, 1);
+        x = new int[capacity];
+        y = new int[capacity];
+        speed = new int[capacity];
+        direction = new byte[capacity];
+        state = new byte[capacity];
+        timeIn = new int[capacity];
+        tripTime = new int[capacity];
+        spawned = new boolean[capacity];
+        waiting = new boolean[capacity];
+        tempWaitTime = new long[capacity];
+        totalWaitTime = new long[capacity];
+        minWaitTime = new long[capacity];
+        maxWaitTime = new long[capacity];
+        totalStops = new int[capacity];
+        pathCursor = new int[capacity];
+        dirCursor = new int[capacity];
+        intersectionX = new int[capacity];
+        intersectionY = new int[capacity];
+    }
+
+    /**
+     * Reserves a slot for a new vehicle that hasn't spawned yet.
+     * @return the id of the new slot
+     */
+    public int add() {
+        if (size == x.length) {
+            grow(size * 2);
+        }
+        int id = size++;
+        direction[id] = NONE;
+        state[id] = (byte) CarState.NOT_SPAWNED.ordinal();
+        minWaitTime[id] = Integer.MAX_VALUE;
+        return id;
+    }
+
+    /**
+     * Reserves a slot holding a copy of another slot's state, possibly from a
+     * different store.
+     * @param from - store to copy from
+     * @param id - slot in from to copy
+     * @return the id of the new slot
+     */
+    public int addCopy(VehicleStore from, int id) {
+        int copy = add();
+        x[copy] = from.x[id];
+        y[copy] = from.y[id];
+        speed[copy] = from.speed[id];
+        direction[copy] = from.direction[id];
+        state[copy] = from.state[id];
+        timeIn[copy] = from.timeIn[id];
+        tripTime[copy] = from.tripTime[id];
+        spawned[copy] = from.spawned[id];
+        waiting[copy] = from.waiting[id];
+        tempWaitTime[copy] = from.tempWaitTime[id];
+        totalWaitTime[copy] = from.totalWaitTime[id];
+        minWaitTime[copy] = from.minWaitTime[id];
+        maxWaitTime[copy] = from.maxWaitTime[id];
+        totalStops[copy] = from.totalStops[id];
+        pathCursor[copy] = from.pathCursor[id];
+        dirCursor[copy] = from.dirCursor[id];
+        intersectionX[copy] = from.intersectionX[id];
+        intersectionY[copy] = from.intersectionY[id];
+        return copy;
+    }
+
+    private void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        direction = Arrays.copyOf(direction, capacity);
+        state = Arrays.copyOf(state, capacity);
+        timeIn = Arrays.copyOf(timeIn, capacity);
+        tripTime = Arrays.copyOf(tripTime, capacity);
+        spawned = Arrays.copyOf(spawned, capacity);
+        waiting = Arrays.copyOf(waiting, capacity);
+        tempWaitTime = Arrays.copyOf(tempWaitTime, capacity);
+        totalWaitTime = Arrays.copyOf(totalWaitTime, capacity);
+        minWaitTime = Arrays.copyOf(minWaitTime, capacity);
+        maxWaitTime = Arrays.copyOf(maxWaitTime, capacity);
+        totalStops = Arrays.copyOf(totalStops, capacity);
+        pathCursor = Arrays.copyOf(pathCursor, capacity);
+        dirCursor = Arrays.copyOf(dirCursor, capacity);
+        intersectionX = Arrays.copyOf(intersectionX, capacity);
+        intersectionY = Arrays.copyOf(intersectionY, capacity);
+    }
+
+    /**
+     * Copies the state vehicles can see of each other into the prev arrays,
+     * for the given slots only.
+     * @param ids - slots to copy
+     * @param count - number of entries of ids to use
+     */
+    public void snapshot(int[] ids, int count) {
+        if (prevX == null || prevX.length < size) {
+            prevX = new int[x.length];
+            prevY = new int[x.length];
+            prevSpeed = new int[x.length];
+            prevDirection = new byte[x.length];
+            prevState = new byte[x.length];
+            prevSpawned = new boolean[x.length];
+            prevIntersectionX = new int[x.length];
+            prevIntersectionY = new int[x.length];
+        }
+        for (int i = 0; i < count; i++) {
+            int id = ids[i];
+            prevX[id] = x[id];
+            prevY[id] = y[id];
+            prevSpeed[id] = speed[id];
+            prevDirection[id] = direction[id];
+            prevState[id] = state[id];
+            prevSpawned[id] = spawned[id];
+            prevIntersectionX[id] = intersectionX[id];
+            prevIntersectionY[id] = intersectionY[id];
+        }
+    }
+
+    /**
+     * Puts a slot back to how it was at the last snapshot.
+     * @param id - slot to restore
+     */
+    public void restore(int id) {
+        x[id] = prevX[id];
+        y[id] = prevY[id];
+        speed[id] = prevSpeed[id];
+        direction[id] = prevDirection[id];
+        state[id] = prevState[id];
+        spawned[id] = prevSpawned[id];
+        intersectionX[id] = prevIntersectionX[id];
+        intersectionY[id] = prevIntersectionY[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Direction getDirection(int id) {
+        return direction[id] == NONE ? null : DIRECTIONS[direction[id]];
+    }
+
+    public void setDirection(int id, Direction d) {
+        direction[id] = d == null ? NONE : (byte) d.ordinal();
+    }
+
+    public CarState getState(int id) {
+        return state[id] == NONE ? null : STATES[state[id]];
+    }
+
+    /**
+     * @return whether the vehicle was on the road at the last snapshot
+     */
+    public boolean wasSpawned(int id) {
+        return prevSpawned[id];
+    }
+
+    public Direction getPrevDirection(int id) {
+        return prevDirection[id] == NONE ? null : DIRECTIONS[prevDirection[id]];
+    }
+
+    public CarState getPrevState(int id) {
+        return prevState[id] == NONE ? null : STATES[prevState[id]];
+    }
+
+    public void setState(int id, CarState s) {
+        state[id] = s == null ? NONE : (byte) s.ordinal();
+    }
+
+    /**
+     * @return the number of vehicles currently on the road
+     */
+    public int countSpawned() {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (spawned[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long sumTripTime() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += tripTime[i];
+        }
+        return total;
+    }
+
+    public long sumWaitTime() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += totalWaitTime[i];
+        }
+        return total;
+    }
+
+    public int sumStops() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += totalStops[i];
+        }
+        return total;
+    }
+
+    public long maxWaitTime() {
+        long max = 0;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, maxWaitTime[i]);
+        }
+        return max;
+    }
+
+    public long minWaitTime() {
+        long min = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            min = Math.min(min, minWaitTime[i]);
+        }
+        return min;
+    }
+}
@@ -0,0 +1,178 @@
+package testing;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.FlowLogic.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandLogTest {
+
+    @BeforeEach
+    public void setUp() {
+        Grid.GRID_SIZE = 32;
+    }
+
+    // what's on every tile, with the settings the edits below change
+    private ArrayList<String> describe(Grid g) {
+        ArrayList<String> out = new ArrayList<>();
+        for (int r = 0; r < g.getNumRows(); r++) {
+            for (int c = 0; c < g.getNumColumns(); c++) {
+                GridObject obj = g.getAtSpot(r, c);
+                String tile = obj == null ? "-" : obj.getTileType().name();
+                if (obj instanceof OneWayRoad road) {
+                    tile += ":" + road.getDirection() + ":" + road.getName() + ":" + road.getSpeedLimit()
+                        + ":" + road.isInRoad();
+                } else if (obj instanceof Building b) {
+                    tile += ":" + b.getxLength() + "x" + b.getyLength() + ":" + b.getDailyPopulation()
+                        + ":" + b.getName();
+                }
+                out.add(tile);
+            }
+            out.add("|");
+        }
+        return out;
+    }
+
+    // a crossing that snaps into an intersection, then edits on top of it
+    private List<GridCommand> edits() {
+        return List.of(
+            GridCommand.place("RoadImageRight.png", 4, 3),
+            GridCommand.place("RoadImageRight.png", 4, 5),
+            GridCommand.place("RoadImageDown.png", 3, 4),
+            GridCommand.place("RoadImageDown.png", 4, 4),
+            GridCommand.intersection(4, 4, TileType.STOP_LIGHT),
+            GridCommand.timing(4, 4, 10, 20),
+            GridCommand.rename(new int[]{4 * 9 + 3, 4 * 9 + 5}, 9, "Main"),
+            GridCommand.speedLimit(new int[]{4 * 9 + 3, 4 * 9 + 5}, 9, 25),
+            GridCommand.rotate(3, 4, Direction.UP),
+            GridCommand.place("RoadImageRight.png", 6, 0),
+            GridCommand.inRoad(6, 0, false),
+            GridCommand.place("RedBuilding.png", 7, 7),
+            GridCommand.group(List.of(GridCommand.resizeBuilding(7, 7, 2, 2),
+                GridCommand.population(7, 7, 50))),
+            GridCommand.rename(new int[]{8 * 9 + 8}, 9, "Town Hall"),
+            GridCommand.remove(4, 5),
+            GridCommand.resizeGrid(6, 6));
+    }
+
+    @Test
+    public void testUndoAndRedoEveryEdit() {
+        Grid g = new Grid(9, 9);
+        g.setTestingMode(true);
+        CommandLog history = new CommandLog(100, Long.MAX_VALUE);
+        ArrayList<ArrayList<String>> states = new ArrayList<>();
+        states.add(describe(g));
+        for (GridCommand command : edits()) {
+            history.run(g, command);
+            states.add(describe(g));
+        }
+        assertEquals(TileType.STOP_LIGHT, g.getAtSpot(4, 4).getTileType());
+        assertEquals(6, g.getNumRows());
+
+        for (int i = states.size() - 2; i >= 0; i--) {
+            assertTrue(history.undo(g));
+            assertEquals(states.get(i), describe(g), "undoing edit " + i);
+        }
+        assertFalse(history.undo(g));
+        assertEquals(9, g.getNumRows());
+
+        for (int i = 1; i < states.size(); i++) {
+            assertTrue(history.redo(g));
+            assertEquals(states.get(i), describe(g), "redoing edit " + i);
+        }
+        assertFalse(history.redo(g));
+
+        // a new edit after an undo can't be redone past
+        history.undo(g);
+        history.run(g, GridCommand.remove(4, 4));
+        assertFalse(history.canRedo());
+    }
+
+    @Test
+    public void testKeepsOnlyTheNewestEdits() {
+        Grid g = new Grid(9, 9);
+        g.setTestingMode(true);
+        CommandLog history = new CommandLog(3, Long.MAX_VALUE);
+        for (int c = 0; c < 6; c++) {
+            history.run(g, GridCommand.place("RedBuilding.png", 0, c));
+        }
+        assertEquals(3, history.size());
+        while (history.undo(g)) {
+        }
+        // the first three stay, there's no undoing them anymore
+        assertNotNull(g.getAtSpot(0, 2));
+        assertNull(g.getAtSpot(0, 3));
+
+        CommandLog small = new CommandLog(100, 1);
+        small.run(g, GridCommand.place("RedBuilding.png", 5, 5));
+        small.run(g, GridCommand.place("RedBuilding.png", 5, 6));
+        assertEquals(1, small.size());
+    }
+
+    @Test
+    public void testReplayJournalOnSave(@TempDir Path dir) throws Exception {
+        Grid g = new Grid(9, 9);
+        g.setTestingMode(true);
+        g.placeObjectByImage("RoadImageRight.png", 4, 0);
+        String save = dir.resolve("base.json").toString();
+        String journal = dir.resolve("base.journal").toString();
+        assertTrue(g.saveGridState(save));
+
+        CommandLog history = new CommandLog(100, Long.MAX_VALUE);
+        history.startJournal(journal);
+        for (GridCommand command : edits()) {
+            history.run(g, command);
+        }
+        history.undo(g);
+        history.undo(g);
+        history.redo(g);
+        history.stopJournal();
+
+        Grid loaded = new Grid(0, 0);
+        loaded.setTestingMode(true);
+        assertTrue(loaded.loadGridState(save));
+        CommandLog replayed = CommandLog.replay(loaded, journal);
+        assertEquals(describe(g), describe(loaded));
+        assertTrue(replayed.canRedo());
+    }
+
+    @Test
+    public void testUndoResizeAfterEditingSharedChunk() {
+        Grid g = new Grid(200, 200);
+        g.setTestingMode(true);
+        CommandLog history = new CommandLog(100, Long.MAX_VALUE);
+        g.placeObjectByImage("RedBuilding.png", 10, 10);
+        g.changeBuildingSize(10, 10, 2, 2);
+        g.placeObjectByImage("RoadImageRight.png", 20, 70);
+        g.placeObjectByImage("ParkingLot.png", 150, 150);
+        GridObject building = g.getAtSpot(10, 10);
+        GridObject road = g.getAtSpot(20, 70);
+        GridObject lot = g.getAtSpot(150, 150);
+
+        // the first chunk stays wholly inside, the one the road is in gets cut
+        history.run(g, GridCommand.resizeGrid(100, 100));
+        assertNull(g.getAtSpot(150, 150));
+        // empties the shared chunk
+        history.run(g, GridCommand.remove(10, 10));
+        history.run(g, GridCommand.remove(20, 70));
+
+        history.undo(g);
+        history.undo(g);
+        history.undo(g);
+        assertEquals(200, g.getNumRows());
+        assertSame(building, g.getAtSpot(10, 10));
+        assertSame(building, g.getAtSpot(11, 11));
+        assertSame(road, g.getAtSpot(20, 70));
+        assertSame(lot, g.getAtSpot(150, 150));
+
+        // and only what was cut off is kept for the undo, not the whole grid
+        history.redo(g);
+        assertTrue(history.bytes() < 1024, "kept " + history.bytes() + " bytes");
+    }
+}
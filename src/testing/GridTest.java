@@ -7,6 +7,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import static com.FlowLogic.Orientation.HORIZONTAL;
 import static com.FlowLogic.Orientation.VERTICAL;
@@ -336,4 +337,170 @@ public class GridTest {
         }
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void testLargeIntersectionGroupedAsOne() {
+        grid = new Grid(400, 400);
+        grid.setTestingMode(true);
+        // far more touching tiles than there's call stack to recurse across
+        for (int r = 0; r < 300; r++) {
+            for (int c = 0; c < 300; c++) {
+                grid.setAtSpot(r, c, new StopSign(r, c, new Road[4]));
+            }
+        }
+        // a big roundabout put together from separate tiles
+        Roundabout round = new Roundabout(new Boolean[4], 350, 350, new Road[4]);
+        grid.setAtSpot(350, 350, round);
+        grid.setAtSpot(350, 351, new Roundabout(new Boolean[4], 350, 351, new Road[4]));
+        grid.setAtSpot(351, 350, new StopSign(351, 350, new Road[4]));
+        grid.setAtSpot(351, 351, new Roundabout(new Boolean[4], 351, 351, new Road[4]));
+
+        RoadGraph graph = grid.buildRoadGraph();
+        assertEquals(2, graph.nodeCount());
+        assertEquals(0, ((Intersection) grid.getAtSpot(0, 0)).getIntersectionID());
+        assertEquals(0, ((Intersection) grid.getAtSpot(299, 299)).getIntersectionID());
+        for (int r = 350; r < 352; r++) {
+            for (int c = 350; c < 352; c++) {
+                assertSame(round, grid.getAtSpot(r, c));
+            }
+        }
+        assertEquals(1, round.getIntersectionID());
+        assertTrue(round.is2x2);
+    }
+
+    @Test
+    void testSparseTilesKeptThroughResize() {
+        grid = new Grid(2000, 2000);
+        grid.setTestingMode(true);
+        Parking first = new Parking();
+        Parking middle = new Parking();
+        Parking last = new Parking();
+        grid.addObject(last, 1999, 1999);
+        grid.addObject(middle, 1000, 70);
+        grid.addObject(first, 3, 1500);
+
+        // visited row by row, whatever order they were placed in
+        ArrayList<GridObject> found = new ArrayList<>();
+        grid.forEachObject(found::add);
+        assertEquals(3, found.size());
+        assertSame(first, found.get(0));
+        assertSame(middle, found.get(1));
+        assertSame(last, found.get(2));
+
+        grid.resize(1500, 1500);
+        assertSame(middle, grid.getAtSpot(1000, 70));
+        assertNull(grid.getAtSpot(3, 1500));
+        grid.resize(2500, 2500);
+        assertSame(middle, grid.getAtSpot(1000, 70));
+        assertNull(grid.getAtSpot(1999, 1999));
+        found.clear();
+        grid.forEachObject(found::add);
+        assertEquals(1, found.size());
+
+        grid.remove(1000, 70);
+        assertNull(grid.getAtSpot(1000, 70));
+        found.clear();
+        grid.forEachObject(found::add);
+        assertTrue(found.isEmpty());
+    }
+
+    @Test
+    void testPlacedTilesShareTheirType() {
+        grid = new Grid(5, 5);
+        grid.setTestingMode(true);
+        grid.placeObjectByImage("RoadImageRight.png", 2, 1);
+        grid.placeObjectByImage("GreenBuilding.png", 0, 0);
+        grid.placeObjectByImage("BasicIntersection.png", 4, 4);
+        grid.placeObjectByImage("BasicIntersection.png", 0, 4);
+
+        OneWayRoad road = (OneWayRoad) grid.getAtSpot(2, 1);
+        assertSame(TileType.ROAD_RIGHT, road.getTileType());
+        assertEquals("file:Images/RoadImageRight.png", road.getImageFile());
+        assertEquals(Orientation.HORIZONTAL, road.getOrientation());
+        assertEquals("file:Images/GreenBuilding.png", grid.getAtSpot(0, 0).getImageFile());
+
+        // each placed intersection gets its own roads
+        Intersection a = (Intersection) grid.getAtSpot(4, 4);
+        Intersection b = (Intersection) grid.getAtSpot(0, 4);
+        assertNotSame(a.getRoadList(), b.getRoadList());
+
+        // a road's image follows it when it's turned, and copies keep their place
+        road.rotateRoad(Direction.UP);
+        assertSame(TileType.ROAD_UP, road.getTileType());
+        assertEquals(Orientation.VERTICAL, road.getOrientation());
+        OneWayRoad copy = (OneWayRoad) new Grid(grid).getAtSpot(2, 1);
+        assertSame(road.getTileType(), copy.getTileType());
+        assertEquals(2, copy.getRowNum());
+        assertEquals(1, copy.getColNum());
+
+        // roads without a direction say which way they run, crosswalks stay crosswalks when turned
+        assertSame(TileType.ROAD_HORIZONTAL, new Road(Orientation.HORIZONTAL, 40, false, 0, 0, 0).getTileType());
+        assertSame(TileType.ROAD_VERTICAL, new OneWayRoad(Orientation.VERTICAL, null).getTileType());
+        Crosswalk cross = new Crosswalk(Orientation.VERTICAL, 40, false, 0, 0, 0, Direction.UP, 1, new ArrayList<>());
+        cross.rotateRoad(Direction.LEFT);
+        assertSame(TileType.CROSSWALK_LEFT, cross.getTileType());
+        assertEquals(Direction.LEFT, cross.getDirection());
+        assertEquals("file:Images/CrosswalkHorizontal.png", cross.getImageFile());
+    }
+
+    @Test
+    void testSnapshotKeepsGridAsItWas() {
+        grid = new Grid(200, 200);
+        grid.setTestingMode(true);
+        grid.addObject(new OneWayRoad(Orientation.HORIZONTAL, 40, false, 0, 5, 5,
+            Direction.RIGHT, 1, new ArrayList<>()), 5, 5);
+        Parking lot = new Parking();
+        grid.addObject(lot, 150, 150);
+        // a building across the corner of four chunks
+        grid.addObject(new Building(), 63, 63);
+        grid.changeBuildingSize(63, 63, 2, 2);
+
+        Grid snapshot = grid.snapshot();
+        OneWayRoad road = (OneWayRoad) grid.editAt(5, 5);
+        road.setSpeedLimit(25);
+        grid.changeDailyPopulationBuilding(64, 64, 300);
+        grid.remove(150, 150);
+        grid.addObject(new Parking(), 100, 100);
+
+        // the grid keeps its own objects, the snapshot what they were
+        assertSame(road, grid.getAtSpot(5, 5));
+        assertEquals(25, road.getSpeedLimit());
+        assertEquals(40, ((OneWayRoad) snapshot.getAtSpot(5, 5)).getSpeedLimit());
+        assertEquals(300, ((Building) grid.getAtSpot(63, 63)).getDailyPopulation());
+        Building before = (Building) snapshot.getAtSpot(63, 63);
+        assertEquals(0, before.getDailyPopulation());
+        assertSame(before, snapshot.getAtSpot(64, 64));
+        assertEquals(150, snapshot.getAtSpot(150, 150).getRowNum());
+        assertNull(snapshot.getAtSpot(100, 100));
+
+        // and editing the snapshot after undoing back to it leaves the grid alone
+        snapshot.remove(63, 63);
+        assertNull(snapshot.getAtSpot(64, 63));
+        assertNotNull(grid.getAtSpot(64, 63));
+    }
+
+    @Test
+    void testConnectedRoadCellsFollowOneRoad() {
+        grid = new Grid(3, 2000);
+        grid.setTestingMode(true);
+        // a long road right, with a lane going left beside it
+        for (int c = 0; c < 2000; c++) {
+            grid.addObject(new OneWayRoad(Orientation.HORIZONTAL, 40, false, 0, 1, c,
+                Direction.RIGHT, 1, new ArrayList<>()), 1, c);
+        }
+        for (int c = 0; c < 10; c++) {
+            grid.addObject(new OneWayRoad(Orientation.HORIZONTAL, 40, false, 0, 0, c,
+                Direction.LEFT, 1, new ArrayList<>()), 0, c);
+        }
+
+        int[] cells = grid.getConnectedRoadCells(1, 1000);
+        assertEquals(2000, cells.length);
+        assertEquals(1 * 2000 + 1000, cells[0]);
+        assertEquals(2000, Arrays.stream(cells).distinct().count());
+        for (int cell : cells) {
+            assertEquals(1, cell / 2000);
+        }
+        assertEquals(10, grid.getConnectedRoadCells(0, 5).length);
+        assertEquals(0, grid.getConnectedRoadCells(2, 5).length);
+    }
+}
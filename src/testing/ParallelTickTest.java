@@ -0,0 +1,57 @@
+package testing;
+
+import org.junit.jupiter.api.*;
+
+import com.FlowLogic.*;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelTickTest {
+
+    @BeforeEach
+    public void setUp() {
+        Grid.GRID_SIZE = 32;
+    }
+
+    // vehicle id, position, rotation and state of every record, frame by frame
+    private ArrayList<String> record(FrameLog frames) {
+        ArrayList<String> out = new ArrayList<>();
+        for (int f = 0; f < frames.frameCount(); f++) {
+            for (int i = frames.vehicleStart(f); i < frames.vehicleEnd(f); i++) {
+                if (frames.isVehicleGone(i)) {
+                    out.add("done");
+                } else {
+                    out.add(frames.getVehicleId(i) + ":" + frames.getVehicleX(i) + "," + frames.getVehicleY(i) + ","
+                        + frames.getVehicleRotation(i) + "," + frames.getVehicleState(i));
+                }
+            }
+            out.add("|");
+        }
+        return out;
+    }
+
+    private ArrayList<String> run(int threads, boolean rerouting) {
+        TrafficController tc = new TrafficController(18, 20, TestMaps.stopLightCrossing(), 42);
+        tc.setThreads(threads);
+        tc.setRerouting(rerouting);
+        return record(tc.runSimulation());
+    }
+
+    @Test
+    public void testSameResultForAnyThreadCount() {
+        ArrayList<String> single = run(1, false);
+        assertTrue(single.contains("done"), "no vehicle reached its destination");
+        assertEquals(single, run(2, false));
+        assertEquals(single, run(8, false));
+    }
+
+    @Test
+    public void testReroutingSameForAnyThreadCount() {
+        ArrayList<String> single = run(1, true);
+        assertTrue(single.contains("done"), "no vehicle reached its destination");
+        assertEquals(single, run(2, true));
+        assertEquals(single, run(8, true));
+    }
+}
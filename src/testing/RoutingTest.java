@@ -0,0 +1,230 @@
+package testing;
+
+import org.junit.jupiter.api.*;
+
+import com.FlowLogic.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoutingTest {
+
+    private Grid grid;
+    private RoadGraph graph;
+
+    @BeforeEach
+    public void setUp() {
+        Grid.GRID_SIZE = 32;
+        grid = layOut();
+        graph = grid.buildRoadGraph();
+    }
+
+    private static Grid layOut() {
+        Grid grid = new Grid(19, 19);
+        grid.setTestingMode(true);
+        // one-way avenues every fifth row and column, alternating direction,
+        // with stop signs where they cross and speed limits that vary
+        for (int r = 4; r < 19; r += 5) {
+            Direction d = r % 10 == 4 ? Direction.RIGHT : Direction.LEFT;
+            for (int c = 0; c < 19; c++) {
+                if (c % 5 != 4) {
+                    grid.addObject(new OneWayRoad(Orientation.HORIZONTAL, 20 + 10 * (c % 3), false, 0, r, c,
+                        d, 1, new ArrayList<>()), r, c);
+                }
+            }
+        }
+        for (int c = 4; c < 19; c += 5) {
+            Direction d = c % 10 == 4 ? Direction.DOWN : Direction.UP;
+            for (int r = 0; r < 19; r++) {
+                if (r % 5 != 4) {
+                    grid.addObject(new OneWayRoad(Orientation.VERTICAL, 30 + 10 * (r % 2), false, 0, r, c,
+                        d, 1, new ArrayList<>()), r, c);
+                }
+            }
+        }
+        for (int r = 4; r < 19; r += 5) {
+            for (int c = 4; c < 19; c += 5) {
+                grid.addObject(new StopSign(r, c, new Road[4]), r, c);
+            }
+            grid.addObject(new Parking(), r - 1, 1);
+            grid.addObject(new Parking(), r + 1, 17);
+        }
+        return grid;
+    }
+
+    @Test
+    public void testGuidedSearchFindsShortestPaths() {
+        RouteSolver router = new RouteSolver(graph);
+        for (int s = 0; s < graph.nodeCount(); s++) {
+            for (int t = 0; t < graph.nodeCount(); t++) {
+                router.solve(s, t);
+                int shortest = router.getDistance(t);
+                router.solveGuided(s, t);
+                assertEquals(shortest, router.getDistance(t), "from " + s + " to " + t);
+                if (shortest != Integer.MAX_VALUE) {
+                    assertTrue(graph.estimate(s, t) <= shortest, "estimate from " + s + " to " + t);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNextHopsMatchSearch() {
+        RouteSolver router = new RouteSolver(graph);
+        RouteSolver reverse = new RouteSolver(graph.reverse());
+        for (int t = 0; t < graph.nodeCount(); t++) {
+            NextHopTable table = NextHopTable.build(reverse, t);
+            for (int s = 0; s < graph.nodeCount(); s++) {
+                router.solve(s, t);
+                assertEquals(router.getDistance(t), table.getDistance(s), "from " + s + " to " + t);
+            }
+        }
+    }
+
+    @Test
+    public void testHierarchyFindsShortestPaths() {
+        ContractionHierarchy ch = ContractionHierarchy.build(graph);
+        RouteSolver router = new RouteSolver(graph);
+        for (int s = 0; s < graph.nodeCount(); s++) {
+            for (int t = 0; t < graph.nodeCount(); t++) {
+                router.solve(s, t);
+                int shortest = router.getDistance(t);
+                assertEquals(shortest, ch.distance(s, t), "from " + s + " to " + t);
+                int[] path = ch.path(s, t);
+                if (shortest == Integer.MAX_VALUE) {
+                    assertNull(path, "from " + s + " to " + t);
+                    continue;
+                }
+                // the unpacked path is made of road graph edges and is as long
+                assertEquals(s, path[0]);
+                assertEquals(t, path[path.length - 1]);
+                int length = 0;
+                for (int i = 1; i < path.length; i++) {
+                    int w = graph.getWeight(path[i - 1], path[i]);
+                    assertTrue(w > 0, "no edge " + path[i - 1] + " -> " + path[i]);
+                    length += w;
+                }
+                assertEquals(shortest, length, "path from " + s + " to " + t);
+            }
+        }
+    }
+
+    @Test
+    public void testHierarchySavedWithMap() throws IOException {
+        File map = File.createTempFile("routing", ".json");
+        File saved = new File(map.getPath() + ".ch");
+        try {
+            ContractionHierarchy built = ContractionHierarchy.forMap(map.getPath(), graph);
+            assertTrue(saved.isFile());
+            ContractionHierarchy loaded = ContractionHierarchy.load(saved.getPath(), graph);
+            assertNotNull(loaded);
+            assertEquals(built.edgeCount(), loaded.edgeCount());
+            for (int s = 0; s < graph.nodeCount(); s += 7) {
+                for (int t = 0; t < graph.nodeCount(); t++) {
+                    assertEquals(built.distance(s, t), loaded.distance(s, t));
+                }
+            }
+
+            // not used once the map has changed
+            grid.remove(4, 2);
+            assertNull(ContractionHierarchy.load(saved.getPath(), grid.buildRoadGraph()));
+        } finally {
+            map.delete();
+            saved.delete();
+        }
+    }
+
+    @Test
+    public void testGraphKeptCurrentThroughEdits() {
+        // break an avenue, add a destination, turn a road around, put down a
+        // hazard, take out an intersection, then put some of it back
+        ArrayList<Consumer<Grid>> edits = new ArrayList<>();
+        edits.add(g -> g.remove(4, 7));
+        edits.add(g -> g.addObject(new Parking(), 15, 12));
+        edits.add(g -> g.changeRoadDirection(18, 9, Direction.DOWN));
+        edits.add(g -> {
+            g.remove(14, 2);
+            g.placeObjectByImage("Hazard.png", 14, 2);
+        });
+        edits.add(g -> g.remove(9, 9));
+        edits.add(g -> {
+            g.addObject(new StopSign(9, 9, new Road[4]), 9, 9);
+            g.addObject(new OneWayRoad(Orientation.HORIZONTAL, 50, false, 0, 4, 7,
+                Direction.RIGHT, 1, new ArrayList<>()), 4, 7);
+        });
+        edits.add(g -> {
+            // grow an intersection to three tiles
+            g.remove(4, 10);
+            g.addObject(new StopSign(4, 10, new Road[4]), 4, 10);
+            g.remove(5, 9);
+            g.addObject(new StopSign(5, 9, new Road[4]), 5, 9);
+        });
+        // changes made to the roads directly
+        edits.add(g -> {
+            ((Road) g.getAtSpot(14, 6)).setSpeedLimit(70);
+            g.markChanged(14, 6);
+            ((OneWayRoad) g.getAtSpot(4, 0)).setInRoad(false);
+            g.markChanged(4, 0);
+        });
+
+        for (int i = 0; i < edits.size(); i++) {
+            edits.get(i).accept(grid);
+            RoadGraph kept = grid.buildRoadGraph();
+
+            // the same map built in one go
+            Grid fresh = layOut();
+            for (int j = 0; j <= i; j++) {
+                edits.get(j).accept(fresh);
+            }
+            assertSameGraph(fresh.buildRoadGraph(), kept, "after edit " + i);
+            for (int id = 0; id < grid.getIntersections().size(); id++) {
+                GridObject node = grid.getIntersections().get(id);
+                int nodeId = node instanceof Intersection in ? in.getIntersectionID() : ((Road) node).getIntersectionID();
+                assertEquals(id, nodeId, "after edit " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testMeasuredTimesReweightGraph() {
+        TravelTimes times = new TravelTimes(graph);
+        int u = graph.getTarget(graph.edgeStart(0));
+        int e = graph.edgeStart(u);
+        int v = graph.getTarget(e);
+        int weight = graph.getWeight(e);
+
+        // taking twice as long as the static weight, averaged towards each new time
+        times.record(u, v, 2 * weight);
+        times.record(u, v, 2 * weight + 10);
+        times.record(v, u, 1000); // not an edge, ignored
+        assertEquals(2, times.getSamples());
+
+        RoadGraph live = times.currentGraph();
+        assertEquals(graph.edgeCount(), live.edgeCount());
+        assertEquals(2 * weight + 3, live.getWeight(e));
+        // edges nobody drove are guessed at the rate the measured ones went
+        int other = graph.edgeStart(v);
+        double rate = 0.3 * (2 * weight + 10) / weight + 0.7 * 2;
+        assertEquals(Math.round(graph.getWeight(other) * rate), live.getWeight(other));
+        // the static graph is left as it was
+        assertEquals(weight, graph.getWeight(e));
+    }
+
+    private static void assertSameGraph(RoadGraph expected, RoadGraph actual, String message) {
+        assertEquals(expected.nodeCount(), actual.nodeCount(), message);
+        assertEquals(expected.edgeCount(), actual.edgeCount(), message);
+        for (int u = 0; u < expected.nodeCount(); u++) {
+            assertEquals(expected.getRow(u), actual.getRow(u), message);
+            assertEquals(expected.getCol(u), actual.getCol(u), message);
+            assertEquals(expected.edgeEnd(u) - expected.edgeStart(u), actual.edgeEnd(u) - actual.edgeStart(u), message);
+            for (int e = expected.edgeStart(u); e < expected.edgeEnd(u); e++) {
+                int v = expected.getTarget(e);
+                assertEquals(expected.getWeight(e), actual.getWeight(u, v), message + ", edge " + u + " -> " + v);
+            }
+        }
+    }
+}
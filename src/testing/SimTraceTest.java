@@ -0,0 +1,67 @@
+package testing;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.FlowLogic.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimTraceTest {
+
+    @BeforeEach
+    public void setUp() {
+        Grid.GRID_SIZE = 32;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SimTrace.disable();
+    }
+
+    @Test
+    public void testRecordsStopsAndReleases(@TempDir Path dir) throws Exception {
+        SimTrace.enable(1 << 16);
+        new TrafficController(18, 20, TestMaps.stopLightCrossing(), 42).runSimulation();
+        SimTrace.disable();
+        Path file = dir.resolve("trace.csv");
+        SimTrace.dump(file.toString());
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals("tick,event,vehicle,x,y,data", lines.get(0));
+        int spawns = 0;
+        int releases = 0;
+        long waited = 0;
+        // vehicles stopped and not released yet
+        HashMap<String, Integer> stopped = new HashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(",");
+            String vehicle = fields[2];
+            switch (fields[1]) {
+                case "SPAWN" -> spawns++;
+                case "STOP" -> {
+                    assertNull(stopped.put(vehicle, Integer.parseInt(fields[0])), "stopped twice: " + line);
+                }
+                case "RELEASE" -> {
+                    Integer stoppedAt = stopped.remove(vehicle);
+                    assertNotNull(stoppedAt, "released without stopping: " + line);
+                    int wait = Integer.parseInt(fields[5]);
+                    assertTrue(wait >= 0 && wait <= Integer.parseInt(fields[0]) - stoppedAt, line);
+                    releases++;
+                    waited += wait;
+                }
+                case "REROUTE" -> fail("traced a reroute with rerouting off: " + line);
+                default -> {
+                }
+            }
+        }
+        assertTrue(spawns > 0, "no spawns traced");
+        assertTrue(releases > 0, "no releases traced");
+        assertTrue(waited > 0, "releases traced without their wait");
+    }
+}
@@ -0,0 +1,39 @@
+package testing;
+
+import com.FlowLogic.*;
+
+import java.util.ArrayList;
+
+/**
+ * Small maps shared by the simulation tests.
+ */
+final class TestMaps {
+
+    private TestMaps() {
+    }
+
+    /**
+     * A horizontal road through a stop light at (4, 4), with a vertical road
+     * crossing it, and a parking lot off the end of each.
+     */
+    static Grid stopLightCrossing() {
+        Grid g = new Grid(9, 9);
+        g.setTestingMode(true);
+        for (int c = 0; c < 9; c++) {
+            if (c != 4) {
+                g.addObject(new OneWayRoad(Orientation.HORIZONTAL, 40, false, 0, 4, c,
+                    Direction.RIGHT, 1, new ArrayList<>()), 4, c);
+            }
+        }
+        for (int r = 0; r < 9; r++) {
+            if (r != 4) {
+                g.addObject(new OneWayRoad(Orientation.VERTICAL, 40, false, 0, r, 4,
+                    Direction.DOWN, 1, new ArrayList<>()), r, 4);
+            }
+        }
+        g.addObject(new StopLight(null, null, 10, 10, 0, 2, new Road[4], 4, 4), 4, 4);
+        g.addObject(new Parking(), 5, 8);
+        g.addObject(new Parking(), 8, 5);
+        return g;
+    }
+}